@@ -27,11 +27,14 @@ import org.b3log.latke.event.EventManager;
 import org.b3log.latke.plugin.PluginManager;
 import org.b3log.latke.repository.Transaction;
 import org.b3log.latke.servlet.AbstractServletListener;
+import org.b3log.solo.event.EventTypes;
 import org.b3log.solo.event.comment.ArticleCommentReplyNotifier;
 import org.b3log.solo.event.comment.PageCommentReplyNotifier;
+import org.b3log.solo.event.feed.FeedInvalidator;
 import org.b3log.solo.event.ping.AddArticleGoogleBlogSearchPinger;
 import org.b3log.solo.event.ping.UpdateArticleGoogleBlogSearchPinger;
 import org.b3log.solo.event.rhythm.ArticleSender;
+import org.b3log.solo.event.search.ArticleSearchIndexer;
 import org.b3log.solo.model.Preference;
 import org.b3log.latke.plugin.ViewLoadEventHandler;
 import org.b3log.latke.repository.RepositoryException;
@@ -44,6 +47,9 @@ import org.b3log.latke.util.freemarker.Templates;
 import org.b3log.solo.repository.PreferenceRepository;
 import org.b3log.solo.repository.impl.PreferenceRepositoryImpl;
 import org.b3log.solo.repository.impl.UserRepositoryImpl;
+import org.b3log.solo.search.SearchIndex;
+import org.b3log.solo.util.DataModelAssembler;
+import org.b3log.solo.util.Leaderboard;
 import org.b3log.solo.util.Skins;
 import org.b3log.solo.util.Statistics;
 import org.json.JSONObject;
@@ -52,7 +58,7 @@ import org.json.JSONObject;
  * B3log Solo servlet listener.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.7.1, May 29, 2011
+ * @version 1.0.7.6, May 24, 2012
  * @since 0.3.1
  */
 public final class SoloServletListener extends AbstractServletListener {
@@ -119,6 +125,8 @@ public final class SoloServletListener extends AbstractServletListener {
     public void contextDestroyed(final ServletContextEvent servletContextEvent) {
         super.contextDestroyed(servletContextEvent);
 
+        DataModelAssembler.shutdown();
+
         LOGGER.info("Destroyed the context");
     }
 
@@ -155,6 +163,9 @@ public final class SoloServletListener extends AbstractServletListener {
 
     @Override
     public void requestDestroyed(final ServletRequestEvent servletRequestEvent) {
+        Leaderboard.releaseChanges();
+        SearchIndex.getInstance().releaseChanges();
+
         Stopwatchs.end();
 
         LOGGER.log(Level.FINE, "Stopwatch: {0}{1}", new Object[]{Strings.LINE_SEPARATOR, Stopwatchs.getTimingStat()});
@@ -238,6 +249,12 @@ public final class SoloServletListener extends AbstractServletListener {
             eventManager.registerListener(new AddArticleGoogleBlogSearchPinger());
             eventManager.registerListener(new UpdateArticleGoogleBlogSearchPinger());
             eventManager.registerListener(new ArticleSender());
+            eventManager.registerListener(new ArticleSearchIndexer(EventTypes.ADD_ARTICLE));
+            eventManager.registerListener(new ArticleSearchIndexer(EventTypes.UPDATE_ARTICLE));
+            eventManager.registerListener(new ArticleSearchIndexer(EventTypes.REMOVE_ARTICLE));
+            eventManager.registerListener(new FeedInvalidator(EventTypes.ADD_ARTICLE));
+            eventManager.registerListener(new FeedInvalidator(EventTypes.UPDATE_ARTICLE));
+            eventManager.registerListener(new FeedInvalidator(EventTypes.REMOVE_ARTICLE));
             eventManager.registerListener(new PluginRefresher());
             eventManager.registerListener(new ViewLoadEventHandler());
         } catch (final Exception e) {
@@ -60,7 +60,7 @@ import org.json.JSONObject;
  * Symphony</a> action.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.9, Dec 29, 2011
+ * @version 1.0.1.0, May 24, 2012
  * @since 0.3.1
  */
 public final class AddArticleCommentFromSymphonyAction
@@ -246,6 +246,8 @@ public final class AddArticleCommentFromSymphonyAction
             comment.put(Comment.COMMENT_SHARP_URL, commentSharpURL);
             ret.put(Comment.COMMENT_SHARP_URL, commentSharpURL);
             comment.put(Keys.OBJECT_ID, commentId);
+            Comments.setThread(comment, originalComment);
+            Comments.escape(comment);
             commentRepository.update(commentId, comment);
             // Step 2: Update article comment count
             articleUtils.incArticleCommentCount(articleId);
@@ -15,6 +15,7 @@
  */
 package org.b3log.solo.api.metaweblog;
 
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -27,7 +28,6 @@ import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.time.DateFormatUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.annotation.RequestProcessing;
@@ -37,7 +37,7 @@ import org.b3log.latke.repository.Transaction;
 import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.servlet.HTTPRequestContext;
 import org.b3log.latke.servlet.HTTPRequestMethod;
-import org.b3log.latke.servlet.renderer.TextXMLRenderer;
+import org.b3log.latke.servlet.renderer.AbstractHTTPResponseRenderer;
 import org.b3log.solo.model.Article;
 import org.b3log.solo.model.Preference;
 import org.b3log.solo.model.Tag;
@@ -48,8 +48,8 @@ import org.b3log.solo.service.ArticleQueryService;
 import org.b3log.solo.service.PreferenceQueryService;
 import org.b3log.solo.service.TagQueryService;
 import org.b3log.solo.service.UserQueryService;
+import org.b3log.solo.util.XMLWriter;
 import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.XML;
 
@@ -71,7 +71,7 @@ import org.json.XML;
  * </p>
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.6, Feb 29, 2012
+ * @version 1.1.0.1, May 24, 2012
  * @since 0.4.0
  */
 @RequestProcessor
@@ -180,16 +180,20 @@ public final class MetaWeblogAPI {
     /**
      * MetaWeblog requests processing.
      * 
+     * <p>
+     * The method response is written by a {@link MethodResponseRenderer} 
+     * with a streaming {@link XMLWriter} directly to the response output 
+     * stream, the queried articles are not serialized into an intermediate 
+     * string.
+     * </p>
+     * 
      * @param request the specified http servlet request
      * @param response the specified http servlet response
      * @param context the specified http request context
      */
     @RequestProcessing(value = "/apis/metaweblog", method = HTTPRequestMethod.POST)
     public void metaWeblog(final HttpServletRequest request, final HttpServletResponse response, final HTTPRequestContext context) {
-        final TextXMLRenderer renderer = new TextXMLRenderer();
-        context.setRenderer(renderer);
-
-        String responseContent = null;
+        MethodResponseRenderer renderer = null;
         try {
             final ServletInputStream inputStream = request.getInputStream();
             final String xml = IOUtils.toString(inputStream, "UTF-8");
@@ -221,25 +225,22 @@ public final class MetaWeblogAPI {
             }
 
             if (METHOD_GET_USERS_BLOGS.equals(methodName)) {
-                responseContent = getUsersBlogs();
+                renderer = getUsersBlogs();
             } else if (METHOD_GET_CATEGORIES.equals(methodName)) {
-                responseContent = getCategories();
+                renderer = getCategories();
             } else if (METHOD_GET_RECENT_POSTS.equals(methodName)) {
                 final int numOfPosts = params.getJSONObject(INDEX_NUM_OF_POSTS).getJSONObject("value").getInt("int");
-                responseContent = getRecentPosts(numOfPosts);
+                renderer = getRecentPosts(numOfPosts);
             } else if (METHOD_NEW_POST.equals(methodName)) {
                 final JSONObject article = parsetPost(methodCall);
                 article.put(Article.ARTICLE_AUTHOR_EMAIL, userEmail);
                 addArticle(article);
 
-                final StringBuilder stringBuilder =
-                        new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?><methodResponse><params><param><value><string>").
-                        append(article.getString(Keys.OBJECT_ID)).append("</string></value></param></params></methodResponse>");
-                responseContent = stringBuilder.toString();
+                renderer = valueResponse("string", article.getString(Keys.OBJECT_ID));
             } else if (METHOD_GET_POST.equals(methodName)) {
                 final String postId = params.getJSONObject(INDEX_POST_ID).
                         getJSONObject("value").getString("string");
-                responseContent = getPost(postId);
+                renderer = getPost(postId);
             } else if (METHOD_EDIT_POST.equals(methodName)) {
                 final JSONObject article = parsetPost(methodCall);
                 final String postId = params.getJSONObject(INDEX_POST_ID).getJSONObject("value").getString("string");
@@ -250,19 +251,13 @@ public final class MetaWeblogAPI {
                 updateArticleRequest.put(Article.ARTICLE, article);
                 articleMgmtService.updateArticle(updateArticleRequest);
 
-                final StringBuilder stringBuilder = new StringBuilder(
-                        "<?xml version=\"1.0\" encoding=\"UTF-8\"?><methodResponse><params><param><value><string>").append(postId).
-                        append("</string></value></param></params></methodResponse>");
-                responseContent = stringBuilder.toString();
+                renderer = valueResponse("string", postId);
             } else if (METHOD_DELETE_POST.equals(methodName)) {
                 final String postId = params.getJSONObject(INDEX_POST_ID).
                         getJSONObject("value").getString("string");
                 articleMgmtService.removeArticle(postId);
 
-                final StringBuilder stringBuilder = new StringBuilder(
-                        "<?xml version=\"1.0\" encoding=\"UTF-8\"?><methodResponse><params><param><value><boolean>").append(true).append(
-                        "</boolean></value></param></params></methodResponse>");
-                responseContent = stringBuilder.toString();
+                renderer = valueResponse("boolean", "1");
             } else {
                 throw new UnsupportedOperationException("Unsupported method[name="
                                                         + methodName + "]");
@@ -270,40 +265,10 @@ public final class MetaWeblogAPI {
         } catch (final Exception e) {
             LOGGER.log(Level.SEVERE, e.getMessage(), e);
 
-            responseContent = "";
-            final StringBuilder stringBuilder =
-                    new StringBuilder(
-                    "<?xml version=\"1.0\" encoding=\"UTF-8\"?><methodResponse><fault><value><struct>").append(
-                    "<member><name>faultCode</name><value><int>500</int></value></member>").
-                    append("<member><name>faultString</name><value><string>").
-                    append(e.getMessage()).append(
-                    "</string></value></member></struct></value></fault></methodResponse>");
-            responseContent = stringBuilder.toString();
+            renderer = faultResponse(e.getMessage());
         }
 
-        renderer.setContent(responseContent);
-    }
-
-    /**
-     * Processes {@value #METHOD_GET_POST}.
-     * 
-     * @param postId the specified post id
-     * @return method response XML
-     * @throws Exception exception
-     */
-    private String getPost(final String postId) throws Exception {
-        final StringBuilder stringBuilder =
-                new StringBuilder(
-                "<?xml version=\"1.0\" encoding=\"UTF-8\"?><methodResponse><params><param><value>");
-
-        final String posts = buildPost(postId);
-
-        stringBuilder.append(posts);
-
-        stringBuilder.append(
-                "</value></param></params></methodResponse>");
-
-        return stringBuilder.toString();
+        context.setRenderer(renderer);
     }
 
     /**
@@ -318,6 +283,8 @@ public final class MetaWeblogAPI {
         try {
             articleMgmtService.addArticleInternal(article);
             transaction.commit();
+
+            articleMgmtService.invalidateForAddedArticle(article);
         } catch (final ServiceException e) {
             if (transaction.isActive()) {
                 transaction.rollback();
@@ -411,261 +378,305 @@ public final class MetaWeblogAPI {
     }
 
     /**
-     * Processes {@value #METHOD_GET_RECENT_POSTS}.
+     * Processes {@value #METHOD_GET_POST}.
      * 
-     * @param fetchSize the specified fetch size
-     * @return method response XML
+     * @param postId the specified post id
+     * @return method response renderer
      * @throws Exception exception
      */
-    private String getRecentPosts(final int fetchSize) throws Exception {
-        final StringBuilder stringBuilder =
-                new StringBuilder(
-                "<?xml version=\"1.0\" encoding=\"UTF-8\"?><methodResponse><params><param><value><array><data>");
+    private MethodResponseRenderer getPost(final String postId) throws Exception {
+        final JSONObject result = articleQueryService.getArticle(postId);
 
-        final String posts = buildRecentPosts(fetchSize);
+        if (null == result) {
+            throw new Exception("Not found article[id=" + postId + "]");
+        }
 
-        stringBuilder.append(posts);
+        final JSONObject article = result.getJSONObject(Article.ARTICLE);
+
+        final JSONArray tags = article.getJSONArray(Article.ARTICLE_TAGS_REF);
+        final String[] tagTitles = new String[tags.length()];
+        for (int i = 0; i < tags.length(); i++) {
+            tagTitles[i] = tags.getJSONObject(i).getString(Tag.TAG_TITLE);
+        }
 
-        stringBuilder.append(
-                "</data></array></value></param></params></methodResponse>");
+        return new MethodResponseRenderer() {
 
-        return stringBuilder.toString();
+            @Override
+            protected void writeParam(final XMLWriter writer)
+                    throws IOException {
+                writePost(writer, article, tagTitles, false);
+            }
+        };
     }
 
     /**
-     * Processes {@value #METHOD_GET_CATEGORIES}.
+     * Processes {@value #METHOD_GET_RECENT_POSTS}.
      * 
-     * @return method response XML
+     * @param fetchSize the specified fetch size
+     * @return method response renderer
      * @throws Exception exception
      */
-    private String getCategories() throws Exception {
-        final StringBuilder stringBuilder =
-                new StringBuilder(
-                "<?xml version=\"1.0\" encoding=\"UTF-8\"?><methodResponse><params><param><value><array><data>");
+    private MethodResponseRenderer getRecentPosts(final int fetchSize)
+            throws Exception {
+        final List<JSONObject> recentArticles =
+                articleQueryService.getRecentArticles(fetchSize);
 
-        final JSONObject preference =
-                preferenceQueryService.getPreference();
-        final String categories = buildCategories(preference);
+        return new MethodResponseRenderer() {
 
-        stringBuilder.append(categories);
+            @Override
+            protected void writeParam(final XMLWriter writer)
+                    throws IOException {
+                writer.startElement("array").startElement("data");
 
-        stringBuilder.append(
-                "</data></array></value></param></params></methodResponse>");
+                for (final JSONObject article : recentArticles) {
+                    final String[] tagTitles = article.optString(
+                            Article.ARTICLE_TAGS_REF).split(",");
+
+                    writer.startElement("value");
+                    writePost(writer, article, tagTitles, true);
+                    writer.endElement();
+                }
 
-        return stringBuilder.toString();
+                writer.endElement().endElement();
+            }
+        };
     }
 
     /**
-     * Processes {@value #METHOD_GET_USERS_BLOGS}.
+     * Processes {@value #METHOD_GET_CATEGORIES}.
      * 
-     * @return method response XML
+     * @return method response renderer
      * @throws Exception exception
      */
-    private String getUsersBlogs() throws Exception {
-        final StringBuilder stringBuilder =
-                new StringBuilder(
-                "<?xml version=\"1.0\" encoding=\"UTF-8\"?><methodResponse><params><param><value><array><data><value><struct>");
-
+    private MethodResponseRenderer getCategories() throws Exception {
         final JSONObject preference =
                 preferenceQueryService.getPreference();
-        final String blogInfo = buildBlogInfo(preference);
+        final String blogHost = "http://" + preference.getString(
+                Preference.BLOG_HOST);
 
-        stringBuilder.append(blogInfo);
+        final List<JSONObject> tags = tagQueryService.getTags();
 
-        stringBuilder.append(
-                "</struct></value></data></array></value></param></params></methodResponse>");
+        return new MethodResponseRenderer() {
+
+            @Override
+            protected void writeParam(final XMLWriter writer)
+                    throws IOException {
+                writer.startElement("array").startElement("data");
+
+                for (final JSONObject tag : tags) {
+                    final String tagTitle = tag.optString(Tag.TAG_TITLE);
+                    final String tagId = tag.optString(Keys.OBJECT_ID);
+
+                    writer.startElement("value").startElement("struct");
+                    writeMember(writer, "description", tagTitle);
+                    writeMember(writer, "title", tagTitle);
+                    writeMember(writer, "categoryid", tagId);
+                    writeMember(writer, "htmlUrl",
+                                blogHost + "/tags/" + tagTitle);
+                    writeMember(writer, "rsslUrl",
+                                blogHost + "/tag-articles-rss.do?oId="
+                                + tagId);
+                    writer.endElement().endElement();
+                }
 
-        return stringBuilder.toString();
+                writer.endElement().endElement();
+            }
+        };
     }
 
     /**
-     * Builds a post (post struct) with the specified post id.
+     * Processes {@value #METHOD_GET_USERS_BLOGS}.
      * 
-     * @param postId the specified post id
-     * @return blog info XML
-     * @throws Exception exception 
+     * @return method response renderer
+     * @throws Exception exception
      */
-    private String buildPost(final String postId) throws Exception {
-        final StringBuilder stringBuilder = new StringBuilder();
-
-        final JSONObject result = articleQueryService.getArticle(postId);
-
-        if (null == result) {
-            throw new Exception("Not found article[id=" + postId + "]");
-        }
-
-        final JSONObject article = result.getJSONObject(Article.ARTICLE);
-
-        final Date createDate =
-                (Date) article.get(Article.ARTICLE_CREATE_DATE);
-        final String articleTitle =
-                StringEscapeUtils.escapeXml(
-                article.getString(Article.ARTICLE_TITLE));
-
-        stringBuilder.append("<struct>");
+    private MethodResponseRenderer getUsersBlogs() throws Exception {
+        final JSONObject preference =
+                preferenceQueryService.getPreference();
 
-        stringBuilder.append("<member><name>dateCreated</name>").
-                append("<value><dateTime.iso8601>").append(articleTitle).
-                append(DateFormatUtils.ISO_DATETIME_TIME_ZONE_FORMAT.format(
-                createDate)).append("</dateTime.iso8601></value></member>");
+        final String blogId = preference.getString(Keys.OBJECT_ID);
+        final String blogTitle = preference.getString(Preference.BLOG_TITLE);
+        final String blogURL = "http://" + preference.getString(
+                Preference.BLOG_HOST);
 
-        stringBuilder.append("<member><name>description</name>").
-                append("<value>").append(StringEscapeUtils.escapeXml(
-                article.getString(Article.ARTICLE_CONTENT))).
-                append("</value></member>");
+        return new MethodResponseRenderer() {
 
-        stringBuilder.append("<member><name>title</name>").
-                append("<value>").append(articleTitle).
-                append("</value></member>");
+            @Override
+            protected void writeParam(final XMLWriter writer)
+                    throws IOException {
+                writer.startElement("array").startElement("data").
+                        startElement("value").startElement("struct");
 
-        stringBuilder.append("<member><name>categories</name>").
-                append("<value><array><data>");
-        final JSONArray tags =
-                article.getJSONArray(Article.ARTICLE_TAGS_REF);
-        for (int i = 0; i < tags.length(); i++) {
-            final String tagTitle = tags.getJSONObject(i).getString(
-                    Tag.TAG_TITLE);
-            stringBuilder.append("<value>").append(tagTitle).append("</value>");
-        }
-        stringBuilder.append("</data></array></value></member></struct>");
+                writeMember(writer, "blogid", blogId);
+                writeMember(writer, "url", blogURL);
+                writeMember(writer, "blogName", blogTitle);
 
-        return stringBuilder.toString();
+                writer.endElement().endElement().endElement().endElement();
+            }
+        };
     }
 
     /**
-     * Builds recent posts (array of post structs) with the specified 
-     * fetch size.
+     * Writes a post struct with the specified writer, article and tag titles.
      * 
-     * @param fetchSize the specified fetch size
-     * @return blog info XML
-     * @throws Exception exception 
-     */
-    private String buildRecentPosts(final int fetchSize)
-            throws Exception {
-
-        final StringBuilder stringBuilder = new StringBuilder();
-
-        final List<JSONObject> recentArticles =
-                articleQueryService.getRecentArticles(fetchSize);
-
-        for (final JSONObject article : recentArticles) {
-            final Date createDate =
-                    (Date) article.get(Article.ARTICLE_CREATE_DATE);
-            final String articleTitle =
-                    StringEscapeUtils.escapeXml(
-                    article.getString(Article.ARTICLE_TITLE));
-
-            stringBuilder.append("<value><struct>");
-
-            stringBuilder.append("<member><name>dateCreated</name>").
-                    append("<value><dateTime.iso8601>").append(articleTitle).
-                    append(DateFormatUtils.ISO_DATETIME_TIME_ZONE_FORMAT.format(
-                    createDate)).append("</dateTime.iso8601></value></member>");
-
-            stringBuilder.append("<member><name>description</name>").
-                    append("<value>").append(StringEscapeUtils.escapeXml(
-                    article.getString(Article.ARTICLE_CONTENT))).
-                    append("</value></member>");
-
-            stringBuilder.append("<member><name>title</name>").
-                    append("<value>").append(articleTitle).
-                    append("</value></member>");
-
-            stringBuilder.append("<member><name>postid</name>").
-                    append("<value>").append(article.getString(Keys.OBJECT_ID)).
-                    append("</value></member>");
-
-            stringBuilder.append("<member><name>categories</name>").
-                    append("<value><array><data>");
-            final String tagTitles = article.getString(Article.ARTICLE_TAGS_REF);
-            final String[] tagTitleArray = tagTitles.split(",");
-            for (int i = 0; i < tagTitleArray.length; i++) {
-                final String tagTitle = tagTitleArray[i];
-                stringBuilder.append("<value>").append(tagTitle).append(
-                        "</value>");
-            }
-            stringBuilder.append("</data></array></value></member>");
+     * @param writer the specified writer
+     * @param article the specified article
+     * @param tagTitles the specified tag titles
+     * @param withPostId whether to write the post id member
+     * @throws IOException io exception 
+     */
+    private static void writePost(final XMLWriter writer,
+                                  final JSONObject article,
+                                  final String[] tagTitles,
+                                  final boolean withPostId)
+            throws IOException {
+        final Date createDate = (Date) article.opt(Article.ARTICLE_CREATE_DATE);
+
+        writer.startElement("struct");
+
+        writer.startElement("member").element("name", "dateCreated").
+                startElement("value").element("dateTime.iso8601",
+                                              DateFormatUtils.ISO_DATETIME_TIME_ZONE_FORMAT.
+                format(createDate)).endElement().endElement();
+
+        writeMember(writer, "description",
+                    article.optString(Article.ARTICLE_CONTENT));
+        writeMember(writer, "title", article.optString(Article.ARTICLE_TITLE));
+
+        if (withPostId) {
+            writeMember(writer, "postid", article.optString(Keys.OBJECT_ID));
+        }
 
-            stringBuilder.append("</struct></value>");
+        writer.startElement("member").element("name", "categories").
+                startElement("value").startElement("array").
+                startElement("data");
+        for (int i = 0; i < tagTitles.length; i++) {
+            writer.element("value", tagTitles[i]);
         }
+        writer.endElement().endElement().endElement().endElement();
 
-        return stringBuilder.toString();
+        writer.endElement();
     }
 
     /**
-     * Builds categories (array of category info structs) with the specified 
-     * preference.
+     * Writes a member with the specified writer, name and string value.
      * 
-     * @param preference the specified preference
-     * @return blog info XML
-     * @throws Exception exception 
-     */
-    private String buildCategories(final JSONObject preference)
-            throws Exception {
-        final String blogHost = "http://" + preference.getString(
-                Preference.BLOG_HOST);
-
-        final StringBuilder stringBuilder = new StringBuilder();
-
-        final List<JSONObject> tags = tagQueryService.getTags();
-        for (final JSONObject tag : tags) {
-            final String tagTitle = StringEscapeUtils.escapeXml(
-                    tag.getString(Tag.TAG_TITLE));
-            final String tagId = tag.getString(Keys.OBJECT_ID);
-
-            stringBuilder.append("<value><struct>");
-
-            stringBuilder.append("<member><name>description</name>").
-                    append("<value>").append(tagTitle).append(
-                    "</value></member>");
-
-            stringBuilder.append("<member><name>title</name>").
-                    append("<value>").append(tagTitle).append(
-                    "</value></member>");
-
-            stringBuilder.append("<member><name>categoryid</name>").
-                    append("<value>").append(tagId).append("</value></member>");
-
-            stringBuilder.append("<member><name>htmlUrl</name>").
-                    append("<value>").append(blogHost).
-                    append("/tags/").append(tagTitle).append("</value></member>");
-
-            stringBuilder.append("<member><name>rsslUrl</name>").
-                    append("<value>").append(blogHost).
-                    append("/tag-articles-rss.do?oId=").append(tagId).
-                    append("</value></member>");
-
-            stringBuilder.append("</struct></value>");
-        }
+     * @param writer the specified writer
+     * @param name the specified name
+     * @param value the specified string value
+     * @throws IOException io exception 
+     */
+    private static void writeMember(final XMLWriter writer, final String name,
+                                    final String value) throws IOException {
+        writer.startElement("member").element("name", name).
+                element("value", value).endElement();
+    }
 
-        return stringBuilder.toString();
+    /**
+     * Creates a method response renderer with the specified type and value.
+     * 
+     * @param type the specified type, for example "string"
+     * @param value the specified value
+     * @return method response renderer
+     */
+    private static MethodResponseRenderer valueResponse(final String type,
+                                                        final String value) {
+        return new MethodResponseRenderer() {
+
+            @Override
+            protected void writeParam(final XMLWriter writer)
+                    throws IOException {
+                writer.element(type, value);
+            }
+        };
     }
 
     /**
-     * Builds blog info struct with the specified preference.
+     * Creates a fault method response renderer with the specified fault 
+     * string.
      * 
-     * @param preference the specified preference
-     * @return blog info XML
-     * @throws JSONException json exception 
-     */
-    private String buildBlogInfo(final JSONObject preference)
-            throws JSONException {
-        final String blogId = preference.getString(Keys.OBJECT_ID);
+     * @param faultString the specified fault string
+     * @return method response renderer
+     */
+    private static MethodResponseRenderer faultResponse(
+            final String faultString) {
+        return new MethodResponseRenderer() {
+
+            @Override
+            protected void writeContent(final XMLWriter writer)
+                    throws IOException {
+                writer.startElement("fault").startElement("value").
+                        startElement("struct");
+
+                writer.startElement("member").element("name", "faultCode").
+                        startElement("value").element("int", "500").
+                        endElement().endElement();
+                writer.startElement("member").element("name", "faultString").
+                        startElement("value").element("string", faultString).
+                        endElement().endElement();
+
+                writer.endElement().endElement().endElement();
+            }
 
-        final String blogTitle = StringEscapeUtils.escapeXml(
-                preference.getString(Preference.BLOG_TITLE));
+            @Override
+            protected void writeParam(final XMLWriter writer)
+                    throws IOException {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
 
-        final String blogURL = "http://" + preference.getString(
-                Preference.BLOG_HOST);
+    /**
+     * Method response renderer, writes the method response with an 
+     * {@link XMLWriter} directly to the response output stream.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     * @since 0.4.5
+     */
+    private abstract static class MethodResponseRenderer
+            extends AbstractHTTPResponseRenderer {
+
+        @Override
+        public void render(final HTTPRequestContext context) {
+            final HttpServletResponse response = context.getResponse();
+            response.setContentType("text/xml");
+            response.setCharacterEncoding("UTF-8");
+
+            try {
+                final XMLWriter writer =
+                        new XMLWriter(response.getOutputStream());
+                writer.startDocument();
+                writer.startElement("methodResponse");
+                writeContent(writer);
+                writer.endDocument();
+            } catch (final Exception e) {
+                LOGGER.log(Level.SEVERE, "Writes method response failed", e);
+            }
+        }
 
-        final StringBuilder stringBuilder = new StringBuilder(
-                "<member><name>blogid</name><value>").append(blogId).append(
-                "</value></member>");
-        stringBuilder.append("<member><name>url</name><value>").
-                append(blogURL).append("</value></member>");
-        stringBuilder.append("<member><name>blogName</name><value>").
-                append(blogTitle).append("</value></member>");
+        /**
+         * Writes the content of the method response, a single parameter by 
+         * default.
+         * 
+         * @param writer the specified writer
+         * @throws IOException io exception 
+         */
+        protected void writeContent(final XMLWriter writer)
+                throws IOException {
+            writer.startElement("params").startElement("param").
+                    startElement("value");
+            writeParam(writer);
+            writer.endElement().endElement().endElement();
+        }
 
-        return stringBuilder.toString();
+        /**
+         * Writes the value of the parameter.
+         * 
+         * @param writer the specified writer
+         * @throws IOException io exception 
+         */
+        protected abstract void writeParam(final XMLWriter writer)
+                throws IOException;
     }
 }
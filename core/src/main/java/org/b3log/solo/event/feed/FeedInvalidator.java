@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.event.feed;
+
+import org.b3log.latke.event.AbstractEventListener;
+import org.b3log.latke.event.Event;
+import org.b3log.latke.event.EventException;
+import org.b3log.solo.event.EventTypes;
+import org.b3log.solo.util.Feeds;
+import org.json.JSONObject;
+
+/**
+ * This listener is responsible for marking the cached {@linkplain Feeds feeds} dirty while adding, updating or
+ * removing an article.
+ *
+ * <p>
+ * Registers an instance for each of {@linkplain EventTypes#ADD_ARTICLE}, {@linkplain EventTypes#UPDATE_ARTICLE} and
+ * {@linkplain EventTypes#REMOVE_ARTICLE}. The dirty feeds will be rebuilt by the feed refresh cron job.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public final class FeedInvalidator extends AbstractEventListener<JSONObject> {
+
+    /**
+     * Event type.
+     */
+    private final String eventType;
+
+    /**
+     * Constructs a feed invalidator with the specified event type.
+     *
+     * @param eventType the specified event type
+     */
+    public FeedInvalidator(final String eventType) {
+        this.eventType = eventType;
+    }
+
+    /**
+     * Gets the event type, {@linkplain EventTypes#ADD_ARTICLE}, {@linkplain EventTypes#UPDATE_ARTICLE} or
+     * {@linkplain EventTypes#REMOVE_ARTICLE}.
+     *
+     * @return event type
+     */
+    @Override
+    public String getEventType() {
+        return eventType;
+    }
+
+    @Override
+    public void action(final Event<JSONObject> event) throws EventException {
+        Feeds.getInstance().invalidate();
+    }
+}
@@ -38,12 +38,12 @@ import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.util.StaticResources;
 import org.b3log.latke.util.Strings;
 import org.b3log.solo.model.Article;
-import org.b3log.solo.model.Common;
 import org.b3log.solo.model.PageTypes;
 import org.b3log.solo.processor.util.TopBars;
 import org.b3log.solo.repository.ArticleRepository;
 import org.b3log.solo.repository.impl.ArticleRepositoryImpl;
 import org.b3log.solo.util.Articles;
+import org.b3log.solo.util.Skins;
 import org.b3log.solo.util.Statistics;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -52,7 +52,7 @@ import org.json.JSONObject;
  * Page cache filter.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.9, Mar 31, 2012
+ * @version 1.0.1.1, May 24, 2012
  * @since 0.3.1
  */
 public final class PageCacheFilter implements Filter {
@@ -109,6 +109,8 @@ public final class PageCacheFilter implements Filter {
             return;
         }
 
+        Skins.reloadChangedTemplates();
+
         if (!Latkes.isPageCacheEnabled()) {
             LOGGER.log(Level.FINEST, "Page cache is disabled");
             chain.doFilter(request, response);
@@ -178,9 +180,8 @@ public final class PageCacheFilter implements Filter {
             response.setContentType("text/html");
             response.setCharacterEncoding("UTF-8");
             final PrintWriter writer = response.getWriter();
-            String cachedPageContent = cachedPageContentObject.getString(AbstractCacheablePageAction.CACHED_CONTENT);
+            final String cachedPageContent = cachedPageContentObject.getString(AbstractCacheablePageAction.CACHED_CONTENT);
             final String topBarHTML = TopBars.getTopBarHTML((HttpServletRequest) request, (HttpServletResponse) response);
-            cachedPageContent = cachedPageContent.replace(Common.TOP_BAR_REPLACEMENT_FLAG, topBarHTML);
 
 
             final String cachedTitle = cachedPageContentObject.getString(AbstractCacheablePageAction.CACHED_TITLE);
@@ -193,8 +194,9 @@ public final class PageCacheFilter implements Filter {
             final String dateString = DateFormatUtils.format(endimeMillis, "yyyy/MM/dd HH:mm:ss");
             final String msg = String.format("<!-- Cached by B3log Solo(%1$d ms), %2$s -->", endimeMillis - startTimeMillis, dateString);
             LOGGER.finer(msg);
-            cachedPageContent += Strings.LINE_SEPARATOR + msg;
-            writer.write(cachedPageContent);
+            TopBars.writePage(writer, cachedPageContent, topBarHTML);
+            writer.write(Strings.LINE_SEPARATOR);
+            writer.write(msg);
             writer.flush();
             writer.close();
         } catch (final JSONException e) {
@@ -22,7 +22,7 @@ import java.text.SimpleDateFormat;
  * This class defines all archive date model relevant keys.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.3, Jul 2, 2011
+ * @version 1.0.0.4, May 24, 2012
  */
 public final class ArchiveDate {
 
@@ -48,6 +48,13 @@ public final class ArchiveDate {
      */
     public static final String ARCHIVE_DATE_PUBLISHED_ARTICLE_COUNT =
             "archiveDatePublishedArticleCount";
+    /**
+     * Key of archive date published article posting list.
+     *
+     * @see org.b3log.solo.util.PostingList#encode()
+     */
+    public static final String ARCHIVE_DATE_PUBLISHED_ARTICLE_POSTINGS =
+            "archiveDatePublishedArticlePostings";
     /**
      * Archive date year.
      */
@@ -19,7 +19,7 @@ package org.b3log.solo.model;
  * This class defines all article model relevant keys.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.1.5, Apr 29, 2012
+ * @version 1.0.1.6, May 24, 2012
  * @since 0.3.1
  */
 public final class Article {
@@ -114,6 +114,20 @@ public final class Article {
      * @see Preference#EDITOR_TYPE
      */
     public static final String ARTICLE_EDITOR_TYPE = "articleEditorType";
+    /**
+     * Key of content HTML, rendered while saving the article if it is written in Markdown.
+     */
+    public static final String ARTICLE_CONTENT_HTML = "articleContentHTML";
+    /**
+     * Key of abstract HTML, rendered while saving the article if it is written in Markdown.
+     */
+    public static final String ARTICLE_ABSTRACT_HTML = "articleAbstractHTML";
+    /**
+     * Key of the renderer version of the content HTML and abstract HTML.
+     * 
+     * @see org.b3log.solo.util.Markdowns#RENDERER_VERSION
+     */
+    public static final String ARTICLE_HTML_VERSION = "articleHTMLVersion";
 
     /**
      * Private default constructor.
@@ -22,7 +22,7 @@ import java.text.SimpleDateFormat;
  * This class defines all comment model relevant keys.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.6, Oct 28, 2011
+ * @version 1.0.0.8, May 24, 2012
  * @since 0.3.1
  */
 public final class Comment {
@@ -39,10 +39,18 @@ public final class Comment {
      * Key of comment.
      */
     public static final String COMMENT_CONTENT = "commentContent";
+    /**
+     * Key of comment content HTML, escaped while adding the comment.
+     */
+    public static final String COMMENT_CONTENT_HTML = "commentContentHTML";
     /**
      * Key of comment name.
      */
     public static final String COMMENT_NAME = "commentName";
+    /**
+     * Key of comment name HTML, escaped while adding the comment.
+     */
+    public static final String COMMENT_NAME_HTML = "commentNameHTML";
     /**
      * Key of comment email.
      */
@@ -51,6 +59,10 @@ public final class Comment {
      * Key of comment URL.
      */
     public static final String COMMENT_URL = "commentURL";
+    /**
+     * Key of comment URL HTML, escaped while adding the comment.
+     */
+    public static final String COMMENT_URL_HTML = "commentURLHTML";
     /**
      * Key of comment sharp URL.
      */
@@ -85,6 +97,22 @@ public final class Comment {
      * Key of comment on id.
      */
     public static final String COMMENT_ON_ID = "commentOnId";
+    /**
+     * Key of comment thread id, the id of the root comment of the reply tree the comment belongs to.
+     */
+    public static final String COMMENT_THREAD_ID = "commentThreadId";
+    /**
+     * Key of comment path, ids of the comments from the root of the reply tree to the comment, separated by "/".
+     */
+    public static final String COMMENT_PATH = "commentPath";
+    /**
+     * Key of comment depth in the reply tree, {@code 0} for a root comment.
+     */
+    public static final String COMMENT_DEPTH = "commentDepth";
+    /**
+     * Key of comment cursor, the path of the last comment of a page of comments.
+     */
+    public static final String COMMENT_CURSOR = "commentCursor";
     /**
      * Date format(yyyy/MM/dd hh:mm:ss).
      */
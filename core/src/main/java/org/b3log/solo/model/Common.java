@@ -20,7 +20,7 @@ package org.b3log.solo.model;
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
  * @author <a href="mailto:dongxv.vang@gmail.com">Dongxu Wang</a>
- * @version 1.0.4.8, May 4, 2012
+ * @version 1.0.4.9, May 23, 2012
  * @since 0.3.1
  */
 public final class Common {
@@ -245,6 +245,14 @@ public final class Common {
      * Key of articles view password.
      */
     public static final String ARTICLES_VIEW_PWD = "articlesViewPwd";
+    /**
+     * Key of cursor.
+     */
+    public static final String CURSOR = "cursor";
+    /**
+     * Key of next cursor.
+     */
+    public static final String NEXT_CURSOR = "nextCursor";
 
     /**
      * Private default constructor.
@@ -19,7 +19,7 @@ package org.b3log.solo.model;
  * This class defines all page model relevant keys.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.5, Apr 29, 2012
+ * @version 1.0.0.6, May 24, 2012
  * @since 0.3.1
  */
 public final class Page {
@@ -101,6 +101,16 @@ public final class Page {
      * @see Preference#EDITOR_TYPE
      */
     public static final String PAGE_EDITOR_TYPE = "pageEditorType";
+    /**
+     * Key of content HTML, rendered while saving the page if it is written in Markdown.
+     */
+    public static final String PAGE_CONTENT_HTML = "pageContentHTML";
+    /**
+     * Key of the renderer version of the content HTML.
+     * 
+     * @see org.b3log.solo.util.Markdowns#RENDERER_VERSION
+     */
+    public static final String PAGE_HTML_VERSION = "pageHTMLVersion";
 
     /**
      * Private default constructor.
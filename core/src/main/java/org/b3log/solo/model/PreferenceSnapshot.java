@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import org.b3log.latke.Keys;
+import org.b3log.latke.util.CollectionUtils;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Immutable snapshot of the user preference.
+ *
+ * <p>
+ * Holds a private copy of the preference with the derived data parsed once: signs (by id), skins, time zone and
+ * article list style. A snapshot is never changed after constructed, so it is shared by all request threads without
+ * locking, a preference update swaps in a new snapshot.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ * @see org.b3log.solo.service.PreferenceQueryService#getPreferenceSnapshot()
+ */
+public final class PreferenceSnapshot {
+
+    /**
+     * Id of the default sign.
+     */
+    public static final String DEFAULT_SIGN_ID = "1";
+    /**
+     * Preference (private copy).
+     */
+    private final JSONObject preference;
+    /**
+     * Signs indexed by id, in the configured order.
+     */
+    private final Map<String, JSONObject> signs;
+    /**
+     * Default sign, {@code null} if not found.
+     */
+    private final JSONObject defaultSign;
+    /**
+     * Skins.
+     */
+    private final List<JSONObject> skins;
+    /**
+     * Time zone.
+     */
+    private final TimeZone timeZone;
+    /**
+     * Article list style.
+     */
+    private final ArticleListStyle articleListStyle;
+    /**
+     * Generation, {@code null} if the preference repository cache is disabled.
+     */
+    private final Object generation;
+
+    /**
+     * Constructs a snapshot of the specified preference.
+     *
+     * @param preference the specified preference, it will not be referenced by the snapshot
+     * @param generation the specified generation
+     * @throws JSONException if the signs or skins of the specified preference are malformed
+     */
+    public PreferenceSnapshot(final JSONObject preference, final Object generation) throws JSONException {
+        this.preference = copy(preference);
+        this.generation = generation;
+
+        final Map<String, JSONObject> signMap = new LinkedHashMap<String, JSONObject>();
+        final JSONArray signArray = new JSONArray(preference.optString(Preference.SIGNS, "[]"));
+        for (int i = 0; i < signArray.length(); i++) {
+            final JSONObject sign = signArray.getJSONObject(i);
+            signMap.put(sign.optString(Keys.OBJECT_ID), sign);
+        }
+        signs = Collections.unmodifiableMap(signMap);
+        defaultSign = signMap.get(DEFAULT_SIGN_ID);
+
+        final JSONArray skinArray = new JSONArray(preference.optString(Skin.SKINS, "[]"));
+        skins = Collections.unmodifiableList(CollectionUtils.jsonArrayToList(skinArray));
+
+        timeZone = TimeZone.getTimeZone(preference.optString(Preference.TIME_ZONE_ID, Preference.Default.DEFAULT_TIME_ZONE));
+        articleListStyle = ArticleListStyle.of(preference.optString(Preference.ARTICLE_LIST_STYLE));
+    }
+
+    /**
+     * Gets the preference.
+     *
+     * @return preference (copy)
+     */
+    public JSONObject getPreference() {
+        return copy(preference);
+    }
+
+    /**
+     * Gets a string preference value by the specified key.
+     *
+     * @param key the specified key
+     * @return value, returns {@code ""} if not found
+     */
+    public String getString(final String key) {
+        return preference.optString(key);
+    }
+
+    /**
+     * Gets an int preference value by the specified key.
+     *
+     * @param key the specified key
+     * @return value, returns {@code 0} if not found
+     */
+    public int getInt(final String key) {
+        return preference.optInt(key);
+    }
+
+    /**
+     * Gets a boolean preference value by the specified key.
+     *
+     * @param key the specified key
+     * @return value, returns {@code false} if not found
+     */
+    public boolean getBoolean(final String key) {
+        return preference.optBoolean(key);
+    }
+
+    /**
+     * Gets the sign specified by the given sign id.
+     *
+     * @param signId the given sign id
+     * @return sign (copy), returns the default sign (which oId is "1") if not found
+     * @throws IllegalStateException if neither the sign nor the default sign found
+     */
+    public JSONObject getSign(final String signId) {
+        JSONObject ret = signs.get(signId);
+        if (null == ret) {
+            ret = defaultSign;
+        }
+
+        if (null == ret) {
+            throw new IllegalStateException("Can not find the default sign which id equals to " + DEFAULT_SIGN_ID);
+        }
+
+        return copy(ret);
+    }
+
+    /**
+     * Determines whether the sign specified by the given sign id exists.
+     *
+     * @param signId the given sign id
+     * @return {@code true} if it exists, returns {@code false} otherwise
+     */
+    public boolean hasSign(final String signId) {
+        return signs.containsKey(signId);
+    }
+
+    /**
+     * Gets the signs.
+     *
+     * @return signs (copies), in the configured order
+     */
+    public JSONArray getSigns() {
+        final JSONArray ret = new JSONArray();
+        for (final JSONObject sign : signs.values()) {
+            ret.put(copy(sign));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the skins.
+     *
+     * @return skins (copies)
+     */
+    public List<JSONObject> getSkins() {
+        final List<JSONObject> ret = new ArrayList<JSONObject>(skins.size());
+        for (final JSONObject skin : skins) {
+            ret.add(copy(skin));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the time zone.
+     *
+     * @return time zone (copy)
+     */
+    public TimeZone getTimeZone() {
+        return (TimeZone) timeZone.clone();
+    }
+
+    /**
+     * Gets the article list style.
+     *
+     * @return article list style
+     */
+    public ArticleListStyle getArticleListStyle() {
+        return articleListStyle;
+    }
+
+    /**
+     * Determines whether this snapshot is of the specified generation.
+     *
+     * @param generation the specified generation
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    public boolean isGeneration(final Object generation) {
+        return null == generation ? null == this.generation : generation.equals(this.generation);
+    }
+
+    /**
+     * Makes a shallow copy of the specified object.
+     *
+     * @param object the specified object
+     * @return copy
+     */
+    private static JSONObject copy(final JSONObject object) {
+        try {
+            return new JSONObject(object, CollectionUtils.jsonArrayToArray(object.names(), String[].class));
+        } catch (final JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Article list style.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     * @see Preference#ARTICLE_LIST_STYLE
+     */
+    public enum ArticleListStyle {
+
+        /**
+         * Title only.
+         */
+        TITLE_ONLY("titleOnly"),
+        /**
+         * Title and abstract.
+         */
+        TITLE_AND_ABSTRACT("titleAndAbstract"),
+        /**
+         * Title and content.
+         */
+        TITLE_AND_CONTENT("titleAndContent");
+        /**
+         * Styles indexed by value.
+         */
+        private static final Map<String, ArticleListStyle> STYLES = new HashMap<String, ArticleListStyle>();
+
+        static {
+            for (final ArticleListStyle style : values()) {
+                STYLES.put(style.value, style);
+            }
+        }
+        /**
+         * Preference value.
+         */
+        private final String value;
+
+        /**
+         * Constructs an article list style with the specified preference value.
+         *
+         * @param value the specified preference value
+         */
+        private ArticleListStyle(final String value) {
+            this.value = value;
+        }
+
+        /**
+         * Gets the preference value.
+         *
+         * @return preference value
+         */
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * Gets the article list style of the specified preference value.
+         *
+         * @param value the specified preference value
+         * @return article list style, returns {@link #TITLE_AND_ABSTRACT} if the specified value is unknown
+         */
+        public static ArticleListStyle of(final String value) {
+            final ArticleListStyle ret = STYLES.get(value);
+
+            return null == ret ? TITLE_AND_ABSTRACT : ret;
+        }
+    }
+}
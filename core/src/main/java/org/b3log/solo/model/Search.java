@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.model;
+
+/**
+ * This class defines all search model relevant keys.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.2, May 24, 2012
+ * @since 0.4.5
+ */
+public final class Search {
+
+    /**
+     * Key of search keyword.
+     */
+    public static final String KEYWORD = "keyword";
+    /**
+     * Key of search hits.
+     */
+    public static final String SEARCH_HITS = "searchHits";
+    /**
+     * Key of search index ready, {@code false} if the index is being built.
+     */
+    public static final String SEARCH_INDEX_READY = "searchIndexReady";
+    /**
+     * Key of search hit count.
+     */
+    public static final String SEARCH_HIT_COUNT = "searchHitCount";
+    /**
+     * Key of search hit type, "article" or "page".
+     */
+    public static final String SEARCH_HIT_TYPE = "searchHitType";
+    /**
+     * Key of search hit title.
+     */
+    public static final String SEARCH_HIT_TITLE = "searchHitTitle";
+    /**
+     * Key of search hit permalink.
+     */
+    public static final String SEARCH_HIT_PERMALINK = "searchHitPermalink";
+    /**
+     * Key of search hit excerpt.
+     */
+    public static final String SEARCH_HIT_EXCERPT = "searchHitExcerpt";
+    /**
+     * Key of search hit score.
+     */
+    public static final String SEARCH_HIT_SCORE = "searchHitScore";
+    /**
+     * Search segment.
+     */
+    public static final String SEARCH_SEGMENT = "searchSegment";
+    /**
+     * Key of search segment data (Base64 encoded).
+     */
+    public static final String SEARCH_SEGMENT_DATA = "searchSegmentData";
+    /**
+     * Key of search segment deletes, comma separated deleted document numbers in radix 36.
+     */
+    public static final String SEARCH_SEGMENT_DELETES = "searchSegmentDeletes";
+    /**
+     * Key of search segment build cursor, the progress of building the index recorded by the segment persisted first
+     * while building, an empty string for the others.
+     */
+    public static final String SEARCH_SEGMENT_BUILD_CURSOR = "searchSegmentBuildCursor";
+
+    /**
+     * Private default constructor.
+     */
+    private Search() {
+    }
+}
@@ -19,7 +19,7 @@ package org.b3log.solo.model;
  * This class defines all tag model relevant keys.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.7, Dec 3, 2010
+ * @version 1.0.0.8, May 24, 2012
  */
 public final class Tag {
 
@@ -44,6 +44,10 @@ public final class Tag {
      */
     public static final String TAG_PUBLISHED_REFERENCE_COUNT =
             "tagPublishedRefCount";
+    /**
+     * Key of tag published article postings, see {@link org.b3log.solo.util.PostingList#encode()}.
+     */
+    public static final String TAG_PUBLISHED_ARTICLE_POSTINGS = "tagPublishedArticlePostings";
 
     /**
      * Private default constructor.
@@ -15,95 +15,24 @@
  */
 package org.b3log.solo.model.feed.atom;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.TimeZone;
 import org.apache.commons.lang.time.DateFormatUtils;
+import org.b3log.solo.util.XMLWriter;
 
 /**
  * Entry.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.0.0, Sep 12, 2011
+ * @version 1.2.0.0, May 24, 2012
  * @since 0.3.1
  */
 public final class Entry {
 
-    /**
-     * Link variable.
-     */
-    private static final String LINK_VARIABLE = "${link}";
-    /**
-     * Start title element.
-     */
-    private static final String START_TITLE_ELEMENT = "<title type=\"text\">";
-    /**
-     * End title element.
-     */
-    private static final String END_TITLE_ELEMENT = "</title>";
-    /**
-     * Start author element.
-     */
-    private static final String START_AUTHOR_ELEMENT = "<author>";
-    /**
-     * End author element.
-     */
-    private static final String END_AUTHOR_ELEMENT = "</author>";
-    /**
-     * Start name element.
-     */
-    private static final String START_NAME_ELEMENT = "<name>";
-    /**
-     * End name element.
-     */
-    private static final String END_NAME_ELEMENT = "</name>";
-    /**
-     * Start URI element.
-     */
-    private static final String START_URI_ELEMENT = "<uri>";
-    /**
-     * End URI element.
-     */
-    private static final String END_URI_ELEMENT = "</uri>";
-    /**
-     * Start entry element.
-     */
-    private static final String START_ENTRY_ELEMENT = "<entry>";
-    /**
-     * End entry element.
-     */
-    private static final String END_ENTRY_ELEMENT = "</entry>";
-    /**
-     * Start id element.
-     */
-    private static final String START_ID_ELEMENT = "<id>";
-    /**
-     * End id element.
-     */
-    private static final String END_ID_ELEMENT = "</id>";
-    /**
-     * Start summary element.
-     */
-    private static final String START_SUMMARY_ELEMENT = "<summary type=\"html\">";
-    /**
-     * End summary element.
-     */
-    private static final String END_SUMMARY_ELEMENT = "</summary>";
-    /**
-     * Link element.
-     */
-    private static final String LINK_ELEMENT =
-                                "<link href=\"" + LINK_VARIABLE + "\" />";
-    /**
-     * Start updated element.
-     */
-    private static final String START_UPDATED_ELEMENT = "<updated>";
-    /**
-     * End updated element.
-     */
-    private static final String END_UPDATED_ELEMENT = "</updated>";
     /**
      * Id.
      */
@@ -281,47 +210,35 @@ public final class Entry {
         categories.add(category);
     }
 
-    @Override
-    public String toString() {
-        final StringBuilder stringBuilder = new StringBuilder();
-
-        stringBuilder.append(START_ENTRY_ELEMENT).append(START_TITLE_ELEMENT);
-        stringBuilder.append(title);
-        stringBuilder.append(END_TITLE_ELEMENT);
+    /**
+     * Writes this entry with the specified writer.
+     *
+     * @param writer the specified writer
+     * @throws IOException io exception
+     */
+    public void write(final XMLWriter writer) throws IOException {
+        writer.startElement("entry");
 
-        stringBuilder.append(START_AUTHOR_ELEMENT);
-        stringBuilder.append(START_NAME_ELEMENT);
-        stringBuilder.append(author);
-        stringBuilder.append(END_NAME_ELEMENT);
-        stringBuilder.append(START_URI_ELEMENT);
-        stringBuilder.append(uri);
-        stringBuilder.append(END_URI_ELEMENT);
-        stringBuilder.append(END_AUTHOR_ELEMENT);
+        writer.startElement("title").attribute("type", "text").text(title).endElement();
 
+        writer.startElement("author").element("name", author);
+        if (null != uri) {
+            writer.element("uri", uri);
+        }
+        writer.endElement();
 
         for (final Category category : categories) {
-            stringBuilder.append(category.toString());
+            category.write(writer);
         }
 
-        stringBuilder.append(LINK_ELEMENT.replace(LINK_VARIABLE, link));
-
-        stringBuilder.append(START_ID_ELEMENT);
-        stringBuilder.append(id);
-        stringBuilder.append(END_ID_ELEMENT);
-
-        stringBuilder.append(START_UPDATED_ELEMENT);
-        stringBuilder.append(DateFormatUtils.format(// using ISO-8601 instead of RFC-3339
+        writer.startElement("link").attribute("href", link).endElement();
+        writer.element("id", id);
+        writer.element("updated", DateFormatUtils.format(// using ISO-8601 instead of RFC-3339
                 updated,
                 DateFormatUtils.ISO_DATETIME_TIME_ZONE_FORMAT.getPattern(),
                 TimeZone.getTimeZone(Feed.TIME_ZONE_ID)));
-        stringBuilder.append(END_UPDATED_ELEMENT);
-
-        stringBuilder.append(START_SUMMARY_ELEMENT);
-        stringBuilder.append(summary);
-        stringBuilder.append(END_SUMMARY_ELEMENT);
-
-        stringBuilder.append(END_ENTRY_ELEMENT);
+        writer.startElement("summary").attribute("type", "html").text(summary).endElement();
 
-        return stringBuilder.toString();
+        writer.endElement();
     }
 }
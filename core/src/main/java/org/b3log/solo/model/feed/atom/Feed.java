@@ -15,11 +15,14 @@
  */
 package org.b3log.solo.model.feed.atom;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
 import org.apache.commons.lang.time.DateFormatUtils;
+import org.b3log.solo.util.XMLWriter;
 
 /**
  * Feed.
@@ -29,8 +32,13 @@ import org.apache.commons.lang.time.DateFormatUtils;
  * details.
  * </p>
  *
+ * <p>
+ * Texts (title, subtitle, author, etc.) are plain texts, they will be escaped
+ * while {@linkplain #write(XMLWriter) writing}.
+ * </p>
+ *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.0.1, Nov 19, 2011
+ * @version 1.2.0.0, May 24, 2012
  * @see Entry
  * @see Category
  * @since 0.3.1
@@ -65,79 +73,10 @@ public final class Feed {
      * Entries.
      */
     private List<Entry> entries = new ArrayList<Entry>();
-    /**
-     * Link variable.
-     */
-    private static final String LINK_VARIABLE = "${link}";
     /**
      * Time zone id.
      */
     public static final String TIME_ZONE_ID = "Asia/Shanghai";
-    /**
-     * Start document.
-     */
-    private static final String START_DOCUMENT = "<?xml version=\"1.0\"?>";
-    /**
-     * Start feed element.
-     */
-    private static final String START_FEED_ELEMENT =
-                                "<feed xmlns=\"http://www.w3.org/2005/Atom\">";
-    /**
-     * End feed element.
-     */
-    private static final String END_FEED_ELEMENT = "</feed>";
-    /**
-     * Start id element.
-     */
-    private static final String START_ID_ELEMENT = "<id>";
-    /**
-     * End if element.
-     */
-    private static final String END_ID_ELEMENT = "</id>";
-    /**
-     * Start title element.
-     */
-    private static final String START_TITLE_ELEMENT = "<title type=\"text\">";
-    /**
-     * End title element.
-     */
-    private static final String END_TITLE_ELEMENT = "</title>";
-    /**
-     * Start subtitle element.
-     */
-    private static final String START_SUBTITLE_ELEMENT = "<subtitle type=\"text\"> ";
-    /**
-     * End subtitle element.
-     */
-    private static final String END_SUBTITLE_ELEMENT = "</subtitle>";
-    /**
-     * Start updated element.
-     */
-    private static final String START_UPDATED_ELEMENT = "<updated>";
-    /**
-     * End updated element.
-     */
-    private static final String END_UPDATED_ELEMENT = "</updated>";
-    /**
-     * Start author element.
-     */
-    private static final String START_AUTHOR_ELEMENT = "<author>";
-    /**
-     * End author element.
-     */
-    private static final String END_AUTHOR_ELEMENT = "</author>";
-    /**
-     * Start name element.
-     */
-    private static final String START_NAME_ELEMENT = "<name>";
-    /**
-     * End name element.
-     */
-    private static final String END_NAME_ELEMENT = "</name>";
-    /**
-     * Link element.
-     */
-    private static final String LINK_ELEMENT = "<link href=\"" + LINK_VARIABLE + "\" rel=\"self\" " + "type=\"application/atom+xml\" />";
 
     /**
      * Gets the id.
@@ -256,45 +195,46 @@ public final class Feed {
         entries.add(entry);
     }
 
-    @Override
-    public String toString() {
-        final StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append(START_DOCUMENT);
-        stringBuilder.append(START_FEED_ELEMENT);
-
-        stringBuilder.append(START_ID_ELEMENT);
-        stringBuilder.append(id);
-        stringBuilder.append(END_ID_ELEMENT);
-
-        stringBuilder.append(START_TITLE_ELEMENT);
-        stringBuilder.append(title);
-        stringBuilder.append(END_TITLE_ELEMENT);
-
-        stringBuilder.append(START_SUBTITLE_ELEMENT);
-        stringBuilder.append(subtitle);
-        stringBuilder.append(END_SUBTITLE_ELEMENT);
+    /**
+     * Writes this feed as a document with the specified writer.
+     *
+     * @param writer the specified writer
+     * @throws IOException io exception
+     */
+    public void write(final XMLWriter writer) throws IOException {
+        writer.startDocument();
+        writer.startElement("feed").attribute("xmlns", "http://www.w3.org/2005/Atom");
 
-        stringBuilder.append(START_UPDATED_ELEMENT);
-        stringBuilder.append(DateFormatUtils.format(// using ISO-8601 instead of RFC-3339
+        writer.element("id", id);
+        writer.startElement("title").attribute("type", "text").text(title).endElement();
+        writer.startElement("subtitle").attribute("type", "text").text(subtitle).endElement();
+        writer.element("updated", DateFormatUtils.format(// using ISO-8601 instead of RFC-3339
                 updated,
                 DateFormatUtils.ISO_DATETIME_TIME_ZONE_FORMAT.getPattern(),
                 TimeZone.getTimeZone(TIME_ZONE_ID)));
-        stringBuilder.append(END_UPDATED_ELEMENT);
 
-        stringBuilder.append(START_AUTHOR_ELEMENT);
-        stringBuilder.append(START_NAME_ELEMENT);
-        stringBuilder.append(author);
-        stringBuilder.append(END_NAME_ELEMENT);
-        stringBuilder.append(END_AUTHOR_ELEMENT);
+        writer.startElement("author").element("name", author).endElement();
 
-        stringBuilder.append(LINK_ELEMENT.replace(LINK_VARIABLE, link));
+        writer.startElement("link").attribute("href", link).attribute("rel", "self").
+                attribute("type", "application/atom+xml").endElement();
 
         for (final Entry entry : entries) {
-            stringBuilder.append(entry.toString());
+            entry.write(writer);
         }
 
-        stringBuilder.append(END_FEED_ELEMENT);
+        writer.endDocument();
+    }
+
+    @Override
+    public String toString() {
+        final StringWriter ret = new StringWriter();
+
+        try {
+            write(new XMLWriter(ret));
+        } catch (final IOException e) {
+            throw new IllegalStateException(e); // Never happens on a string writer
+        }
 
-        return stringBuilder.toString();
+        return ret.toString();
     }
 }
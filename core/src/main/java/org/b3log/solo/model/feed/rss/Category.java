@@ -15,20 +15,18 @@
  */
 package org.b3log.solo.model.feed.rss;
 
+import java.io.IOException;
+import org.b3log.solo.util.XMLWriter;
+
 /**
  * Category.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.0.0, Sep 12, 2011
+ * @version 1.2.0.0, May 24, 2012
  * @since 0.3.1
  */
 public final class Category {
 
-    /**
-     * Category element.
-     */
-    private static final String CATEGORY_ELEMENT =
-            "<category>${term}</category>";
     /**
      * Term.
      */
@@ -52,8 +50,13 @@ public final class Category {
         this.term = term;
     }
 
-    @Override
-    public String toString() {
-        return CATEGORY_ELEMENT.replace("${term}", term);
+    /**
+     * Writes this category with the specified writer.
+     *
+     * @param writer the specified writer
+     * @throws IOException io exception
+     */
+    public void write(final XMLWriter writer) throws IOException {
+        writer.element("category", term);
     }
 }
@@ -15,10 +15,13 @@
  */
 package org.b3log.solo.model.feed.rss;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import org.apache.commons.lang.time.DateFormatUtils;
+import org.b3log.solo.util.XMLWriter;
 
 /**
  * RSS 2.0 channel.
@@ -28,8 +31,13 @@ import org.apache.commons.lang.time.DateFormatUtils;
  * for more details.
  * </p>
  *
+ * <p>
+ * Texts (title, description, etc.) are plain texts, they will be escaped 
+ * while {@linkplain #write(XMLWriter) writing}.
+ * </p>
+ *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.0.1, Nov 19, 2011
+ * @version 1.2.0.0, May 24, 2012
  * @see Item
  * @see Category
  * @since 0.3.1
@@ -72,76 +80,6 @@ public final class Channel {
      * Time zone id.
      */
     public static final String TIME_ZONE_ID = "Asia/Shanghai";
-    /**
-     * Start.
-     */
-    private static final String START =
-            "<?xml version='1.0' encoding='UTF-8'?><rss version=\"2.0\" "
-            + "xmlns:atom=\"http://www.w3.org/2005/Atom\"><channel>";
-    /**
-     * End.
-     */
-    private static final String END = "</channel></rss>";
-    /**
-     * Start title element.
-     */
-    private static final String START_TITLE_ELEMENT = "<title>";
-    /**
-     * End title element.
-     */
-    private static final String END_TITLE_ELEMENT = "</title>";
-    /**
-     * Start link element.
-     */
-    private static final String START_LINK_ELEMENT = "<link>";
-    /**
-     * Atom link variable.
-     */
-    private static final String ATOM_LINK_VARIABLE = "${atomLink}";
-    /**
-     * End link element.
-     */
-    private static final String END_LINK_ELEMENT = "</link>";
-    /**
-     * Atom link element.
-     */
-    private static final String ATOM_LINK_ELEMENT =
-            "<atom:link href=\""
-            + ATOM_LINK_VARIABLE
-            + "\" rel=\"self\" type=\"application/rss+xml\" />";
-    /**
-     * Start description element.
-     */
-    private static final String START_DESCRIPTION_ELEMENT = "<description>";
-    /**
-     * End description element.
-     */
-    private static final String END_DESCRIPTION_ELEMENT = "</description>";
-    /**
-     * Start generator element.
-     */
-    private static final String START_GENERATOR_ELEMENT = "<generator>";
-    /**
-     * End generator element.
-     */
-    private static final String END_GENERATOR_ELEMENT = "</generator>";
-    /**
-     * Start language element.
-     */
-    private static final String START_LANGUAGE_ELEMENT = "<language>";
-    /**
-     * End language element.
-     */
-    private static final String END_LANGUAGE_ELEMENT = "</language>";
-    /**
-     * Start last build date element.
-     */
-    private static final String START_LAST_BUILD_DATE_ELEMENT =
-            "<lastBuildDate>";
-    /**
-     * End last build date  element.
-     */
-    private static final String END_LAST_BUILD_DATE_ELEMENT = "</lastBuildDate>";
 
     /**
      * Sets the atom link with the specified atom link.
@@ -278,45 +216,44 @@ public final class Channel {
         this.language = language;
     }
 
-    @Override
-    public String toString() {
-        final StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append(START);
-
-        stringBuilder.append(START_TITLE_ELEMENT);
-        stringBuilder.append(title);
-        stringBuilder.append(END_TITLE_ELEMENT);
-
-        stringBuilder.append(START_LINK_ELEMENT);
-        stringBuilder.append(link);
-        stringBuilder.append(END_LINK_ELEMENT);
-
-        stringBuilder.append(ATOM_LINK_ELEMENT.replace(ATOM_LINK_VARIABLE,
-                                                       atomLink));
+    /**
+     * Writes this channel as a document with the specified writer.
+     *
+     * @param writer the specified writer
+     * @throws IOException io exception
+     */
+    public void write(final XMLWriter writer) throws IOException {
+        writer.startDocument();
+        writer.startElement("rss").attribute("version", "2.0").
+                attribute("xmlns:atom", "http://www.w3.org/2005/Atom");
+        writer.startElement("channel");
 
-        stringBuilder.append(START_DESCRIPTION_ELEMENT);
-        stringBuilder.append(description);
-        stringBuilder.append(END_DESCRIPTION_ELEMENT);
+        writer.element("title", title);
+        writer.element("link", link);
+        writer.startElement("atom:link").attribute("href", atomLink).attribute("rel", "self").
+                attribute("type", "application/rss+xml").endElement();
+        writer.element("description", description);
+        writer.element("generator", generator);
+        writer.element("lastBuildDate", DateFormatUtils.SMTP_DATETIME_FORMAT.format(lastBuildDate));
+        writer.element("language", language);
 
-        stringBuilder.append(START_GENERATOR_ELEMENT);
-        stringBuilder.append(generator);
-        stringBuilder.append(END_GENERATOR_ELEMENT);
+        for (final Item item : items) {
+            item.write(writer);
+        }
 
-        stringBuilder.append(START_LAST_BUILD_DATE_ELEMENT);
-        stringBuilder.append(DateFormatUtils.SMTP_DATETIME_FORMAT.format(
-                lastBuildDate));
-        stringBuilder.append(END_LAST_BUILD_DATE_ELEMENT);
+        writer.endDocument();
+    }
 
-        stringBuilder.append(START_LANGUAGE_ELEMENT);
-        stringBuilder.append(language);
-        stringBuilder.append(END_LANGUAGE_ELEMENT);
+    @Override
+    public String toString() {
+        final StringWriter ret = new StringWriter();
 
-        for (final Item item : items) {
-            stringBuilder.append(item.toString());
+        try {
+            write(new XMLWriter(ret));
+        } catch (final IOException e) {
+            throw new IllegalStateException(e); // Never happens on a string writer
         }
 
-        stringBuilder.append(END);
-
-        return stringBuilder.toString();
+        return ret.toString();
     }
 }
@@ -15,84 +15,27 @@
  */
 package org.b3log.solo.model.feed.rss;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.TimeZone;
 import org.apache.commons.lang.time.DateFormatUtils;
+import org.b3log.solo.util.XMLWriter;
 
 /**
  * Item.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.0.1, Nov 19, 2011
+ * @version 1.2.0.0, May 24, 2012
  * @since 0.3.1
  */
 public final class Item {
 
-    /**
-     * Start title element.
-     */
-    private static final String START_TITLE_ELEMENT =
-            "<title>";
-    /**
-     * End title element.
-     */
-    private static final String END_TITLE_ELEMENT =
-            "</title>";
-    /**
-     * Start link element.
-     */
-    private static final String START_LINK_ELEMENT =
-            "<link>";
-    /**
-     * End link element.
-     */
-    private static final String END_LINK_ELEMENT = "</link>";
-    /**
-     * Start description element.
-     */
-    private static final String START_DESCRIPTION_ELEMENT =
-            "<description>";
-    /**
-     * End summary element.
-     */
-    private static final String END_DESCRIPTION_ELEMENT =
-            "</description>";
-    /**
-     * Start author element.
-     */
-    private static final String START_AUTHOR_ELEMENT =
-            "<author>";
-    /**
-     * End author element.
-     */
-    private static final String END_AUTHOR_ELEMENT =
-            "</author>";
     /**
      * Categories.
      */
     private Set<Category> categories = new HashSet<Category>();
-    /**
-     * Start guid element.
-     */
-    private static final String START_GUID_ELEMENT =
-            "<guid>";
-    /**
-     * End guid element.
-     */
-    private static final String END_GUID_ELEMENT =
-            "</guid>";
-    /**
-     * Start pubDate element.
-     */
-    private static final String START_PUB_DATE_ELEMENT =
-            "<pubDate>";
-    /**
-     * End pubDate element.
-     */
-    private static final String END_PUB_DATE_ELEMENT =
-            "</pubDate>";
     /**
      * Guid.
      */
@@ -235,40 +178,29 @@ public final class Item {
         categories.add(category);
     }
 
-    @Override
-    public String toString() {
-        final StringBuilder stringBuilder = new StringBuilder();
-
-        stringBuilder.append("<item>").append(START_TITLE_ELEMENT);
-        stringBuilder.append(title);
-        stringBuilder.append(END_TITLE_ELEMENT);
-
-        stringBuilder.append(START_LINK_ELEMENT);
-        stringBuilder.append(link);
-        stringBuilder.append(END_LINK_ELEMENT);
-
-        stringBuilder.append(START_DESCRIPTION_ELEMENT);
-        stringBuilder.append(description);
-        stringBuilder.append(END_DESCRIPTION_ELEMENT);
-
-        stringBuilder.append(START_AUTHOR_ELEMENT);
-        stringBuilder.append(author);
-        stringBuilder.append(END_AUTHOR_ELEMENT);
+    /**
+     * Writes this item with the specified writer.
+     *
+     * @param writer the specified writer
+     * @throws IOException io exception
+     */
+    public void write(final XMLWriter writer) throws IOException {
+        writer.startElement("item");
 
-        stringBuilder.append(START_GUID_ELEMENT);
-        stringBuilder.append(guid);
-        stringBuilder.append(END_GUID_ELEMENT);
+        writer.element("title", title);
+        writer.element("link", link);
+        writer.element("description", description);
+        writer.element("author", author);
+        writer.element("guid", guid);
 
         for (final Category category : categories) {
-            stringBuilder.append(category.toString());
+            category.write(writer);
         }
 
-        stringBuilder.append(START_PUB_DATE_ELEMENT);
-        stringBuilder.append(DateFormatUtils.format(
+        writer.element("pubDate", DateFormatUtils.format(
                 pubDate, "EEE, dd MMM yyyy HH:mm:ss z",
                 TimeZone.getTimeZone(Channel.TIME_ZONE_ID)));
-        stringBuilder.append(END_PUB_DATE_ELEMENT).append("</item>");
 
-        return stringBuilder.toString();
+        writer.endElement();
     }
 }
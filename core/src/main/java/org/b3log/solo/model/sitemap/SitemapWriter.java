@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.model.sitemap;
+
+import java.io.IOException;
+import java.io.Writer;
+import org.apache.commons.lang.StringEscapeUtils;
+import org.b3log.latke.util.Strings;
+
+/**
+ * Sitemap writer, writes a URL set or a sitemap index element by element to the underlying writer.
+ *
+ * <p>
+ * See <a href="http://www.sitemaps.org/protocol.html">Sitemap protocol</a> for more details.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public final class SitemapWriter {
+
+    /**
+     * Start document.
+     */
+    private static final String START_DOCUMENT = "<?xml version='1.0' encoding='UTF-8'?>";
+    /**
+     * Start URL set element.
+     */
+    private static final String START_URL_SET_ELEMENT = "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">";
+    /**
+     * End URL set element.
+     */
+    private static final String END_URL_SET_ELEMENT = "</urlset>";
+    /**
+     * Start sitemap index element.
+     */
+    private static final String START_SITEMAP_INDEX_ELEMENT =
+            "<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">";
+    /**
+     * End sitemap index element.
+     */
+    private static final String END_SITEMAP_INDEX_ELEMENT = "</sitemapindex>";
+    /**
+     * Underlying writer.
+     */
+    private final Writer writer;
+    /**
+     * Count of the written URLs or sitemaps.
+     */
+    private int count;
+
+    /**
+     * Constructs a sitemap writer with the specified underlying writer.
+     *
+     * @param writer the specified underlying writer
+     */
+    public SitemapWriter(final Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Starts a URL set.
+     *
+     * @throws IOException io exception
+     */
+    public void startURLSet() throws IOException {
+        writer.write(START_DOCUMENT);
+        writer.write(START_URL_SET_ELEMENT);
+    }
+
+    /**
+     * Writes a URL with the specified loc and last modified.
+     *
+     * @param loc the specified loc
+     * @param lastMod the specified last modified, {@code null} or {@code ""} if unknown
+     * @throws IOException io exception
+     */
+    public void writeURL(final String loc, final String lastMod) throws IOException {
+        writer.write("<url><loc>");
+        writer.write(StringEscapeUtils.escapeXml(loc));
+        writer.write("</loc>");
+
+        if (!Strings.isEmptyOrNull(lastMod)) {
+            writer.write("<lastmod>");
+            writer.write(lastMod);
+            writer.write("</lastmod>");
+        }
+
+        writer.write("</url>");
+        count++;
+    }
+
+    /**
+     * Writes the specified URLs written by another sitemap writer.
+     *
+     * @param urls the specified URLs
+     * @param urlCount the count of the specified URLs
+     * @throws IOException io exception
+     */
+    public void writeURLs(final String urls, final int urlCount) throws IOException {
+        writer.write(urls);
+        count += urlCount;
+    }
+
+    /**
+     * Ends the URL set.
+     *
+     * @throws IOException io exception
+     */
+    public void endURLSet() throws IOException {
+        writer.write(END_URL_SET_ELEMENT);
+        writer.flush();
+    }
+
+    /**
+     * Starts a sitemap index.
+     *
+     * @throws IOException io exception
+     */
+    public void startSitemapIndex() throws IOException {
+        writer.write(START_DOCUMENT);
+        writer.write(START_SITEMAP_INDEX_ELEMENT);
+    }
+
+    /**
+     * Writes a sitemap with the specified loc.
+     *
+     * @param loc the specified loc
+     * @throws IOException io exception
+     */
+    public void writeSitemap(final String loc) throws IOException {
+        writer.write("<sitemap><loc>");
+        writer.write(StringEscapeUtils.escapeXml(loc));
+        writer.write("</loc></sitemap>");
+        count++;
+    }
+
+    /**
+     * Ends the sitemap index.
+     *
+     * @throws IOException io exception
+     */
+    public void endSitemapIndex() throws IOException {
+        writer.write(END_SITEMAP_INDEX_ELEMENT);
+        writer.flush();
+    }
+
+    /**
+     * Gets the count of the written URLs or sitemaps.
+     *
+     * @return count
+     */
+    public int getCount() {
+        return count;
+    }
+}
@@ -33,6 +33,7 @@ import org.b3log.latke.model.User;
 import org.b3log.solo.model.Preference;
 import org.jsoup.Jsoup;
 import org.b3log.solo.util.Articles;
+import org.b3log.solo.util.DataModelAssembler;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
@@ -75,7 +76,7 @@ import org.b3log.solo.service.*;
  * Article processor.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.2.4, May 21, 2012
+ * @version 1.1.3.2, May 24, 2012
  * @since 0.3.1
  */
 @RequestProcessor
@@ -353,6 +354,11 @@ public final class ArticleProcessor {
     /**
      * Gets articles paged with the specified context.
      * 
+     * <p>
+     * Accepts an optional parameter "cursor" (the "nextCursor" of the previous page in the results) to fetch the page
+     * by keyset directly.
+     * </p>
+     * 
      * @param context the specified context
      * @param request the specified request
      */
@@ -375,6 +381,7 @@ public final class ArticleProcessor {
 
             final JSONObject requestJSONObject = Requests.buildPaginationRequest(pathBuilder.toString());
             requestJSONObject.put(Article.ARTICLE_IS_PUBLISHED, true);
+            requestJSONObject.put(Common.CURSOR, request.getParameter(Common.CURSOR));
 
             final JSONObject result = articleQueryService.getArticles(requestJSONObject);
             final List<JSONObject> articles = org.b3log.latke.util.CollectionUtils.jsonArrayToList(result.getJSONArray(Article.ARTICLES));
@@ -406,6 +413,11 @@ public final class ArticleProcessor {
     /**
      * Gets tag articles paged with the specified context.
      * 
+     * <p>
+     * Accepts an optional parameter "cursor" (the "nextCursor" of the previous page in the results) to fetch the page
+     * by keyset directly.
+     * </p>
+     * 
      * @param context the specified context
      * @param request the specified request
      */
@@ -440,7 +452,10 @@ public final class ArticleProcessor {
 
             final JSONObject tag = tagQueryResult.getJSONObject(Tag.TAG);
             final String tagId = tag.getString(Keys.OBJECT_ID);
-            final List<JSONObject> articles = articleQueryService.getArticlesByTag(tagId, currentPageNum, pageSize);
+            final JSONObject articlesResult = articleQueryService.getArticlesByTag(tagId, currentPageNum, pageSize,
+                                                                                   request.getParameter(Common.CURSOR));
+            final List<JSONObject> articles =
+                    org.b3log.latke.util.CollectionUtils.jsonArrayToList(articlesResult.getJSONArray(Article.ARTICLES));
 
             final int tagArticleCount = tag.getInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT);
             final int pageCount = (int) Math.ceil((double) tagArticleCount / (double) pageSize);
@@ -461,6 +476,7 @@ public final class ArticleProcessor {
             result.put(Pagination.PAGINATION, pagination);
 
             result.put(Article.ARTICLES, articles);
+            result.put(Common.NEXT_CURSOR, articlesResult.optString(Common.NEXT_CURSOR, null));
 
             jsonObject.put(Keys.RESULTS, result);
         } catch (final Exception e) {
@@ -478,6 +494,11 @@ public final class ArticleProcessor {
     /**
      * Gets tag articles paged with the specified context.
      * 
+     * <p>
+     * Accepts an optional parameter "cursor" (the "nextCursor" of the previous page in the results) to fetch the page
+     * by keyset directly.
+     * </p>
+     * 
      * @param context the specified context
      * @param request the specified request
      */
@@ -507,7 +528,10 @@ public final class ArticleProcessor {
             final int articleCount = archiveDate.getInt(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_COUNT);
             final int pageCount = (int) Math.ceil((double) articleCount / (double) pageSize);
 
-            final List<JSONObject> articles = articleQueryService.getArticlesByArchiveDate(archiveDateId, currentPageNum, pageSize);
+            final JSONObject articlesResult = articleQueryService.getArticlesByArchiveDate(archiveDateId, currentPageNum, pageSize,
+                                                                                           request.getParameter(Common.CURSOR));
+            final List<JSONObject> articles =
+                    org.b3log.latke.util.CollectionUtils.jsonArrayToList(articlesResult.getJSONArray(Article.ARTICLES));
 
             final boolean hasMultipleUsers = Users.getInstance().hasMultipleUsers();
             if (hasMultipleUsers) {
@@ -525,6 +549,7 @@ public final class ArticleProcessor {
             result.put(Pagination.PAGINATION, pagination);
 
             result.put(Article.ARTICLES, articles);
+            result.put(Common.NEXT_CURSOR, articlesResult.optString(Common.NEXT_CURSOR, null));
 
             jsonObject.put(Keys.RESULTS, result);
         } catch (final Exception e) {
@@ -598,7 +623,10 @@ public final class ArticleProcessor {
             request.setAttribute(CACHED_LINK, requestURI);
 
             final String authorEmail = author.getString(User.USER_EMAIL);
-            final List<JSONObject> articles = articleQueryService.getArticlesByAuthorEmail(authorEmail, currentPageNum, pageSize);
+            final JSONObject articlesResult = articleQueryService.getArticlesByAuthorEmail(authorEmail, currentPageNum, pageSize,
+                                                                                            request.getParameter(Common.CURSOR));
+            final List<JSONObject> articles =
+                    org.b3log.latke.util.CollectionUtils.jsonArrayToList(articlesResult.getJSONArray(Article.ARTICLES));
             if (articles.isEmpty()) {
                 try {
                     response.sendError(HttpServletResponse.SC_NOT_FOUND);
@@ -623,6 +651,9 @@ public final class ArticleProcessor {
 
             final Map<String, Object> dataModel = renderer.getDataModel();
             prepareShowAuthorArticles(pageNums, dataModel, pageCount, currentPageNum, articles, author, preference);
+            if (articlesResult.has(Common.NEXT_CURSOR)) { // Carried by the links to the next page
+                dataModel.put(Common.NEXT_CURSOR, articlesResult.getString(Common.NEXT_CURSOR));
+            }
             filler.fillBlogHeader(request, dataModel, preference);
             filler.fillSide(request, dataModel, preference);
             Skins.fillSkinLangs(preference.optString(Preference.LOCALE_STRING),
@@ -704,7 +735,10 @@ public final class ArticleProcessor {
                 }
             }
 
-            sort(preference, articles);
+            // Articles of an archive date come sorted by create date (the posting list order)
+            if (preference.getBoolean(Preference.ENABLE_ARTICLE_UPDATE_HINT)) {
+                Collections.sort(articles, Comparators.ARTICLE_UPDATE_DATE_COMPARATOR);
+            }
 
             final Map<String, Object> dataModel = renderer.getDataModel();
 
@@ -822,11 +856,26 @@ public final class ArticleProcessor {
             article.put(Common.AUTHOR_ROLE, author.getString(User.USER_ROLE));
 
             final Map<String, Object> dataModel = renderer.getDataModel();
+            final DataModelAssembler assembler = new DataModelAssembler();
 
-            prepareShowArticle(preference, dataModel, article);
+            prepareShowArticle(preference, dataModel, article, assembler);
 
-            filler.fillBlogHeader(request, dataModel, preference);
-            filler.fillSide(request, dataModel, preference);
+            assembler.add("Load Header", new DataModelAssembler.Loader() {
+
+                @Override
+                public void load(final Map<String, Object> part) throws Exception {
+                    filler.fillBlogHeader(request, part, preference);
+                }
+            }).add("Load Side", new DataModelAssembler.Loader() {
+
+                @Override
+                public void load(final Map<String, Object> part) throws Exception {
+                    filler.fillSide(request, part, preference);
+                }
+            });
+            assembler.assemble(dataModel);
+
+            filler.fillBlogFooter(dataModel, preference);
             Skins.fillSkinLangs(preference.optString(Preference.LOCALE_STRING),
                                 (String) request.getAttribute(Keys.TEMAPLTE_DIR_NAME), dataModel);
         } catch (final Exception e) {
@@ -840,23 +889,6 @@ public final class ArticleProcessor {
         }
     }
 
-    /**
-     * Sorts the specified articles by the specified preference.
-     * 
-     * @param preference the specified preference
-     * @param articles the specified articles
-     * @throws JSONException json exception
-     * @see Comparators#ARTICLE_UPDATE_DATE_COMPARATOR
-     * @see Comparators#ARTICLE_CREATE_DATE_COMPARATOR
-     */
-    private void sort(final JSONObject preference, final List<JSONObject> articles) throws JSONException {
-        if (preference.getBoolean(Preference.ENABLE_ARTICLE_UPDATE_HINT)) {
-            Collections.sort(articles, Comparators.ARTICLE_UPDATE_DATE_COMPARATOR);
-        } else {
-            Collections.sort(articles, Comparators.ARTICLE_CREATE_DATE_COMPARATOR);
-        }
-    }
-
     /**
      * Gets archive date from the specified URI.
      * 
@@ -1096,7 +1128,7 @@ public final class ArticleProcessor {
             ret = Dates.EN_MONTHS.get(month) + " " + year;
         } else {
             archiveDate.put(ArchiveDate.ARCHIVE_DATE_MONTH, month);
-            ret = year + " " + dataModel.get("yearLabel") + " " + month + " " + dataModel.get("monthLabel");
+            ret = year + " " + langPropsService.get("yearLabel") + " " + month + " " + langPropsService.get("monthLabel");
         }
         dataModel.put(ArchiveDate.ARCHIVE_DATE, archiveDate);
 
@@ -1106,12 +1138,19 @@ public final class ArticleProcessor {
     /**
      * Prepares the specified data model for rendering article.
      * 
+     * <p>
+     * The next/previous article and the comments of the specified article are loaded by loaders added to the specified
+     * assembler.
+     * </p>
+     * 
      * @param preference the specified preference
      * @param dataModel the specified data model
      * @param article the specified article
+     * @param assembler the specified assembler
      * @throws Exception exception
      */
-    private void prepareShowArticle(final JSONObject preference, final Map<String, Object> dataModel, final JSONObject article)
+    private void prepareShowArticle(final JSONObject preference, final Map<String, Object> dataModel, final JSONObject article,
+                                    final DataModelAssembler assembler)
             throws Exception {
         article.put(Common.COMMENTABLE, article.getBoolean(Article.ARTICLE_COMMENTABLE));
         article.put(Common.PERMALINK, article.getString(Article.ARTICLE_PERMALINK));
@@ -1120,47 +1159,63 @@ public final class ArticleProcessor {
 
         Stopwatchs.start("Get Article Sign");
         LOGGER.finer("Getting article sign....");
-        article.put(Common.ARTICLE_SIGN, articleUtils.getSign(article.getString(Article.ARTICLE_SIGN_ID), preference));
+        article.put(Common.ARTICLE_SIGN, articleUtils.getSign(article.getString(Article.ARTICLE_SIGN_ID),
+                                                              preferenceQueryService.getPreferenceSnapshot()));
         LOGGER.finer("Got article sign");
         Stopwatchs.end();
 
-        Stopwatchs.start("Get Next Article");
-        LOGGER.finer("Getting the next article....");
-        final JSONObject nextArticle = articleQueryService.getNextArticle(articleId);
-        if (null != nextArticle) {
-            dataModel.put(Common.NEXT_ARTICLE_PERMALINK, nextArticle.getString(Article.ARTICLE_PERMALINK));
-            dataModel.put(Common.NEXT_ARTICLE_TITLE, nextArticle.getString(Article.ARTICLE_TITLE));
-            LOGGER.finer("Got the next article");
-        }
-        Stopwatchs.end();
+        dataModel.put(Preference.EXTERNAL_RELEVANT_ARTICLES_DISPLAY_CNT,
+                      preference.getInt(Preference.EXTERNAL_RELEVANT_ARTICLES_DISPLAY_CNT));
+        dataModel.put(Preference.RANDOM_ARTICLES_DISPLAY_CNT, preference.getInt(Preference.RANDOM_ARTICLES_DISPLAY_CNT));
+        dataModel.put(Preference.RELEVANT_ARTICLES_DISPLAY_CNT, preference.getInt(Preference.RELEVANT_ARTICLES_DISPLAY_CNT));
 
-        Stopwatchs.start("Get Previous Article");
-        LOGGER.finer("Getting the previous article....");
-        final JSONObject previousArticle = articleQueryService.getPreviousArticle(articleId);
-        if (null != previousArticle) {
-            dataModel.put(Common.PREVIOUS_ARTICLE_PERMALINK, previousArticle.getString(Article.ARTICLE_PERMALINK));
-            dataModel.put(Common.PREVIOUS_ARTICLE_TITLE, previousArticle.getString(Article.ARTICLE_TITLE));
-            LOGGER.finer("Got the previous article");
-        }
-        Stopwatchs.end();
+        assembler.add("Get Next Article", new DataModelAssembler.Loader() {
+
+            @Override
+            public void load(final Map<String, Object> part) throws Exception {
+                LOGGER.finer("Getting the next article....");
+                final JSONObject nextArticle = articleQueryService.getNextArticle(articleId);
+                if (null != nextArticle) {
+                    part.put(Common.NEXT_ARTICLE_PERMALINK, nextArticle.getString(Article.ARTICLE_PERMALINK));
+                    part.put(Common.NEXT_ARTICLE_TITLE, nextArticle.getString(Article.ARTICLE_TITLE));
+                    LOGGER.finer("Got the next article");
+                }
+            }
+        }).add("Get Previous Article", new DataModelAssembler.Loader() {
+
+            @Override
+            public void load(final Map<String, Object> part) throws Exception {
+                LOGGER.finer("Getting the previous article....");
+                final JSONObject previousArticle = articleQueryService.getPreviousArticle(articleId);
+                if (null != previousArticle) {
+                    part.put(Common.PREVIOUS_ARTICLE_PERMALINK, previousArticle.getString(Article.ARTICLE_PERMALINK));
+                    part.put(Common.PREVIOUS_ARTICLE_TITLE, previousArticle.getString(Article.ARTICLE_TITLE));
+                    LOGGER.finer("Got the previous article");
+                }
+            }
+        });
 
-        Stopwatchs.start("Get Article CMTs");
-        LOGGER.finer("Getting article's comments....");
         final int cmtCount = article.getInt(Article.ARTICLE_COMMENT_COUNT);
-        if (0 != cmtCount) {
-            final List<JSONObject> articleComments = commentQueryService.getComments(articleId);
-            dataModel.put(Article.ARTICLE_COMMENTS_REF, articleComments);
-        } else {
+        if (0 == cmtCount) {
             dataModel.put(Article.ARTICLE_COMMENTS_REF, Collections.emptyList());
-        }
-        LOGGER.finer("Got article's comments");
-        Stopwatchs.end();
+            dataModel.put(Comment.COMMENT_CURSOR, "");
 
-        dataModel.put(Preference.EXTERNAL_RELEVANT_ARTICLES_DISPLAY_CNT,
-                      preference.getInt(Preference.EXTERNAL_RELEVANT_ARTICLES_DISPLAY_CNT));
-        dataModel.put(Preference.RANDOM_ARTICLES_DISPLAY_CNT, preference.getInt(Preference.RANDOM_ARTICLES_DISPLAY_CNT));
-        dataModel.put(Preference.RELEVANT_ARTICLES_DISPLAY_CNT, preference.getInt(Preference.RELEVANT_ARTICLES_DISPLAY_CNT));
+            return;
+        }
 
-        filler.fillBlogFooter(dataModel, preference);
+        assembler.add("Get Article CMTs", new DataModelAssembler.Loader() {
+
+            @Override
+            public void load(final Map<String, Object> part) throws Exception {
+                LOGGER.finer("Getting article's comments....");
+                // The first page only, the others are loaded by /comments.do
+                final JSONObject result = commentQueryService.getComments(articleId, null,
+                                                                          CommentQueryService.DEFAULT_COMMENT_FETCH_SIZE);
+                part.put(Article.ARTICLE_COMMENTS_REF,
+                         org.b3log.latke.util.CollectionUtils.jsonArrayToList(result.getJSONArray(Comment.COMMENTS)));
+                part.put(Comment.COMMENT_CURSOR, result.getString(Comment.COMMENT_CURSOR));
+                LOGGER.finer("Got article's comments");
+            }
+        });
     }
 }
@@ -30,13 +30,14 @@ import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.servlet.renderer.DoNothingRenderer;
 import org.b3log.latke.util.Strings;
 import org.b3log.solo.model.Common;
+import org.b3log.solo.util.Markdowns;
 import org.json.JSONObject;
 
 /**
  * Cache processor.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.0.1, May 11, 2012
+ * @version 1.1.0.2, May 24, 2012
  * @since 0.3.1
  */
 @RequestProcessor
@@ -99,9 +100,13 @@ public final class CacheProcessor {
     }
 
     /**
-     * Clears all page cache.
+     * Clears all page cache, and the markdown HTML cache.
      */
     private void clearAllPageCache() {
         PageCaches.removeAll();
+
+        LOGGER.log(Level.INFO, "Clears markdown HTML cache[hit={0}, miss={1}]",
+                   new Object[]{Markdowns.getCacheHitCount(), Markdowns.getCacheMissCount()});
+        Markdowns.clearCache();
     }
 }
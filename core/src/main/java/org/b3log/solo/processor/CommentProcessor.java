@@ -16,12 +16,14 @@
 package org.b3log.solo.processor;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import org.apache.commons.lang.time.DateFormatUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.action.AbstractAction;
 import org.b3log.latke.annotation.RequestProcessing;
@@ -31,17 +33,23 @@ import org.b3log.latke.servlet.HTTPRequestContext;
 import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.servlet.renderer.JSONRenderer;
 import org.b3log.solo.model.Article;
+import org.b3log.solo.model.Comment;
 import org.b3log.solo.model.Common;
 import org.b3log.solo.model.Page;
+import org.b3log.solo.service.ArticleQueryService;
 import org.b3log.solo.service.CommentMgmtService;
+import org.b3log.solo.service.CommentQueryService;
+import org.b3log.solo.service.PageQueryService;
+import org.b3log.solo.util.Articles;
 import org.b3log.solo.util.Comments;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 /**
  * Comment processor.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.0.6, Mar 28, 2012
+ * @version 1.1.0.8, May 24, 2012
  * @since 0.3.1
  */
 @RequestProcessor
@@ -59,6 +67,106 @@ public final class CommentProcessor {
      * Comment management service.
      */
     private CommentMgmtService commentMgmtService = CommentMgmtService.getInstance();
+    /**
+     * Comment query service.
+     */
+    private CommentQueryService commentQueryService = CommentQueryService.getInstance();
+    /**
+     * Article query service.
+     */
+    private ArticleQueryService articleQueryService = ArticleQueryService.getInstance();
+    /**
+     * Page query service.
+     */
+    private PageQueryService pageQueryService = PageQueryService.getInstance();
+
+    /**
+     * Gets a page of comments of an article or page.
+     *
+     * <p>
+     * The parameter "oId" is the id of the article or page, the optional parameter "cursor" is the cursor returned by
+     * the previous page (the first page is rendered with the article or page).
+     * </p>
+     *
+     * <p>
+     * Renders the response with a json object, for example,
+     * <pre>
+     * {
+     *     "sc": boolean,
+     *     "comments": [{
+     *         "oId": "",
+     *         "commentName": "", // escaped
+     *         "commentURL": "", // escaped
+     *         "commentContent": "", // escaped
+     *         "commentDate": "", // yyyy-MM-dd HH:mm:ss
+     *         "commentTime": long,
+     *         "commentThumbnailURL": "",
+     *         "commentSharpURL": "",
+     *         "commentOriginalCommentId": "",
+     *         "commentOriginalCommentName": "",
+     *         "isReply": boolean
+     *     }, ....],
+     *     "commentCursor": "" // cursor of the next page, "" if there is no more comments
+     * }
+     * </pre>
+     * </p>
+     *
+     * @param context the specified context
+     * @param request the specified HTTP servlet request
+     */
+    @RequestProcessing(value = "/comments.do", method = HTTPRequestMethod.GET)
+    public void getComments(final HTTPRequestContext context, final HttpServletRequest request) {
+        final JSONRenderer renderer = new JSONRenderer();
+        context.setRenderer(renderer);
+
+        JSONObject ret = new JSONObject();
+        renderer.setJSONObject(ret);
+        ret.put(Keys.STATUS_CODE, false);
+
+        final String onId = request.getParameter(Keys.OBJECT_ID);
+        final String cursor = request.getParameter(Common.CURSOR);
+
+        try {
+            if (null == onId || !isCommentsVisible(request, onId)) {
+                return;
+            }
+
+            ret = commentQueryService.getComments(onId, cursor, CommentQueryService.DEFAULT_COMMENT_FETCH_SIZE);
+            final JSONArray comments = ret.getJSONArray(Comment.COMMENTS);
+            for (int i = 0; i < comments.length(); i++) {
+                final JSONObject comment = comments.getJSONObject(i);
+
+                // Formats the date the same as skins do
+                comment.put(Comment.COMMENT_DATE,
+                            DateFormatUtils.format((Date) comment.get(Comment.COMMENT_DATE), "yyyy-MM-dd HH:mm:ss"));
+                comment.remove(Comment.COMMENT_EMAIL);
+            }
+
+            ret.put(Keys.STATUS_CODE, true);
+            renderer.setJSONObject(ret);
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, "Gets comments[onId=" + onId + ", cursor=" + cursor + "] failed", e);
+        }
+    }
+
+    /**
+     * Determines whether the comments of the article or page specified by the given id are visible to the specified
+     * request.
+     *
+     * @param request the specified request
+     * @param onId the given id
+     * @return {@code true} if the page exists or the article is published and the request does not need its view
+     * password, returns {@code false} otherwise
+     * @throws Exception exception
+     */
+    private boolean isCommentsVisible(final HttpServletRequest request, final String onId) throws Exception {
+        final JSONObject article = articleQueryService.getArticleById(onId);
+        if (null != article) {
+            return article.optBoolean(Article.ARTICLE_IS_PUBLISHED) && !Articles.getInstance().needViewPwd(request, article);
+        }
+
+        return null != pageQueryService.getPage(onId);
+    }
 
     /**
      * Adds a comment to a page.
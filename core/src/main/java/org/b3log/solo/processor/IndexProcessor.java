@@ -55,7 +55,7 @@ import org.b3log.solo.processor.renderer.ConsoleRenderer;
  * Index processor.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.0.8, May 17, 2012
+ * @version 1.1.0.9, May 24, 2012
  * @since 0.3.1
  */
 @RequestProcessor
@@ -108,7 +108,7 @@ public final class IndexProcessor {
             request.setAttribute(CACHED_TYPE, langs.get(PageTypes.INDEX_ARTICLES));
             request.setAttribute(CACHED_LINK, requestURI);
 
-            filler.fillIndexArticles(dataModel, currentPageNum, preference);
+            filler.fillIndexArticles(dataModel, currentPageNum, request.getParameter(Common.CURSOR), preference);
 
             @SuppressWarnings("unchecked")
             final List<JSONObject> articles = (List<JSONObject>) dataModel.get(Article.ARTICLES);
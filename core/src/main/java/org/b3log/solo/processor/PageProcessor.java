@@ -15,6 +15,7 @@
  */
 package org.b3log.solo.processor;
 
+import org.b3log.solo.model.Comment;
 import org.b3log.solo.model.Preference;
 import org.b3log.solo.processor.renderer.FrontRenderer;
 import org.b3log.solo.processor.util.Filler;
@@ -25,7 +26,6 @@ import org.b3log.latke.Latkes;
 import org.b3log.latke.service.LangPropsService;
 import org.b3log.solo.model.Page;
 import java.io.IOException;
-import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -40,6 +40,7 @@ import org.b3log.solo.model.PageTypes;
 import org.b3log.solo.util.Skins;
 import org.json.JSONObject;
 import static org.b3log.latke.action.AbstractCacheablePageAction.*;
+import org.b3log.latke.util.CollectionUtils;
 import org.b3log.latke.util.Stopwatchs;
 import org.b3log.solo.model.Common;
 import org.b3log.solo.service.PageQueryService;
@@ -49,7 +50,7 @@ import org.b3log.solo.util.Markdowns;
  * Page processor.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.0.2, Apr 29, 2012
+ * @version 1.1.0.4, May 24, 2012
  * @since 0.3.1
  */
 @RequestProcessor
@@ -125,17 +126,26 @@ public final class PageProcessor {
             page.put(Common.COMMENTABLE, page.getBoolean(Page.PAGE_COMMENTABLE));
             page.put(Common.PERMALINK, page.getString(Page.PAGE_PERMALINK));
             dataModel.put(Page.PAGE, page);
-            final List<JSONObject> comments = commentQueryService.getComments(pageId);
-            dataModel.put(Page.PAGE_COMMENTS_REF, comments);
-
-            // Markdown
-            if ("CodeMirror-Markdown".equals(page.optString(Page.PAGE_EDITOR_TYPE))) {
-                Stopwatchs.start("Markdown Page[id=" + page.optString(Keys.OBJECT_ID) + "]");
-
-                final String content = page.optString(Page.PAGE_CONTENT);
-                page.put(Page.PAGE_CONTENT, Markdowns.toHTML(content));
-
-                Stopwatchs.end();
+            // The first page only, the others are loaded by /comments.do
+            final JSONObject result = commentQueryService.getComments(pageId, null,
+                                                                      CommentQueryService.DEFAULT_COMMENT_FETCH_SIZE);
+            dataModel.put(Page.PAGE_COMMENTS_REF, CollectionUtils.jsonArrayToList(result.getJSONArray(Comment.COMMENTS)));
+            dataModel.put(Comment.COMMENT_CURSOR, result.getString(Comment.COMMENT_CURSOR));
+
+            // Markdown, uses the HTML rendered while saving, converts it if the page has not been re-rendered yet
+            final Object contentHTML = page.remove(Page.PAGE_CONTENT_HTML);
+            page.remove(Page.PAGE_HTML_VERSION);
+            if (Markdowns.isMarkdown(page.optString(Page.PAGE_EDITOR_TYPE))) {
+                if (null != contentHTML) {
+                    page.put(Page.PAGE_CONTENT, contentHTML);
+                } else {
+                    Stopwatchs.start("Markdown Page[id=" + page.optString(Keys.OBJECT_ID) + "]");
+
+                    final String content = page.optString(Page.PAGE_CONTENT);
+                    page.put(Page.PAGE_CONTENT, Markdowns.toHTML(content));
+
+                    Stopwatchs.end();
+                }
             }
 
             filler.fillSide(request, dataModel, preference);
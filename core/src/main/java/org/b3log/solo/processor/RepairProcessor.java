@@ -16,6 +16,8 @@
 package org.b3log.solo.processor;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
@@ -54,6 +56,7 @@ import org.b3log.solo.repository.impl.TagRepositoryImpl;
 import org.b3log.solo.repository.impl.UserRepositoryImpl;
 import org.b3log.solo.service.PreferenceMgmtService;
 import org.b3log.solo.service.PreferenceQueryService;
+import org.b3log.solo.util.PostingList;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -63,7 +66,7 @@ import org.json.JSONObject;
  * <p>See AuthFilter filter configurations in web.xml for authentication.</p>
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.0.6, May 1, 2012
+ * @version 1.1.0.7, May 24, 2012
  * @since 0.3.1
  */
 @RequestProcessor
@@ -243,7 +246,7 @@ public final class RepairProcessor {
     }
 
     /**
-     * Repairs tag article counter.
+     * Repairs tag article counter (and published article posting list).
      * 
      * @param context the specified context
      */
@@ -263,6 +266,8 @@ public final class RepairProcessor {
                 final JSONArray tagArticles = tagArticleResult.getJSONArray(Keys.RESULTS);
                 final int tagRefCnt = tagArticles.length();
                 int publishedTagRefCnt = 0;
+                final List<String> publishedArticleIds = new ArrayList<String>();
+                final List<Long> publishedArticleTimes = new ArrayList<Long>();
                 for (int i = 0; i < tagRefCnt; i++) {
                     final JSONObject tagArticle = tagArticles.getJSONObject(i);
                     final String articleId = tagArticle.getString(Article.ARTICLE + "_" + Keys.OBJECT_ID);
@@ -270,11 +275,15 @@ public final class RepairProcessor {
                     final boolean isPublished = article.getBoolean(Article.ARTICLE_IS_PUBLISHED);
                     if (isPublished) {
                         publishedTagRefCnt++;
+                        publishedArticleIds.add(articleId);
+                        publishedArticleTimes.add(((Date) article.get(Article.ARTICLE_CREATE_DATE)).getTime());
                     }
                 }
 
                 tag.put(Tag.TAG_REFERENCE_COUNT, tagRefCnt);
                 tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedTagRefCnt);
+                tag.put(Tag.TAG_PUBLISHED_ARTICLE_POSTINGS,
+                        PostingList.build(publishedArticleIds, publishedArticleTimes).encode());
 
                 tagRepository.update(tagId, tag);
 
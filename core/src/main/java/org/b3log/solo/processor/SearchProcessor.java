@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.processor;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.b3log.latke.Keys;
+import org.b3log.latke.Latkes;
+import org.b3log.latke.annotation.RequestProcessing;
+import org.b3log.latke.annotation.RequestProcessor;
+import org.b3log.latke.model.Pagination;
+import org.b3log.latke.service.LangPropsService;
+import org.b3log.latke.service.ServiceException;
+import org.b3log.latke.servlet.HTTPRequestContext;
+import org.b3log.latke.servlet.HTTPRequestMethod;
+import org.b3log.latke.servlet.renderer.DoNothingRenderer;
+import org.b3log.latke.servlet.renderer.JSONRenderer;
+import org.b3log.latke.servlet.renderer.freemarker.AbstractFreeMarkerRenderer;
+import org.b3log.latke.util.CollectionUtils;
+import org.b3log.latke.util.Paginator;
+import org.b3log.latke.util.Strings;
+import org.b3log.solo.SoloServletListener;
+import org.b3log.solo.model.Common;
+import org.b3log.solo.model.Preference;
+import org.b3log.solo.model.PreferenceSnapshot;
+import org.b3log.solo.model.Search;
+import org.b3log.solo.processor.renderer.ConsoleRenderer;
+import org.b3log.solo.processor.util.Filler;
+import org.b3log.solo.search.SearchIndex;
+import org.b3log.solo.service.PreferenceQueryService;
+import org.b3log.solo.service.SearchQueryService;
+import org.json.JSONObject;
+
+/**
+ * Search processor.
+ *
+ * <p>
+ * Searches published articles and pages, the parameter "keyword" is the query and the optional parameter "p" is the
+ * current page number.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.2, May 24, 2012
+ * @since 0.4.5
+ */
+@RequestProcessor
+public final class SearchProcessor {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SearchProcessor.class.getName());
+    /**
+     * Search query service.
+     */
+    private SearchQueryService searchQueryService = SearchQueryService.getInstance();
+    /**
+     * Preference query service.
+     */
+    private PreferenceQueryService preferenceQueryService = PreferenceQueryService.getInstance();
+    /**
+     * Language service.
+     */
+    private LangPropsService langPropsService = LangPropsService.getInstance();
+    /**
+     * Filler.
+     */
+    private Filler filler = Filler.getInstance();
+
+    /**
+     * Shows the search result page (search.ftl).
+     *
+     * @param context the specified context
+     * @param request the specified HTTP servlet request
+     * @param response the specified HTTP servlet response
+     * @throws Exception exception
+     */
+    @RequestProcessing(value = "/search", method = HTTPRequestMethod.GET)
+    public void showSearch(final HTTPRequestContext context, final HttpServletRequest request,
+                           final HttpServletResponse response) throws Exception {
+        final AbstractFreeMarkerRenderer renderer = new ConsoleRenderer();
+        context.setRenderer(renderer);
+        renderer.setTemplateName("search.ftl");
+
+        final Map<String, Object> dataModel = renderer.getDataModel();
+
+        final Map<String, String> langs = langPropsService.getAll(Latkes.getLocale());
+        dataModel.putAll(langs);
+
+        final PreferenceSnapshot preference = preferenceQueryService.getPreferenceSnapshot();
+        dataModel.put(Preference.BLOG_TITLE, preference.getString(Preference.BLOG_TITLE));
+        dataModel.put(Preference.BLOG_HOST, preference.getString(Preference.BLOG_HOST));
+        dataModel.put(Common.VERSION, SoloServletListener.VERSION);
+        dataModel.put(Common.STATIC_RESOURCE_VERSION, Latkes.getStaticResourceVersion());
+        dataModel.put(Common.YEAR, String.valueOf(Calendar.getInstance().get(Calendar.YEAR)));
+
+        final String keyword = getKeyword(request);
+        final int currentPageNum = getCurrentPageNum(request);
+        dataModel.put(Search.KEYWORD, keyword);
+        dataModel.put(Pagination.PAGINATION_CURRENT_PAGE_NUM, currentPageNum);
+
+        if (Strings.isEmptyOrNull(keyword)) {
+            dataModel.put(Search.SEARCH_INDEX_READY, true);
+            dataModel.put(Search.SEARCH_HIT_COUNT, 0);
+            dataModel.put(Search.SEARCH_HITS, Collections.emptyList());
+        } else {
+            try {
+                final JSONObject result = searchQueryService.search(buildSearchRequest(keyword, currentPageNum, preference));
+
+                dataModel.put(Search.SEARCH_INDEX_READY, result.getBoolean(Search.SEARCH_INDEX_READY));
+                dataModel.put(Search.SEARCH_HIT_COUNT, result.getInt(Search.SEARCH_HIT_COUNT));
+                dataModel.put(Search.SEARCH_HITS, CollectionUtils.jsonArrayToList(result.getJSONArray(Search.SEARCH_HITS)));
+
+                final JSONObject pagination = result.getJSONObject(Pagination.PAGINATION);
+                final int pageCount = pagination.getInt(Pagination.PAGINATION_PAGE_COUNT);
+                dataModel.put(Pagination.PAGINATION_PAGE_COUNT, pageCount);
+                final List<Integer> pageNums = Paginator.paginate(currentPageNum,
+                                                                  preference.getInt(Preference.ARTICLE_LIST_DISPLAY_COUNT),
+                                                                  pageCount,
+                                                                  preference.getInt(Preference.ARTICLE_LIST_PAGINATION_WINDOW_SIZE));
+                dataModel.put(Pagination.PAGINATION_PAGE_NUMS, pageNums);
+                if (1 < currentPageNum) {
+                    dataModel.put(Pagination.PAGINATION_PREVIOUS_PAGE_NUM, currentPageNum - 1);
+                }
+                if (currentPageNum < pageCount) {
+                    dataModel.put(Pagination.PAGINATION_NEXT_PAGE_NUM, currentPageNum + 1);
+                }
+            } catch (final ServiceException e) {
+                LOGGER.log(Level.SEVERE, e.getMessage(), e);
+
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                return;
+            }
+        }
+
+        Keys.fillServer(dataModel);
+        filler.fillMinified(dataModel);
+    }
+
+    /**
+     * Searches and renders the result as JSON.
+     *
+     * <p>
+     * Renders the response with a json object, for example,
+     * <pre>
+     * {
+     *     "sc": boolean,
+     *     "keyword": "",
+     *     "pagination": {
+     *         "paginationPageCount": 100,
+     *         "paginationPageNums": [1, 2, 3, 4, 5]
+     *     },
+     *     "searchIndexReady": boolean,
+     *     "searchHitCount": int,
+     *     "searchHits": [{
+     *         "oId": "",
+     *         "searchHitType": "article", // "page"
+     *         "searchHitTitle": "",
+     *         "searchHitPermalink": "",
+     *         "searchHitExcerpt": "",
+     *         "searchHitScore": double
+     *     }, ....]
+     * }
+     * </pre>
+     * </p>
+     *
+     * @param context the specified context
+     * @param request the specified HTTP servlet request
+     */
+    @RequestProcessing(value = "/search.do", method = HTTPRequestMethod.GET)
+    public void search(final HTTPRequestContext context, final HttpServletRequest request) {
+        final JSONRenderer renderer = new JSONRenderer();
+        context.setRenderer(renderer);
+
+        JSONObject ret = new JSONObject();
+        renderer.setJSONObject(ret);
+
+        final String keyword = getKeyword(request);
+
+        try {
+            final PreferenceSnapshot preference = preferenceQueryService.getPreferenceSnapshot();
+            ret = searchQueryService.search(buildSearchRequest(keyword, getCurrentPageNum(request), preference));
+            renderer.setJSONObject(ret);
+
+            ret.put(Search.KEYWORD, keyword);
+            ret.put(Keys.STATUS_CODE, true);
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, e.getMessage(), e);
+
+            ret.put(Keys.STATUS_CODE, false);
+        }
+    }
+
+    /**
+     * Merges segments of the search index, or builds the index if it has not been built yet, invoked by a cron job.
+     *
+     * @param context the specified context
+     * @see SearchIndex#merge()
+     */
+    @RequestProcessing(value = "/console/search/merge", method = HTTPRequestMethod.GET)
+    public void mergeSearchIndex(final HTTPRequestContext context) {
+        LOGGER.log(Level.INFO, "Merges search index segments");
+
+        context.setRenderer(new DoNothingRenderer());
+
+        SearchIndex.getInstance().merge();
+    }
+
+    /**
+     * Builds a search request with the specified keyword, current page number and preference.
+     *
+     * @param keyword the specified keyword
+     * @param currentPageNum the specified current page number
+     * @param preference the specified preference
+     * @return search request
+     */
+    private static JSONObject buildSearchRequest(final String keyword, final int currentPageNum,
+                                                 final PreferenceSnapshot preference) {
+        final JSONObject ret = new JSONObject();
+
+        ret.put(Search.KEYWORD, keyword);
+        ret.put(Pagination.PAGINATION_CURRENT_PAGE_NUM, currentPageNum);
+        ret.put(Pagination.PAGINATION_PAGE_SIZE, preference.getInt(Preference.ARTICLE_LIST_DISPLAY_COUNT));
+        ret.put(Pagination.PAGINATION_WINDOW_SIZE, preference.getInt(Preference.ARTICLE_LIST_PAGINATION_WINDOW_SIZE));
+
+        return ret;
+    }
+
+    /**
+     * Gets the keyword of the specified request.
+     *
+     * @param request the specified request
+     * @return keyword, returns {@code ""} if not found
+     */
+    private static String getKeyword(final HttpServletRequest request) {
+        final String ret = request.getParameter(Search.KEYWORD);
+
+        return null == ret ? "" : ret.trim();
+    }
+
+    /**
+     * Gets the current page number of the specified request.
+     *
+     * @param request the specified request
+     * @return current page number, returns {@code 1} if not found or invalid
+     */
+    private static int getCurrentPageNum(final HttpServletRequest request) {
+        final String pageNum = request.getParameter("p");
+        if (Strings.isEmptyOrNull(pageNum) || !Strings.isNumeric(pageNum)) {
+            return 1;
+        }
+
+        try {
+            return Math.max(Integer.parseInt(pageNum), 1);
+        } catch (final NumberFormatException e) {
+            return 1;
+        }
+    }
+}
@@ -65,7 +65,7 @@ import static org.b3log.latke.action.AbstractCacheablePageAction.*;
  * Tag processor.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.0.8, Dec 23, 2011
+ * @version 1.1.0.9, May 24, 2012
  * @since 0.3.1
  */
 @RequestProcessor
@@ -198,10 +198,9 @@ public final class TagProcessor {
             final List<Integer> pageNums = Paginator.paginate(currentPageNum, pageSize, pageCount, windowSize);
 
             LOGGER.log(Level.FINEST, "tag-articles[pageNums={0}]", pageNums);
+            // Articles of a tag come sorted by create date (the posting list order)
             if (preference.getBoolean(Preference.ENABLE_ARTICLE_UPDATE_HINT)) {
                 Collections.sort(articles, Comparators.ARTICLE_UPDATE_DATE_COMPARATOR);
-            } else {
-                Collections.sort(articles, Comparators.ARTICLE_CREATE_DATE_COMPARATOR);
             }
 
             fillPagination(dataModel, pageCount, currentPageNum, articles, pageNums);
@@ -15,6 +15,8 @@
  */
 package org.b3log.solo.processor;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.b3log.latke.Keys;
@@ -30,6 +32,10 @@ import org.b3log.solo.SoloServletListener;
 import org.b3log.solo.model.*;
 import org.b3log.solo.repository.*;
 import org.b3log.solo.repository.impl.*;
+import org.b3log.solo.service.PreferenceQueryService;
+import org.b3log.solo.util.ArchiveDates;
+import org.b3log.solo.util.Comments;
+import org.b3log.solo.util.Tags;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -37,7 +43,7 @@ import org.json.JSONObject;
  * Upgrader.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.0.9, Apr 29, 2012
+ * @version 1.1.2.2, May 24, 2012
  * @since 0.3.1
  */
 @RequestProcessor
@@ -55,6 +61,18 @@ public final class UpgradeProcessor {
      * Page repository.
      */
     private PageRepository pageRepository = PageRepositoryImpl.getInstance();
+    /**
+     * Comment repository.
+     */
+    private CommentRepository commentRepository = CommentRepositoryImpl.getInstance();
+    /**
+     * Tag repository.
+     */
+    private TagRepository tagRepository = TagRepositoryImpl.getInstance();
+    /**
+     * Archive date repository.
+     */
+    private ArchiveDateRepository archiveDateRepository = ArchiveDateRepositoryImpl.getInstance();
     /**
      * User repository.
      */
@@ -128,6 +146,17 @@ public final class UpgradeProcessor {
      *     <li>
      *       Adds a property(named {@value Preference#EDITOR_TYPE}) to entity {@link Preference}
      *     </li>
+     *     <li>
+     *       Adds properties(named {@value Comment#COMMENT_THREAD_ID}, {@value Comment#COMMENT_PATH} and
+     *       {@value Comment#COMMENT_DEPTH}) to entity {@link Comment}
+     *     </li>
+     *     <li>
+     *       Adds a property(named {@value Tag#TAG_PUBLISHED_ARTICLE_POSTINGS}) to entity {@link Tag}
+     *     </li>
+     *     <li>
+     *       Adds a property(named {@value ArchiveDate#ARCHIVE_DATE_PUBLISHED_ARTICLE_POSTINGS}) to entity
+     *       {@link ArchiveDate}
+     *     </li>
      *   </ul>
      * </p>
      * @throws Exception upgrade fails
@@ -140,6 +169,9 @@ public final class UpgradeProcessor {
         Transaction transaction = null;
         try {
             upgradeArticles();
+            upgradeComments();
+            upgradeTags();
+            upgradeArchiveDates();
 
             transaction = userRepository.beginTransaction();
 
@@ -168,6 +200,8 @@ public final class UpgradeProcessor {
             LOGGER.log(Level.FINEST, "Updated preference");
 
             transaction.commit();
+
+            PreferenceQueryService.getInstance().invalidate();
         } catch (final Exception e) {
             if (transaction.isActive()) {
                 transaction.rollback();
@@ -182,6 +216,160 @@ public final class UpgradeProcessor {
         LOGGER.info("Upgraded from version 041 to version 045 successfully :-)");
     }
 
+    /**
+     * Upgrades comments, places each of comments into the reply tree of its article or page.
+     *
+     * @throws Exception exception
+     */
+    private void upgradeComments() throws Exception {
+        LOGGER.log(Level.INFO, "Adds properties [commentThreadId, commentPath, commentDepth] to each of comments");
+
+        // Replies are added after the comments they reply to
+        final JSONArray comments = commentRepository.get(new Query().addSort(Keys.OBJECT_ID, SortDirection.ASCENDING)).
+                getJSONArray(Keys.RESULTS);
+        if (comments.length() <= 0) {
+            LOGGER.log(Level.FINEST, "No comments");
+            return;
+        }
+
+        final Map<String, JSONObject> upgraded = new HashMap<String, JSONObject>();
+        Transaction transaction = null;
+        try {
+            for (int i = 0; i < comments.length(); i++) {
+                if (0 == i % STEP || !transaction.isActive()) {
+                    transaction = userRepository.beginTransaction();
+                }
+
+                final JSONObject comment = comments.getJSONObject(i);
+
+                JSONObject parent = upgraded.get(comment.optString(Comment.COMMENT_ORIGINAL_COMMENT_ID));
+                if (null != parent && !parent.optString(Comment.COMMENT_ON_ID).equals(comment.optString(Comment.COMMENT_ON_ID))) {
+                    parent = null;
+                }
+                Comments.setThread(comment, parent);
+                if (!comment.has(Comment.COMMENT_CONTENT_HTML)) {
+                    Comments.escape(comment);
+                }
+                upgraded.put(comment.getString(Keys.OBJECT_ID), comment);
+
+                commentRepository.update(comment.getString(Keys.OBJECT_ID), comment);
+
+                if (0 == i % STEP) {
+                    transaction.commit();
+                    LOGGER.log(Level.FINEST, "Updated some comments");
+                }
+            }
+
+            if (transaction.isActive()) {
+                transaction.commit();
+            }
+
+            LOGGER.log(Level.FINEST, "Updated all comments");
+        } catch (final Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Upgrades tags, builds the published article posting list of each of tags.
+     *
+     * @throws Exception exception
+     */
+    private void upgradeTags() throws Exception {
+        LOGGER.log(Level.INFO, "Adds a property [tagPublishedArticlePostings] to each of tags");
+
+        final JSONArray tags = tagRepository.get(new Query()).getJSONArray(Keys.RESULTS);
+        if (tags.length() <= 0) {
+            LOGGER.log(Level.FINEST, "No tags");
+            return;
+        }
+
+        final Tags tagUtils = Tags.getInstance();
+        Transaction transaction = null;
+        try {
+            for (int i = 0; i < tags.length(); i++) {
+                if (0 == i % STEP || !transaction.isActive()) {
+                    transaction = userRepository.beginTransaction();
+                }
+
+                final JSONObject tag = tags.getJSONObject(i);
+                tagUtils.rebuildPublishedArticlePostings(tag);
+
+                tagRepository.update(tag.getString(Keys.OBJECT_ID), tag);
+
+                if (0 == i % STEP) {
+                    transaction.commit();
+                    LOGGER.log(Level.FINEST, "Updated some tags");
+                }
+            }
+
+            if (transaction.isActive()) {
+                transaction.commit();
+            }
+
+            LOGGER.log(Level.FINEST, "Updated all tags");
+        } catch (final Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Upgrades archive dates, builds the published article posting list of each of archive dates.
+     *
+     * @throws Exception exception
+     */
+    private void upgradeArchiveDates() throws Exception {
+        LOGGER.log(Level.INFO, "Adds a property [archiveDatePublishedArticlePostings] to each of archive dates");
+
+        final JSONArray archiveDates = archiveDateRepository.get(new Query()).getJSONArray(Keys.RESULTS);
+        if (archiveDates.length() <= 0) {
+            LOGGER.log(Level.FINEST, "No archive dates");
+            return;
+        }
+
+        final ArchiveDates archiveDateUtils = ArchiveDates.getInstance();
+        Transaction transaction = null;
+        try {
+            for (int i = 0; i < archiveDates.length(); i++) {
+                if (0 == i % STEP || !transaction.isActive()) {
+                    transaction = userRepository.beginTransaction();
+                }
+
+                final JSONObject archiveDate = archiveDates.getJSONObject(i);
+                archiveDateUtils.rebuildPublishedArticlePostings(archiveDate);
+
+                archiveDateRepository.update(archiveDate.getString(Keys.OBJECT_ID), archiveDate);
+
+                if (0 == i % STEP) {
+                    transaction.commit();
+                    LOGGER.log(Level.FINEST, "Updated some archive dates");
+                }
+            }
+
+            if (transaction.isActive()) {
+                transaction.commit();
+            }
+
+            archiveDateUtils.invalidate();
+
+            LOGGER.log(Level.FINEST, "Updated all archive dates");
+        } catch (final Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        }
+    }
+
     /**
      * Upgrades articles.
      * 
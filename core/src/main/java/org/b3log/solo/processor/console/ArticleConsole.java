@@ -31,12 +31,14 @@ import org.b3log.latke.service.LangPropsService;
 import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.servlet.HTTPRequestContext;
 import org.b3log.latke.servlet.HTTPRequestMethod;
+import org.b3log.latke.servlet.renderer.DoNothingRenderer;
 import org.b3log.latke.servlet.renderer.JSONRenderer;
 import org.b3log.solo.model.Article;
 import org.b3log.latke.util.Requests;
 import org.b3log.latke.util.Strings;
 import org.b3log.solo.service.ArticleMgmtService;
 import org.b3log.solo.service.ArticleQueryService;
+import org.b3log.solo.service.PageMgmtService;
 import org.b3log.solo.util.Markdowns;
 import org.b3log.solo.util.QueryResults;
 import org.b3log.solo.util.Users;
@@ -47,7 +49,7 @@ import org.json.JSONObject;
  * Article console request processing.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.2, Apr 30, 2012
+ * @version 1.0.1.1, May 24, 2012
  * @since 0.4.0
  */
 @RequestProcessor
@@ -57,6 +59,15 @@ public final class ArticleConsole {
      * Logger.
      */
     private static final Logger LOGGER = Logger.getLogger(ArticleConsole.class.getName());
+    /**
+     * Max count of articles re-rendered in a Markdown re-rendering run.
+     */
+    private static final int MAX_RERENDER_ARTICLE_CNT = 200;
+    /**
+     * Renderer version of which all the Markdown articles and pages have been re-rendered in this instance, 
+     * {@code null} if not re-rendered yet.
+     */
+    private static volatile String rerenderedVersion;
     /**
      * Article management service.
      */
@@ -65,6 +76,10 @@ public final class ArticleConsole {
      * Article query service.
      */
     private ArticleQueryService articleQueryService = ArticleQueryService.getInstance();
+    /**
+     * Page management service.
+     */
+    private PageMgmtService pageMgmtService = PageMgmtService.getInstance();
     /**
      * Article URI prefix.
      */
@@ -134,6 +149,36 @@ public final class ArticleConsole {
         }
     }
 
+    /**
+     * Re-renders the articles and pages written in Markdown whose persisted HTML is missing or rendered by a previous
+     * {@linkplain Markdowns#RENDERER_VERSION renderer version}, invoked by a cron job.
+     * 
+     * <p>
+     * Re-renders at most {@value #MAX_RERENDER_ARTICLE_CNT} articles a run, does nothing once all of them have been 
+     * re-rendered with the current renderer version.
+     * </p>
+     *
+     * @param context the specified context
+     */
+    @RequestProcessing(value = "/console/markdown/rerender", method = HTTPRequestMethod.GET)
+    public void rerenderMarkdowns(final HTTPRequestContext context) {
+        context.setRenderer(new DoNothingRenderer());
+
+        if (Markdowns.RENDERER_VERSION.equals(rerenderedVersion)) {
+            return;
+        }
+
+        try {
+            pageMgmtService.rerenderMarkdownPages();
+
+            if (articleMgmtService.rerenderMarkdownArticles(MAX_RERENDER_ARTICLE_CNT) < MAX_RERENDER_ARTICLE_CNT) {
+                rerenderedVersion = Markdowns.RENDERER_VERSION;
+            }
+        } catch (final ServiceException e) {
+            LOGGER.log(Level.SEVERE, "Re-renders Markdown articles and pages failed", e);
+        }
+    }
+
     /**
      * Gets an article by the specified request json object.
      *
@@ -254,6 +299,9 @@ public final class ArticleConsole {
 
             final JSONArray excludes = new JSONArray();
             excludes.put(Article.ARTICLE_CONTENT);
+            excludes.put(Article.ARTICLE_CONTENT_HTML);
+            excludes.put(Article.ARTICLE_ABSTRACT_HTML);
+            excludes.put(Article.ARTICLE_HTML_VERSION);
             excludes.put(Article.ARTICLE_UPDATE_DATE);
             excludes.put(Article.ARTICLE_CREATE_DATE);
             excludes.put(Article.ARTICLE_AUTHOR_EMAIL);
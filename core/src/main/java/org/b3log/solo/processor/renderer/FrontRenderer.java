@@ -33,7 +33,7 @@ import org.b3log.solo.util.Statistics;
  * renderer.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.6, Dec 3, 2011
+ * @version 1.0.0.7, May 24, 2012
  * @since 0.3.1
  */
 public final class FrontRenderer extends CacheFreeMarkerRenderer {
@@ -82,14 +82,14 @@ public final class FrontRenderer extends CacheFreeMarkerRenderer {
         }
 
         final String pageContent = (String) request.getAttribute(AbstractCacheablePageAction.CACHED_CONTENT);
-        String output = html;
         if (null != pageContent) {
             // Adds the top bar HTML content for output
             final String topBarHTML = TopBars.getTopBarHTML(request, response);
-            output = html.replace(Common.TOP_BAR_REPLACEMENT_FLAG, topBarHTML);
+            TopBars.writePage(writer, html, topBarHTML);
+        } else {
+            writer.write(html);
         }
 
-        writer.write(output);
         writer.flush();
         writer.close();
     }
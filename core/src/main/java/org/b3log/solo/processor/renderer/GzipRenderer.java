@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.processor.renderer;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.io.IOUtils;
+import org.b3log.latke.servlet.HTTPRequestContext;
+import org.b3log.latke.servlet.renderer.AbstractHTTPResponseRenderer;
+
+/**
+ * Gzipped content HTTP response renderer.
+ *
+ * <p>
+ * Writes the gzipped content as is if the client accepts gzip encoding, decompresses it while writing otherwise.
+ * The response varies by "Accept-Encoding" header for caches.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.1, May 24, 2012
+ * @since 0.4.5
+ */
+public final class GzipRenderer extends AbstractHTTPResponseRenderer {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(GzipRenderer.class.getName());
+    /**
+     * Content type.
+     */
+    private final String contentType;
+    /**
+     * Gzipped content.
+     */
+    private byte[] content;
+
+    /**
+     * Constructs a gzip renderer with the specified content type.
+     *
+     * @param contentType the specified content type, for example "text/xml"
+     */
+    public GzipRenderer(final String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * Sets the gzipped content with the specified content.
+     *
+     * @param content the specified content, encoded in UTF-8 before gzipped
+     */
+    public void setContent(final byte[] content) {
+        this.content = content;
+    }
+
+    @Override
+    public void render(final HTTPRequestContext context) {
+        final HttpServletRequest request = context.getRequest();
+        final HttpServletResponse response = context.getResponse();
+
+        if (null == content || response.isCommitted()) {
+            return;
+        }
+
+        try {
+            response.setContentType(contentType);
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader("Vary", "Accept-Encoding");
+
+            final String acceptEncoding = request.getHeader("Accept-Encoding");
+            final OutputStream outputStream = response.getOutputStream();
+            if (null != acceptEncoding && acceptEncoding.contains("gzip")) {
+                response.setHeader("Content-Encoding", "gzip");
+                response.setContentLength(content.length);
+                outputStream.write(content);
+            } else {
+                IOUtils.copy(new GZIPInputStream(new ByteArrayInputStream(content)), outputStream);
+            }
+
+            outputStream.flush();
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, "Renders gzipped content failed", e);
+        }
+    }
+}
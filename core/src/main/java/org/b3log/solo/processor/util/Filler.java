@@ -17,9 +17,9 @@ package org.b3log.solo.processor.util;
 
 import freemarker.template.Template;
 import java.util.Calendar;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.servlet.http.HttpServletRequest;
@@ -39,9 +39,6 @@ import org.b3log.latke.model.Pagination;
 import org.b3log.latke.model.Plugin;
 import org.b3log.latke.model.User;
 import org.b3log.latke.plugin.ViewLoadEventData;
-import org.b3log.latke.repository.FilterOperator;
-import org.b3log.latke.repository.Query;
-import org.b3log.latke.repository.SortDirection;
 import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.util.*;
 import org.b3log.latke.util.freemarker.Templates;
@@ -52,22 +49,18 @@ import org.b3log.solo.repository.CommentRepository;
 import org.b3log.solo.repository.LinkRepository;
 import org.b3log.solo.SoloServletListener;
 import org.b3log.solo.model.*;
-import org.b3log.solo.repository.ArchiveDateRepository;
 import org.b3log.solo.repository.PageRepository;
 import org.b3log.solo.repository.StatisticRepository;
-import org.b3log.solo.repository.UserRepository;
-import org.b3log.solo.repository.impl.ArchiveDateRepositoryImpl;
 import org.b3log.solo.repository.impl.ArticleRepositoryImpl;
 import org.b3log.solo.repository.impl.CommentRepositoryImpl;
 import org.b3log.solo.repository.impl.LinkRepositoryImpl;
 import org.b3log.solo.repository.impl.PageRepositoryImpl;
 import org.b3log.solo.repository.impl.StatisticRepositoryImpl;
 import org.b3log.solo.repository.impl.TagRepositoryImpl;
-import org.b3log.solo.repository.impl.UserRepositoryImpl;
+import org.b3log.solo.service.ArchiveDateQueryService;
 import org.b3log.solo.service.ArticleQueryService;
 import org.b3log.solo.util.Tags;
 import org.b3log.solo.util.Users;
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -75,7 +68,7 @@ import org.json.JSONObject;
  * Filler utilities.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.5.9, May 22, 2012
+ * @version 1.0.7.3, May 24, 2012
  * @since 0.3.1
  */
 public final class Filler {
@@ -93,9 +86,9 @@ public final class Filler {
      */
     private CommentRepository commentRepository = CommentRepositoryImpl.getInstance();
     /**
-     * Archive date repository.
+     * Archive date query service.
      */
-    private ArchiveDateRepository archiveDateRepository = ArchiveDateRepositoryImpl.getInstance();
+    private ArchiveDateQueryService archiveDateQueryService = ArchiveDateQueryService.getInstance();
     /**
      * Tag repository.
      */
@@ -120,29 +113,23 @@ public final class Filler {
      * Statistic repository.
      */
     private StatisticRepository statisticRepository = StatisticRepositoryImpl.getInstance();
-    /**
-     * User repository.
-     */
-    private UserRepository userRepository = UserRepositoryImpl.getInstance();
     /**
      * Article query service.
      */
     private ArticleQueryService articleQueryService = ArticleQueryService.getInstance();
-    /**
-     * {@code true} for published.
-     */
-    private static final boolean PUBLISHED = true;
 
     /**
      * Fills articles in index.ftl.
      *
      * @param dataModel data model
      * @param currentPageNum current page number
+     * @param cursor the "nextCursor" of the previous page, {@code null} or "" to locate the page by the specified current
+     * page number
      * @param preference the specified preference
      * @throws ServiceException service exception
      */
-    public void fillIndexArticles(final Map<String, Object> dataModel, final int currentPageNum, final JSONObject preference)
-            throws ServiceException {
+    public void fillIndexArticles(final Map<String, Object> dataModel, final int currentPageNum, final String cursor,
+                                  final JSONObject preference) throws ServiceException {
         Stopwatchs.start("Fill Index Articles");
 
         try {
@@ -153,18 +140,12 @@ public final class Filler {
             final int publishedArticleCnt = statistic.getInt(Statistic.STATISTIC_PUBLISHED_ARTICLE_COUNT);
             final int pageCount = (int) Math.ceil((double) publishedArticleCnt / (double) pageSize);
 
-            final Query query = new Query().setCurrentPageNum(currentPageNum).setPageSize(pageSize).setPageCount(pageCount).
-                    addFilter(Article.ARTICLE_IS_PUBLISHED, FilterOperator.EQUAL, PUBLISHED).
-                    addSort(Article.ARTICLE_PUT_TOP, SortDirection.DESCENDING).
-                    index(Article.ARTICLE_PERMALINK);
-
-            if (preference.getBoolean(Preference.ENABLE_ARTICLE_UPDATE_HINT)) {
-                query.addSort(Article.ARTICLE_UPDATE_DATE, SortDirection.DESCENDING);
-            } else {
-                query.addSort(Article.ARTICLE_CREATE_DATE, SortDirection.DESCENDING);
+            final String dateProperty = preference.getBoolean(Preference.ENABLE_ARTICLE_UPDATE_HINT)
+                                        ? Article.ARTICLE_UPDATE_DATE : Article.ARTICLE_CREATE_DATE;
+            final JSONObject result = articleQueryService.getPublishedArticles(dateProperty, currentPageNum, pageSize, cursor);
+            if (result.has(Common.NEXT_CURSOR)) { // Carried by the links to the next page
+                dataModel.put(Common.NEXT_CURSOR, result.getString(Common.NEXT_CURSOR));
             }
-
-            final JSONObject result = articleRepository.get(query);
             final List<Integer> pageNums = Paginator.paginate(currentPageNum, pageSize, pageCount, windowSize);
             if (0 != pageNums.size()) {
                 dataModel.put(Pagination.PAGINATION_FIRST_PAGE_NUM, pageNums.get(0));
@@ -174,7 +155,7 @@ public final class Filler {
             dataModel.put(Pagination.PAGINATION_PAGE_COUNT, pageCount);
             dataModel.put(Pagination.PAGINATION_PAGE_NUMS, pageNums);
 
-            final List<JSONObject> articles = org.b3log.latke.util.CollectionUtils.jsonArrayToList(result.getJSONArray(Keys.RESULTS));
+            final List<JSONObject> articles = CollectionUtils.jsonArrayToList(result.getJSONArray(Article.ARTICLES));
 
             final boolean hasMultipleUsers = Users.getInstance().hasMultipleUsers();
             if (hasMultipleUsers) {
@@ -207,23 +188,15 @@ public final class Filler {
     public void fillLinks(final Map<String, Object> dataModel) throws ServiceException {
         Stopwatchs.start("Fill Links");
         try {
-            final Map<String, SortDirection> sorts = new HashMap<String, SortDirection>();
-            sorts.put(Link.LINK_ORDER, SortDirection.ASCENDING);
-            final Query query = new Query().addSort(Link.LINK_ORDER, SortDirection.ASCENDING).setPageCount(1);
-            final JSONObject linkResult = linkRepository.get(query);
-            final List<JSONObject> links = org.b3log.latke.util.CollectionUtils.jsonArrayToList(linkResult.getJSONArray(Keys.RESULTS));
+            final List<JSONObject> links = linkRepository.getLinksSnapshot();
 
             dataModel.put(Link.LINKS, links);
-        } catch (final JSONException e) {
-            LOGGER.log(Level.SEVERE, "Fills links failed", e);
-            throw new ServiceException(e);
         } catch (final RepositoryException e) {
             LOGGER.log(Level.SEVERE, "Fills links failed", e);
             throw new ServiceException(e);
         } finally {
             Stopwatchs.end();
         }
-        Stopwatchs.end();
     }
 
     /**
@@ -240,7 +213,7 @@ public final class Filler {
             LOGGER.finer("Filling most used tags....");
             final int mostUsedTagDisplayCnt = preference.getInt(Preference.MOST_USED_TAG_DISPLAY_CNT);
 
-            final List<JSONObject> tags = tagRepository.getMostUsedTags(mostUsedTagDisplayCnt);
+            final List<JSONObject> tags = tagRepository.getMostUsedTagsSnapshot(mostUsedTagDisplayCnt);
             tagUtils.removeForUnpublishedArticles(tags);
 
             dataModel.put(Common.MOST_USED_TAGS, tags);
@@ -267,7 +240,7 @@ public final class Filler {
 
         try {
             LOGGER.finer("Filling archive dates....");
-            final List<JSONObject> archiveDates = archiveDateRepository.getArchiveDates();
+            final List<JSONObject> archiveDates = archiveDateQueryService.getArchiveDates();
 
             final String localeString = preference.getString(Preference.LOCALE_STRING);
             final String language = Locales.getLanguage(localeString);
@@ -291,9 +264,6 @@ public final class Filler {
         } catch (final JSONException e) {
             LOGGER.log(Level.SEVERE, "Fills archive dates failed", e);
             throw new ServiceException(e);
-        } catch (final RepositoryException e) {
-            LOGGER.log(Level.SEVERE, "Fills archive dates failed", e);
-            throw new ServiceException(e);
         } finally {
             Stopwatchs.end();
         }
@@ -311,7 +281,7 @@ public final class Filler {
         try {
             LOGGER.finer("Filling the most view count articles....");
             final int mostCommentArticleDisplayCnt = preference.getInt(Preference.MOST_VIEW_ARTICLE_DISPLAY_CNT);
-            final List<JSONObject> mostViewCountArticles = articleRepository.getMostViewCountArticles(mostCommentArticleDisplayCnt);
+            final List<JSONObject> mostViewCountArticles = articleRepository.getMostViewCountArticlesSnapshot(mostCommentArticleDisplayCnt);
 
             dataModel.put(Common.MOST_VIEW_COUNT_ARTICLES, mostViewCountArticles);
 
@@ -336,7 +306,7 @@ public final class Filler {
         try {
             LOGGER.finer("Filling most comment articles....");
             final int mostCommentArticleDisplayCnt = preference.getInt(Preference.MOST_COMMENT_ARTICLE_DISPLAY_CNT);
-            final List<JSONObject> mostCommentArticles = articleRepository.getMostCommentArticles(mostCommentArticleDisplayCnt);
+            final List<JSONObject> mostCommentArticles = articleRepository.getMostCommentArticlesSnapshot(mostCommentArticleDisplayCnt);
 
             dataModel.put(Common.MOST_COMMENT_ARTICLES, mostCommentArticles);
         } catch (final Exception e) {
@@ -484,10 +454,7 @@ public final class Filler {
             final String noticeBoard = preference.getString(Preference.NOTICE_BOARD);
             dataModel.put(Preference.NOTICE_BOARD, noticeBoard);
 
-            final Query query = new Query().setPageCount(1);
-            final JSONObject result = userRepository.get(query);
-            final JSONArray users = result.getJSONArray(Keys.RESULTS);
-            final List<JSONObject> userList = CollectionUtils.jsonArrayToList(users);
+            final List<JSONObject> userList = Users.getInstance().getUsers();
             dataModel.put(User.USERS, userList);
             for (final JSONObject user : userList) {
                 user.remove(User.USER_EMAIL);
@@ -503,9 +470,6 @@ public final class Filler {
         } catch (final JSONException e) {
             LOGGER.log(Level.SEVERE, "Fills blog header failed", e);
             throw new ServiceException(e);
-        } catch (final RepositoryException e) {
-            LOGGER.log(Level.SEVERE, "Fills blog header failed", e);
-            throw new ServiceException(e);
         } finally {
             Stopwatchs.end();
         }
@@ -552,29 +516,7 @@ public final class Filler {
             }
 
 // TODO:       fillRecentArticles(dataModel, preference);
-            if (Templates.hasExpression(template, "<#list links as link>")) {
-                fillLinks(dataModel);
-            }
-
-            if (Templates.hasExpression(template, "<#list recentComments as comment>")) {
-                fillRecentComments(dataModel, preference);
-            }
-
-            if (Templates.hasExpression(template, "<#list mostUsedTags as tag>")) {
-                fillMostUsedTags(dataModel, preference);
-            }
-
-            if (Templates.hasExpression(template, "<#list mostCommentArticles as article>")) {
-                fillMostCommentArticles(dataModel, preference);
-            }
-
-            if (Templates.hasExpression(template, "<#list mostViewCountArticles as article>")) {
-                fillMostViewCountArticles(dataModel, preference);
-            }
-
-            if (Templates.hasExpression(template, "<#list archiveDates as archiveDate>")) {
-                fillArchiveDates(dataModel, preference);
-            }
+            fillSections(template, dataModel, preference);
         } catch (final ServiceException e) {
             LOGGER.log(Level.SEVERE, "Fills side failed", e);
             throw new ServiceException(e);
@@ -597,29 +539,7 @@ public final class Filler {
         try {
             LOGGER.log(Level.FINE, "Filling user template[name{0}]", template.getName());
 
-            if (Templates.hasExpression(template, "<#list links as link>")) {
-                fillLinks(dataModel);
-            }
-
-            if (Templates.hasExpression(template, "<#list recentComments as comment>")) {
-                fillRecentComments(dataModel, preference);
-            }
-
-            if (Templates.hasExpression(template, "<#list mostUsedTags as tag>")) {
-                fillMostUsedTags(dataModel, preference);
-            }
-
-            if (Templates.hasExpression(template, "<#list mostCommentArticles as article>")) {
-                fillMostCommentArticles(dataModel, preference);
-            }
-
-            if (Templates.hasExpression(template, "<#list mostViewCountArticles as article>")) {
-                fillMostViewCountArticles(dataModel, preference);
-            }
-
-            if (Templates.hasExpression(template, "<#list archiveDates as archiveDate>")) {
-                fillArchiveDates(dataModel, preference);
-            }
+            fillSections(template, dataModel, preference);
 
             final String noticeBoard = preference.getString(Preference.NOTICE_BOARD);
             dataModel.put(Preference.NOTICE_BOARD, noticeBoard);
@@ -631,6 +551,44 @@ public final class Filler {
         }
     }
 
+    /**
+     * Fills the data model sections needed by the specified template (and the templates included by it).
+     *
+     * @param template the specified template
+     * @param dataModel data model
+     * @param preference the specified preference
+     * @throws ServiceException service exception
+     * @see TemplateManifests#getSections(freemarker.template.Template)
+     */
+    private void fillSections(final Template template, final Map<String, Object> dataModel, final JSONObject preference)
+            throws ServiceException {
+        final Set<String> sections = TemplateManifests.getSections(template);
+
+        if (sections.contains(Link.LINKS)) {
+            fillLinks(dataModel);
+        }
+
+        if (sections.contains(Common.RECENT_COMMENTS)) {
+            fillRecentComments(dataModel, preference);
+        }
+
+        if (sections.contains(Common.MOST_USED_TAGS)) {
+            fillMostUsedTags(dataModel, preference);
+        }
+
+        if (sections.contains(Common.MOST_COMMENT_ARTICLES)) {
+            fillMostCommentArticles(dataModel, preference);
+        }
+
+        if (sections.contains(Common.MOST_VIEW_COUNT_ARTICLES)) {
+            fillMostViewCountArticles(dataModel, preference);
+        }
+
+        if (sections.contains(ArchiveDate.ARCHIVE_DATES)) {
+            fillArchiveDates(dataModel, preference);
+        }
+    }
+
     /**
      * Fills page navigations.
      *
@@ -716,9 +674,10 @@ public final class Filler {
                 article.put(Common.HAS_UPDATED, false);
             }
 
-            processArticleAbstract(preference, article);
-
+            // Markdown first, the abstract processing may use the content as the abstract
             articleQueryService.markdown(article);
+
+            processArticleAbstract(preference, article);
         } catch (final Exception e) {
             LOGGER.log(Level.SEVERE, "Sets article extra properties failed", e);
             throw new ServiceException(e);
@@ -760,9 +719,10 @@ public final class Filler {
                 article.put(Common.HAS_UPDATED, false);
             }
 
-            processArticleAbstract(preference, article);
-
+            // Markdown first, the abstract processing may use the content as the abstract
             articleQueryService.markdown(article);
+
+            processArticleAbstract(preference, article);
         } catch (final Exception e) {
             LOGGER.log(Level.SEVERE, "Sets article extra properties failed", e);
             throw new ServiceException(e);
@@ -856,11 +816,14 @@ public final class Filler {
             article.put(Article.ARTICLE_ABSTRACT, "");
         }
 
-        final String articleListStyle = preference.optString(Preference.ARTICLE_LIST_STYLE);
-        if ("titleOnly".equals(articleListStyle)) {
-            article.put(Article.ARTICLE_ABSTRACT, "");
-        } else if ("titleAndContent".equals(articleListStyle)) {
-            article.put(Article.ARTICLE_ABSTRACT, article.optString(Article.ARTICLE_CONTENT));
+        switch (PreferenceSnapshot.ArticleListStyle.of(preference.optString(Preference.ARTICLE_LIST_STYLE))) {
+            case TITLE_ONLY:
+                article.put(Article.ARTICLE_ABSTRACT, "");
+                break;
+            case TITLE_AND_CONTENT:
+                article.put(Article.ARTICLE_ABSTRACT, article.optString(Article.ARTICLE_CONTENT));
+                break;
+            default:
         }
     }
 
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.processor.util;
+
+import freemarker.template.Template;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.b3log.latke.util.freemarker.Templates;
+import org.b3log.solo.model.ArchiveDate;
+import org.b3log.solo.model.Common;
+import org.b3log.solo.model.Link;
+
+/**
+ * Template manifest utilities, analyzes which data model sections a template needs.
+ *
+ * <p>
+ * A template is analyzed once, its manifest (the names of the data model sections listed by it or by the templates
+ * included by it, transitively) is kept till the template is discarded (skin switching or template reloading) or
+ * the manifests are {@linkplain #clear() cleared}. The fillers consult the manifest to fetch the data the skin
+ * actually uses, instead of scanning the template on every rendering.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public final class TemplateManifests {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(TemplateManifests.class.getName());
+    /**
+     * Sections and their list expressions.
+     */
+    private static final Map<String, String> SECTION_EXPRESSIONS = new LinkedHashMap<String, String>();
+    /**
+     * Include directive pattern of the canonical form of a template.
+     */
+    private static final Pattern INCLUDE_PATTERN = Pattern.compile("<#include\\s+\"([^\"]+)\"");
+    /**
+     * Manifests, &lt;template, sections&gt;.
+     *
+     * <p>
+     * Weak keys, the manifest of a template is discarded with the template.
+     * </p>
+     */
+    private static final Map<Template, Set<String>> MANIFESTS =
+            Collections.synchronizedMap(new WeakHashMap<Template, Set<String>>());
+
+    static {
+        SECTION_EXPRESSIONS.put(Link.LINKS, "<#list links as link>");
+        SECTION_EXPRESSIONS.put(Common.RECENT_COMMENTS, "<#list recentComments as comment>");
+        SECTION_EXPRESSIONS.put(Common.MOST_USED_TAGS, "<#list mostUsedTags as tag>");
+        SECTION_EXPRESSIONS.put(Common.MOST_COMMENT_ARTICLES, "<#list mostCommentArticles as article>");
+        SECTION_EXPRESSIONS.put(Common.MOST_VIEW_COUNT_ARTICLES, "<#list mostViewCountArticles as article>");
+        SECTION_EXPRESSIONS.put(ArchiveDate.ARCHIVE_DATES, "<#list archiveDates as archiveDate>");
+    }
+
+    /**
+     * Gets the data model sections needed by the specified template.
+     *
+     * <p>
+     * The sections are the data model names, for example, {@value org.b3log.solo.model.Link#LINKS},
+     * {@value org.b3log.solo.model.Common#RECENT_COMMENTS}, etc.
+     * </p>
+     *
+     * @param template the specified template
+     * @return sections, returns an empty set if the template needs none of them
+     */
+    public static Set<String> getSections(final Template template) {
+        Set<String> ret = MANIFESTS.get(template);
+        if (null != ret) {
+            return ret;
+        }
+
+        final Set<String> sections = new HashSet<String>();
+        analyze(template, sections, new HashSet<String>());
+        ret = Collections.unmodifiableSet(sections);
+
+        MANIFESTS.put(template, ret);
+
+        LOGGER.log(Level.FINE, "Analyzed template[name={0}, sections={1}]", new Object[]{template.getName(), ret});
+
+        return ret;
+    }
+
+    /**
+     * Clears all the manifests, invoked while the skin changes.
+     */
+    public static void clear() {
+        MANIFESTS.clear();
+    }
+
+    /**
+     * Analyzes the specified template and the templates included by it, collects the sections into the specified
+     * sections.
+     *
+     * @param template the specified template
+     * @param sections the specified sections
+     * @param analyzedNames the names of the templates analyzed, for include cycles
+     */
+    private static void analyze(final Template template, final Set<String> sections, final Set<String> analyzedNames) {
+        if (!analyzedNames.add(template.getName())) {
+            return;
+        }
+
+        for (final Map.Entry<String, String> sectionExpression : SECTION_EXPRESSIONS.entrySet()) {
+            if (Templates.hasExpression(template, sectionExpression.getValue())) {
+                sections.add(sectionExpression.getKey());
+            }
+        }
+
+        final Matcher matcher = INCLUDE_PATTERN.matcher(template.toString());
+        while (matcher.find()) {
+            final String includedName = getIncludedName(template.getName(), matcher.group(1));
+
+            try {
+                analyze(template.getConfiguration().getTemplate(includedName), sections, analyzedNames);
+            } catch (final Exception e) {
+                LOGGER.log(Level.WARNING, "Analyzes included template[name=" + includedName + "] of template[name="
+                                          + template.getName() + "] failed", e);
+            }
+        }
+    }
+
+    /**
+     * Gets the name of the specified included template relative to the specified including template.
+     *
+     * @param templateName the specified including template name
+     * @param includedName the specified included template name, absolute if it starts with "/"
+     * @return included template name
+     */
+    private static String getIncludedName(final String templateName, final String includedName) {
+        if (includedName.startsWith("/")) {
+            return includedName.substring(1);
+        }
+
+        final int slashIndex = templateName.lastIndexOf('/');
+
+        return -1 == slashIndex ? includedName : templateName.substring(0, slashIndex + 1) + includedName;
+    }
+
+    /**
+     * Private default constructor.
+     */
+    private TemplateManifests() {
+    }
+}
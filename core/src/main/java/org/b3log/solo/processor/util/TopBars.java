@@ -19,13 +19,17 @@ import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.text.NumberFormat;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.b3log.latke.Keys;
+import org.b3log.latke.Latkes;
 import org.b3log.latke.model.Role;
 import org.b3log.latke.model.User;
 import org.b3log.latke.service.LangPropsService;
@@ -45,9 +49,21 @@ import org.json.JSONObject;
 /**
  * Top bar utilities.
  *
+ * <p>
+ * The top bars of anonymous visitors differ only in the locale, the mobile flag and the online visitor count, so
+ * each (locale, mobile, login URL) variant is rendered once into the segments around the online visitor count, and
+ * an anonymous top bar is the segments with the count patched in. The template is processed for logged-in users
+ * only.
+ * </p>
+ *
+ * <p>
+ * A page is written around its top bar replacement flags by {@link #writePage(java.io.Writer, java.lang.String, java.lang.String)},
+ * without building the replaced copy of the page.
+ * </p>
+ *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
  * @author <a href="mailto:dongxv.vang@gmail.com">Dongxu Wang</a>
- * @version 1.0.0.4, May 4, 2012
+ * @version 1.0.2.0, May 24, 2012
  * @since 0.3.5
  */
 public final class TopBars {
@@ -68,6 +84,14 @@ public final class TopBars {
      * Language service.
      */
     private static LangPropsService langPropsService = LangPropsService.getInstance();
+    /**
+     * Online visitor count hole, rendered in place of the count into the anonymous top bars.
+     */
+    private static final String ONLINE_VISITOR_CNT_HOLE = "#B3logSolo#onlineVisitorCnt#B3logSolo#";
+    /**
+     * Anonymous top bars, &lt;"locale/mobile/loginURL", top bar&gt;.
+     */
+    private static final Map<String, AnonymousTopBar> ANONYMOUS_TOP_BARS = new ConcurrentHashMap<String, AnonymousTopBar>();
 
     /**
      * Generates top bar HTML.
@@ -83,31 +107,22 @@ public final class TopBars {
 
         try {
             final Template topBarTemplate = ConsoleRenderer.TEMPLATE_CFG.getTemplate("top-bar.ftl");
-            final StringWriter stringWriter = new StringWriter();
-
-            final Map<String, Object> topBarModel = new HashMap<String, Object>();
 
             LoginProcessor.tryLogInWithCookie(request, response);
             final JSONObject currentUser = userUtils.getCurrentUser(request);
 
-            Keys.fillServer(topBarModel);
-            topBarModel.put(Common.IS_LOGGED_IN, false);
-
-            topBarModel.put(Common.IS_MOBILE_REQUEST, Requests.mobileRequest(request));
-            topBarModel.put("mobileLabel", langPropsService.get("mobileLabel"));
-
-            topBarModel.put("onlineVisitor1Label", langPropsService.get("onlineVisitor1Label"));
-            topBarModel.put(Common.ONLINE_VISITOR_CNT, Statistics.getOnlineVisitorCount());
+            final boolean mobileRequest = Requests.mobileRequest(request);
 
             if (null == currentUser) {
-                topBarModel.put(Common.LOGIN_URL, userService.createLoginURL(Common.ADMIN_INDEX_URI));
-                topBarModel.put("loginLabel", langPropsService.get("loginLabel"));
+                final String loginURL = userService.createLoginURL(Common.ADMIN_INDEX_URI);
 
-                topBarTemplate.process(topBarModel, stringWriter);
-
-                return stringWriter.toString();
+                return getAnonymousTopBar(topBarTemplate, mobileRequest, loginURL).fill(Statistics.getOnlineVisitorCount());
             }
 
+            final StringWriter stringWriter = new StringWriter();
+            final Map<String, Object> topBarModel = newTopBarModel(mobileRequest);
+            topBarModel.put(Common.ONLINE_VISITOR_CNT, Statistics.getOnlineVisitorCount());
+
             topBarModel.put(Common.IS_LOGGED_IN, true);
             topBarModel.put(Common.LOGOUT_URL, userService.createLogoutURL("/"));
             topBarModel.put(Common.IS_ADMIN, Role.ADMIN_ROLE.equals(currentUser.getString(User.USER_ROLE)));
@@ -137,9 +152,158 @@ public final class TopBars {
         }
     }
 
+    /**
+     * Writes the specified page content to the specified writer, with the
+     * {@linkplain Common#TOP_BAR_REPLACEMENT_FLAG top bar replacement flags} replaced by the specified top bar HTML.
+     *
+     * <p>
+     * The page content is written in the segments around the flags, the same as writing
+     * {@code pageContent.replace(Common.TOP_BAR_REPLACEMENT_FLAG, topBarHTML)} without building it.
+     * </p>
+     *
+     * @param writer the specified writer
+     * @param pageContent the specified page content
+     * @param topBarHTML the specified top bar HTML
+     * @throws IOException io exception
+     */
+    public static void writePage(final Writer writer, final String pageContent, final String topBarHTML) throws IOException {
+        final String flag = Common.TOP_BAR_REPLACEMENT_FLAG;
+
+        int start = 0;
+        int flagIndex = pageContent.indexOf(flag);
+        while (-1 != flagIndex) {
+            writer.write(pageContent, start, flagIndex - start);
+            writer.write(topBarHTML);
+
+            start = flagIndex + flag.length();
+            flagIndex = pageContent.indexOf(flag, start);
+        }
+
+        writer.write(pageContent, start, pageContent.length() - start);
+    }
+
+    /**
+     * Gets the anonymous top bar of the specified variant, renders it if not rendered with the specified template yet.
+     *
+     * @param topBarTemplate the specified template
+     * @param mobileRequest the specified mobile flag
+     * @param loginURL the specified login URL
+     * @return anonymous top bar
+     * @throws IOException io exception
+     * @throws TemplateException template exception
+     */
+    private static AnonymousTopBar getAnonymousTopBar(final Template topBarTemplate, final boolean mobileRequest,
+                                                      final String loginURL) throws IOException, TemplateException {
+        final String key = Latkes.getLocale() + "/" + mobileRequest + "/" + loginURL;
+
+        AnonymousTopBar ret = ANONYMOUS_TOP_BARS.get(key);
+        if (null != ret && topBarTemplate == ret.template) { // Renders again if the template has been reloaded
+            return ret;
+        }
+
+        final Map<String, Object> topBarModel = newTopBarModel(mobileRequest);
+        topBarModel.put(Common.ONLINE_VISITOR_CNT, ONLINE_VISITOR_CNT_HOLE);
+        topBarModel.put(Common.LOGIN_URL, loginURL);
+        topBarModel.put("loginLabel", langPropsService.get("loginLabel"));
+
+        final StringWriter stringWriter = new StringWriter();
+        topBarTemplate.process(topBarModel, stringWriter);
+
+        ret = new AnonymousTopBar(topBarTemplate, stringWriter.toString());
+        ANONYMOUS_TOP_BARS.put(key, ret);
+
+        LOGGER.log(Level.FINE, "Rendered anonymous top bar[key={0}]", key);
+
+        return ret;
+    }
+
+    /**
+     * Creates a top bar data model with the common entries (of both the anonymous visitors and the logged-in users)
+     * except the online visitor count.
+     *
+     * @param mobileRequest the specified mobile flag
+     * @return top bar data model
+     */
+    private static Map<String, Object> newTopBarModel(final boolean mobileRequest) {
+        final Map<String, Object> ret = new HashMap<String, Object>();
+
+        Keys.fillServer(ret);
+        ret.put(Common.IS_LOGGED_IN, false);
+
+        ret.put(Common.IS_MOBILE_REQUEST, mobileRequest);
+        ret.put("mobileLabel", langPropsService.get("mobileLabel"));
+
+        ret.put("onlineVisitor1Label", langPropsService.get("onlineVisitor1Label"));
+
+        return ret;
+    }
+
     /**
      * Private default constructor.
      */
     private TopBars() {
     }
+
+    /**
+     * Anonymous top bar, the rendered segments before and after the online visitor count.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     * @since 0.4.5
+     */
+    private static final class AnonymousTopBar {
+
+        /**
+         * Template rendered with.
+         */
+        private final Template template;
+        /**
+         * Segment before the online visitor count.
+         */
+        private final String head;
+        /**
+         * Segment after the online visitor count, {@code null} if the template does not show the count.
+         */
+        private final String tail;
+
+        /**
+         * Constructs an anonymous top bar with the specified template and HTML rendered with the count hole.
+         *
+         * @param template the specified template
+         * @param html the specified HTML
+         */
+        private AnonymousTopBar(final Template template, final String html) {
+            this.template = template;
+
+            final int holeIndex = html.indexOf(ONLINE_VISITOR_CNT_HOLE);
+            if (-1 == holeIndex) {
+                head = html;
+                tail = null;
+            } else {
+                head = html.substring(0, holeIndex);
+                tail = html.substring(holeIndex + ONLINE_VISITOR_CNT_HOLE.length());
+            }
+        }
+
+        /**
+         * Fills the specified online visitor count into this top bar.
+         *
+         * <p>
+         * The count is formatted as the template formats numbers (the default number format of its locale).
+         * </p>
+         *
+         * @param onlineVisitorCnt the specified online visitor count
+         * @return top bar HTML
+         */
+        private String fill(final int onlineVisitorCnt) {
+            if (null == tail) {
+                return head;
+            }
+
+            final String count = NumberFormat.getNumberInstance(template.getLocale()).format(onlineVisitorCnt);
+
+            return new StringBuilder(head.length() + count.length() + tail.length()).
+                    append(head).append(count).append(tail).toString();
+        }
+    }
 }
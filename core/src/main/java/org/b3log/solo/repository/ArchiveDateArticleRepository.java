@@ -23,7 +23,7 @@ import org.json.JSONObject;
  * Archive date-Article repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.2, Nov 9, 2011
+ * @version 1.0.0.4, May 24, 2012
  */
 public interface ArchiveDateArticleRepository extends Repository {
 
@@ -24,7 +24,7 @@ import org.json.JSONObject;
  * Article repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.1.9, Dec 31, 2011
+ * @version 1.0.4.0, May 24, 2012
  * @since 0.3.1
  */
 public interface ArticleRepository extends Repository {
@@ -50,6 +50,59 @@ public interface ArticleRepository extends Repository {
      */
     JSONObject getByAuthorEmail(final String authorEmail, final int currentPageNum, final int pageSize) throws RepositoryException;
 
+    /**
+     * Gets published articles by the specified author email after the specified cursor, sorted by update date and id
+     * descending.
+     *
+     * @param authorEmail the specified author email
+     * @param cursor the specified cursor (the last article of the previous page), {@code null} for the first page, for
+     * example,
+     * <pre>
+     * {
+     *     "articleUpdateDate": java.util.Date,
+     *     "oId": ""
+     * }
+     * </pre>
+     * @param fetchSize the specified fetch size
+     * @return a list of articles, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     * @see org.b3log.solo.util.Cursors
+     */
+    List<JSONObject> getByAuthorEmailAfter(final String authorEmail, final JSONObject cursor, final int fetchSize)
+            throws RepositoryException;
+
+    /**
+     * Gets published articles after the specified cursor, sorted by put top, the specified date property and id
+     * descending.
+     *
+     * @param dateProperty the specified date property, "articleCreateDate" or "articleUpdateDate"
+     * @param cursor the specified cursor (the last article of the previous page), {@code null} for the first page, for
+     * example,
+     * <pre>
+     * {
+     *     "articlePutTop": boolean,
+     *     "articleCreateDate": java.util.Date, // the specified date property
+     *     "oId": ""
+     * }
+     * </pre>
+     * @param fetchSize the specified fetch size
+     * @return a list of articles, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     * @see org.b3log.solo.util.Cursors
+     */
+    List<JSONObject> getPublishedAfter(final String dateProperty, final JSONObject cursor, final int fetchSize)
+            throws RepositoryException;
+
+    /**
+     * Gets articles by the specified article ids.
+     *
+     * @param articleIds the specified article ids
+     * @return a list of articles, in the order of the specified article ids (articles not found are skipped), returns an
+     * empty list if not found
+     * @throws RepositoryException repository exception
+     */
+    List<JSONObject> getByIds(final List<String> articleIds) throws RepositoryException;
+
     /**
      * Gets an article by the specified permalink.
      *
@@ -86,6 +139,28 @@ public interface ArticleRepository extends Repository {
      */
     List<JSONObject> getMostViewCountArticles(final int num) throws RepositoryException;
 
+    /**
+     * Gets most commented and published articles with the specified number from the leaderboard, the result is the
+     * same as {@link #getMostCommentArticles(int)} without querying.
+     *
+     * @param num the specified number
+     * @return a list of most comment articles, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     * @see org.b3log.solo.util.Leaderboard
+     */
+    List<JSONObject> getMostCommentArticlesSnapshot(final int num) throws RepositoryException;
+
+    /**
+     * Gets most view count and published articles with the specified number from the leaderboard, the result is the
+     * same as {@link #getMostViewCountArticles(int)} without querying.
+     *
+     * @param num the specified number
+     * @return a list of most view count articles, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     * @see org.b3log.solo.util.Leaderboard
+     */
+    List<JSONObject> getMostViewCountArticlesSnapshot(final int num) throws RepositoryException;
+
     /**
      * Gets the previous article(by create date) by the specified article id.
      *
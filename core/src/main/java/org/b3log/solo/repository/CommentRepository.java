@@ -25,12 +25,12 @@ import org.json.JSONObject;
  * Comment repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.4, Oct 26, 2011
+ * @version 1.0.2.0, May 24, 2012
  */
 public interface CommentRepository extends Repository {
 
     /**
-     * Gets post comments recently with the specified fetch.
+     * Gets post comments recently with the specified fetch, comments of unpublished articles are excluded.
      *
      * @param fetchSize the specified fetch size
      * @return a list of comments recently, returns an empty list if not found
@@ -39,6 +39,12 @@ public interface CommentRepository extends Repository {
     List<JSONObject> getRecentComments(final int fetchSize)
             throws RepositoryException;
 
+    /**
+     * Invalidates the recent comments, they will be reloaded on the next {@link #getRecentComments(int)}, for example,
+     * after an article has been published or unpublished.
+     */
+    void invalidateRecentComments();
+
     /**
      * Gets comments with the specified on id, current page number and 
      * page size.
@@ -53,6 +59,35 @@ public interface CommentRepository extends Repository {
                                  final int currentPageNum,
                                  final int pageSize) throws RepositoryException;
 
+    /**
+     * Gets comments with the specified on id after the specified cursor, in thread order: threads sorted by the id of
+     * the root comment descending, comments of a thread in depth-first order (sorted by path).
+     *
+     * <p>
+     * The next page is fetched by range filters on the thread id and path instead of skipping the leading comments, so
+     * a deep page costs the same as the first one.
+     * </p>
+     *
+     * @param onId the specified on id
+     * @param cursor the specified cursor (path of the last comment of the previous page), {@code null} for the first
+     * page
+     * @param fetchSize the specified fetch size
+     * @return a list of comments, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     * @see org.b3log.solo.util.Comments#setThread(org.json.JSONObject, org.json.JSONObject)
+     */
+    List<JSONObject> getCommentsAfter(final String onId, final String cursor, final int fetchSize)
+            throws RepositoryException;
+
+    /**
+     * Gets all replies (direct and indirect) of the specified comment, in depth-first order.
+     *
+     * @param comment the specified comment
+     * @return a list of replies, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     */
+    List<JSONObject> getReplies(final JSONObject comment) throws RepositoryException;
+
     /**
      * Removes comments with the specified on id.
      * 
@@ -15,6 +15,7 @@
  */
 package org.b3log.solo.repository;
 
+import java.util.List;
 import org.b3log.latke.repository.Repository;
 import org.b3log.latke.repository.RepositoryException;
 import org.json.JSONObject;
@@ -23,7 +24,7 @@ import org.json.JSONObject;
  * Link repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.3, Nov 2, 2011
+ * @version 1.0.0.4, May 24, 2012
  * @since 0.3.1
  */
 public interface LinkRepository extends Repository {
@@ -71,4 +72,14 @@ public interface LinkRepository extends Repository {
      * @throws RepositoryException repository exception 
      */
     JSONObject getByOrder(final int order) throws RepositoryException;
+
+    /**
+     * Gets all links in ascending order of {@link org.b3log.solo.model.Link#LINK_ORDER} from the leaderboard, without
+     * querying.
+     *
+     * @return links, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     * @see org.b3log.solo.util.Leaderboard
+     */
+    List<JSONObject> getLinksSnapshot() throws RepositoryException;
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.repository;
+
+import java.util.List;
+import org.b3log.latke.repository.Repository;
+import org.b3log.latke.repository.RepositoryException;
+import org.json.JSONObject;
+
+/**
+ * Search segment repository.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public interface SearchSegmentRepository extends Repository {
+
+    /**
+     * Gets all segments.
+     *
+     * @return segments ordered by id (creation order) ascending, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     */
+    List<JSONObject> getSegments() throws RepositoryException;
+}
@@ -24,7 +24,7 @@ import org.json.JSONObject;
  * Tag-Article repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.3, Nov 8, 2011
+ * @version 1.0.0.5, May 24, 2012
  */
 public interface TagArticleRepository extends Repository {
 
@@ -24,7 +24,7 @@ import org.json.JSONObject;
  * Tag repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.1, Aug 12, 2010
+ * @version 1.0.1.1, May 24, 2012
  */
 public interface TagRepository extends Repository {
 
@@ -56,4 +56,16 @@ public interface TagRepository extends Repository {
      * @throws RepositoryException repository exception
      */
     List<JSONObject> getMostUsedTags(final int num) throws RepositoryException;
+
+    /**
+     * Gets most used tags with the specified number from the leaderboard, the result is the same as
+     * {@link #getMostUsedTags(int)} without querying (the leaderboard holds only the ids and counts, the tags are got
+     * by id).
+     *
+     * @param num the specified number
+     * @return a list of most used tags, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     * @see org.b3log.solo.util.Leaderboard
+     */
+    List<JSONObject> getMostUsedTagsSnapshot(final int num) throws RepositoryException;
 }
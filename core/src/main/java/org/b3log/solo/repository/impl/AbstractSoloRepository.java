@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.repository.impl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.b3log.latke.repository.AbstractRepository;
+import org.b3log.latke.repository.Transaction;
+
+/**
+ * Abstract repository of Solo, notifies the {@link TransactionListener transaction listeners} after a transaction
+ * begun by any repository of Solo committed or rolled back.
+ *
+ * <p>
+ * The in-memory indexes over the repositories (leaderboards, search index, etc) record their changes made inside a
+ * transaction and apply them after the transaction committed, so they never hold a change rolled back, and the
+ * services commit and roll back transactions as usual.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public abstract class AbstractSoloRepository extends AbstractRepository {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(AbstractSoloRepository.class.getName());
+    /**
+     * Transaction listeners.
+     */
+    private static final List<TransactionListener> LISTENERS = new CopyOnWriteArrayList<TransactionListener>();
+
+    /**
+     * Constructs a repository with the specified name.
+     *
+     * @param name the specified name
+     */
+    protected AbstractSoloRepository(final String name) {
+        super(name);
+    }
+
+    /**
+     * Adds the specified transaction listener.
+     *
+     * @param listener the specified transaction listener
+     */
+    public static void addTransactionListener(final TransactionListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    @Override
+    public Transaction beginTransaction() {
+        return new ListenedTransaction(super.beginTransaction());
+    }
+
+    /**
+     * Transaction listener, invoked in the thread of the transaction.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    public interface TransactionListener {
+
+        /**
+         * Invoked after the transaction of the current thread committed.
+         */
+        void committed();
+
+        /**
+         * Invoked after the transaction of the current thread rolled back.
+         */
+        void rolledBack();
+    }
+
+    /**
+     * Transaction notifies the listeners after committed or rolled back.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class ListenedTransaction implements Transaction {
+
+        /**
+         * Underlying transaction.
+         */
+        private final Transaction transaction;
+
+        /**
+         * Constructs a transaction with the specified underlying transaction.
+         *
+         * @param transaction the specified underlying transaction
+         */
+        private ListenedTransaction(final Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public String getId() {
+            return transaction.getId();
+        }
+
+        @Override
+        public void commit() {
+            transaction.commit();
+
+            for (final TransactionListener listener : LISTENERS) {
+                try {
+                    listener.committed();
+                } catch (final RuntimeException e) {
+                    LOGGER.log(Level.SEVERE, "Notifies a transaction listener of commit failed", e);
+                }
+            }
+        }
+
+        @Override
+        public void rollback() {
+            try {
+                transaction.rollback();
+            } finally {
+                for (final TransactionListener listener : LISTENERS) {
+                    try {
+                        listener.rolledBack();
+                    } catch (final RuntimeException e) {
+                        LOGGER.log(Level.SEVERE, "Notifies a transaction listener of rollback failed", e);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean isActive() {
+            return transaction.isActive();
+        }
+
+        @Override
+        public void clearQueryCache(final boolean flag) {
+            transaction.clearQueryCache(flag);
+        }
+    }
+}
@@ -16,7 +16,6 @@
 package org.b3log.solo.repository.impl;
 
 import org.b3log.latke.Keys;
-import org.b3log.latke.repository.AbstractRepository;
 import org.b3log.latke.repository.FilterOperator;
 import org.b3log.latke.repository.Query;
 import org.b3log.solo.model.Article;
@@ -31,10 +30,10 @@ import org.json.JSONObject;
  * Archive date-Article relation repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.6, Nov 9, 2011
+ * @version 1.0.0.9, May 24, 2012
  * @since 0.3.1
  */
-public final class ArchiveDateArticleRepositoryImpl extends AbstractRepository implements ArchiveDateArticleRepository {
+public final class ArchiveDateArticleRepositoryImpl extends AbstractSoloRepository implements ArchiveDateArticleRepository {
 
     /**
      * Singleton.
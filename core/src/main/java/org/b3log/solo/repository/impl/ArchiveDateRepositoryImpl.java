@@ -21,7 +21,6 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.b3log.latke.Keys;
-import org.b3log.latke.repository.AbstractRepository;
 import org.b3log.latke.repository.FilterOperator;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.RepositoryException;
@@ -36,10 +35,10 @@ import org.json.JSONObject;
  * Archive date repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.6, Dec 31, 2011
+ * @version 1.0.0.7, May 24, 2012
  * @since 0.3.1
  */
-public final class ArchiveDateRepositoryImpl extends AbstractRepository implements ArchiveDateRepository {
+public final class ArchiveDateRepositoryImpl extends AbstractSoloRepository implements ArchiveDateRepository {
 
     /**
      * Logger.
@@ -17,7 +17,10 @@ package org.b3log.solo.repository.impl;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.b3log.solo.model.Article;
@@ -25,6 +28,7 @@ import org.b3log.solo.repository.ArticleRepository;
 import org.b3log.latke.Keys;
 import org.b3log.latke.repository.*;
 import org.b3log.latke.util.CollectionUtils;
+import org.b3log.solo.util.Leaderboard;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -33,10 +37,10 @@ import org.json.JSONObject;
  * Article repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.3.9, May 8, 2012
+ * @version 1.0.6.2, May 24, 2012
  * @since 0.3.1
  */
-public final class ArticleRepositoryImpl extends AbstractRepository implements ArticleRepository {
+public final class ArticleRepositoryImpl extends AbstractSoloRepository implements ArticleRepository {
 
     /**
      * Logger.
@@ -50,6 +54,97 @@ public final class ArticleRepositoryImpl extends AbstractRepository implements A
      * Random range.
      */
     private static final double RANDOM_RANGE = 0.1D;
+    /**
+     * Max count of values of an IN filter.
+     */
+    private static final int MAX_IN_FILTER_VALUES = 30;
+    /**
+     * Leaderboard of most comment articles.
+     */
+    private final Leaderboard mostCommentArticles = new Leaderboard(this, "mostCommentArticles") {
+
+        @Override
+        protected List<JSONObject> load(final int num) throws RepositoryException {
+            return getMostCommentArticles(num);
+        }
+
+        @Override
+        protected boolean isRanked(final JSONObject article) {
+            return article.optBoolean(Article.ARTICLE_IS_PUBLISHED);
+        }
+
+        @Override
+        public int compare(final JSONObject article1, final JSONObject article2) {
+            return compareArticles(article1, article2, Article.ARTICLE_COMMENT_COUNT);
+        }
+    };
+    /**
+     * Leaderboard of most view count articles.
+     */
+    private final Leaderboard mostViewCountArticles = new Leaderboard(this, "mostViewCountArticles") {
+
+        @Override
+        protected List<JSONObject> load(final int num) throws RepositoryException {
+            return getMostViewCountArticles(num);
+        }
+
+        @Override
+        protected boolean isRanked(final JSONObject article) {
+            return article.optBoolean(Article.ARTICLE_IS_PUBLISHED);
+        }
+
+        @Override
+        public int compare(final JSONObject article1, final JSONObject article2) {
+            return compareArticles(article1, article2, Article.ARTICLE_VIEW_COUNT);
+        }
+    };
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Offers the added article to the leaderboards.
+     * </p>
+     */
+    @Override
+    public String add(final JSONObject jsonObject) throws RepositoryException {
+        final String ret = super.add(jsonObject);
+
+        mostCommentArticles.offer(ret, jsonObject);
+        mostViewCountArticles.offer(ret, jsonObject);
+
+        return ret;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Offers the updated article to the leaderboards.
+     * </p>
+     */
+    @Override
+    public void update(final String id, final JSONObject jsonObject) throws RepositoryException {
+        super.update(id, jsonObject);
+
+        mostCommentArticles.offer(id, jsonObject);
+        mostViewCountArticles.offer(id, jsonObject);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Removes the article from the leaderboards.
+     * </p>
+     */
+    @Override
+    public void remove(final String id) throws RepositoryException {
+        super.remove(id);
+
+        mostCommentArticles.remove(id);
+        mostViewCountArticles.remove(id);
+    }
 
     @Override
     public JSONObject getByAuthorEmail(final String authorEmail, final int currentPageNum, final int pageSize)
@@ -57,11 +152,138 @@ public final class ArticleRepositoryImpl extends AbstractRepository implements A
         final Query query = new Query().addFilter(Article.ARTICLE_AUTHOR_EMAIL, FilterOperator.EQUAL, authorEmail).
                 addFilter(Article.ARTICLE_IS_PUBLISHED, FilterOperator.EQUAL, true).
                 addSort(Article.ARTICLE_UPDATE_DATE, SortDirection.DESCENDING).
+                addSort(Keys.OBJECT_ID, SortDirection.DESCENDING).
                 setCurrentPageNum(currentPageNum).setPageSize(pageSize).setPageCount(1);
 
         return get(query);
     }
 
+    @Override
+    public List<JSONObject> getByAuthorEmailAfter(final String authorEmail, final JSONObject cursor, final int fetchSize)
+            throws RepositoryException {
+        return getPublishedAfter(authorEmail, null, Article.ARTICLE_UPDATE_DATE, cursor, fetchSize);
+    }
+
+    @Override
+    public List<JSONObject> getPublishedAfter(final String dateProperty, final JSONObject cursor, final int fetchSize)
+            throws RepositoryException {
+        final List<JSONObject> ret = new ArrayList<JSONObject>();
+
+        if (null == cursor || cursor.optBoolean(Article.ARTICLE_PUT_TOP)) {
+            ret.addAll(getPublishedAfter(null, true, dateProperty, cursor, fetchSize));
+
+            if (ret.size() < fetchSize) { // Put top articles exhausted, continues with the others from the beginning
+                ret.addAll(getPublishedAfter(null, false, dateProperty, null, fetchSize - ret.size()));
+            }
+
+            return ret;
+        }
+
+        ret.addAll(getPublishedAfter(null, false, dateProperty, cursor, fetchSize));
+
+        return ret;
+    }
+
+    /**
+     * Gets published articles after the specified cursor, sorted by the specified date property and id descending.
+     * 
+     * <p>
+     * Articles sharing the date of the cursor (with smaller ids) are fetched first, then the ones with earlier dates, so
+     * both queries are range scans on an index, no leading rows skipped.
+     * </p>
+     *
+     * @param authorEmail the specified author email, {@code null} for all authors
+     * @param putTop the specified put top flag, {@code null} for both
+     * @param dateProperty the specified date property
+     * @param cursor the specified cursor, {@code null} for the first page
+     * @param fetchSize the specified fetch size
+     * @return a list of articles, returns an empty list if not found
+     * @throws RepositoryException repository exception 
+     */
+    private List<JSONObject> getPublishedAfter(final String authorEmail, final Boolean putTop, final String dateProperty,
+                                               final JSONObject cursor, final int fetchSize) throws RepositoryException {
+        final List<JSONObject> ret = new ArrayList<JSONObject>();
+
+        if (null != cursor) {
+            final Query query = getPublishedQuery(authorEmail, putTop).
+                    addFilter(dateProperty, FilterOperator.EQUAL, cursor.opt(dateProperty)).
+                    addFilter(Keys.OBJECT_ID, FilterOperator.LESS_THAN, cursor.optString(Keys.OBJECT_ID)).
+                    addSort(Keys.OBJECT_ID, SortDirection.DESCENDING).
+                    setCurrentPageNum(1).setPageSize(fetchSize).setPageCount(1);
+
+            final JSONObject result = get(query);
+            ret.addAll(CollectionUtils.<JSONObject>jsonArrayToList(result.optJSONArray(Keys.RESULTS)));
+
+            if (ret.size() >= fetchSize) {
+                return ret;
+            }
+        }
+
+        final Query query = getPublishedQuery(authorEmail, putTop).
+                addSort(dateProperty, SortDirection.DESCENDING).
+                addSort(Keys.OBJECT_ID, SortDirection.DESCENDING).
+                setCurrentPageNum(1).setPageSize(fetchSize - ret.size()).setPageCount(1);
+        if (null != cursor) {
+            query.addFilter(dateProperty, FilterOperator.LESS_THAN, cursor.opt(dateProperty));
+        }
+
+        final JSONObject result = get(query);
+        ret.addAll(CollectionUtils.<JSONObject>jsonArrayToList(result.optJSONArray(Keys.RESULTS)));
+
+        return ret;
+    }
+
+    /**
+     * Gets a query for published articles with the specified author email and put top flag.
+     * 
+     * @param authorEmail the specified author email, {@code null} for all authors
+     * @param putTop the specified put top flag, {@code null} for both
+     * @return query
+     */
+    private static Query getPublishedQuery(final String authorEmail, final Boolean putTop) {
+        final Query ret = new Query();
+
+        if (null != authorEmail) {
+            ret.addFilter(Article.ARTICLE_AUTHOR_EMAIL, FilterOperator.EQUAL, authorEmail);
+        }
+
+        ret.addFilter(Article.ARTICLE_IS_PUBLISHED, FilterOperator.EQUAL, true);
+
+        if (null != putTop) {
+            ret.addFilter(Article.ARTICLE_PUT_TOP, FilterOperator.EQUAL, putTop);
+        }
+
+        return ret;
+    }
+
+    @Override
+    public List<JSONObject> getByIds(final List<String> articleIds) throws RepositoryException {
+        final Map<String, JSONObject> articles = new HashMap<String, JSONObject>(articleIds.size());
+
+        for (int i = 0; i < articleIds.size(); i += MAX_IN_FILTER_VALUES) {
+            final List<String> ids = articleIds.subList(i, Math.min(i + MAX_IN_FILTER_VALUES, articleIds.size()));
+            final Query query = new Query().addFilter(Keys.OBJECT_ID, FilterOperator.IN, new HashSet<String>(ids)).
+                    setPageCount(1);
+
+            final JSONArray array = get(query).optJSONArray(Keys.RESULTS);
+            for (int j = 0; j < array.length(); j++) {
+                final JSONObject article = array.optJSONObject(j);
+
+                articles.put(article.optString(Keys.OBJECT_ID), article);
+            }
+        }
+
+        final List<JSONObject> ret = new ArrayList<JSONObject>(articles.size());
+        for (final String articleId : articleIds) {
+            final JSONObject article = articles.get(articleId);
+            if (null != article) {
+                ret.add(article);
+            }
+        }
+
+        return ret;
+    }
+
     @Override
     public JSONObject getByPermalink(final String permalink) throws RepositoryException {
         final Query query = new Query().addFilter(Article.ARTICLE_PERMALINK, FilterOperator.EQUAL, permalink).
@@ -96,6 +318,7 @@ public final class ArticleRepositoryImpl extends AbstractRepository implements A
     public List<JSONObject> getMostCommentArticles(final int num) throws RepositoryException {
         final Query query = new Query().addSort(Article.ARTICLE_COMMENT_COUNT, SortDirection.DESCENDING).
                 addSort(Article.ARTICLE_UPDATE_DATE, SortDirection.DESCENDING).
+                addSort(Keys.OBJECT_ID, SortDirection.ASCENDING).
                 addFilter(Article.ARTICLE_IS_PUBLISHED, FilterOperator.EQUAL, true).
                 setCurrentPageNum(1).setPageSize(num).setPageCount(1);
 
@@ -109,7 +332,8 @@ public final class ArticleRepositoryImpl extends AbstractRepository implements A
     public List<JSONObject> getMostViewCountArticles(final int num) throws RepositoryException {
         final Query query = new Query();
         query.addSort(Article.ARTICLE_VIEW_COUNT, SortDirection.DESCENDING).
-                addSort(Article.ARTICLE_UPDATE_DATE, SortDirection.DESCENDING);
+                addSort(Article.ARTICLE_UPDATE_DATE, SortDirection.DESCENDING).
+                addSort(Keys.OBJECT_ID, SortDirection.ASCENDING);
         query.addFilter(Article.ARTICLE_IS_PUBLISHED, FilterOperator.EQUAL, true);
         query.setCurrentPageNum(1);
         query.setPageSize(num);
@@ -121,6 +345,16 @@ public final class ArticleRepositoryImpl extends AbstractRepository implements A
         return CollectionUtils.jsonArrayToList(array);
     }
 
+    @Override
+    public List<JSONObject> getMostCommentArticlesSnapshot(final int num) throws RepositoryException {
+        return mostCommentArticles.get(num);
+    }
+
+    @Override
+    public List<JSONObject> getMostViewCountArticlesSnapshot(final int num) throws RepositoryException {
+        return mostViewCountArticles.get(num);
+    }
+
     @Override
     public JSONObject getPreviousArticle(final String articleId) throws RepositoryException {
         final JSONObject currentArticle = get(articleId);
@@ -240,6 +474,30 @@ public final class ArticleRepositoryImpl extends AbstractRepository implements A
         return ret;
     }
 
+    /**
+     * Compares the specified articles in the order of the leaderboard queries, the specified count property descending,
+     * update date descending and id ascending.
+     *
+     * @param article1 the specified article1
+     * @param article2 the specified article2
+     * @param countProperty the specified count property
+     * @return comparison result
+     */
+    private static int compareArticles(final JSONObject article1, final JSONObject article2, final String countProperty) {
+        int ret = Integer.valueOf(article2.optInt(countProperty)).compareTo(article1.optInt(countProperty));
+        if (0 != ret) {
+            return ret;
+        }
+
+        ret = Long.valueOf(Leaderboard.getTime(article2, Article.ARTICLE_UPDATE_DATE)).
+                compareTo(Leaderboard.getTime(article1, Article.ARTICLE_UPDATE_DATE));
+        if (0 != ret) {
+            return ret;
+        }
+
+        return Leaderboard.compareIds(article1, article2);
+    }
+
     /**
      * Gets the {@link ArticleRepositoryImpl} singleton.
      *
@@ -15,14 +15,13 @@
  */
 package org.b3log.solo.repository.impl;
 
-import java.io.Serializable;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.b3log.latke.Keys;
-import org.b3log.latke.cache.Cache;
-import org.b3log.latke.repository.AbstractRepository;
 import org.b3log.latke.repository.FilterOperator;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.RepositoryException;
@@ -30,8 +29,11 @@ import org.b3log.latke.repository.SortDirection;
 import org.b3log.solo.model.Comment;
 import org.b3log.solo.repository.CommentRepository;
 import org.b3log.latke.util.CollectionUtils;
+import org.b3log.latke.util.Strings;
 import org.b3log.solo.model.Article;
 import org.b3log.solo.repository.ArticleRepository;
+import org.b3log.solo.util.Comments;
+import org.b3log.solo.util.Leaderboard;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -39,10 +41,10 @@ import org.json.JSONObject;
  * Comment repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.8, Oct 18, 2011
+ * @version 1.0.2.1, May 24, 2012
  * @since 0.3.1
  */
-public final class CommentRepositoryImpl extends AbstractRepository implements CommentRepository {
+public final class CommentRepositoryImpl extends AbstractSoloRepository implements CommentRepository {
 
     /**
      * Logger.
@@ -57,9 +59,25 @@ public final class CommentRepositoryImpl extends AbstractRepository implements C
      */
     private ArticleRepository articleRepository = ArticleRepositoryImpl.getInstance();
     /**
-     * Recent comments query results cache key.
+     * Recent comments of published articles and pages.
      */
-    public static final String RECENT_CMTS_CACHE_KEY = "recentCMTs";
+    private final Leaderboard recentComments = new Leaderboard(this, "recentComments") {
+
+        @Override
+        protected List<JSONObject> load(final int num) throws RepositoryException {
+            return loadRecentComments(num);
+        }
+
+        @Override
+        protected boolean isRanked(final JSONObject comment) throws RepositoryException {
+            return isOnPublished(comment, new HashMap<String, Boolean>());
+        }
+
+        @Override
+        public int compare(final JSONObject comment1, final JSONObject comment2) {
+            return compareIds(comment2, comment1);
+        }
+    };
 
     @Override
     public int removeComments(final String onId) throws RepositoryException {
@@ -92,60 +110,182 @@ public final class CommentRepositoryImpl extends AbstractRepository implements C
     }
 
     @Override
-    @SuppressWarnings("unchecked")
-    public List<JSONObject> getRecentComments(final int num) throws RepositoryException {
-        if (isCacheEnabled()) {
-            final Cache<String, Serializable> cache = getCache();
-            final Object ret = cache.get(RECENT_CMTS_CACHE_KEY);
-            if (null != ret) {
-                return (List<JSONObject>) ret;
+    public List<JSONObject> getCommentsAfter(final String onId, final String cursor, final int fetchSize)
+            throws RepositoryException {
+        final List<JSONObject> ret = new ArrayList<JSONObject>();
+
+        String threadId = null;
+        if (null != cursor) {
+            final int firstSeparator = cursor.indexOf(Comments.PATH_SEPARATOR);
+            threadId = -1 == firstSeparator ? cursor : cursor.substring(0, firstSeparator);
+
+            // The rest of the thread of the cursor first
+            final Query query = new Query().addSort(Comment.COMMENT_PATH, SortDirection.ASCENDING).
+                    addFilter(Comment.COMMENT_ON_ID, FilterOperator.EQUAL, onId).
+                    addFilter(Comment.COMMENT_THREAD_ID, FilterOperator.EQUAL, threadId).
+                    addFilter(Comment.COMMENT_PATH, FilterOperator.GREATER_THAN, cursor).
+                    setCurrentPageNum(1).
+                    setPageSize(fetchSize).
+                    setPageCount(1);
+
+            final List<JSONObject> comments = CollectionUtils.jsonArrayToList(get(query).optJSONArray(Keys.RESULTS));
+            ret.addAll(comments);
+            if (ret.size() >= fetchSize) {
+                return ret;
             }
         }
 
-        final Query query = new Query().addSort(Keys.OBJECT_ID, SortDirection.DESCENDING).
+        final Query query = new Query().addSort(Comment.COMMENT_THREAD_ID, SortDirection.DESCENDING).
+                addSort(Comment.COMMENT_PATH, SortDirection.ASCENDING).
+                addFilter(Comment.COMMENT_ON_ID, FilterOperator.EQUAL, onId).
                 setCurrentPageNum(1).
-                setPageSize(num).setPageCount(1);
+                setPageSize(fetchSize - ret.size()).
+                setPageCount(1);
+        if (null != threadId) {
+            query.addFilter(Comment.COMMENT_THREAD_ID, FilterOperator.LESS_THAN, threadId);
+        }
 
-        List<JSONObject> ret;
-        final JSONObject result = get(query);
+        final List<JSONObject> comments = CollectionUtils.jsonArrayToList(get(query).optJSONArray(Keys.RESULTS));
+        ret.addAll(comments);
 
-        final JSONArray array = result.optJSONArray(Keys.RESULTS);
+        return ret;
+    }
 
-        ret = CollectionUtils.jsonArrayToList(array);
+    @Override
+    public List<JSONObject> getReplies(final JSONObject comment) throws RepositoryException {
+        final String path = comment.optString(Comment.COMMENT_PATH);
+        if (Strings.isEmptyOrNull(path)) {
+            return new ArrayList<JSONObject>();
+        }
 
-        // Removes unpublished article related comments
-        removeForUnpublishedArticles(ret);
+        // Paths of the replies start with the path of the comment and a separator
+        final Query query = new Query().addSort(Comment.COMMENT_PATH, SortDirection.ASCENDING).
+                addFilter(Comment.COMMENT_ON_ID, FilterOperator.EQUAL, comment.optString(Comment.COMMENT_ON_ID)).
+                addFilter(Comment.COMMENT_THREAD_ID, FilterOperator.EQUAL, comment.optString(Comment.COMMENT_THREAD_ID)).
+                addFilter(Comment.COMMENT_PATH, FilterOperator.GREATER_THAN, path + Comments.PATH_SEPARATOR).
+                addFilter(Comment.COMMENT_PATH, FilterOperator.LESS_THAN, path + (char) (Comments.PATH_SEPARATOR + 1)).
+                setPageCount(1);
 
-        if (isCacheEnabled()) {
-            final Cache<String, Serializable> cache = getCache();
-            cache.put(RECENT_CMTS_CACHE_KEY, (Serializable) ret);
-        }
+        return CollectionUtils.jsonArrayToList(get(query).optJSONArray(Keys.RESULTS));
+    }
+
+    @Override
+    public List<JSONObject> getRecentComments(final int num) throws RepositoryException {
+        return recentComments.get(num);
+    }
+
+    @Override
+    public void invalidateRecentComments() {
+        recentComments.invalidate();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Offers the added comment to the recent comments.
+     * </p>
+     */
+    @Override
+    public String add(final JSONObject jsonObject) throws RepositoryException {
+        final String ret = super.add(jsonObject);
+
+        recentComments.offer(ret, jsonObject);
 
         return ret;
     }
 
     /**
-     * Removes comments of unpublished articles for the specified comments.
+     * {@inheritDoc}
+     *
+     * <p>
+     * Offers the updated comment to the recent comments.
+     * </p>
+     */
+    @Override
+    public void update(final String id, final JSONObject jsonObject) throws RepositoryException {
+        super.update(id, jsonObject);
+
+        recentComments.offer(id, jsonObject);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Removes the comment from the recent comments.
+     * </p>
+     */
+    @Override
+    public void remove(final String id) throws RepositoryException {
+        super.remove(id);
+
+        recentComments.remove(id);
+    }
+
+    /**
+     * Loads the specified number of recent comments of published articles and pages.
+     *
+     * <p>
+     * Fetches more comments while some comments of unpublished articles have been skipped, so the result is full as
+     * long as there are enough comments.
+     * </p>
      *
-     * @param comments the specified comments
+     * @param num the specified number
+     * @return recent comments, returns an empty list if not found
      * @throws RepositoryException repository exception
      */
-    private void removeForUnpublishedArticles(final List<JSONObject> comments) throws RepositoryException {
-        LOGGER.finer("Removing unpublished articles' comments....");
-        final Iterator<JSONObject> iterator = comments.iterator();
-        while (iterator.hasNext()) {
-            final JSONObject comment = iterator.next();
-            final String commentOnType = comment.optString(Comment.COMMENT_ON_TYPE);
-            if (Article.ARTICLE.equals(commentOnType)) {
-                final String articleId = comment.optString(Comment.COMMENT_ON_ID);
-
-                if (!articleRepository.isPublished(articleId)) {
-                    iterator.remove();
+    private List<JSONObject> loadRecentComments(final int num) throws RepositoryException {
+        final List<JSONObject> ret = new ArrayList<JSONObject>();
+        final Map<String, Boolean> publishedArticles = new HashMap<String, Boolean>();
+
+        int currentPageNum = 1;
+        while (ret.size() < num) {
+            final Query query = new Query().addSort(Keys.OBJECT_ID, SortDirection.DESCENDING).
+                    setCurrentPageNum(currentPageNum).
+                    setPageSize(num).setPageCount(1);
+
+            final JSONObject result = get(query);
+            final List<JSONObject> comments = CollectionUtils.jsonArrayToList(result.optJSONArray(Keys.RESULTS));
+
+            for (final JSONObject comment : comments) {
+                if (ret.size() < num && isOnPublished(comment, publishedArticles)) {
+                    ret.add(comment);
                 }
             }
+
+            if (comments.size() < num) {
+                break;
+            }
+
+            currentPageNum++;
         }
 
-        LOGGER.finer("Removed unpublished articles' comments....");
+        return ret;
+    }
+
+    /**
+     * Determines whether the specified comment is on a published article or a page.
+     *
+     * @param comment the specified comment
+     * @param publishedArticles publish states of articles checked, article id as the key
+     * @return {@code true} if it is, returns {@code false} otherwise
+     * @throws RepositoryException repository exception
+     */
+    private boolean isOnPublished(final JSONObject comment, final Map<String, Boolean> publishedArticles)
+            throws RepositoryException {
+        if (!Article.ARTICLE.equals(comment.optString(Comment.COMMENT_ON_TYPE))) {
+            return true;
+        }
+
+        final String articleId = comment.optString(Comment.COMMENT_ON_ID);
+        Boolean ret = publishedArticles.get(articleId);
+        if (null == ret) {
+            ret = articleRepository.isPublished(articleId);
+            publishedArticles.put(articleId, ret);
+        }
+
+        return ret;
     }
 
     /**
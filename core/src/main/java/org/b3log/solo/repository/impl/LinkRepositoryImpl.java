@@ -15,15 +15,17 @@
  */
 package org.b3log.solo.repository.impl;
 
+import java.util.List;
 import java.util.logging.Logger;
 import org.b3log.latke.Keys;
-import org.b3log.latke.repository.AbstractRepository;
 import org.b3log.latke.repository.FilterOperator;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.RepositoryException;
 import org.b3log.latke.repository.SortDirection;
+import org.b3log.latke.util.CollectionUtils;
 import org.b3log.solo.model.Link;
 import org.b3log.solo.repository.LinkRepository;
+import org.b3log.solo.util.Leaderboard;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -31,10 +33,10 @@ import org.json.JSONObject;
  * Link repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.5, Nov 10, 2011
+ * @version 1.0.1.2, May 24, 2012
  * @since 0.3.1
  */
-public final class LinkRepositoryImpl extends AbstractRepository implements LinkRepository {
+public final class LinkRepositoryImpl extends AbstractSoloRepository implements LinkRepository {
 
     /**
      * Logger.
@@ -44,6 +46,85 @@ public final class LinkRepositoryImpl extends AbstractRepository implements Link
      * Singleton.
      */
     private static final LinkRepositoryImpl SINGLETON = new LinkRepositoryImpl(Link.LINK);
+    /**
+     * Leaderboard of all links, ordered by link order.
+     */
+    private final Leaderboard links = new Leaderboard(this, "links") {
+
+        @Override
+        protected List<JSONObject> load(final int num) throws RepositoryException {
+            final Query query = new Query().addSort(Link.LINK_ORDER, SortDirection.ASCENDING).
+                    addSort(Keys.OBJECT_ID, SortDirection.ASCENDING).
+                    setCurrentPageNum(1).setPageSize(num).setPageCount(1);
+
+            return CollectionUtils.jsonArrayToList(LinkRepositoryImpl.this.get(query).optJSONArray(Keys.RESULTS));
+        }
+
+        @Override
+        protected boolean isRanked(final JSONObject link) {
+            return true;
+        }
+
+        @Override
+        public int compare(final JSONObject link1, final JSONObject link2) {
+            final int order1 = link1.optInt(Link.LINK_ORDER);
+            final int order2 = link2.optInt(Link.LINK_ORDER);
+            if (order1 != order2) {
+                return order1 < order2 ? -1 : 1;
+            }
+
+            return compareIds(link1, link2);
+        }
+    };
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Offers the added link to the leaderboard.
+     * </p>
+     */
+    @Override
+    public String add(final JSONObject jsonObject) throws RepositoryException {
+        final String ret = super.add(jsonObject);
+
+        links.offer(ret, jsonObject);
+
+        return ret;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Offers the updated link to the leaderboard.
+     * </p>
+     */
+    @Override
+    public void update(final String id, final JSONObject jsonObject) throws RepositoryException {
+        super.update(id, jsonObject);
+
+        links.offer(id, jsonObject);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Removes the link from the leaderboard.
+     * </p>
+     */
+    @Override
+    public void remove(final String id) throws RepositoryException {
+        super.remove(id);
+
+        links.remove(id);
+    }
+
+    @Override
+    public List<JSONObject> getLinksSnapshot() throws RepositoryException {
+        return links.get(Integer.MAX_VALUE);
+    }
 
     @Override
     public JSONObject getByAddress(final String address) throws RepositoryException {
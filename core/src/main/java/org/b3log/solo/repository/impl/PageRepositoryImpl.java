@@ -18,7 +18,6 @@ package org.b3log.solo.repository.impl;
 import java.util.List;
 import java.util.logging.Logger;
 import org.b3log.latke.Keys;
-import org.b3log.latke.repository.AbstractRepository;
 import org.b3log.latke.repository.FilterOperator;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.RepositoryException;
@@ -33,10 +32,10 @@ import org.json.JSONObject;
  * Page repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.9, Dec 31, 2011
+ * @version 1.0.1.0, May 24, 2012
  * @since 0.3.1
  */
-public final class PageRepositoryImpl extends AbstractRepository implements PageRepository {
+public final class PageRepositoryImpl extends AbstractSoloRepository implements PageRepository {
 
     /**
      * Logger.
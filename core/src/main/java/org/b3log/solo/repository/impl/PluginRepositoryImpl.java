@@ -17,17 +17,16 @@ package org.b3log.solo.repository.impl;
 
 import java.util.logging.Logger;
 import org.b3log.latke.model.Plugin;
-import org.b3log.latke.repository.AbstractRepository;
 import org.b3log.solo.repository.PluginRepository;
 
 /**
  * Plugin repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.0, Jul 21, 2011
+ * @version 1.0.0.1, May 24, 2012
  * @since 0.3.1
  */
-public final class PluginRepositoryImpl extends AbstractRepository implements PluginRepository {
+public final class PluginRepositoryImpl extends AbstractSoloRepository implements PluginRepository {
 
     /**
      * Logger.
@@ -16,7 +16,6 @@
 package org.b3log.solo.repository.impl;
 
 import java.util.logging.Logger;
-import org.b3log.latke.repository.AbstractRepository;
 import org.b3log.latke.repository.RepositoryException;
 import org.b3log.solo.model.Preference;
 import org.b3log.solo.repository.PreferenceRepository;
@@ -26,10 +25,10 @@ import org.json.JSONObject;
  * Preference repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.3, Feb 28, 2012
+ * @version 1.0.0.4, May 24, 2012
  * @since 0.3.1
  */
-public final class PreferenceRepositoryImpl extends AbstractRepository implements PreferenceRepository {
+public final class PreferenceRepositoryImpl extends AbstractSoloRepository implements PreferenceRepository {
 
     /**
      * Logger.
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.repository.impl;
+
+import java.util.List;
+import java.util.logging.Logger;
+import org.b3log.latke.Keys;
+import org.b3log.latke.repository.Query;
+import org.b3log.latke.repository.RepositoryException;
+import org.b3log.latke.repository.SortDirection;
+import org.b3log.latke.util.CollectionUtils;
+import org.b3log.solo.model.Search;
+import org.b3log.solo.repository.SearchSegmentRepository;
+import org.json.JSONObject;
+
+/**
+ * Search segment repository.
+ *
+ * <p>
+ * Segments are large (up to hundreds of kilobytes), so the cache of this repository is disabled.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.1, May 24, 2012
+ * @since 0.4.5
+ */
+public final class SearchSegmentRepositoryImpl extends AbstractSoloRepository implements SearchSegmentRepository {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SearchSegmentRepositoryImpl.class.getName());
+    /**
+     * Singleton.
+     */
+    private static final SearchSegmentRepositoryImpl SINGLETON = new SearchSegmentRepositoryImpl(Search.SEARCH_SEGMENT);
+
+    @Override
+    public List<JSONObject> getSegments() throws RepositoryException {
+        final Query query = new Query().addSort(Keys.OBJECT_ID, SortDirection.ASCENDING).setPageCount(1);
+        final JSONObject result = get(query);
+
+        return CollectionUtils.jsonArrayToList(result.optJSONArray(Keys.RESULTS));
+    }
+
+    /**
+     * Gets the {@link SearchSegmentRepositoryImpl} singleton.
+     *
+     * @return the singleton
+     */
+    public static SearchSegmentRepositoryImpl getInstance() {
+        return SINGLETON;
+    }
+
+    /**
+     * Private constructor.
+     *
+     * @param name the specified name
+     */
+    private SearchSegmentRepositoryImpl(final String name) {
+        super(name);
+
+        setCacheEnabled(false);
+    }
+}
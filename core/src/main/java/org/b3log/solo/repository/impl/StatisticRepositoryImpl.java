@@ -16,7 +16,6 @@
 package org.b3log.solo.repository.impl;
 
 import java.util.logging.Logger;
-import org.b3log.latke.repository.AbstractRepository;
 import org.b3log.solo.model.Statistic;
 import org.b3log.solo.repository.StatisticRepository;
 
@@ -24,10 +23,10 @@ import org.b3log.solo.repository.StatisticRepository;
  * Statistic repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.1, Jan 12, 2011
+ * @version 1.0.0.2, May 24, 2012
  * @since 0.3.1
  */
-public final class StatisticRepositoryImpl extends AbstractRepository implements StatisticRepository {
+public final class StatisticRepositoryImpl extends AbstractSoloRepository implements StatisticRepository {
 
     /**
      * Logger.
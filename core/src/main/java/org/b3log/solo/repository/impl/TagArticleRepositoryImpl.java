@@ -21,7 +21,6 @@ import org.b3log.solo.model.Article;
 import org.b3log.solo.model.Tag;
 import org.b3log.solo.repository.TagArticleRepository;
 import org.b3log.latke.Keys;
-import org.b3log.latke.repository.AbstractRepository;
 import org.b3log.latke.repository.FilterOperator;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.RepositoryException;
@@ -34,10 +33,10 @@ import org.json.JSONObject;
  * Tag-Article relation repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.9, Nov 9, 2011
+ * @version 1.0.1.2, May 24, 2012
  * @since 0.3.1
  */
-public final class TagArticleRepositoryImpl extends AbstractRepository implements TagArticleRepository {
+public final class TagArticleRepositoryImpl extends AbstractSoloRepository implements TagArticleRepository {
 
     /**
      * Logger.
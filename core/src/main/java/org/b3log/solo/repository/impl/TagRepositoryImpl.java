@@ -21,12 +21,12 @@ import java.util.logging.Logger;
 import org.b3log.solo.model.Tag;
 import org.b3log.solo.repository.TagRepository;
 import org.b3log.latke.Keys;
-import org.b3log.latke.repository.AbstractRepository;
 import org.b3log.latke.repository.FilterOperator;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.RepositoryException;
 import org.b3log.latke.repository.SortDirection;
 import org.b3log.latke.util.CollectionUtils;
+import org.b3log.solo.util.Leaderboard;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -34,10 +34,10 @@ import org.json.JSONObject;
  * Tag repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.1.1, Nov 29, 2011
+ * @version 1.0.2.2, May 24, 2012
  * @since 0.3.1
  */
-public final class TagRepositoryImpl extends AbstractRepository implements TagRepository {
+public final class TagRepositoryImpl extends AbstractSoloRepository implements TagRepository {
 
     /**
      * Logger.
@@ -51,6 +51,85 @@ public final class TagRepositoryImpl extends AbstractRepository implements TagRe
      * Tag-Article relation repository.
      */
     private TagArticleRepositoryImpl tagArticleRepository = TagArticleRepositoryImpl.getInstance();
+    /**
+     * Properties of a tag held by the leaderboard of most used tags.
+     */
+    private static final String[] MOST_USED_TAG_PROPERTIES = {Keys.OBJECT_ID, Tag.TAG_PUBLISHED_REFERENCE_COUNT};
+    /**
+     * Leaderboard of most used tags, holds only ids and published reference counts of the tags.
+     */
+    private final Leaderboard mostUsedTags = new Leaderboard(this, "mostUsedTags") {
+
+        @Override
+        protected List<JSONObject> load(final int num) throws RepositoryException {
+            return getMostUsedTags(num);
+        }
+
+        @Override
+        protected boolean isRanked(final JSONObject tag) {
+            return true;
+        }
+
+        @Override
+        protected String[] getEntryProperties() {
+            return MOST_USED_TAG_PROPERTIES;
+        }
+
+        @Override
+        public int compare(final JSONObject tag1, final JSONObject tag2) {
+            final int ret = Integer.valueOf(tag2.optInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT)).
+                    compareTo(tag1.optInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT));
+            if (0 != ret) {
+                return ret;
+            }
+
+            return compareIds(tag1, tag2);
+        }
+    };
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Offers the added tag to the leaderboard.
+     * </p>
+     */
+    @Override
+    public String add(final JSONObject jsonObject) throws RepositoryException {
+        final String ret = super.add(jsonObject);
+
+        mostUsedTags.offer(ret, jsonObject);
+
+        return ret;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Offers the updated tag to the leaderboard.
+     * </p>
+     */
+    @Override
+    public void update(final String id, final JSONObject jsonObject) throws RepositoryException {
+        super.update(id, jsonObject);
+
+        mostUsedTags.offer(id, jsonObject);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Removes the tag from the leaderboard.
+     * </p>
+     */
+    @Override
+    public void remove(final String id) throws RepositoryException {
+        super.remove(id);
+
+        mostUsedTags.remove(id);
+    }
 
     @Override
     public JSONObject getByTitle(final String tagTitle) throws RepositoryException {
@@ -70,6 +149,7 @@ public final class TagRepositoryImpl extends AbstractRepository implements TagRe
     @Override
     public List<JSONObject> getMostUsedTags(final int num) throws RepositoryException {
         final Query query = new Query().addSort(Tag.TAG_PUBLISHED_REFERENCE_COUNT, SortDirection.DESCENDING).
+                addSort(Keys.OBJECT_ID, SortDirection.ASCENDING).
                 setCurrentPageNum(1).
                 setPageSize(num).
                 setPageCount(1);
@@ -80,6 +160,21 @@ public final class TagRepositoryImpl extends AbstractRepository implements TagRe
         return CollectionUtils.jsonArrayToList(array);
     }
 
+    @Override
+    public List<JSONObject> getMostUsedTagsSnapshot(final int num) throws RepositoryException {
+        final List<JSONObject> entries = mostUsedTags.get(num);
+        final List<JSONObject> ret = new ArrayList<JSONObject>(entries.size());
+
+        for (final JSONObject entry : entries) {
+            final JSONObject tag = get(entry.optString(Keys.OBJECT_ID));
+            if (null != tag) {
+                ret.add(tag);
+            }
+        }
+
+        return ret;
+    }
+
     @Override
     public List<JSONObject> getByArticleId(final String articleId) throws RepositoryException {
         final List<JSONObject> ret = new ArrayList<JSONObject>();
@@ -19,7 +19,6 @@ import java.util.logging.Logger;
 import org.b3log.latke.Keys;
 import org.b3log.latke.model.Role;
 import org.b3log.latke.model.User;
-import org.b3log.latke.repository.AbstractRepository;
 import org.b3log.latke.repository.FilterOperator;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.RepositoryException;
@@ -31,10 +30,10 @@ import org.json.JSONObject;
  * User repository.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.8, Nov 10, 2011
+ * @version 1.0.0.9, May 24, 2012
  * @since 0.3.1
  */
-public final class UserRepositoryImpl extends AbstractRepository implements UserRepository {
+public final class UserRepositoryImpl extends AbstractSoloRepository implements UserRepository {
 
     /**
      * Logger.
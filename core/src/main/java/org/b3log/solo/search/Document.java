@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.search;
+
+/**
+ * Indexed document, the stored fields of an article or a page.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public final class Document {
+
+    /**
+     * Object id.
+     */
+    private final String id;
+    /**
+     * Type, "article" or "page".
+     */
+    private final String type;
+    /**
+     * Title.
+     */
+    private final String title;
+    /**
+     * Permalink.
+     */
+    private final String permalink;
+    /**
+     * Excerpt.
+     */
+    private final String excerpt;
+    /**
+     * Weighted length.
+     */
+    private final int length;
+
+    /**
+     * Constructs a document with the specified properties.
+     *
+     * @param id the specified id
+     * @param type the specified type
+     * @param title the specified title
+     * @param permalink the specified permalink
+     * @param excerpt the specified excerpt
+     * @param length the specified weighted length
+     */
+    public Document(final String id, final String type, final String title, final String permalink,
+                    final String excerpt, final int length) {
+        this.id = id;
+        this.type = type;
+        this.title = title;
+        this.permalink = permalink;
+        this.excerpt = excerpt;
+        this.length = length;
+    }
+
+    /**
+     * Gets the id.
+     *
+     * @return id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the type.
+     *
+     * @return type, "article" or "page"
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Gets the title.
+     *
+     * @return title
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the permalink.
+     *
+     * @return permalink
+     */
+    public String getPermalink() {
+        return permalink;
+    }
+
+    /**
+     * Gets the excerpt.
+     *
+     * @return excerpt
+     */
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    /**
+     * Gets the weighted length.
+     *
+     * @return weighted length
+     */
+    public int getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,1605 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.search;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.bind.DatatypeConverter;
+import org.b3log.latke.Keys;
+import org.b3log.latke.Latkes;
+import org.b3log.latke.RuntimeEnv;
+import org.b3log.latke.cache.Cache;
+import org.b3log.latke.repository.FilterOperator;
+import org.b3log.latke.repository.Query;
+import org.b3log.latke.repository.RepositoryException;
+import org.b3log.latke.repository.SortDirection;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.util.CollectionUtils;
+import org.b3log.latke.util.Ids;
+import org.b3log.latke.util.Stopwatchs;
+import org.b3log.latke.util.Strings;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.model.Page;
+import org.b3log.solo.model.Search;
+import org.b3log.solo.repository.ArticleRepository;
+import org.b3log.solo.repository.PageRepository;
+import org.b3log.solo.repository.SearchSegmentRepository;
+import org.b3log.solo.repository.impl.AbstractSoloRepository;
+import org.b3log.solo.repository.impl.ArticleRepositoryImpl;
+import org.b3log.solo.repository.impl.PageRepositoryImpl;
+import org.b3log.solo.repository.impl.SearchSegmentRepositoryImpl;
+import org.b3log.solo.util.Markdowns;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Inverted index over published articles and pages, ranked by
+ * <a href="http://en.wikipedia.org/wiki/Okapi_BM25">BM25</a>, persisted as immutable {@link Segment segments}.
+ *
+ * <p>
+ * The segments are stored in the {@link SearchSegmentRepository search segment repository}, oldest first. Indexing an
+ * article or a page (see {@link #indexArticle(org.json.JSONObject)} and {@link #indexPage(org.json.JSONObject)}) writes
+ * a new segment of the document and marks the previous version deleted in its segment, {@link #remove(java.lang.String)}
+ * marks the document deleted only. {@link #merge()} is invoked by a cron job to merge the small segments and drop the
+ * deleted documents. So loading the index decodes the segments rather than tokenizing every article.
+ * </p>
+ *
+ * <p>
+ * If there is no segment at all (after installing or upgrading, or after {@link #invalidate()}), the index is built
+ * from the article and page repositories by the same cron job, {@value #LOAD_PAGE_SIZE} articles a segment, one segment
+ * a transaction, {@value #MAX_BUILD_COUNT} segments a time. An empty segment persisted first records the progress of
+ * the build, searches get no hit and {@value org.b3log.solo.model.Search#SEARCH_INDEX_READY} {@code false} until the
+ * build finished, and a search never builds the index.
+ * </p>
+ *
+ * <p>
+ * A document is the title, tags and content (HTML stripped, see {@link Tokenizer}) of an article or a page, the fields
+ * are weighted into one term frequency. A change made inside a transaction (e.g. while an article event is being
+ * processed) is recorded for the current thread, and applied in a new transaction after the transaction committed, or
+ * discarded after rolled back, so the index never holds a document not stored. Other instances detect the changes by a
+ * generation stamp in the article repository cache, and reload the segments.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.2.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public final class SearchIndex {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SearchIndex.class.getName());
+    /**
+     * BM25 term frequency saturation.
+     */
+    private static final float K1 = 1.2F;
+    /**
+     * BM25 document length normalization.
+     */
+    private static final float B = 0.75F;
+    /**
+     * Weight of a title term.
+     */
+    private static final int TITLE_WEIGHT = 3;
+    /**
+     * Weight of a tag term.
+     */
+    private static final int TAGS_WEIGHT = 2;
+    /**
+     * Weight of a content term.
+     */
+    private static final int CONTENT_WEIGHT = 1;
+    /**
+     * Max length of an excerpt.
+     */
+    private static final int EXCERPT_LENGTH = 120;
+    /**
+     * Page size of loading articles, also the document count of a segment while building.
+     */
+    private static final int LOAD_PAGE_SIZE = 100;
+    /**
+     * Max size of a segment in bytes, keeps the Base64 encoded segment under the entity size limit (1MB) of GAE
+     * datastore.
+     */
+    private static final int MAX_SEGMENT_SIZE = 512 * 1024;
+    /**
+     * Count of segments to trigger merging, also the max count of segments to merge at a time.
+     */
+    private static final int MERGE_FACTOR = 10;
+    /**
+     * Max count of merges per {@link #merge()}.
+     */
+    private static final int MAX_MERGE_COUNT = 4;
+    /**
+     * Max count of segments built per {@link #merge()}.
+     */
+    private static final int MAX_BUILD_COUNT = 4;
+    /**
+     * Build cursor of indexing the pages, after all articles indexed.
+     */
+    private static final String PAGES_CURSOR = "pages";
+    /**
+     * Build cursor of starting, no article indexed yet.
+     */
+    private static final String ARTICLES_CURSOR = "articles";
+    /**
+     * Radix of the encoded deleted document numbers.
+     */
+    private static final int DELETES_RADIX = 36;
+    /**
+     * Cache key of search index generation.
+     */
+    private static final String GENERATION_CACHE_KEY = "searchIndexGeneration";
+    /**
+     * Article repository.
+     */
+    private ArticleRepository articleRepository = ArticleRepositoryImpl.getInstance();
+    /**
+     * Page repository.
+     */
+    private PageRepository pageRepository = PageRepositoryImpl.getInstance();
+    /**
+     * Search segment repository.
+     */
+    private SearchSegmentRepository searchSegmentRepository = SearchSegmentRepositoryImpl.getInstance();
+    /**
+     * Lock, searches share the read lock, changes and loading hold the write lock.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Segments, oldest first.
+     */
+    private final List<IndexSegment> segments = new ArrayList<IndexSegment>();
+    /**
+     * Locations of the live documents indexed by object id.
+     */
+    private final Map<String, Location> locations = new HashMap<String, Location>();
+    /**
+     * Count of live documents.
+     */
+    private int liveCount;
+    /**
+     * Total (weighted) length of live documents.
+     */
+    private long totalLength;
+    /**
+     * Whether the index has been loaded.
+     */
+    private boolean loaded;
+    /**
+     * Generation of the index, {@code null} if the article repository cache is disabled.
+     */
+    private Object generation;
+    /**
+     * Build cursor, {@value #ARTICLES_CURSOR}, the id of the last indexed article or {@value #PAGES_CURSOR}, {@code null}
+     * if the index is not being built.
+     */
+    private String buildCursor;
+    /**
+     * Id of the segment records the progress of the build, {@code null} if the index is not being built.
+     */
+    private String buildSegmentId;
+    /**
+     * Changes made inside the transaction of the current thread, analyzed documents by document ids, {@code null} values
+     * for removals.
+     */
+    private final ThreadLocal<Map<String, Analyzed>> changes = new ThreadLocal<Map<String, Analyzed>>();
+
+    /**
+     * Searches the specified keyword.
+     *
+     * <p>
+     * Gets no hit if the index has not been built yet, see {@link #merge()}.
+     * </p>
+     *
+     * @param keyword the specified keyword
+     * @param currentPageNum the specified current page number, starts from 1
+     * @param pageSize the specified page size
+     * @return for example,
+     * <pre>
+     * {
+     *     "searchIndexReady": boolean,
+     *     "searchHitCount": int,
+     *     "searchHits": [{
+     *         "oId": "",
+     *         "searchHitType": "article", // "page"
+     *         "searchHitTitle": "",
+     *         "searchHitPermalink": "",
+     *         "searchHitExcerpt": "",
+     *         "searchHitScore": double
+     *     }, ....]
+     * }
+     * </pre>
+     * @throws RepositoryException repository exception
+     */
+    public JSONObject search(final String keyword, final int currentPageNum, final int pageSize) throws RepositoryException {
+        final Set<String> terms = new LinkedHashSet<String>(Tokenizer.tokenize(keyword));
+        final Object currentGeneration = getGeneration();
+
+        lock.readLock().lock();
+        try {
+            if (loaded && isGeneration(currentGeneration)) {
+                return search(terms, currentPageNum, pageSize);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!loaded || !isGeneration(currentGeneration)) {
+                load(currentGeneration);
+            }
+
+            return search(terms, currentPageNum, pageSize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the specified added or updated article, removes it from the index if it is not published.
+     *
+     * <p>
+     * The content of an article with view password is not indexed.
+     * </p>
+     *
+     * @param article the specified article
+     */
+    public void indexArticle(final JSONObject article) {
+        final String articleId = article.optString(Keys.OBJECT_ID);
+        if (!article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
+            remove(articleId);
+
+            return;
+        }
+
+        String content = "";
+        if (Strings.isEmptyOrNull(article.optString(Article.ARTICLE_VIEW_PWD))) {
+            content = toPlainText(article.optString(Article.ARTICLE_CONTENT),
+                                  article.optString(Article.ARTICLE_CONTENT_HTML, null),
+                                  article.optString(Article.ARTICLE_EDITOR_TYPE));
+        }
+
+        change(articleId, analyze(articleId, Article.ARTICLE, article.optString(Article.ARTICLE_TITLE),
+                                  article.optString(Article.ARTICLE_PERMALINK), article.optString(Article.ARTICLE_TAGS_REF),
+                                  content));
+    }
+
+    /**
+     * Indexes the specified added or updated page, removes it from the index if it is a link.
+     *
+     * @param page the specified page
+     */
+    public void indexPage(final JSONObject page) {
+        final String pageId = page.optString(Keys.OBJECT_ID);
+        if (!Page.PAGE.equals(page.optString(Page.PAGE_TYPE, Page.PAGE))) {
+            remove(pageId);
+
+            return;
+        }
+
+        final String content = toPlainText(page.optString(Page.PAGE_CONTENT), page.optString(Page.PAGE_CONTENT_HTML, null),
+                                           page.optString(Page.PAGE_EDITOR_TYPE));
+
+        change(pageId, analyze(pageId, Page.PAGE, page.optString(Page.PAGE_TITLE), page.optString(Page.PAGE_PERMALINK), "",
+                               content));
+    }
+
+    /**
+     * Removes the article or page specified by the given id.
+     *
+     * @param id the given id
+     */
+    public void remove(final String id) {
+        change(id, null);
+    }
+
+    /**
+     * Merges segments of the index, drops the deleted documents, or builds the index if it has not been built yet.
+     *
+     * <p>
+     * A segment with more than half of its documents deleted is rewritten alone. If there are more than
+     * {@value #MERGE_FACTOR} segments, the smallest ones (at most {@value #MERGE_FACTOR}, and
+     * {@value #MAX_SEGMENT_SIZE} bytes in total) are merged into one. At most {@value #MAX_MERGE_COUNT} merges are
+     * done at a time, this method is invoked periodically by a cron job.
+     * </p>
+     *
+     * <p>
+     * While the index is being built, at most {@value #MAX_BUILD_COUNT} segments are built at a time instead, and the
+     * build continues on the next invocation.
+     * </p>
+     */
+    public void merge() {
+        lock.writeLock().lock();
+        try {
+            if (!prepareChange()) {
+                startBuild();
+            }
+
+            if (null != buildCursor) {
+                build();
+                changed();
+
+                return;
+            }
+
+            int mergeCount = 0;
+            while (mergeCount < MAX_MERGE_COUNT) {
+                final List<IndexSegment> picked = pickMerge();
+                if (null == picked) {
+                    break;
+                }
+
+                merge(picked);
+                mergeCount++;
+            }
+
+            if (0 < mergeCount) {
+                LOGGER.log(Level.INFO, "Merged search index[merges={0}, segments={1}, documents={2}]",
+                           new Object[]{mergeCount, segments.size(), liveCount});
+
+                changed();
+            }
+        } catch (final RepositoryException e) {
+            LOGGER.log(Level.SEVERE, "Merges search index failed", e);
+
+            clear();
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Invalidates the index, drops all segments, the index will be built from the repositories by the next
+     * {@link #merge()}.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            dropSegments();
+        } catch (final RepositoryException e) {
+            LOGGER.log(Level.SEVERE, "Drops search index segments failed", e);
+        } finally {
+            clear();
+            changed();
+
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reindexes the documents of the changes made by the current thread which are neither applied nor discarded, from
+     * the article and page repositories, as their transaction may or may not have committed. Invoked at the end of a
+     * request.
+     */
+    public void releaseChanges() {
+        final Map<String, Analyzed> pending = changes.get();
+        if (null == pending) {
+            return;
+        }
+
+        changes.remove();
+
+        LOGGER.log(Level.WARNING, "Changes of search index[documents={0}] were neither applied nor discarded",
+                   pending.size());
+
+        for (final String id : pending.keySet()) {
+            try {
+                final JSONObject article = articleRepository.get(id);
+                if (null != article) {
+                    indexArticle(article);
+
+                    continue;
+                }
+
+                final JSONObject page = pageRepository.get(id);
+                if (null != page) {
+                    indexPage(page);
+                } else {
+                    remove(id);
+                }
+            } catch (final RepositoryException e) {
+                LOGGER.log(Level.SEVERE, "Reindexes document[id=" + id + "] failed", e);
+            }
+        }
+    }
+
+    /**
+     * Changes the document specified by the given id, records the change for the current thread if there is a
+     * transaction, applies it immediately otherwise.
+     *
+     * @param id the given id
+     * @param analyzed the analyzed document, {@code null} to remove
+     */
+    private void change(final String id, final Analyzed analyzed) {
+        if (searchSegmentRepository.hasTransactionBegun()) {
+            Map<String, Analyzed> pending = changes.get();
+            if (null == pending) {
+                pending = new LinkedHashMap<String, Analyzed>();
+                changes.set(pending);
+            }
+
+            pending.put(id, analyzed);
+
+            return;
+        }
+
+        apply(id, analyzed);
+    }
+
+    /**
+     * Applies the change of the document specified by the given id.
+     *
+     * @param id the given id
+     * @param analyzed the analyzed document, {@code null} to remove
+     */
+    private void apply(final String id, final Analyzed analyzed) {
+        if (null == analyzed) {
+            delete(id);
+        } else {
+            put(analyzed);
+        }
+    }
+
+    /**
+     * Applies the changes made by the current thread after the transaction of the changes committed.
+     */
+    private void applyChanges() {
+        final Map<String, Analyzed> pending = changes.get();
+        if (null == pending) {
+            return;
+        }
+
+        changes.remove();
+
+        for (final Map.Entry<String, Analyzed> entry : pending.entrySet()) {
+            apply(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Discards the changes made by the current thread after the transaction of the changes rolled back.
+     */
+    private void discardChanges() {
+        changes.remove();
+    }
+
+    /**
+     * Removes the document specified by the given id.
+     *
+     * @param id the given id
+     */
+    private void delete(final String id) {
+        lock.writeLock().lock();
+        try {
+            if (!prepareChange()) {
+                return;
+            }
+
+            final Location location = locations.get(id);
+            if (null == location) {
+                return;
+            }
+
+            final Transaction transaction = searchSegmentRepository.beginTransaction();
+            try {
+                delete(location);
+
+                transaction.commit();
+            } catch (final RepositoryException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+
+            changed();
+        } catch (final RepositoryException e) {
+            LOGGER.log(Level.SEVERE, "Removes document[id=" + id + "] from the search index failed", e);
+
+            clear();
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the specified terms, the caller should hold the lock.
+     *
+     * @param terms the specified terms
+     * @param currentPageNum the specified current page number
+     * @param pageSize the specified page size
+     * @return search result
+     */
+    private JSONObject search(final Set<String> terms, final int currentPageNum, final int pageSize) {
+        final JSONObject ret = new JSONObject();
+        final JSONArray searchHits = new JSONArray();
+        ret.put(Search.SEARCH_HITS, searchHits);
+
+        final boolean ready = !segments.isEmpty() && null == buildCursor;
+        ret.put(Search.SEARCH_INDEX_READY, ready);
+        if (!ready) { // See merge()
+            ret.put(Search.SEARCH_HIT_COUNT, 0);
+
+            return ret;
+        }
+
+        // Documents of all segments are numbered from the base of each segment
+        final int[] bases = new int[segments.size()];
+        int documentCount = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            bases[i] = documentCount;
+            documentCount += segments.get(i).segment.getDocumentCount();
+        }
+
+        final float[] scores = new float[documentCount];
+        final int[] hits = new int[documentCount];
+        int hitCount = 0;
+
+        final float averageLength = 0 == liveCount ? 1F : (float) totalLength / liveCount;
+        final Segment.Postings[] termPostings = new Segment.Postings[segments.size()];
+        for (final String term : terms) {
+            int documentFreq = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                termPostings[i] = segments.get(i).segment.getPostings(term);
+                if (null != termPostings[i]) {
+                    documentFreq += termPostings[i].getDocumentFreq();
+                }
+            }
+
+            if (0 == documentFreq) {
+                continue;
+            }
+
+            // Deleted documents are counted until they are merged away, the same as most inverted indexes do
+            documentFreq = Math.min(documentFreq, liveCount);
+            final float idf = (float) Math.log(1 + (liveCount - documentFreq + 0.5) / (documentFreq + 0.5));
+
+            for (int i = 0; i < segments.size(); i++) {
+                final Segment.Postings postings = termPostings[i];
+                if (null == postings) {
+                    continue;
+                }
+
+                final IndexSegment indexSegment = segments.get(i);
+                while (postings.next()) {
+                    final int documentNum = postings.getDocumentNum();
+                    if (indexSegment.deleted.get(documentNum)) {
+                        continue;
+                    }
+
+                    final int freq = postings.getFreq();
+                    final float norm = K1 * (1 - B + B * indexSegment.segment.getLength(documentNum) / averageLength);
+                    final int globalNum = bases[i] + documentNum;
+                    if (0 == scores[globalNum]) {
+                        hits[hitCount++] = globalNum;
+                    }
+                    scores[globalNum] += idf * freq * (K1 + 1) / (freq + norm);
+                }
+            }
+        }
+
+        ret.put(Search.SEARCH_HIT_COUNT, hitCount);
+
+        // In long, a huge page number overflows int
+        final long startLong = (Math.max(currentPageNum, 1) - 1L) * pageSize;
+        if (pageSize <= 0 || startLong >= hitCount) {
+            return ret;
+        }
+
+        final int start = (int) startLong;
+        final int end = Math.min(start + pageSize, hitCount);
+
+        // Top end hits by a min heap
+        final Comparator<Integer> byScore = new Comparator<Integer>() {
+
+            @Override
+            public int compare(final Integer documentNum1, final Integer documentNum2) {
+                final int comparison = Float.compare(scores[documentNum1], scores[documentNum2]);
+                if (0 != comparison) {
+                    return comparison;
+                }
+
+                return documentNum1.compareTo(documentNum2); // The newer indexed, the higher ranked
+            }
+        };
+        final PriorityQueue<Integer> top = new PriorityQueue<Integer>(end, byScore);
+        for (int i = 0; i < hitCount; i++) {
+            final Integer documentNum = hits[i];
+            if (top.size() < end) {
+                top.offer(documentNum);
+            } else if (0 < byScore.compare(documentNum, top.peek())) {
+                top.poll();
+                top.offer(documentNum);
+            }
+        }
+
+        final Integer[] ranked = new Integer[top.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = top.poll();
+        }
+
+        for (int i = start; i < end; i++) {
+            final int segmentIndex = getSegmentIndex(bases, ranked[i]);
+            final Document document = segments.get(segmentIndex).segment.getDocument(ranked[i] - bases[segmentIndex]);
+            final JSONObject searchHit = new JSONObject();
+
+            searchHit.put(Keys.OBJECT_ID, document.getId());
+            searchHit.put(Search.SEARCH_HIT_TYPE, document.getType());
+            searchHit.put(Search.SEARCH_HIT_TITLE, document.getTitle());
+            searchHit.put(Search.SEARCH_HIT_PERMALINK, document.getPermalink());
+            searchHit.put(Search.SEARCH_HIT_EXCERPT, document.getExcerpt());
+            searchHit.put(Search.SEARCH_HIT_SCORE, (double) scores[ranked[i]]);
+
+            searchHits.put(searchHit);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the index of the segment contains the document specified by the given global document number.
+     *
+     * @param bases the specified bases of the segments
+     * @param globalNum the given global document number
+     * @return segment index
+     */
+    private static int getSegmentIndex(final int[] bases, final int globalNum) {
+        int ret = Arrays.binarySearch(bases, globalNum);
+        if (0 > ret) {
+            return -ret - 2;
+        }
+
+        // Empty segments share the base with the next segment
+        while (ret + 1 < bases.length && bases[ret + 1] == globalNum) {
+            ret++;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Puts the specified analyzed document into the index.
+     *
+     * @param analyzed the specified analyzed document
+     */
+    private void put(final Analyzed analyzed) {
+        final String id = analyzed.document.getId();
+
+        lock.writeLock().lock();
+        try {
+            if (!prepareChange()) {
+                return;
+            }
+
+            final byte[] data = toSegment(Collections.singletonList(analyzed));
+
+            final Transaction transaction = searchSegmentRepository.beginTransaction();
+            try {
+                final Location previous = locations.get(id);
+                if (null != previous) {
+                    delete(previous);
+                }
+
+                addSegment(persist(data, null));
+
+                transaction.commit();
+            } catch (final RepositoryException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+
+            changed();
+        } catch (final RepositoryException e) {
+            LOGGER.log(Level.SEVERE, "Puts document[id=" + id + "] into the search index failed", e);
+
+            clear();
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Prepares for a change, reloads the segments if the index is not loaded or stale, the caller should hold the write
+     * lock.
+     *
+     * @return {@code true} if the index is ready to change (built or being built), returns {@code false} if the index
+     * has not been built yet, the change will be picked up while building from the repositories
+     * @throws RepositoryException repository exception
+     */
+    private boolean prepareChange() throws RepositoryException {
+        final Object currentGeneration = getGeneration();
+        if (!loaded || !isGeneration(currentGeneration)) {
+            load(currentGeneration);
+        }
+
+        return !segments.isEmpty();
+    }
+
+    /**
+     * Loads the index of the specified generation from the segments, the caller should hold the write lock.
+     *
+     * @param currentGeneration the specified generation
+     * @throws RepositoryException repository exception
+     */
+    private void load(final Object currentGeneration) throws RepositoryException {
+        Stopwatchs.start("Load Search Index");
+
+        try {
+            clear();
+
+            try {
+                for (final JSONObject entity : searchSegmentRepository.getSegments()) {
+                    final byte[] data = DatatypeConverter.parseBase64Binary(entity.optString(Search.SEARCH_SEGMENT_DATA));
+
+                    final String id = entity.optString(Keys.OBJECT_ID);
+                    addSegment(new IndexSegment(id, Segment.open(data, isDirect()),
+                                                decodeDeletes(entity.optString(Search.SEARCH_SEGMENT_DELETES))));
+
+                    final String cursor = getBuildCursor(entity);
+                    if (!Strings.isEmptyOrNull(cursor)) {
+                        buildSegmentId = id;
+                        buildCursor = cursor;
+                    }
+                }
+            } catch (final IllegalArgumentException e) {
+                LOGGER.log(Level.SEVERE, "Malformed search index segment, drops all segments", e);
+
+                clear();
+                dropSegments();
+            }
+
+            loaded = true;
+            generation = currentGeneration;
+
+            LOGGER.log(Level.INFO, "Loaded search index[segments={0}, documents={1}, building={2}]",
+                       new Object[]{segments.size(), liveCount, null != buildCursor});
+        } finally {
+            Stopwatchs.end();
+        }
+    }
+
+    /**
+     * Starts building the index from the article and page repositories, persists an empty segment records the progress,
+     * the caller should hold the write lock.
+     *
+     * @throws RepositoryException repository exception
+     */
+    private void startBuild() throws RepositoryException {
+        final Transaction transaction = searchSegmentRepository.beginTransaction();
+        try {
+            final IndexSegment progress = persist(new SegmentWriter().toByteArray(), ARTICLES_CURSOR);
+
+            transaction.commit();
+
+            addSegment(progress);
+            buildSegmentId = progress.id;
+            buildCursor = ARTICLES_CURSOR;
+            loaded = true;
+
+            LOGGER.info("Started building search index");
+        } catch (final RepositoryException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Builds at most {@value #MAX_BUILD_COUNT} segments of the index, the caller should hold the write lock.
+     *
+     * @throws RepositoryException repository exception
+     */
+    private void build() throws RepositoryException {
+        Stopwatchs.start("Build Search Index");
+
+        try {
+            for (int i = 0; i < MAX_BUILD_COUNT && null != buildCursor; i++) {
+                buildSegment();
+            }
+
+            if (null == buildCursor) {
+                LOGGER.log(Level.INFO, "Built search index[segments={0}, documents={1}]",
+                           new Object[]{segments.size(), liveCount});
+            } else {
+                LOGGER.log(Level.INFO, "Building search index[cursor={0}, documents={1}]", new Object[]{buildCursor, liveCount});
+            }
+        } finally {
+            Stopwatchs.end();
+        }
+    }
+
+    /**
+     * Builds a segment of the next {@value #LOAD_PAGE_SIZE} articles after the build cursor, or of all pages after all
+     * articles indexed, and moves the build cursor in the same transaction, the caller should hold the write lock.
+     *
+     * @throws RepositoryException repository exception
+     */
+    private void buildSegment() throws RepositoryException {
+        final List<Analyzed> analyzeds = new ArrayList<Analyzed>();
+        String nextCursor;
+
+        if (PAGES_CURSOR.equals(buildCursor)) {
+            final List<JSONObject> pages =
+                    CollectionUtils.jsonArrayToList(pageRepository.get(new Query().setPageCount(1)).optJSONArray(Keys.RESULTS));
+            for (final JSONObject page : pages) {
+                if (Page.PAGE.equals(page.optString(Page.PAGE_TYPE, Page.PAGE))) {
+                    analyzeds.add(analyze(page.optString(Keys.OBJECT_ID), Page.PAGE, page.optString(Page.PAGE_TITLE),
+                                          page.optString(Page.PAGE_PERMALINK), "",
+                                          toPlainText(page.optString(Page.PAGE_CONTENT),
+                                                      page.optString(Page.PAGE_CONTENT_HTML, null),
+                                                      page.optString(Page.PAGE_EDITOR_TYPE))));
+                }
+            }
+
+            nextCursor = ""; // Built
+        } else {
+            // By id rather than by page, an article removed while building does not shift the rest
+            final Query query = new Query().addSort(Keys.OBJECT_ID, SortDirection.ASCENDING).
+                    setCurrentPageNum(1).setPageSize(LOAD_PAGE_SIZE).setPageCount(1);
+            if (!ARTICLES_CURSOR.equals(buildCursor)) {
+                query.addFilter(Keys.OBJECT_ID, FilterOperator.GREATER_THAN, buildCursor);
+            }
+            final List<JSONObject> articles =
+                    CollectionUtils.jsonArrayToList(articleRepository.get(query).optJSONArray(Keys.RESULTS));
+
+            for (final JSONObject article : articles) {
+                if (!article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
+                    continue;
+                }
+
+                String content = "";
+                if (Strings.isEmptyOrNull(article.optString(Article.ARTICLE_VIEW_PWD))) {
+                    content = toPlainText(article.optString(Article.ARTICLE_CONTENT),
+                                          article.optString(Article.ARTICLE_CONTENT_HTML, null),
+                                          article.optString(Article.ARTICLE_EDITOR_TYPE));
+                }
+
+                analyzeds.add(analyze(article.optString(Keys.OBJECT_ID), Article.ARTICLE,
+                                      article.optString(Article.ARTICLE_TITLE),
+                                      article.optString(Article.ARTICLE_PERMALINK),
+                                      article.optString(Article.ARTICLE_TAGS_REF), content));
+            }
+
+            nextCursor = PAGES_CURSOR;
+            if (LOAD_PAGE_SIZE == articles.size()) {
+                nextCursor = articles.get(articles.size() - 1).optString(Keys.OBJECT_ID);
+            }
+        }
+
+        final List<IndexSegment> built = new ArrayList<IndexSegment>();
+
+        final Transaction transaction = searchSegmentRepository.beginTransaction();
+        try {
+            final JSONObject progress = searchSegmentRepository.get(buildSegmentId);
+            if (null == progress || !buildCursor.equals(getBuildCursor(progress))) {
+                throw new RepositoryException("The progress of building search index[cursor=" + buildCursor
+                                              + "] has been changed, it may be built by another instance");
+            }
+
+            flush(analyzeds, built);
+
+            progress.put(Search.SEARCH_SEGMENT_BUILD_CURSOR, nextCursor);
+            searchSegmentRepository.update(buildSegmentId, progress);
+
+            transaction.commit();
+        } catch (final RepositoryException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        }
+
+        for (final IndexSegment indexSegment : built) {
+            addSegment(indexSegment);
+        }
+
+        if (Strings.isEmptyOrNull(nextCursor)) {
+            buildCursor = null;
+            buildSegmentId = null;
+        } else {
+            buildCursor = nextCursor;
+        }
+    }
+
+    /**
+     * Persists the specified analyzed documents as segments, splits them if the segment is too large.
+     *
+     * @param analyzeds the specified analyzed documents
+     * @param built the persisted segments to add to
+     * @throws RepositoryException repository exception
+     */
+    private void flush(final List<Analyzed> analyzeds, final List<IndexSegment> built) throws RepositoryException {
+        if (analyzeds.isEmpty()) {
+            return;
+        }
+
+        final byte[] data = toSegment(analyzeds);
+        if (data.length > MAX_SEGMENT_SIZE && 1 < analyzeds.size()) {
+            final int half = analyzeds.size() / 2;
+            flush(analyzeds.subList(0, half), built);
+            flush(analyzeds.subList(half, analyzeds.size()), built);
+
+            return;
+        }
+
+        built.add(persist(data, null));
+    }
+
+    /**
+     * Picks segments to merge, the caller should hold the write lock.
+     *
+     * @return segments to merge in the order of the index, returns {@code null} if there is no need to merge
+     */
+    private List<IndexSegment> pickMerge() {
+        for (final IndexSegment indexSegment : segments) {
+            final int documentCount = indexSegment.segment.getDocumentCount();
+            if (0 < documentCount && indexSegment.deleted.cardinality() * 2 > documentCount) {
+                return Collections.singletonList(indexSegment);
+            }
+        }
+
+        if (segments.size() <= MERGE_FACTOR) {
+            return null;
+        }
+
+        final List<IndexSegment> bySize = new ArrayList<IndexSegment>(segments);
+        Collections.sort(bySize, new Comparator<IndexSegment>() {
+
+            @Override
+            public int compare(final IndexSegment segment1, final IndexSegment segment2) {
+                return segment1.segment.getSize() - segment2.segment.getSize();
+            }
+        });
+
+        final List<IndexSegment> picked = new ArrayList<IndexSegment>(MERGE_FACTOR);
+        int size = 0;
+        for (final IndexSegment indexSegment : bySize) {
+            if (MERGE_FACTOR == picked.size() || size + indexSegment.segment.getSize() > MAX_SEGMENT_SIZE) {
+                break;
+            }
+
+            picked.add(indexSegment);
+            size += indexSegment.segment.getSize();
+        }
+
+        if (2 > picked.size()) {
+            return null;
+        }
+
+        // Keeps the order of the index, documents of a newer segment are numbered after
+        final List<IndexSegment> ret = new ArrayList<IndexSegment>(picked.size());
+        for (final IndexSegment indexSegment : segments) {
+            if (picked.contains(indexSegment)) {
+                ret.add(indexSegment);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Merges the specified segments into a new one, the caller should hold the write lock.
+     *
+     * @param picked the specified segments
+     * @throws RepositoryException repository exception
+     */
+    private void merge(final List<IndexSegment> picked) throws RepositoryException {
+        final List<Segment> inputs = new ArrayList<Segment>(picked.size());
+        final List<BitSet> deletes = new ArrayList<BitSet>(picked.size());
+        int mergedCount = 0;
+
+        final Transaction transaction = searchSegmentRepository.beginTransaction();
+        try {
+            for (final IndexSegment indexSegment : picked) {
+                // Reads the latest deletes, another instance may delete documents after this index loaded
+                final JSONObject entity = searchSegmentRepository.get(indexSegment.id);
+                if (null == entity) {
+                    throw new RepositoryException("Not found search index segment[id=" + indexSegment.id
+                                                  + "], it may be merged by another instance");
+                }
+
+                final BitSet deleted = decodeDeletes(entity.optString(Search.SEARCH_SEGMENT_DELETES));
+                deleted.or(indexSegment.deleted);
+
+                inputs.add(indexSegment.segment);
+                deletes.add(deleted);
+                mergedCount += indexSegment.segment.getDocumentCount() - deleted.cardinality();
+
+                searchSegmentRepository.remove(indexSegment.id);
+            }
+
+            IndexSegment merged = null;
+            if (0 < mergedCount || picked.size() == segments.size()) { // Keeps a segment at least
+                merged = persist(SegmentWriter.merge(inputs, deletes), null);
+            }
+
+            transaction.commit();
+
+            // Relocates all documents, the merged documents have been renumbered
+            final List<IndexSegment> remains = new ArrayList<IndexSegment>(segments);
+            remains.removeAll(picked);
+            if (null != merged) {
+                remains.add(merged);
+            }
+
+            clear();
+            for (final IndexSegment indexSegment : remains) {
+                addSegment(indexSegment);
+            }
+            loaded = true;
+        } catch (final RepositoryException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Persists a segment with the specified data and build cursor.
+     *
+     * @param data the specified data
+     * @param cursor the specified build cursor, {@code null} if the segment does not record the progress of the build
+     * @return persisted segment
+     * @throws RepositoryException repository exception
+     */
+    private IndexSegment persist(final byte[] data, final String cursor) throws RepositoryException {
+        if (data.length > MAX_SEGMENT_SIZE) {
+            LOGGER.log(Level.WARNING, "Search index segment[size={0}] exceeds the max size[{1}]",
+                       new Object[]{data.length, MAX_SEGMENT_SIZE});
+        }
+
+        final String id = Ids.genTimeMillisId();
+        final JSONObject entity = new JSONObject();
+        entity.put(Keys.OBJECT_ID, id);
+        entity.put(Search.SEARCH_SEGMENT_DATA, DatatypeConverter.printBase64Binary(data));
+        entity.put(Search.SEARCH_SEGMENT_DELETES, "");
+        entity.put(Search.SEARCH_SEGMENT_BUILD_CURSOR, null == cursor ? "" : cursor);
+
+        searchSegmentRepository.add(entity);
+
+        return new IndexSegment(id, Segment.open(data, isDirect()), new BitSet());
+    }
+
+    /**
+     * Deletes the document at the specified location persistently, the caller should hold the write lock.
+     *
+     * @param location the specified location
+     * @throws RepositoryException repository exception
+     */
+    private void delete(final Location location) throws RepositoryException {
+        final IndexSegment indexSegment = location.indexSegment;
+
+        final JSONObject entity = searchSegmentRepository.get(indexSegment.id);
+        if (null == entity) {
+            throw new RepositoryException("Not found search index segment[id=" + indexSegment.id + "]");
+        }
+
+        final BitSet deleted = decodeDeletes(entity.optString(Search.SEARCH_SEGMENT_DELETES));
+        deleted.set(location.documentNum);
+        entity.put(Search.SEARCH_SEGMENT_DELETES, encodeDeletes(deleted));
+        searchSegmentRepository.update(indexSegment.id, entity);
+
+        locations.remove(indexSegment.segment.getId(location.documentNum));
+        markDeleted(location);
+    }
+
+    /**
+     * Drops all segments persistently.
+     *
+     * @throws RepositoryException repository exception
+     */
+    private void dropSegments() throws RepositoryException {
+        final Transaction transaction = searchSegmentRepository.beginTransaction();
+        try {
+            for (final JSONObject entity : searchSegmentRepository.getSegments()) {
+                searchSegmentRepository.remove(entity.optString(Keys.OBJECT_ID));
+            }
+
+            transaction.commit();
+        } catch (final RepositoryException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the specified segment as the newest one, its documents supersede the ones of the same ids in the older
+     * segments.
+     *
+     * @param indexSegment the specified segment
+     */
+    private void addSegment(final IndexSegment indexSegment) {
+        segments.add(indexSegment);
+
+        final Segment segment = indexSegment.segment;
+        for (int documentNum = 0; documentNum < segment.getDocumentCount(); documentNum++) {
+            final String id = segment.getId(documentNum);
+
+            final Location previous = locations.remove(id);
+            if (null != previous) {
+                markDeleted(previous);
+            }
+
+            if (indexSegment.deleted.get(documentNum)) {
+                continue;
+            }
+
+            locations.put(id, new Location(indexSegment, documentNum));
+            liveCount++;
+            totalLength += segment.getLength(documentNum);
+        }
+    }
+
+    /**
+     * Marks the live document at the specified location deleted in memory.
+     *
+     * @param location the specified location
+     */
+    private void markDeleted(final Location location) {
+        location.indexSegment.deleted.set(location.documentNum);
+        liveCount--;
+        totalLength -= location.indexSegment.segment.getLength(location.documentNum);
+    }
+
+    /**
+     * Builds a segment with the specified analyzed documents.
+     *
+     * @param analyzeds the specified analyzed documents
+     * @return segment data
+     */
+    private static byte[] toSegment(final List<Analyzed> analyzeds) {
+        final SegmentWriter writer = new SegmentWriter();
+        final Map<String, Postings> termPostings = new TreeMap<String, Postings>();
+
+        for (final Analyzed analyzed : analyzeds) {
+            final int documentNum = writer.addDocument(analyzed.document);
+
+            for (final Map.Entry<String, int[]> termFreq : analyzed.termFreqs.entrySet()) {
+                Postings postings = termPostings.get(termFreq.getKey());
+                if (null == postings) {
+                    postings = new Postings();
+                    termPostings.put(termFreq.getKey(), postings);
+                }
+
+                postings.add(documentNum, termFreq.getValue()[0]);
+            }
+        }
+
+        for (final Map.Entry<String, Postings> entry : termPostings.entrySet()) {
+            final Postings postings = entry.getValue();
+
+            writer.addTerm(entry.getKey(), postings.documentNums, postings.freqs, postings.size);
+        }
+
+        return writer.toByteArray();
+    }
+
+    /**
+     * Analyzes a document with the specified properties.
+     *
+     * @param id the specified id
+     * @param type the specified type
+     * @param title the specified title
+     * @param permalink the specified permalink
+     * @param tags the specified tags
+     * @param content the specified content (plain text)
+     * @return analyzed document
+     */
+    private static Analyzed analyze(final String id, final String type, final String title, final String permalink,
+                                    final String tags, final String content) {
+        final Map<String, int[]> termFreqs = new HashMap<String, int[]>();
+
+        int length = countTerms(Tokenizer.tokenizeForIndex(title), TITLE_WEIGHT, termFreqs);
+        length += countTerms(Tokenizer.tokenizeForIndex(tags), TAGS_WEIGHT, termFreqs);
+        length += countTerms(Tokenizer.tokenizeForIndex(content), CONTENT_WEIGHT, termFreqs);
+
+        String excerpt = content.replaceAll("\\s+", " ").trim();
+        if (excerpt.length() > EXCERPT_LENGTH) {
+            excerpt = excerpt.substring(0, EXCERPT_LENGTH) + "....";
+        }
+
+        return new Analyzed(new Document(id, type, title, permalink, excerpt, length), termFreqs);
+    }
+
+    /**
+     * Counts the specified terms into the specified term frequencies with the specified weight.
+     *
+     * @param terms the specified terms
+     * @param weight the specified weight
+     * @param termFreqs the specified term frequencies
+     * @return weighted length of the specified terms
+     */
+    private static int countTerms(final List<String> terms, final int weight, final Map<String, int[]> termFreqs) {
+        for (final String term : terms) {
+            int[] freq = termFreqs.get(term);
+            if (null == freq) {
+                freq = new int[1];
+                termFreqs.put(term, freq);
+            }
+
+            freq[0] += weight;
+        }
+
+        return terms.size() * weight;
+    }
+
+    /**
+     * Gets the plain text of the specified content with the specified persisted HTML and editor type.
+     *
+     * @param content the specified content
+     * @param contentHTML the specified HTML rendered while saving, {@code null} if not rendered
+     * @param editorType the specified editor type
+     * @return plain text
+     */
+    private static String toPlainText(final String content, final String contentHTML, final String editorType) {
+        if (null != contentHTML) {
+            return Tokenizer.toPlainText(contentHTML);
+        }
+
+        String html = content;
+        if (Markdowns.isMarkdown(editorType)) {
+            try {
+                html = Markdowns.toHTML(content);
+            } catch (final Exception e) {
+                LOGGER.log(Level.WARNING, "Converts markdown content failed, indexes the raw content", e);
+            }
+        }
+
+        return Tokenizer.toPlainText(html);
+    }
+
+    /**
+     * Encodes the specified deleted document numbers.
+     *
+     * @param deleted the specified deleted document numbers
+     * @return encoded deleted document numbers, comma separated in radix {@value #DELETES_RADIX}
+     */
+    private static String encodeDeletes(final BitSet deleted) {
+        final StringBuilder builder = new StringBuilder();
+
+        for (int documentNum = deleted.nextSetBit(0); 0 <= documentNum; documentNum = deleted.nextSetBit(documentNum + 1)) {
+            if (0 < builder.length()) {
+                builder.append(',');
+            }
+
+            builder.append(Integer.toString(documentNum, DELETES_RADIX));
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Decodes the specified encoded deleted document numbers.
+     *
+     * @param encoded the specified encoded deleted document numbers, see {@link #encodeDeletes(java.util.BitSet)}
+     * @return deleted document numbers
+     * @throws IllegalArgumentException if the specified encoded deleted document numbers is malformed
+     */
+    private static BitSet decodeDeletes(final String encoded) {
+        final BitSet ret = new BitSet();
+        if (Strings.isEmptyOrNull(encoded)) {
+            return ret;
+        }
+
+        for (final String documentNum : encoded.split(",")) {
+            ret.set(Integer.parseInt(documentNum, DELETES_RADIX));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Determines whether allocates segments off the heap, on the local (standard Servlet container) environment only.
+     *
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    private static boolean isDirect() {
+        return RuntimeEnv.LOCAL == Latkes.getRuntimeEnv();
+    }
+
+    /**
+     * Clears the index in memory.
+     */
+    private void clear() {
+        segments.clear();
+        locations.clear();
+        liveCount = 0;
+        totalLength = 0;
+        loaded = false;
+        buildCursor = null;
+        buildSegmentId = null;
+    }
+
+    /**
+     * Gets the build cursor of the specified segment entity.
+     *
+     * @param entity the specified segment entity
+     * @return build cursor, returns an empty string if the segment does not record the progress of the build
+     */
+    private static String getBuildCursor(final JSONObject entity) {
+        final Object ret = entity.opt(Search.SEARCH_SEGMENT_BUILD_CURSOR);
+
+        return ret instanceof String ? (String) ret : ""; // JSONObject.NULL of a segment persisted before building
+    }
+
+    /**
+     * Stamps a new generation after the index changed.
+     */
+    private void changed() {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return;
+        }
+
+        generation = Ids.genTimeMillisId();
+        cache.put(GENERATION_CACHE_KEY, (Serializable) generation);
+    }
+
+    /**
+     * Determines whether the index is of the specified generation.
+     *
+     * @param generation the specified generation
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    private boolean isGeneration(final Object generation) {
+        return null == generation ? null == this.generation : generation.equals(this.generation);
+    }
+
+    /**
+     * Gets the current generation of the index.
+     *
+     * @return generation, returns {@code null} if the article repository cache is disabled
+     */
+    private Object getGeneration() {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return null;
+        }
+
+        Object ret = cache.get(GENERATION_CACHE_KEY);
+        if (null == ret) {
+            ret = Ids.genTimeMillisId();
+            cache.put(GENERATION_CACHE_KEY, (Serializable) ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the cache for the index generation.
+     *
+     * @return cache, returns {@code null} if the article repository cache is disabled
+     */
+    private Cache<String, Serializable> getCache() {
+        if (!articleRepository.isCacheEnabled()) {
+            return null;
+        }
+
+        return articleRepository.getCache();
+    }
+
+    /**
+     * Gets the {@link SearchIndex} singleton.
+     *
+     * @return the singleton
+     */
+    public static SearchIndex getInstance() {
+        return SingletonHolder.SINGLETON;
+    }
+
+    /**
+     * Private default constructor.
+     */
+    private SearchIndex() {
+        AbstractSoloRepository.addTransactionListener(new AbstractSoloRepository.TransactionListener() {
+
+            @Override
+            public void committed() {
+                applyChanges();
+            }
+
+            @Override
+            public void rolledBack() {
+                discardChanges();
+            }
+        });
+    }
+
+    /**
+     * Loaded segment with its deleted documents.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class IndexSegment {
+
+        /**
+         * Object id of the segment.
+         */
+        private final String id;
+        /**
+         * Segment.
+         */
+        private final Segment segment;
+        /**
+         * Deleted document numbers, including the ones superseded by the newer segments.
+         */
+        private final BitSet deleted;
+
+        /**
+         * Constructs an index segment with the specified id, segment and deleted document numbers.
+         *
+         * @param id the specified id
+         * @param segment the specified segment
+         * @param deleted the specified deleted document numbers
+         */
+        private IndexSegment(final String id, final Segment segment, final BitSet deleted) {
+            this.id = id;
+            this.segment = segment;
+            this.deleted = deleted;
+        }
+    }
+
+    /**
+     * Location of a document.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class Location {
+
+        /**
+         * Segment.
+         */
+        private final IndexSegment indexSegment;
+        /**
+         * Document number in the segment.
+         */
+        private final int documentNum;
+
+        /**
+         * Constructs a location with the specified segment and document number.
+         *
+         * @param indexSegment the specified segment
+         * @param documentNum the specified document number
+         */
+        private Location(final IndexSegment indexSegment, final int documentNum) {
+            this.indexSegment = indexSegment;
+            this.documentNum = documentNum;
+        }
+    }
+
+    /**
+     * Analyzed document, analyzing is done out of the lock.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class Analyzed {
+
+        /**
+         * Document.
+         */
+        private final Document document;
+        /**
+         * Weighted term frequencies.
+         */
+        private final Map<String, int[]> termFreqs;
+
+        /**
+         * Constructs an analyzed document with the specified document and term frequencies.
+         *
+         * @param document the specified document
+         * @param termFreqs the specified weighted term frequencies
+         */
+        private Analyzed(final Document document, final Map<String, int[]> termFreqs) {
+            this.document = document;
+            this.termFreqs = termFreqs;
+        }
+    }
+
+    /**
+     * Postings of a term being built, document numbers in ascending order with the term frequencies.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class Postings {
+
+        /**
+         * Initial capacity.
+         */
+        private static final int INITIAL_CAPACITY = 4;
+        /**
+         * Document numbers.
+         */
+        private int[] documentNums = new int[INITIAL_CAPACITY];
+        /**
+         * Term frequencies.
+         */
+        private int[] freqs = new int[INITIAL_CAPACITY];
+        /**
+         * Size.
+         */
+        private int size;
+
+        /**
+         * Adds the specified document number with the specified term frequency.
+         *
+         * @param documentNum the specified document number, greater than any one added
+         * @param freq the specified term frequency
+         */
+        private void add(final int documentNum, final int freq) {
+            if (size == documentNums.length) {
+                documentNums = Arrays.copyOf(documentNums, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+
+            documentNums[size] = documentNum;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    /**
+     * Singleton holder.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class SingletonHolder {
+
+        /**
+         * Singleton.
+         */
+        private static final SearchIndex SINGLETON = new SearchIndex();
+
+        /**
+         * Private default constructor.
+         */
+        private SingletonHolder() {
+        }
+    }
+}
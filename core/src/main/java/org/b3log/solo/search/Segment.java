@@ -0,0 +1,524 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.search;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Immutable index segment, reads the encoding written by {@link SegmentWriter}.
+ *
+ * <p>
+ * Layout of a segment (all integers are unsigned
+ * <a href="https://developers.google.com/protocol-buffers/docs/encoding#varints">varints</a>, all strings are the
+ * length of UTF-8 bytes followed by the bytes):
+ * <pre>
+ * version
+ * documentCount
+ * documentCount x (id, type, title, permalink, excerpt, length)
+ * termCount
+ * termCount x (sharedPrefixLength, suffix, documentFreq, postingsLength, documentFreq x (documentNumDelta, freq))
+ * </pre>
+ * Terms are in ascending order and prefix coded against the previous term, except every
+ * {@value #TERM_INDEX_INTERVAL}th term which is stored in full. Only those terms are kept on the heap as the term
+ * index; looking up a term is a binary search on the term index followed by a scan of at most one block. Postings and
+ * stored fields are decoded on demand from the buffer, which is allocated off the heap if requested.
+ * </p>
+ *
+ * <p>
+ * A segment is safe for concurrent reads, cursors read the buffer by absolute positions.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.1, May 24, 2012
+ * @since 0.4.5
+ */
+public final class Segment {
+
+    /**
+     * Encoding version, 2 since CJK characters are indexed as terms, segments of another version are dropped and
+     * built again.
+     */
+    static final int VERSION = 2;
+    /**
+     * Interval of the term index.
+     */
+    static final int TERM_INDEX_INTERVAL = 32;
+    /**
+     * UTF-8 charset.
+     */
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+    /**
+     * Segment data.
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Size of the segment data in bytes.
+     */
+    private final int size;
+    /**
+     * Document ids indexed by document number.
+     */
+    private final String[] ids;
+    /**
+     * Offsets of the stored fields indexed by document number.
+     */
+    private final int[] documentOffsets;
+    /**
+     * Document (weighted) lengths indexed by document number.
+     */
+    private final int[] documentLengths;
+    /**
+     * Term count.
+     */
+    private final int termCount;
+    /**
+     * Offset of the first term.
+     */
+    private final int termsOffset;
+    /**
+     * Every {@value #TERM_INDEX_INTERVAL}th term.
+     */
+    private final String[] indexTerms;
+    /**
+     * Offsets of the index terms.
+     */
+    private final int[] indexOffsets;
+
+    /**
+     * Opens a segment with the specified data.
+     *
+     * @param data the specified data
+     * @param direct whether allocates the buffer of the segment off the heap
+     * @return segment
+     * @throws IllegalArgumentException if the specified data is malformed
+     */
+    public static Segment open(final byte[] data, final boolean direct) {
+        ByteBuffer buffer;
+        if (direct) {
+            buffer = ByteBuffer.allocateDirect(data.length);
+            buffer.put(data);
+            buffer.clear();
+        } else {
+            buffer = ByteBuffer.wrap(data);
+        }
+
+        try {
+            return new Segment(buffer.asReadOnlyBuffer());
+        } catch (final IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed segment", e);
+        }
+    }
+
+    /**
+     * Gets the size of this segment in bytes.
+     *
+     * @return size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the document count of this segment.
+     *
+     * @return document count
+     */
+    public int getDocumentCount() {
+        return ids.length;
+    }
+
+    /**
+     * Gets the term count of this segment.
+     *
+     * @return term count
+     */
+    public int getTermCount() {
+        return termCount;
+    }
+
+    /**
+     * Gets the id of the document specified by the given document number.
+     *
+     * @param documentNum the given document number
+     * @return id
+     */
+    public String getId(final int documentNum) {
+        return ids[documentNum];
+    }
+
+    /**
+     * Gets the (weighted) length of the document specified by the given document number.
+     *
+     * @param documentNum the given document number
+     * @return length
+     */
+    public int getLength(final int documentNum) {
+        return documentLengths[documentNum];
+    }
+
+    /**
+     * Gets the document specified by the given document number.
+     *
+     * @param documentNum the given document number
+     * @return document
+     */
+    public Document getDocument(final int documentNum) {
+        final Reader reader = new Reader(documentOffsets[documentNum]);
+
+        final String id = reader.readString();
+        final String type = reader.readString();
+        final String title = reader.readString();
+        final String permalink = reader.readString();
+        final String excerpt = reader.readString();
+
+        return new Document(id, type, title, permalink, excerpt, reader.readVarInt());
+    }
+
+    /**
+     * Gets the postings of the specified term.
+     *
+     * @param term the specified term
+     * @return postings, returns {@code null} if not found
+     */
+    public Postings getPostings(final String term) {
+        int block = Arrays.binarySearch(indexTerms, term);
+        if (0 > block) {
+            block = -block - 2;
+            if (0 > block) {
+                return null;
+            }
+        }
+
+        final Terms terms = new Terms(block * TERM_INDEX_INTERVAL, indexOffsets[block]);
+        for (int i = 0; i < TERM_INDEX_INTERVAL && terms.next(); i++) {
+            final int comparison = terms.getTerm().compareTo(term);
+            if (0 == comparison) {
+                return terms.getPostings();
+            }
+
+            if (0 < comparison) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets all terms of this segment in ascending order.
+     *
+     * @return terms
+     */
+    public Terms getTerms() {
+        return new Terms(0, termsOffset);
+    }
+
+    /**
+     * Constructs a segment with the specified buffer.
+     *
+     * @param buffer the specified buffer
+     * @throws IllegalArgumentException if the specified buffer is malformed
+     */
+    private Segment(final ByteBuffer buffer) {
+        this.buffer = buffer;
+        size = buffer.capacity();
+
+        final Reader reader = new Reader(0);
+        final int version = reader.readVarInt();
+        if (VERSION != version) {
+            throw new IllegalArgumentException("Unsupported segment version[" + version + "]");
+        }
+
+        final int documentCount = reader.readVarInt();
+        ids = new String[documentCount];
+        documentOffsets = new int[documentCount];
+        documentLengths = new int[documentCount];
+        for (int i = 0; i < documentCount; i++) {
+            documentOffsets[i] = reader.position;
+            ids[i] = reader.readString();
+            for (int j = 0; j < 4; j++) { // Type, title, permalink and excerpt
+                reader.skip(reader.readVarInt());
+            }
+            documentLengths[i] = reader.readVarInt();
+        }
+
+        termCount = reader.readVarInt();
+        termsOffset = reader.position;
+
+        final int indexSize = (termCount + TERM_INDEX_INTERVAL - 1) / TERM_INDEX_INTERVAL;
+        indexTerms = new String[indexSize];
+        indexOffsets = new int[indexSize];
+        for (int i = 0; i < termCount; i++) {
+            final int offset = reader.position;
+            final int sharedPrefixLength = reader.readVarInt();
+            if (0 == i % TERM_INDEX_INTERVAL) {
+                if (0 != sharedPrefixLength) {
+                    throw new IllegalArgumentException("Malformed term index");
+                }
+
+                indexTerms[i / TERM_INDEX_INTERVAL] = reader.readString();
+                indexOffsets[i / TERM_INDEX_INTERVAL] = offset;
+            } else {
+                reader.skip(reader.readVarInt());
+            }
+
+            reader.readVarInt(); // Document frequency
+            reader.skip(reader.readVarInt());
+        }
+
+        if (size != reader.position) {
+            throw new IllegalArgumentException("Malformed segment, expected [" + size + "] bytes but read ["
+                                               + reader.position + "]");
+        }
+    }
+
+    /**
+     * Segment reader, reads the buffer by absolute positions.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private final class Reader {
+
+        /**
+         * Position.
+         */
+        private int position;
+
+        /**
+         * Constructs a reader with the specified position.
+         *
+         * @param position the specified position
+         */
+        private Reader(final int position) {
+            this.position = position;
+        }
+
+        /**
+         * Reads a varint.
+         *
+         * @return varint
+         */
+        private int readVarInt() {
+            int ret = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                ret |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (0 != (b & 0x80));
+
+            return ret;
+        }
+
+        /**
+         * Reads a string.
+         *
+         * @return string
+         */
+        private String readString() {
+            final int length = readVarInt();
+            final byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(position + i);
+            }
+            position += length;
+
+            return new String(bytes, UTF_8);
+        }
+
+        /**
+         * Skips the specified count of bytes.
+         *
+         * @param count the specified count
+         */
+        private void skip(final int count) {
+            if (position + count > size) {
+                throw new IndexOutOfBoundsException("Skips out of the segment");
+            }
+
+            position += count;
+        }
+    }
+
+    /**
+     * Cursor of terms in ascending order.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    public final class Terms {
+
+        /**
+         * Reader.
+         */
+        private final Reader reader;
+        /**
+         * Ordinal of the next term.
+         */
+        private int ordinal;
+        /**
+         * Current term.
+         */
+        private String term = "";
+        /**
+         * Document frequency of the current term.
+         */
+        private int documentFreq;
+        /**
+         * Offset of the postings of the current term.
+         */
+        private int postingsOffset;
+
+        /**
+         * Constructs a cursor starts from the term specified by the given ordinal and offset.
+         *
+         * @param ordinal the given ordinal
+         * @param offset the given offset
+         */
+        private Terms(final int ordinal, final int offset) {
+            this.ordinal = ordinal;
+            reader = new Reader(offset);
+        }
+
+        /**
+         * Moves to the next term.
+         *
+         * @return {@code true} if there is a next term, returns {@code false} otherwise
+         */
+        public boolean next() {
+            if (ordinal >= termCount) {
+                return false;
+            }
+
+            final int sharedPrefixLength = reader.readVarInt();
+            term = term.substring(0, sharedPrefixLength) + reader.readString();
+            documentFreq = reader.readVarInt();
+            final int postingsLength = reader.readVarInt();
+            postingsOffset = reader.position;
+            reader.skip(postingsLength);
+            ordinal++;
+
+            return true;
+        }
+
+        /**
+         * Gets the current term.
+         *
+         * @return current term
+         */
+        public String getTerm() {
+            return term;
+        }
+
+        /**
+         * Gets the postings of the current term.
+         *
+         * @return postings
+         */
+        public Postings getPostings() {
+            return new Postings(documentFreq, postingsOffset);
+        }
+    }
+
+    /**
+     * Cursor of the postings of a term, document numbers in ascending order with the term frequencies.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    public final class Postings {
+
+        /**
+         * Document frequency.
+         */
+        private final int documentFreq;
+        /**
+         * Reader.
+         */
+        private final Reader reader;
+        /**
+         * Count of read postings.
+         */
+        private int read;
+        /**
+         * Current document number.
+         */
+        private int documentNum;
+        /**
+         * Current term frequency.
+         */
+        private int freq;
+
+        /**
+         * Constructs postings with the specified document frequency and offset.
+         *
+         * @param documentFreq the specified document frequency
+         * @param offset the specified offset
+         */
+        private Postings(final int documentFreq, final int offset) {
+            this.documentFreq = documentFreq;
+            reader = new Reader(offset);
+        }
+
+        /**
+         * Gets the document frequency, the count of documents (including the deleted ones) containing the term.
+         *
+         * @return document frequency
+         */
+        public int getDocumentFreq() {
+            return documentFreq;
+        }
+
+        /**
+         * Moves to the next posting.
+         *
+         * @return {@code true} if there is a next posting, returns {@code false} otherwise
+         */
+        public boolean next() {
+            if (read >= documentFreq) {
+                return false;
+            }
+
+            documentNum = (0 == read ? 0 : documentNum) + reader.readVarInt();
+            freq = reader.readVarInt();
+            read++;
+
+            return true;
+        }
+
+        /**
+         * Gets the current document number.
+         *
+         * @return current document number
+         */
+        public int getDocumentNum() {
+            return documentNum;
+        }
+
+        /**
+         * Gets the current term frequency.
+         *
+         * @return current term frequency
+         */
+        public int getFreq() {
+            return freq;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.search;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Index segment writer, see {@link Segment} for the layout.
+ *
+ * <p>
+ * Documents are numbered in the order they are added, terms must be added in ascending order with the document numbers
+ * in ascending order.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public final class SegmentWriter {
+
+    /**
+     * Stored fields.
+     */
+    private final ByteArrayOutputStream documents = new ByteArrayOutputStream();
+    /**
+     * Terms with their postings.
+     */
+    private final ByteArrayOutputStream terms = new ByteArrayOutputStream();
+    /**
+     * Buffer of the postings of a term.
+     */
+    private final ByteArrayOutputStream postings = new ByteArrayOutputStream();
+    /**
+     * Document count.
+     */
+    private int documentCount;
+    /**
+     * Term count.
+     */
+    private int termCount;
+    /**
+     * The last added term.
+     */
+    private String lastTerm;
+
+    /**
+     * Adds the specified document.
+     *
+     * @param document the specified document
+     * @return document number
+     */
+    public int addDocument(final Document document) {
+        writeString(documents, document.getId());
+        writeString(documents, document.getType());
+        writeString(documents, document.getTitle());
+        writeString(documents, document.getPermalink());
+        writeString(documents, document.getExcerpt());
+        writeVarInt(documents, document.getLength());
+
+        return documentCount++;
+    }
+
+    /**
+     * Adds the specified term with the specified postings.
+     *
+     * @param term the specified term, greater than any one added
+     * @param documentNums the specified document numbers, in ascending order
+     * @param freqs the specified term frequencies
+     * @param size the size of the specified postings, greater than {@code 0}
+     * @throws IllegalArgumentException if the specified term or postings are out of order, or the postings are empty
+     */
+    public void addTerm(final String term, final int[] documentNums, final int[] freqs, final int size) {
+        if (null != lastTerm && term.compareTo(lastTerm) <= 0) {
+            throw new IllegalArgumentException("Term[" + term + "] is out of order");
+        }
+
+        if (0 >= size) {
+            throw new IllegalArgumentException("Postings of term[" + term + "] are empty");
+        }
+
+        postings.reset();
+        for (int i = 0; i < size; i++) {
+            final int documentNum = documentNums[i];
+            if (0 > documentNum || documentNum >= documentCount || (0 < i && documentNum <= documentNums[i - 1])) {
+                throw new IllegalArgumentException("Postings of term[" + term + "] are out of order");
+            }
+
+            writeVarInt(postings, 0 == i ? documentNum : documentNum - documentNums[i - 1]);
+            writeVarInt(postings, freqs[i]);
+        }
+
+        final int sharedPrefixLength = 0 == termCount % Segment.TERM_INDEX_INTERVAL ? 0 : sharedPrefixLength(lastTerm, term);
+        writeVarInt(terms, sharedPrefixLength);
+        writeString(terms, term.substring(sharedPrefixLength));
+        writeVarInt(terms, size);
+        writeVarInt(terms, postings.size());
+        final byte[] postingsBytes = postings.toByteArray();
+        terms.write(postingsBytes, 0, postingsBytes.length);
+
+        lastTerm = term;
+        termCount++;
+    }
+
+    /**
+     * Gets the segment data.
+     *
+     * @return segment data
+     */
+    public byte[] toByteArray() {
+        final ByteArrayOutputStream ret = new ByteArrayOutputStream(documents.size() + terms.size() + 16);
+
+        writeVarInt(ret, Segment.VERSION);
+        writeVarInt(ret, documentCount);
+        final byte[] documentsBytes = documents.toByteArray();
+        ret.write(documentsBytes, 0, documentsBytes.length);
+        writeVarInt(ret, termCount);
+        final byte[] termsBytes = terms.toByteArray();
+        ret.write(termsBytes, 0, termsBytes.length);
+
+        return ret.toByteArray();
+    }
+
+    /**
+     * Merges the specified segments into a new one, drops the deleted documents.
+     *
+     * <p>
+     * Documents are renumbered in the order of the specified segments.
+     * </p>
+     *
+     * @param segments the specified segments
+     * @param deletes the deleted document numbers of each of the specified segments
+     * @return data of the merged segment
+     */
+    public static byte[] merge(final List<Segment> segments, final List<BitSet> deletes) {
+        final SegmentWriter writer = new SegmentWriter();
+
+        final int[][] renumbered = new int[segments.size()][];
+        for (int i = 0; i < segments.size(); i++) {
+            final Segment segment = segments.get(i);
+            final BitSet deleted = deletes.get(i);
+
+            renumbered[i] = new int[segment.getDocumentCount()];
+            for (int documentNum = 0; documentNum < segment.getDocumentCount(); documentNum++) {
+                renumbered[i][documentNum] = deleted.get(documentNum) ? -1 : writer.addDocument(segment.getDocument(documentNum));
+            }
+        }
+
+        // Merges the sorted terms of each segment, the same terms are polled in the order of the segments
+        final PriorityQueue<MergingTerms> queue = new PriorityQueue<MergingTerms>(Math.max(segments.size(), 1),
+                                                                                  new Comparator<MergingTerms>() {
+
+            @Override
+            public int compare(final MergingTerms terms1, final MergingTerms terms2) {
+                final int comparison = terms1.terms.getTerm().compareTo(terms2.terms.getTerm());
+                if (0 != comparison) {
+                    return comparison;
+                }
+
+                return terms1.segmentIndex - terms2.segmentIndex;
+            }
+        });
+        for (int i = 0; i < segments.size(); i++) {
+            final Segment.Terms terms = segments.get(i).getTerms();
+            if (terms.next()) {
+                queue.offer(new MergingTerms(i, terms));
+            }
+        }
+
+        int[] documentNums = new int[16];
+        int[] freqs = new int[16];
+        while (!queue.isEmpty()) {
+            final String term = queue.peek().terms.getTerm();
+            int size = 0;
+
+            while (!queue.isEmpty() && term.equals(queue.peek().terms.getTerm())) {
+                final MergingTerms merging = queue.poll();
+
+                final Segment.Postings termPostings = merging.terms.getPostings();
+                while (termPostings.next()) {
+                    final int documentNum = renumbered[merging.segmentIndex][termPostings.getDocumentNum()];
+                    if (-1 == documentNum) {
+                        continue;
+                    }
+
+                    if (size == documentNums.length) {
+                        documentNums = Arrays.copyOf(documentNums, size * 2);
+                        freqs = Arrays.copyOf(freqs, size * 2);
+                    }
+
+                    documentNums[size] = documentNum;
+                    freqs[size] = termPostings.getFreq();
+                    size++;
+                }
+
+                if (merging.terms.next()) {
+                    queue.offer(merging);
+                }
+            }
+
+            if (0 < size) {
+                writer.addTerm(term, documentNums, freqs, size);
+            }
+        }
+
+        return writer.toByteArray();
+    }
+
+    /**
+     * Gets the length of the shared prefix of the specified terms, never splits a surrogate pair.
+     *
+     * @param term1 the specified term 1
+     * @param term2 the specified term 2
+     * @return length of the shared prefix
+     */
+    private static int sharedPrefixLength(final String term1, final String term2) {
+        final int length = Math.min(term1.length(), term2.length());
+
+        int ret = 0;
+        while (ret < length && term1.charAt(ret) == term2.charAt(ret)) {
+            ret++;
+        }
+
+        if (0 < ret && Character.isHighSurrogate(term2.charAt(ret - 1))) {
+            ret--;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Writes the specified value as a varint to the specified output.
+     *
+     * @param output the specified output
+     * @param value the specified value, non-negative
+     */
+    private static void writeVarInt(final ByteArrayOutputStream output, final int value) {
+        int remaining = value;
+        while (0 != (remaining & ~0x7F)) {
+            output.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+
+        output.write(remaining);
+    }
+
+    /**
+     * Writes the specified string to the specified output.
+     *
+     * @param output the specified output
+     * @param string the specified string, {@code null} is written as ""
+     */
+    private static void writeString(final ByteArrayOutputStream output, final String string) {
+        final byte[] bytes = null == string ? new byte[0] : string.getBytes(Segment.UTF_8);
+
+        writeVarInt(output, bytes.length);
+        output.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Terms of a segment being merged.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class MergingTerms {
+
+        /**
+         * Index of the segment.
+         */
+        private final int segmentIndex;
+        /**
+         * Terms of the segment.
+         */
+        private final Segment.Terms terms;
+
+        /**
+         * Constructs merging terms with the specified segment index and terms.
+         *
+         * @param segmentIndex the specified segment index
+         * @param terms the specified terms
+         */
+        private MergingTerms(final int segmentIndex, final Segment.Terms terms) {
+            this.segmentIndex = segmentIndex;
+            this.terms = terms;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.apache.commons.lang.StringEscapeUtils;
+
+/**
+ * Search tokenizer.
+ *
+ * <p>
+ * Splits a text into terms:
+ *   <ul>
+ *     <li>A run of letters or digits (Latin, Cyrillic, etc) is a term, lower cased</li>
+ *     <li>A run of CJK characters (Han, Kana and Hangul) is split into overlapping bigrams ("搜索引擎" is "搜索",
+ *     "索引" and "引擎"), a single CJK character is a term itself</li>
+ *     <li>Others are separators</li>
+ *   </ul>
+ * Queries are {@linkplain #tokenize(java.lang.String) tokenized} this way, documents are
+ * {@linkplain #tokenizeForIndex(java.lang.String) tokenized} with each CJK character of a run as a term as well, so
+ * a CJK phrase matches the documents containing its bigrams without a dictionary, and a single CJK character matches
+ * the documents containing it anywhere.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.1, May 24, 2012
+ * @since 0.4.5
+ */
+public final class Tokenizer {
+
+    /**
+     * Max length of a term, longer runs (base64, hashes, etc) are dropped.
+     */
+    public static final int MAX_TERM_LENGTH = 32;
+    /**
+     * Pattern of script and style elements.
+     */
+    private static final Pattern SCRIPT_PATTERN = Pattern.compile("(?is)<(script|style)[^>]*>.*?</\\1>");
+    /**
+     * Pattern of HTML tags.
+     */
+    private static final Pattern TAG_PATTERN = Pattern.compile("<[^>]*>");
+
+    /**
+     * Tokenizes the specified query text.
+     *
+     * @param text the specified text, may be {@code null}
+     * @return terms in the order of occurrence, returns an empty list if not found
+     */
+    public static List<String> tokenize(final String text) {
+        return tokenize(text, false);
+    }
+
+    /**
+     * Tokenizes the specified document text, each CJK character is a term besides the bigrams.
+     *
+     * @param text the specified text, may be {@code null}
+     * @return terms in the order of occurrence, returns an empty list if not found
+     */
+    public static List<String> tokenizeForIndex(final String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * Tokenizes the specified text.
+     *
+     * @param text the specified text, may be {@code null}
+     * @param unigrams whether each CJK character of a run is a term as well
+     * @return terms in the order of occurrence, returns an empty list if not found
+     */
+    private static List<String> tokenize(final String text, final boolean unigrams) {
+        final List<String> ret = new ArrayList<String>();
+        if (null == text) {
+            return ret;
+        }
+
+        final StringBuilder word = new StringBuilder();
+        int previousCJK = -1; // The previous CJK code point of the current CJK run
+        boolean bigramEmitted = false;
+
+        int i = 0;
+        while (i <= text.length()) {
+            final int codePoint = i < text.length() ? text.codePointAt(i) : ' ';
+            i += i < text.length() ? Character.charCount(codePoint) : 1;
+
+            if (isCJK(codePoint)) {
+                emitWord(word, ret);
+
+                if (-1 != previousCJK) {
+                    ret.add(new StringBuilder().appendCodePoint(previousCJK).appendCodePoint(codePoint).toString());
+                    bigramEmitted = true;
+                }
+                if (unigrams) {
+                    ret.add(new StringBuilder().appendCodePoint(codePoint).toString());
+                }
+                previousCJK = codePoint;
+
+                continue;
+            }
+
+            if (-1 != previousCJK) { // End of a CJK run
+                if (!bigramEmitted && !unigrams) {
+                    ret.add(new StringBuilder().appendCodePoint(previousCJK).toString());
+                }
+                previousCJK = -1;
+                bigramEmitted = false;
+            }
+
+            if (Character.isLetterOrDigit(codePoint)) {
+                word.appendCodePoint(Character.toLowerCase(codePoint));
+            } else {
+                emitWord(word, ret);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the plain text of the specified HTML, removes scripts, styles and tags, and unescapes entities.
+     *
+     * @param html the specified HTML, may be {@code null}
+     * @return plain text, returns {@code ""} if the specified HTML is {@code null}
+     */
+    public static String toPlainText(final String html) {
+        if (null == html) {
+            return "";
+        }
+
+        String ret = SCRIPT_PATTERN.matcher(html).replaceAll(" ");
+        ret = TAG_PATTERN.matcher(ret).replaceAll(" ");
+
+        return StringEscapeUtils.unescapeHtml(ret);
+    }
+
+    /**
+     * Emits the specified word into the specified terms and clears the word.
+     *
+     * @param word the specified word
+     * @param terms the specified terms
+     */
+    private static void emitWord(final StringBuilder word, final List<String> terms) {
+        if (0 < word.length() && word.length() <= MAX_TERM_LENGTH) {
+            terms.add(word.toString());
+        }
+
+        word.setLength(0);
+    }
+
+    /**
+     * Determines whether the specified code point is a CJK character.
+     *
+     * @param codePoint the specified code point
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    private static boolean isCJK(final int codePoint) {
+        final Character.UnicodeBlock block = Character.UnicodeBlock.of(codePoint);
+
+        return Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS == block
+               || Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A == block
+               || Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_B == block
+               || Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS == block
+               || Character.UnicodeBlock.HIRAGANA == block
+               || Character.UnicodeBlock.KATAKANA == block
+               || Character.UnicodeBlock.HANGUL_SYLLABLES == block;
+    }
+
+    /**
+     * Private default constructor.
+     */
+    private Tokenizer() {
+    }
+}
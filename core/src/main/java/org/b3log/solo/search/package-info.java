@@ -0,0 +1,4 @@
+/**
+ * Full-text search.
+ */
+package org.b3log.solo.search;
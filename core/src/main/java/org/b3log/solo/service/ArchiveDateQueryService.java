@@ -21,15 +21,18 @@ import java.util.logging.Logger;
 import org.b3log.latke.repository.RepositoryException;
 import org.b3log.latke.service.ServiceException;
 import org.b3log.solo.model.ArchiveDate;
-import org.b3log.solo.repository.ArchiveDateRepository;
-import org.b3log.solo.repository.impl.ArchiveDateRepositoryImpl;
+import org.b3log.solo.util.ArchiveDates;
 import org.json.JSONObject;
 
 /**
  * Archive date query service.
  *
+ * <p>
+ * Serves from the in-memory archive date index, see {@link ArchiveDates}.
+ * </p>
+ *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.0, Feb 7, 2012
+ * @version 1.0.1.0, May 24, 2012
  * @since 0.4.0
  */
 public final class ArchiveDateQueryService {
@@ -39,19 +42,19 @@ public final class ArchiveDateQueryService {
      */
     private static final Logger LOGGER = Logger.getLogger(ArchiveDateQueryService.class.getName());
     /**
-     * Archive date repository.
+     * Archive date utilities.
      */
-    private ArchiveDateRepository archiveDateRepository = ArchiveDateRepositoryImpl.getInstance();
+    private ArchiveDates archiveDateUtils = ArchiveDates.getInstance();
 
     /**
-     * Gets all archive dates.
+     * Gets all archive dates which have published articles.
      * 
-     * @return a list of archive dates, returns an empty list if not found
+     * @return a list of archive dates, sorted by archive time descending, returns an empty list if not found
      * @throws ServiceException service exception
      */
     public List<JSONObject> getArchiveDates() throws ServiceException {
         try {
-            return archiveDateRepository.getArchiveDates();
+            return archiveDateUtils.getArchiveDates();
         } catch (final RepositoryException e) {
             LOGGER.log(Level.SEVERE, "Gets archive dates failed", e);
             throw new ServiceException("Gets archive dates failed");
@@ -59,7 +62,7 @@ public final class ArchiveDateQueryService {
     }
 
     /**
-     * Gets an archive date by the specified archive date string.
+     * Gets an archive date which has published articles by the specified archive date string.
      * 
      * @param archiveDateString the specified archive date string (yyyy/MM)
      * @return for example,
@@ -79,7 +82,7 @@ public final class ArchiveDateQueryService {
         final JSONObject ret = new JSONObject();
 
         try {
-            final JSONObject archiveDate = archiveDateRepository.getByArchiveDate(archiveDateString);
+            final JSONObject archiveDate = archiveDateUtils.getByArchiveDateString(archiveDateString);
             
             if (null == archiveDate) {
                 return null;
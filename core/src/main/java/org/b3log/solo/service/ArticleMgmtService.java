@@ -29,6 +29,8 @@ import java.util.logging.Logger;
 import org.b3log.latke.Keys;
 import org.b3log.latke.event.Event;
 import org.b3log.latke.event.EventManager;
+import org.b3log.latke.repository.FilterOperator;
+import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.RepositoryException;
 import org.b3log.latke.repository.Transaction;
 import org.b3log.latke.service.LangPropsService;
@@ -51,10 +53,17 @@ import org.b3log.solo.repository.impl.ArticleRepositoryImpl;
 import org.b3log.solo.repository.impl.CommentRepositoryImpl;
 import org.b3log.solo.repository.impl.TagArticleRepositoryImpl;
 import org.b3log.solo.repository.impl.TagRepositoryImpl;
+import org.b3log.solo.search.SearchIndex;
+import org.b3log.solo.util.ArchiveDates;
 import org.b3log.solo.util.Comments;
+import org.b3log.solo.util.Cursors;
 import org.b3log.solo.util.Permalinks;
+import org.b3log.solo.util.Feeds;
+import org.b3log.solo.util.Markdowns;
+import org.b3log.solo.util.Sitemaps;
 import org.b3log.solo.util.Statistics;
 import org.b3log.solo.util.TimeZones;
+import org.b3log.solo.util.Users;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -66,7 +75,7 @@ import org.b3log.solo.repository.impl.UserRepositoryImpl;
  * Article management service.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.1.1, Feb 23, 2012
+ * @version 1.0.2.1, May 24, 2012
  * @since 0.3.5
  */
 public final class ArticleMgmtService {
@@ -75,6 +84,10 @@ public final class ArticleMgmtService {
      * Logger.
      */
     private static final Logger LOGGER = Logger.getLogger(ArticleMgmtService.class.getName());
+    /**
+     * Page size (also the transaction batch size) of Markdown articles re-rendering.
+     */
+    private static final int RERENDER_PAGE_SIZE = 50;
     /**
      * Article repository.
      */
@@ -131,6 +144,26 @@ public final class ArticleMgmtService {
      * Tag utilities.
      */
     private static Tags tagUtils = Tags.getInstance();
+    /**
+     * Archive date utilities.
+     */
+    private static ArchiveDates archiveDateUtils = ArchiveDates.getInstance();
+    /**
+     * User utilities.
+     */
+    private static Users userUtils = Users.getInstance();
+    /**
+     * Sitemap utilities.
+     */
+    private static Sitemaps sitemaps = Sitemaps.getInstance();
+    /**
+     * Feed utilities.
+     */
+    private static Feeds feeds = Feeds.getInstance();
+    /**
+     * Search index.
+     */
+    private SearchIndex searchIndex = SearchIndex.getInstance();
     /**
      * Permalink date format(yyyy/MM/dd).
      */
@@ -161,6 +194,14 @@ public final class ArticleMgmtService {
             userRepository.update(author.optString(Keys.OBJECT_ID), author);
 
             transaction.commit();
+
+            Cursors.invalidatePageBoundaries();
+            archiveDateUtils.invalidate();
+            commentRepository.invalidateRecentComments();
+            userUtils.invalidate(); // Published article count of the author
+            searchIndex.remove(articleId); // No event for cancel publish
+            sitemaps.invalidate(article);
+            feeds.invalidate();
         } catch (final Exception e) {
             if (transaction.isActive()) {
                 transaction.rollback();
@@ -189,6 +230,8 @@ public final class ArticleMgmtService {
             articleRepository.update(articleId, topArticle);
 
             transaction.commit();
+
+            Cursors.invalidatePageBoundaries();
         } catch (final Exception e) {
             if (transaction.isActive()) {
                 transaction.rollback();
@@ -234,13 +277,6 @@ public final class ArticleMgmtService {
             final String permalink = getPermalinkForUpdateArticle(oldArticle, article, (Date) oldArticle.get(ARTICLE_CREATE_DATE));
             article.put(ARTICLE_PERMALINK, permalink);
 
-            processTagsForArticleUpdate(oldArticle, article);
-
-            if (!oldArticle.getString(Article.ARTICLE_PERMALINK).equals(permalink)) { // The permalink has been updated
-                // Updates related comments' links
-                processCommentsForArticleUpdate(article);
-            }
-
             // Fill auto properties
             fillAutoProperties(oldArticle, article);
             // Set date
@@ -268,11 +304,22 @@ public final class ArticleMgmtService {
                 }
             }
 
-            // Set editor type
+            // Tags after the create date settled, the tag posting lists are sorted by it
+            processTagsForArticleUpdate(oldArticle, article);
+
+            if (!oldArticle.getString(Article.ARTICLE_PERMALINK).equals(permalink)) { // The permalink has been updated
+                // Updates related comments' links
+                processCommentsForArticleUpdate(article);
+            }
+
+            // Set editor type and render the Markdown
             article.put(Article.ARTICLE_EDITOR_TYPE, preference.optString(Preference.EDITOR_TYPE));
+            Markdowns.renderArticle(article);
 
             final boolean publishNewArticle = !oldArticle.getBoolean(ARTICLE_IS_PUBLISHED)
                                               && article.getBoolean(ARTICLE_IS_PUBLISHED);
+            final boolean publishStateChanged = oldArticle.getBoolean(ARTICLE_IS_PUBLISHED)
+                                                != article.getBoolean(ARTICLE_IS_PUBLISHED);
             // Set statistic
             if (publishNewArticle) {
                 // This article is updated from unpublished to published
@@ -287,7 +334,7 @@ public final class ArticleMgmtService {
             }
 
             if (publishNewArticle) {
-                incArchiveDatePublishedRefCount(articleId);
+                incArchiveDatePublishedRefCount(article);
             }
 
             // Update
@@ -316,6 +363,17 @@ public final class ArticleMgmtService {
             }
 
             transaction.commit();
+
+            Cursors.invalidatePageBoundaries();
+            archiveDateUtils.invalidate();
+            if (publishStateChanged) { // Comments of the article join or leave the recent comments
+                commentRepository.invalidateRecentComments();
+            }
+            if (publishNewArticle) { // Published article count of the author
+                userUtils.invalidate();
+            }
+            sitemaps.invalidate(oldArticle); // The create date of a draft may be reset
+            sitemaps.invalidate(article);
         } catch (final ServiceException e) {
             if (transaction.isActive()) {
                 transaction.rollback();
@@ -368,6 +426,8 @@ public final class ArticleMgmtService {
 
             transaction.commit();
 
+            invalidateForAddedArticle(article);
+
             return ret;
         } catch (final ServiceException e) {
             if (transaction.isActive()) {
@@ -387,6 +447,11 @@ public final class ArticleMgmtService {
     /**
      * Adds the specified article for internal invocation purposes.
      *
+     * <p>
+     * The caller is responsible for the transaction, and MUST invoke
+     * {@link #invalidateForAddedArticle(org.json.JSONObject)} after the transaction committed.
+     * </p>
+     *
      * @param article the specified article
      * @return generated article id
      * @throws ServiceException service exception
@@ -397,14 +462,7 @@ public final class ArticleMgmtService {
         try {
             article.put(Keys.OBJECT_ID, ret);
 
-            // Step 1: Add tags
-            final String tagsString = article.optString(Article.ARTICLE_TAGS_REF);
-            final String[] tagTitles = tagsString.split(",");
-            final JSONArray tags = tag(tagTitles, article);
-            // Step 2; Set comment/view count to 0
-            article.put(Article.ARTICLE_COMMENT_COUNT, 0);
-            article.put(Article.ARTICLE_VIEW_COUNT, 0);
-            // Step 3: Set create/updat date
+            // Step 1: Set create/updat date
             final JSONObject preference = preferenceQueryService.getPreference();
             final String timeZoneId = preference.optString(Preference.TIME_ZONE_ID);
             final Date date = TimeZones.getTime(timeZoneId);
@@ -412,6 +470,13 @@ public final class ArticleMgmtService {
                 article.put(Article.ARTICLE_CREATE_DATE, date);
             }
             article.put(Article.ARTICLE_UPDATE_DATE, article.opt(Article.ARTICLE_CREATE_DATE));
+            // Step 2; Set comment/view count to 0
+            article.put(Article.ARTICLE_COMMENT_COUNT, 0);
+            article.put(Article.ARTICLE_VIEW_COUNT, 0);
+            // Step 3: Add tags (after the create date settled, the tag posting lists are sorted by it)
+            final String tagsString = article.optString(Article.ARTICLE_TAGS_REF);
+            final String[] tagTitles = tagsString.split(",");
+            final JSONArray tags = tag(tagTitles, article);
             // Step 4: Set put top to false
             article.put(Article.ARTICLE_PUT_TOP, false);
             // Step 5: Add tag-article relations
@@ -448,8 +513,9 @@ public final class ArticleMgmtService {
                 author.put(UserExt.USER_PUBLISHED_ARTICLE_COUNT, author.optInt(UserExt.USER_PUBLISHED_ARTICLE_COUNT) + 1);
             }
             userRepository.update(author.optString(Keys.OBJECT_ID), author);
-            // Step 14: Set editor type
+            // Step 14: Set editor type and render the Markdown
             article.put(Article.ARTICLE_EDITOR_TYPE, preference.optString(Preference.EDITOR_TYPE));
+            Markdowns.renderArticle(article);
             // Step 15: Add article
             articleRepository.add(article);
 
@@ -469,11 +535,33 @@ public final class ArticleMgmtService {
             throw new ServiceException(e);
         } catch (final EventException e) {
             LOGGER.log(Level.WARNING, "Adds an article event process failed", e);
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, "Adds an article failed", e);
+
+            throw new ServiceException(e);
         }
 
         return ret;
     }
 
+    /**
+     * Invalidates page boundaries of keyset pagination, the archive date index, the user directory and the sitemap for
+     * the specified added article.
+     *
+     * <p>
+     * MUST be invoked after the transaction of {@link #addArticleInternal(org.json.JSONObject)} committed, so that the
+     * next load does not see the data before the commit.
+     * </p>
+     *
+     * @param article the specified added article
+     */
+    public void invalidateForAddedArticle(final JSONObject article) {
+        Cursors.invalidatePageBoundaries();
+        archiveDateUtils.invalidate();
+        userUtils.invalidate();
+        sitemaps.invalidate(article);
+    }
+
     /**
      * Removes the article specified by the given id.
      *
@@ -506,6 +594,20 @@ public final class ArticleMgmtService {
             userRepository.update(author.optString(Keys.OBJECT_ID), author);
 
             transaction.commit();
+
+            Cursors.invalidatePageBoundaries();
+            archiveDateUtils.invalidate();
+            userUtils.invalidate();
+            sitemaps.invalidate(article);
+
+            // Fire remove article event
+            final JSONObject eventData = new JSONObject();
+            eventData.put(Article.ARTICLE, article);
+            try {
+                eventManager.fireEventSynchronously(new Event<JSONObject>(EventTypes.REMOVE_ARTICLE, eventData));
+            } catch (final EventException e) {
+                LOGGER.log(Level.SEVERE, e.getMessage(), e);
+            }
         } catch (final Exception e) {
             if (transaction.isActive()) {
                 transaction.rollback();
@@ -550,6 +652,73 @@ public final class ArticleMgmtService {
         }
     }
 
+    /**
+     * Re-renders the articles written in Markdown whose HTML is missing (saved before the HTML persisted) or rendered
+     * by a previous {@linkplain Markdowns#RENDERER_VERSION renderer version}.
+     *
+     * @param maxCnt the specified max count of articles to re-render
+     * @return count of the re-rendered articles, it is less than the specified max count if all the articles are up
+     * to date
+     * @throws ServiceException service exception
+     */
+    public int rerenderMarkdownArticles(final int maxCnt) throws ServiceException {
+        int ret = 0;
+        Transaction transaction = null;
+
+        try {
+            int currentPageNum = 1;
+            List<JSONObject> articles;
+            do {
+                final Query query = new Query().addFilter(Article.ARTICLE_EDITOR_TYPE, FilterOperator.EQUAL,
+                                                          Markdowns.EDITOR_TYPE).
+                        setCurrentPageNum(currentPageNum).setPageSize(RERENDER_PAGE_SIZE).setPageCount(1);
+                articles = CollectionUtils.jsonArrayToList(articleRepository.get(query).optJSONArray(Keys.RESULTS));
+
+                for (final JSONObject article : articles) {
+                    if (ret == maxCnt) {
+                        break;
+                    }
+
+                    if (Markdowns.RENDERER_VERSION.equals(article.optString(Article.ARTICLE_HTML_VERSION))) {
+                        continue;
+                    }
+
+                    if (null == transaction) {
+                        transaction = articleRepository.beginTransaction();
+                    }
+
+                    Markdowns.renderArticle(article);
+                    articleRepository.update(article.getString(Keys.OBJECT_ID), article);
+                    ret++;
+
+                    if (0 == ret % RERENDER_PAGE_SIZE) {
+                        transaction.commit();
+                        transaction = null;
+                    }
+                }
+
+                currentPageNum++;
+            } while (RERENDER_PAGE_SIZE == articles.size() && ret < maxCnt);
+
+            if (null != transaction) {
+                transaction.commit();
+            }
+        } catch (final Exception e) {
+            if (null != transaction && transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            LOGGER.log(Level.SEVERE, "Re-renders Markdown articles failed", e);
+
+            throw new ServiceException(e);
+        }
+
+        LOGGER.log(Level.INFO, "Re-rendered Markdown articles[count={0}, rendererVersion={1}]",
+                   new Object[]{ret, Markdowns.RENDERER_VERSION});
+
+        return ret;
+    }
+
     /**
      * Decrements reference count of every tag of an article specified by the
      * given article id.
@@ -569,6 +738,7 @@ public final class ArticleMgmtService {
                 final int publishedRefCnt = tag.getInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT);
                 if (article.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
                     tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt - 1);
+                    tagUtils.removePublishedArticle(tag, articleId);
                 } else {
                     tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt);
                 }
@@ -602,7 +772,8 @@ public final class ArticleMgmtService {
             --archiveDateArticleCnt;
             int archiveDatePublishedArticleCnt = archiveDate.getInt(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_COUNT);
             final JSONObject article = articleRepository.get(articleId);
-            if (article.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
+            final boolean published = article.getBoolean(Article.ARTICLE_IS_PUBLISHED);
+            if (published) {
                 --archiveDatePublishedArticleCnt;
             }
 
@@ -613,6 +784,9 @@ public final class ArticleMgmtService {
                                                                  CollectionUtils.jsonArrayToArray(archiveDate.names(), String[].class));
                 newArchiveDate.put(ArchiveDate.ARCHIVE_DATE_ARTICLE_COUNT, archiveDateArticleCnt);
                 newArchiveDate.put(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_COUNT, archiveDatePublishedArticleCnt);
+                if (published) {
+                    archiveDateUtils.removePublishedArticle(newArchiveDate, articleId);
+                }
                 archiveDateRepository.update(archiveDateId, newArchiveDate);
             }
 
@@ -712,11 +886,13 @@ public final class ArticleMgmtService {
             if (oldArticle.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
                 if (!newArticle.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
                     tagUnchanged.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt - 1);
+                    tagUtils.removePublishedArticle(tagUnchanged, oldArticleId);
                     tagRepository.update(tagId, tagUnchanged);
                 }
             } else {
                 if (newArticle.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
                     tagUnchanged.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt + 1);
+                    tagUtils.addPublishedArticle(tagUnchanged, newArticle);
                     tagRepository.update(tagId, tagUnchanged);
                 }
             }
@@ -729,6 +905,7 @@ public final class ArticleMgmtService {
             final int publishedRefCnt = tagDropped.getInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT);
             if (oldArticle.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
                 tagDropped.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt - 1);
+                tagUtils.removePublishedArticle(tagDropped, oldArticleId);
             }
 
             tagRepository.update(tagId, tagDropped);
@@ -812,8 +989,9 @@ public final class ArticleMgmtService {
      * @param article the specified article
      * @return an array of tags
      * @throws RepositoryException repository exception
+     * @throws JSONException json exception
      */
-    private JSONArray tag(final String[] tagTitles, final JSONObject article) throws RepositoryException {
+    private JSONArray tag(final String[] tagTitles, final JSONObject article) throws RepositoryException, JSONException {
         final JSONArray ret = new JSONArray();
         for (int i = 0; i < tagTitles.length; i++) {
             final String tagTitle = tagTitles[i].trim();
@@ -827,6 +1005,7 @@ public final class ArticleMgmtService {
                 tag.put(Tag.TAG_REFERENCE_COUNT, 1);
                 if (article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) { // Publish article directly
                     tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, 1);
+                    tagUtils.addPublishedArticle(tag, article);
                 } else { // Save as draft
                     tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, 0);
                 }
@@ -845,8 +1024,10 @@ public final class ArticleMgmtService {
                 final int refCnt = tag.optInt(Tag.TAG_REFERENCE_COUNT);
                 final int publishedRefCnt = tag.optInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT);
                 tagTmp.put(Tag.TAG_REFERENCE_COUNT, refCnt + 1);
+                tagTmp.put(Tag.TAG_PUBLISHED_ARTICLE_POSTINGS, tag.optString(Tag.TAG_PUBLISHED_ARTICLE_POSTINGS));
                 if (article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
                     tagTmp.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt + 1);
+                    tagUtils.addPublishedArticle(tagTmp, article);
                 } else {
                     tagTmp.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt);
                 }
@@ -939,6 +1120,7 @@ public final class ArticleMgmtService {
         if (article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
             newArchiveDate.put(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_COUNT,
                                archiveDate.optInt(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_COUNT) + 1);
+            archiveDateUtils.addPublishedArticle(newArchiveDate, article);
         }
         archiveDateRepository.update(archiveDate.optString(Keys.OBJECT_ID), newArchiveDate);
 
@@ -1060,24 +1242,28 @@ public final class ArticleMgmtService {
         final JSONObject archiveDate = archiveDateRepository.get(archiveDateId);
         archiveDate.put(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_COUNT,
                         archiveDate.getInt(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_COUNT) - 1);
+        archiveDateUtils.removePublishedArticle(archiveDate, articleId);
         archiveDateRepository.update(archiveDateId, archiveDate);
     }
 
     /**
-     * Increments reference count of archive date of an published article
-     * specified by the given article id.
+     * Increments reference count of archive date of the specified published
+     * article.
      *
-     * @param articleId the given article id
+     * @param article the specified article, MUST contain its id and create
+     * date
      * @throws JSONException json exception
      * @throws RepositoryException repository exception
      */
-    private void incArchiveDatePublishedRefCount(final String articleId)
+    private void incArchiveDatePublishedRefCount(final JSONObject article)
             throws JSONException, RepositoryException {
+        final String articleId = article.getString(Keys.OBJECT_ID);
         final JSONObject archiveDateArticleRelation = archiveDateArticleRepository.getByArticleId(articleId);
         final String archiveDateId = archiveDateArticleRelation.getString(ArchiveDate.ARCHIVE_DATE + "_" + Keys.OBJECT_ID);
         final JSONObject archiveDate = archiveDateRepository.get(archiveDateId);
         archiveDate.put(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_COUNT,
                         archiveDate.getInt(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_COUNT) + 1);
+        archiveDateUtils.addPublishedArticle(archiveDate, article);
         archiveDateRepository.update(archiveDateId, archiveDate);
     }
 
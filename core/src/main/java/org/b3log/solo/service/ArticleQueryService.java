@@ -15,22 +15,22 @@
  */
 package org.b3log.solo.service;
 
-import org.b3log.solo.repository.ArchiveDateArticleRepository;
-import org.b3log.solo.repository.impl.ArchiveDateArticleRepositoryImpl;
-import java.util.Set;
 import org.b3log.solo.model.Sign;
 import org.b3log.solo.model.Tag;
 import java.util.Date;
 import org.b3log.latke.model.User;
 import org.b3log.solo.model.Common;
+import org.b3log.solo.util.ArchiveDates;
 import org.b3log.solo.util.Articles;
+import org.b3log.solo.util.Cursors;
+import org.b3log.solo.util.PostingList;
+import org.b3log.solo.util.Tags;
 import org.b3log.latke.repository.FilterOperator;
 import org.b3log.latke.repository.SortDirection;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.model.Pagination;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -52,6 +52,7 @@ import org.b3log.solo.repository.impl.TagRepositoryImpl;
 import org.b3log.solo.util.Statistics;
 import org.b3log.solo.util.comparator.Comparators;
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import static org.b3log.solo.model.Article.*;
 import org.b3log.solo.util.Markdowns;
@@ -60,7 +61,7 @@ import org.b3log.solo.util.Markdowns;
  * Article query service.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.1.0, May 10, 2012
+ * @version 1.0.2.8, May 24, 2012
  * @since 0.3.5
  */
 public final class ArticleQueryService {
@@ -86,9 +87,13 @@ public final class ArticleQueryService {
      */
     private TagArticleRepository tagArticleRepository = TagArticleRepositoryImpl.getInstance();
     /**
-     * Archive date-Article repository.
+     * Tag utilities.
      */
-    private ArchiveDateArticleRepository archiveDateArticleRepository = ArchiveDateArticleRepositoryImpl.getInstance();
+    private Tags tagUtils = Tags.getInstance();
+    /**
+     * Archive date utilities.
+     */
+    private ArchiveDates archiveDateUtils = ArchiveDates.getInstance();
     /**
      * Statistic utilities.
      */
@@ -176,8 +181,7 @@ public final class ArticleQueryService {
             article.put(ARTICLE_TAGS_REF, tags);
 
             // Signs
-            final JSONObject preference = preferenceQueryService.getPreference();
-            article.put(Sign.SIGNS, new JSONArray(preference.getString(Preference.SIGNS)));
+            article.put(Sign.SIGNS, preferenceQueryService.getPreferenceSnapshot().getSigns());
 
             // Remove unused properties
             article.remove(ARTICLE_AUTHOR_EMAIL);
@@ -187,6 +191,9 @@ public final class ArticleQueryService {
             article.remove(ARTICLE_UPDATE_DATE);
             article.remove(ARTICLE_VIEW_COUNT);
             article.remove(ARTICLE_RANDOM_DOUBLE);
+            article.remove(ARTICLE_CONTENT_HTML);
+            article.remove(ARTICLE_ABSTRACT_HTML);
+            article.remove(ARTICLE_HTML_VERSION);
 
             LOGGER.log(Level.FINER, "Got an article[id={0}]", articleId);
 
@@ -217,12 +224,14 @@ public final class ArticleQueryService {
      *     "paginationPageSize": 20,
      *     "paginationWindowSize": 10,
      *     "articleIsPublished": boolean,
+     *     "cursor": "", // Optional, the "nextCursor" of the previous page, published articles only
      *     "excludes": ["", ....] // Optional
      * }, see {@link Pagination} for more details
      * </pre>
      * @return for example,
      * <pre>
      * {
+     *     "nextCursor": "", // published articles only, absent if no more articles
      *     "pagination": {
      *         "paginationPageCount": 100,
      *         "paginationPageNums": [1, 2, 3, 4, 5]
@@ -241,7 +250,8 @@ public final class ArticleQueryService {
      *         .... // Specified by the "excludes"
      *      }, ....]
      * }
-     * </pre>, order by article update date and sticky(put top).
+     * </pre>, order by article update date and sticky(put top). The content and abstract are not converted from
+     * Markdown, the caller {@linkplain #markdown(org.json.JSONObject) converts} them once if needed.
      * @throws ServiceException service exception
      * @see Pagination
      */
@@ -254,21 +264,33 @@ public final class ArticleQueryService {
             final int windowSize = requestJSONObject.getInt(Pagination.PAGINATION_WINDOW_SIZE);
             final boolean articleIsPublished = requestJSONObject.optBoolean(ARTICLE_IS_PUBLISHED, true);
 
-            final Query query = new Query().setCurrentPageNum(currentPageNum).
-                    setPageSize(pageSize).
-                    addSort(ARTICLE_PUT_TOP, SortDirection.DESCENDING).
-                    addSort(ARTICLE_CREATE_DATE, SortDirection.DESCENDING).
-                    addFilter(ARTICLE_IS_PUBLISHED, FilterOperator.EQUAL, articleIsPublished);
-
             int articleCount = statistics.getBlogArticleCount();
             if (!articleIsPublished) {
                 articleCount -= statistics.getPublishedBlogArticleCount();
             }
 
             final int pageCount = (int) Math.ceil((double) articleCount / (double) pageSize);
-            query.setPageCount(pageCount);
 
-            final JSONObject result = articleRepository.get(query);
+            JSONArray articles;
+            if (articleIsPublished) { // Keyset
+                final JSONObject result = getPublishedArticles(ARTICLE_CREATE_DATE, currentPageNum, pageSize,
+                                                               requestJSONObject.optString(Common.CURSOR));
+                articles = result.getJSONArray(ARTICLES);
+
+                if (result.has(Common.NEXT_CURSOR)) {
+                    ret.put(Common.NEXT_CURSOR, result.getString(Common.NEXT_CURSOR));
+                }
+            } else {
+                final Query query = new Query().setCurrentPageNum(currentPageNum).
+                        setPageSize(pageSize).
+                        addSort(ARTICLE_PUT_TOP, SortDirection.DESCENDING).
+                        addSort(ARTICLE_CREATE_DATE, SortDirection.DESCENDING).
+                        addFilter(ARTICLE_IS_PUBLISHED, FilterOperator.EQUAL, articleIsPublished).
+                        setPageCount(pageCount);
+
+                final JSONObject result = articleRepository.get(query);
+                articles = result.getJSONArray(Keys.RESULTS);
+            }
 
             final JSONObject pagination = new JSONObject();
             ret.put(Pagination.PAGINATION, pagination);
@@ -276,7 +298,6 @@ public final class ArticleQueryService {
             pagination.put(Pagination.PAGINATION_PAGE_COUNT, pageCount);
             pagination.put(Pagination.PAGINATION_PAGE_NUMS, pageNums);
 
-            final JSONArray articles = result.getJSONArray(Keys.RESULTS);
             JSONArray excludes = requestJSONObject.optJSONArray(Keys.EXCLUDES);
             excludes = null == excludes ? new JSONArray() : excludes;
 
@@ -288,9 +309,6 @@ public final class ArticleQueryService {
 
                 article.put(ARTICLE_CREATE_TIME, ((Date) article.get(ARTICLE_CREATE_DATE)).getTime());
 
-                // Markdown to HTML for content and abstract
-                markdown(article);
-
                 // Remove unused properties
                 for (int j = 0; j < excludes.length(); j++) {
                     article.remove(excludes.optString(j));
@@ -308,52 +326,131 @@ public final class ArticleQueryService {
     }
 
     /**
-     * Gets a list of published articles with the specified tag id, current page number and page size.
+     * Gets a page of published articles sorted by put top, the specified date property and id descending.
      * 
-     * @param tagId the specified tag id
+     * <p>
+     * The page is fetched by keyset from the specified cursor (the links to the next page carry it), or from the end of
+     * the previous page if it is known, by offset otherwise, see {@link Cursors} for more details.
+     * </p>
+     * 
+     * <p>
+     *   <b>Note</b>: The article content and abstract is raw (no editor type processing).
+     * </p>
+     *
+     * @param dateProperty the specified date property, "articleCreateDate" or "articleUpdateDate"
      * @param currentPageNum the specified current page number
      * @param pageSize the specified page size
-     * @return a list of articles, returns an empty list if not found
+     * @param cursor the specified cursor, the "nextCursor" of the previous page, {@code null} or "" to locate the page
+     * by the specified current page number
+     * @return for example,
+     * <pre>
+     * {
+     *     "articles": [{
+     *         "oId": "",
+     *         "articleTitle": "",
+     *         ....
+     *      }, ....],
+     *     "nextCursor": "" // absent if no more articles
+     * }
+     * </pre>
      * @throws ServiceException service exception
      */
-    public List<JSONObject> getArticlesByTag(final String tagId, final int currentPageNum, final int pageSize)
-            throws ServiceException {
+    public JSONObject getPublishedArticles(final String dateProperty, final int currentPageNum, final int pageSize,
+                                           final String cursor) throws ServiceException {
+        final String listingKey = Common.INDEX + '_' + dateProperty + '_' + pageSize;
+
         try {
-            JSONObject result = tagArticleRepository.getByTagId(tagId, currentPageNum, pageSize);
-            final JSONArray tagArticleRelations = result.getJSONArray(Keys.RESULTS);
-            if (0 == tagArticleRelations.length()) {
-                return Collections.emptyList();
+            JSONObject start = Cursors.parseArticleCursor(cursor, dateProperty);
+            final boolean byCursor = null != start;
+            if (!byCursor) {
+                start = Cursors.parseArticleCursor(Cursors.getPageStartCursor(listingKey, currentPageNum), dateProperty);
             }
 
-            final Set<String> articleIds = new HashSet<String>();
-            for (int i = 0; i < tagArticleRelations.length(); i++) {
-                final JSONObject tagArticleRelation = tagArticleRelations.getJSONObject(i);
-                final String articleId = tagArticleRelation.getString(Article.ARTICLE + "_" + Keys.OBJECT_ID);
-
-                articleIds.add(articleId);
+            List<JSONObject> articles;
+            if (null != start || 1 == currentPageNum) {
+                articles = articleRepository.getPublishedAfter(dateProperty, start, pageSize);
+            } else { // The start of this page is unknown, falls back to offset
+                final Query query = new Query().setCurrentPageNum(currentPageNum).setPageSize(pageSize).setPageCount(1).
+                        addFilter(ARTICLE_IS_PUBLISHED, FilterOperator.EQUAL, true).
+                        addSort(ARTICLE_PUT_TOP, SortDirection.DESCENDING).
+                        addSort(dateProperty, SortDirection.DESCENDING).
+                        addSort(Keys.OBJECT_ID, SortDirection.DESCENDING).
+                        index(ARTICLE_PERMALINK);
+
+                final JSONObject result = articleRepository.get(query);
+                articles = CollectionUtils.<JSONObject>jsonArrayToList(result.getJSONArray(Keys.RESULTS));
             }
 
-            final List<JSONObject> ret = new ArrayList<JSONObject>();
+            final JSONObject ret = new JSONObject();
+            ret.put(ARTICLES, new JSONArray(articles));
 
-            final Query query = new Query().addFilter(Keys.OBJECT_ID, FilterOperator.IN, articleIds).
-                    setPageCount(1).index(Article.ARTICLE_PERMALINK);
-            result = articleRepository.get(query);
-            final JSONArray articles = result.getJSONArray(Keys.RESULTS);
-            for (int i = 0; i < articles.length(); i++) {
-                final JSONObject article = articles.getJSONObject(i);
+            if (articles.size() == pageSize) {
+                final String nextCursor = Cursors.toArticleCursor(articles.get(articles.size() - 1), dateProperty);
+                ret.put(Common.NEXT_CURSOR, nextCursor);
 
-                if (!article.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
-                    // Skips the unpublished article
-                    continue;
+                if (!byCursor) { // A cursor in the request may not be the start of this page
+                    Cursors.putPageEndCursor(listingKey, currentPageNum, nextCursor);
                 }
-
-                // Markdown to HTML for content and abstract
-                markdown(article);
-
-                ret.add(article);
             }
 
             return ret;
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, "Gets published articles failed[listing=" + listingKey + ", currentPageNum="
+                                     + currentPageNum + "]", e);
+            throw new ServiceException(e);
+        }
+    }
+
+    /**
+     * Gets a list of published articles with the specified tag id, current page number and page size.
+     * 
+     * @param tagId the specified tag id
+     * @param currentPageNum the specified current page number
+     * @param pageSize the specified page size
+     * @return a list of articles, returns an empty list if not found
+     * @throws ServiceException service exception
+     */
+    public List<JSONObject> getArticlesByTag(final String tagId, final int currentPageNum, final int pageSize)
+            throws ServiceException {
+        final JSONObject result = getArticlesByTag(tagId, currentPageNum, pageSize, null);
+
+        try {
+            return CollectionUtils.<JSONObject>jsonArrayToList(result.getJSONArray(ARTICLES));
+        } catch (final JSONException e) {
+            LOGGER.log(Level.SEVERE, "Gets articles by tag[id=" + tagId + "] failed", e);
+            throw new ServiceException(e);
+        }
+    }
+
+    /**
+     * Gets a page of published articles with the specified tag id, current page number, page size and cursor.
+     * 
+     * @param tagId the specified tag id
+     * @param currentPageNum the specified current page number
+     * @param pageSize the specified page size
+     * @param cursor the specified cursor, the "nextCursor" of the previous page, {@code null} or "" to locate the page
+     * by the specified current page number
+     * @return for example,
+     * <pre>
+     * {
+     *     "articles": [{ // sorted by create date descending
+     *         "oId": "",
+     *         "articleTitle": "",
+     *         ....
+     *      }, ....],
+     *     "nextCursor": "" // absent if no more articles
+     * }
+     * </pre>
+     * @throws ServiceException service exception
+     * @see Tags#getPublishedArticlePostings(org.json.JSONObject)
+     */
+    public JSONObject getArticlesByTag(final String tagId, final int currentPageNum, final int pageSize, final String cursor)
+            throws ServiceException {
+        try {
+            final JSONObject tag = tagRepository.get(tagId);
+            final PostingList postings = null == tag ? PostingList.EMPTY : tagUtils.getPublishedArticlePostings(tag);
+
+            return getArticlesByPostings(postings, currentPageNum, pageSize, cursor);
         } catch (final Exception e) {
             LOGGER.log(Level.SEVERE, "Gets articles by tag[id=" + tagId + "] failed", e);
             throw new ServiceException(e);
@@ -371,47 +468,102 @@ public final class ArticleQueryService {
      */
     public List<JSONObject> getArticlesByArchiveDate(final String archiveDateId, final int currentPageNum, final int pageSize)
             throws ServiceException {
+        final JSONObject result = getArticlesByArchiveDate(archiveDateId, currentPageNum, pageSize, null);
+
         try {
-            JSONObject result = archiveDateArticleRepository.getByArchiveDateId(archiveDateId, currentPageNum, pageSize);
+            return CollectionUtils.<JSONObject>jsonArrayToList(result.getJSONArray(ARTICLES));
+        } catch (final JSONException e) {
+            LOGGER.log(Level.SEVERE, "Gets articles by archive date[id=" + archiveDateId + "] failed", e);
+            throw new ServiceException(e);
+        }
+    }
 
-            final JSONArray relations = result.getJSONArray(Keys.RESULTS);
-            if (0 == relations.length()) {
-                return Collections.emptyList();
-            }
+    /**
+     * Gets a page of published articles with the specified archive date id, current page number, page size and cursor.
+     * 
+     * @param archiveDateId the specified archive date id
+     * @param currentPageNum the specified current page number
+     * @param pageSize the specified page size
+     * @param cursor the specified cursor, the "nextCursor" of the previous page, {@code null} or "" to locate the page
+     * by the specified current page number
+     * @return for example,
+     * <pre>
+     * {
+     *     "articles": [{ // sorted by create date descending
+     *         "oId": "",
+     *         "articleTitle": "",
+     *         ....
+     *      }, ....],
+     *     "nextCursor": "" // absent if no more articles
+     * }
+     * </pre>
+     * @throws ServiceException service exception
+     * @see ArchiveDates#getPublishedArticlePostings(java.lang.String)
+     */
+    public JSONObject getArticlesByArchiveDate(final String archiveDateId, final int currentPageNum, final int pageSize,
+                                               final String cursor) throws ServiceException {
+        try {
+            final PostingList postings = archiveDateUtils.getPublishedArticlePostings(archiveDateId);
 
-            final Set<String> articleIds = new HashSet<String>();
-            for (int i = 0; i < relations.length(); i++) {
-                final JSONObject relation = relations.getJSONObject(i);
-                final String articleId = relation.getString(Article.ARTICLE + "_" + Keys.OBJECT_ID);
+            return getArticlesByPostings(postings, currentPageNum, pageSize, cursor);
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, "Gets articles by archive date[id=" + archiveDateId + "] failed", e);
+            throw new ServiceException(e);
+        }
+    }
 
-                articleIds.add(articleId);
-            }
+    /**
+     * Gets a page of published articles with the specified posting list, current page number, page size and cursor.
+     * 
+     * @param postings the specified posting list
+     * @param currentPageNum the specified current page number
+     * @param pageSize the specified page size
+     * @param cursor the specified cursor, the id of the last article of the previous page, {@code null} or "" (or an
+     * article id not in the specified posting list) to locate the page by the specified current page number
+     * @return for example,
+     * <pre>
+     * {
+     *     "articles": [{ // in the order of the specified posting list
+     *         "oId": "",
+     *         "articleTitle": "",
+     *         ....
+     *      }, ....],
+     *     "nextCursor": "" // absent if no more articles
+     * }
+     * </pre>
+     * @throws Exception exception
+     */
+    private JSONObject getArticlesByPostings(final PostingList postings, final int currentPageNum, final int pageSize,
+                                             final String cursor) throws Exception {
+        final JSONObject ret = new JSONObject();
 
-            final List<JSONObject> ret = new ArrayList<JSONObject>();
+        int fromIndex = -1;
+        if (!Strings.isEmptyOrNull(cursor)) {
+            final int cursorIndex = postings.indexOf(cursor);
+            if (-1 != cursorIndex) {
+                fromIndex = cursorIndex + 1;
+            }
+        }
+        if (-1 == fromIndex) {
+            fromIndex = (int) Math.min((long) (currentPageNum - 1) * pageSize, postings.size());
+        }
 
-            final Query query = new Query().addFilter(Keys.OBJECT_ID, FilterOperator.IN, articleIds).
-                    setPageCount(1).index(Article.ARTICLE_PERMALINK);
-            result = articleRepository.get(query);
-            final JSONArray articles = result.getJSONArray(Keys.RESULTS);
-            for (int i = 0; i < articles.length(); i++) {
-                final JSONObject article = articles.getJSONObject(i);
+        final int toIndex = (int) Math.min((long) fromIndex + pageSize, postings.size());
+        final List<String> articleIds = postings.getIds(fromIndex, toIndex);
+        if (articleIds.isEmpty()) {
+            ret.put(ARTICLES, new JSONArray());
 
-                if (!article.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
-                    // Skips the unpublished article
-                    continue;
-                }
+            return ret;
+        }
 
-                // Markdown to HTML for content and abstract
-                markdown(article);
+        if (toIndex < postings.size()) {
+            ret.put(Common.NEXT_CURSOR, articleIds.get(articleIds.size() - 1));
+        }
 
-                ret.add(article);
-            }
+        // The Markdown of content and abstract is converted by the list filler
+        ret.put(ARTICLES, new JSONArray(articleRepository.getByIds(articleIds)));
 
-            return ret;
-        } catch (final Exception e) {
-            LOGGER.log(Level.SEVERE, "Gets articles by archive date[id=" + archiveDateId + "] failed", e);
-            throw new ServiceException(e);
-        }
+        return ret;
     }
 
     /**
@@ -616,20 +768,74 @@ public final class ArticleQueryService {
      */
     public List<JSONObject> getArticlesByAuthorEmail(final String authorEmail, final int currentPageNum, final int pageSize)
             throws ServiceException {
+        final JSONObject result = getArticlesByAuthorEmail(authorEmail, currentPageNum, pageSize, null);
+
         try {
-            final JSONObject result = articleRepository.getByAuthorEmail(authorEmail, currentPageNum, pageSize);
-            final JSONArray articles = result.getJSONArray(Keys.RESULTS);
-            final List<JSONObject> ret = new ArrayList<JSONObject>();
+            return CollectionUtils.<JSONObject>jsonArrayToList(result.getJSONArray(ARTICLES));
+        } catch (final JSONException e) {
+            LOGGER.log(Level.SEVERE, "Gets articles by author email[" + authorEmail + "] failed", e);
+            throw new ServiceException(e);
+        }
+    }
 
-            for (int i = 0; i < articles.length(); i++) {
-                final JSONObject article = articles.getJSONObject(i);
+    /**
+     * Gets a page of <em>published</em> articles by the specified author email, current page number, page size and
+     * cursor.
+     * 
+     * <p>
+     * The page is fetched by keyset from the specified cursor (the links to the next page carry it), or from the end of
+     * the previous page if it is known, by offset otherwise, see {@link Cursors} for more details.
+     * </p>
+     * 
+     * @param authorEmail the specified author email
+     * @param currentPageNum the specified current page number
+     * @param pageSize the specified page size
+     * @param cursor the specified cursor, the "nextCursor" of the previous page, {@code null} or "" to locate the page
+     * by the specified current page number
+     * @return for example,
+     * <pre>
+     * {
+     *     "articles": [{ // sorted by put top, update date and id descending
+     *         "oId": "",
+     *         "articleTitle": "",
+     *         ....
+     *      }, ....],
+     *     "nextCursor": "" // absent if no more articles
+     * }
+     * </pre>
+     * @throws ServiceException service exception 
+     */
+    public JSONObject getArticlesByAuthorEmail(final String authorEmail, final int currentPageNum, final int pageSize,
+                                               final String cursor) throws ServiceException {
+        try {
+            final String listingKey = Common.AUTHOR_ARTICLES + '_' + authorEmail + '_' + pageSize;
+            JSONObject start = Cursors.parseArticleCursor(cursor, ARTICLE_UPDATE_DATE);
+            final boolean byCursor = null != start;
+            if (!byCursor) {
+                start = Cursors.parseArticleCursor(Cursors.getPageStartCursor(listingKey, currentPageNum), ARTICLE_UPDATE_DATE);
+            }
 
-                // Markdown to HTML for content and abstract
-                markdown(article);
+            List<JSONObject> articles;
+            if (null != start || 1 == currentPageNum) {
+                articles = articleRepository.getByAuthorEmailAfter(authorEmail, start, pageSize);
+            } else { // The start of this page is unknown, falls back to offset
+                final JSONObject result = articleRepository.getByAuthorEmail(authorEmail, currentPageNum, pageSize);
+                articles = CollectionUtils.<JSONObject>jsonArrayToList(result.getJSONArray(Keys.RESULTS));
+            }
 
-                ret.add(article);
+            final JSONObject ret = new JSONObject();
+            ret.put(ARTICLES, new JSONArray(articles));
+
+            if (articles.size() == pageSize) {
+                final String nextCursor = Cursors.toArticleCursor(articles.get(articles.size() - 1), ARTICLE_UPDATE_DATE);
+                ret.put(Common.NEXT_CURSOR, nextCursor);
+
+                if (!byCursor) { // A cursor in the request may not be the start of this page
+                    Cursors.putPageEndCursor(listingKey, currentPageNum, nextCursor);
+                }
             }
 
+            // The Markdown of content and abstract is converted by the list filler
             return ret;
         } catch (final Exception e) {
             LOGGER.log(Level.SEVERE, "Gets articles by author email failed[authorEmail="
@@ -662,12 +868,7 @@ public final class ArticleQueryService {
             }
 
             // Markdown to HTML for content and abstract
-            if ("CodeMirror-Markdown".equals(article.optString(ARTICLE_EDITOR_TYPE))) {
-                Stopwatchs.start("Get Article Content [Markdown]");
-                final String content = article.optString(ARTICLE_CONTENT);
-                article.put(ARTICLE_CONTENT, Markdowns.toHTML(content));
-                Stopwatchs.end();
-            }
+            markdown(article);
 
             return article.getString(Article.ARTICLE_CONTENT);
         } catch (final Exception e) {
@@ -692,27 +893,48 @@ public final class ArticleQueryService {
     /**
      * Converts the content and abstract for the specified article to HTML if it is saved by Markdown editor.
      * 
+     * <p>
+     * Uses the HTML {@linkplain Markdowns#renderArticle(org.json.JSONObject) rendered} while saving, converts the 
+     * Markdown only if the article has been saved before the HTML persisted and not re-rendered yet. The persisted HTML
+     * properties are removed from the specified article.
+     * </p>
+     * 
      * @param article the specified article
      * @throws Exception exception 
      */
     public void markdown(final JSONObject article) throws Exception {
-        if ("CodeMirror-Markdown".equals(article.optString(ARTICLE_EDITOR_TYPE))) {
-            Stopwatchs.start("Markdown Article[id=" + article.optString(Keys.OBJECT_ID) + "]");
+        final Object contentHTML = article.remove(ARTICLE_CONTENT_HTML);
+        final Object abstractHTML = article.remove(ARTICLE_ABSTRACT_HTML);
+        article.remove(ARTICLE_HTML_VERSION);
 
-            Stopwatchs.start("Content");
-            final String content = article.optString(ARTICLE_CONTENT);
-            article.put(ARTICLE_CONTENT, Markdowns.toHTML(content));
-            Stopwatchs.end();
+        if (!Markdowns.isMarkdown(article.optString(ARTICLE_EDITOR_TYPE))) {
+            return;
+        }
 
-            final String abstractContent = article.optString(ARTICLE_ABSTRACT);
-            if (!Strings.isEmptyOrNull(abstractContent)) {
-                Stopwatchs.start("Abstract");
-                article.put(ARTICLE_ABSTRACT, Markdowns.toHTML(abstractContent));
-                Stopwatchs.end();
+        if (null != contentHTML) {
+            article.put(ARTICLE_CONTENT, contentHTML);
+            if (null != abstractHTML) {
+                article.put(ARTICLE_ABSTRACT, abstractHTML);
             }
 
+            return;
+        }
+
+        Stopwatchs.start("Markdown Article[id=" + article.optString(Keys.OBJECT_ID) + "]");
+
+        Stopwatchs.start("Content");
+        final String content = article.optString(ARTICLE_CONTENT);
+        article.put(ARTICLE_CONTENT, Markdowns.toHTML(content));
+        Stopwatchs.end();
+
+        final String abstractContent = article.optString(ARTICLE_ABSTRACT);
+        if (!Strings.isEmptyOrNull(abstractContent)) {
+            Stopwatchs.start("Abstract");
+            article.put(ARTICLE_ABSTRACT, Markdowns.toHTML(abstractContent));
             Stopwatchs.end();
         }
+
+        Stopwatchs.end();
     }
 
     /**
@@ -767,6 +989,9 @@ public final class ArticleQueryService {
         article.remove(Article.ARTICLE_IS_PUBLISHED);
         article.remove(Article.ARTICLE_PUT_TOP);
         article.remove(Article.ARTICLE_HAD_BEEN_PUBLISHED);
+        article.remove(Article.ARTICLE_CONTENT_HTML);
+        article.remove(Article.ARTICLE_ABSTRACT_HTML);
+        article.remove(Article.ARTICLE_HTML_VERSION);
     }
 
     /**
@@ -53,7 +53,7 @@ import org.json.JSONObject;
  * Comment management service.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.2, Feb 3, 2012
+ * @version 1.0.1.0, May 24, 2012
  * @since 0.3.5
  */
 public final class CommentMgmtService {
@@ -178,6 +178,8 @@ public final class CommentMgmtService {
             ret.put(Comment.COMMENT_SHARP_URL, commentSharpURL);
             comment.put(Comment.COMMENT_SHARP_URL, commentSharpURL);
             comment.put(Keys.OBJECT_ID, commentId);
+            Comments.setThread(comment, originalComment);
+            Comments.escape(comment);
             commentRepository.add(comment);
             // Step 2: Update page comment count
             incPageCommentCount(pageId);
@@ -290,6 +292,8 @@ public final class CommentMgmtService {
             comment.put(Comment.COMMENT_SHARP_URL, commentSharpURL);
             ret.put(Comment.COMMENT_SHARP_URL, commentSharpURL);
 
+            Comments.setThread(comment, originalComment);
+            Comments.escape(comment);
             commentRepository.add(comment);
             // Step 2: Update article comment count
             articleUtils.incArticleCommentCount(articleId);
@@ -334,6 +338,7 @@ public final class CommentMgmtService {
             final JSONObject comment = commentRepository.get(commentId);
             final String pageId = comment.getString(Comment.COMMENT_ON_ID);
             // Step 1: Remove comment
+            moveReplies(comment);
             commentRepository.remove(commentId);
             // Step 2: Update page comment count
             decPageCommentCount(pageId);
@@ -367,6 +372,7 @@ public final class CommentMgmtService {
             final String articleId = comment.getString(Comment.COMMENT_ON_ID);
 
             // Step 1: Remove comment
+            moveReplies(comment);
             commentRepository.remove(commentId);
             // Step 2: Update article comment count
             decArticleCommentCount(articleId);
@@ -385,6 +391,31 @@ public final class CommentMgmtService {
         }
     }
 
+    /**
+     * Moves the replies of the specified comment being removed up a level in the reply tree.
+     *
+     * <p>
+     * The direct replies take the place of the specified comment, replies of a root comment become roots of their own
+     * threads. The replied comment ({@link Comment#COMMENT_ORIGINAL_COMMENT_ID}) of the replies is kept.
+     * </p>
+     *
+     * @param comment the specified comment
+     * @throws RepositoryException repository exception
+     */
+    private void moveReplies(final JSONObject comment) throws RepositoryException {
+        final String path = comment.optString(Comment.COMMENT_PATH);
+        final int lastSeparator = path.lastIndexOf(Comments.PATH_SEPARATOR);
+        final String parentPath = -1 == lastSeparator ? "" : path.substring(0, lastSeparator + 1);
+
+        final List<JSONObject> replies = commentRepository.getReplies(comment);
+        for (final JSONObject reply : replies) {
+            // Strips the id of the specified comment from the path
+            Comments.setPath(reply, parentPath + reply.getString(Comment.COMMENT_PATH).substring(path.length() + 1));
+
+            commentRepository.update(reply.getString(Keys.OBJECT_ID), reply);
+        }
+    }
+
     /**
      * Page comment count +1 for an page specified by the given page 
      * id.
@@ -15,12 +15,10 @@
  */
 package org.b3log.solo.service;
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.apache.commons.lang.StringEscapeUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.model.Pagination;
 import org.b3log.latke.repository.Query;
@@ -39,6 +37,7 @@ import org.b3log.solo.repository.PageRepository;
 import org.b3log.solo.repository.impl.ArticleRepositoryImpl;
 import org.b3log.solo.repository.impl.CommentRepositoryImpl;
 import org.b3log.solo.repository.impl.PageRepositoryImpl;
+import org.b3log.solo.util.Comments;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -46,7 +45,7 @@ import org.json.JSONObject;
  * Comment query service.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.4, Dec 20, 2011
+ * @version 1.0.2.1, May 24, 2012
  * @since 0.3.5
  */
 public final class CommentQueryService {
@@ -55,6 +54,10 @@ public final class CommentQueryService {
      * Logger.
      */
     private static final Logger LOGGER = Logger.getLogger(CommentQueryService.class.getName());
+    /**
+     * Default fetch size of a page of comments of an article or page.
+     */
+    public static final int DEFAULT_COMMENT_FETCH_SIZE = 30;
     /**
      * Comment repository.
      */
@@ -175,32 +178,96 @@ public final class CommentQueryService {
      */
     public List<JSONObject> getComments(final String onId) throws ServiceException {
         try {
-            final List<JSONObject> ret = new ArrayList<JSONObject>();
+            final List<JSONObject> ret = commentRepository.getComments(onId, 1, Integer.MAX_VALUE);
+            for (final JSONObject comment : ret) {
+                toShow(comment);
+            }
 
-            final List<JSONObject> comments = commentRepository.getComments(onId, 1, Integer.MAX_VALUE);
-            for (final JSONObject comment : comments) {
-                final String content = comment.getString(Comment.COMMENT_CONTENT).replaceAll(SoloServletListener.ENTER_ESC, "<br/>");
-                comment.put(Comment.COMMENT_CONTENT, content);
-                comment.put(Comment.COMMENT_TIME, ((Date) comment.get(Comment.COMMENT_DATE)).getTime());
-                comment.put(Comment.COMMENT_NAME, StringEscapeUtils.escapeHtml(comment.getString(Comment.COMMENT_NAME)));
-                comment.put(Comment.COMMENT_URL, StringEscapeUtils.escapeHtml(comment.getString(Comment.COMMENT_URL)));
-                comment.put(Common.IS_REPLY, false); // Assumes this comment is not a reply
+            return ret;
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, "Gets comments failed", e);
+            throw new ServiceException(e);
+        }
+    }
 
-                if (!Strings.isEmptyOrNull(comment.optString(Comment.COMMENT_ORIGINAL_COMMENT_ID))) {
-                    // This comment is a reply
-                    comment.put(Common.IS_REPLY, true);
-                }
+    /**
+     * Gets a page of comments of an article or page specified by the on id after the specified cursor.
+     *
+     * <p>
+     * Comments are in thread order: the latest thread first, each of replies follows the comment it replies to.
+     * </p>
+     *
+     * @param onId the specified on id
+     * @param cursor the specified cursor, {@code null} or {@code ""} for the first page
+     * @param fetchSize the specified fetch size
+     * @return for example,
+     * <pre>
+     * {
+     *     "comments": [{
+     *         "oId": "",
+     *         "commentName": "",
+     *         "commentURL": "",
+     *         "commentContent": "",
+     *         "commentTime": long,
+     *         "isReply": boolean,
+     *         "commentDepth": int, // 0 for a comment not replying to any one
+     *         ....
+     *      }, ....],
+     *     "commentCursor": "" // path of the last comment, "" if there is no more comments
+     * }
+     * </pre>
+     * @throws ServiceException service exception
+     */
+    public JSONObject getComments(final String onId, final String cursor, final int fetchSize) throws ServiceException {
+        try {
+            final JSONObject ret = new JSONObject();
 
-                ret.add(comment);
+            // Fetches one more comment to know whether there is a next page
+            final List<JSONObject> comments =
+                    commentRepository.getCommentsAfter(onId, Strings.isEmptyOrNull(cursor) ? null : cursor, fetchSize + 1);
+
+            String nextCursor = "";
+            if (comments.size() > fetchSize) {
+                comments.remove(fetchSize);
+                nextCursor = comments.get(fetchSize - 1).getString(Comment.COMMENT_PATH);
             }
 
+            for (final JSONObject comment : comments) {
+                toShow(comment);
+            }
+
+            ret.put(Comment.COMMENTS, new JSONArray(comments));
+            ret.put(Comment.COMMENT_CURSOR, nextCursor);
+
             return ret;
         } catch (final Exception e) {
-            LOGGER.log(Level.SEVERE, "Gets comments failed", e);
+            LOGGER.log(Level.SEVERE, "Gets comments[onId=" + onId + ", cursor=" + cursor + "] failed", e);
             throw new ServiceException(e);
         }
     }
 
+    /**
+     * Prepares the specified comment for showing.
+     *
+     * <p>
+     * Uses the content, name and URL escaped while adding the comment, comments added by previous versions are escaped
+     * here.
+     * </p>
+     *
+     * @param comment the specified comment
+     */
+    private static void toShow(final JSONObject comment) {
+        if (!comment.has(Comment.COMMENT_CONTENT_HTML)) {
+            Comments.escape(comment);
+        }
+
+        comment.put(Comment.COMMENT_CONTENT, comment.remove(Comment.COMMENT_CONTENT_HTML));
+        comment.put(Comment.COMMENT_NAME, comment.remove(Comment.COMMENT_NAME_HTML));
+        comment.put(Comment.COMMENT_URL, comment.remove(Comment.COMMENT_URL_HTML));
+        comment.put(Comment.COMMENT_TIME, ((Date) comment.opt(Comment.COMMENT_DATE)).getTime());
+        comment.put(Common.IS_REPLY, !Strings.isEmptyOrNull(comment.optString(Comment.COMMENT_ORIGINAL_COMMENT_ID)));
+    }
+
     /**
      * Private constructor.
      */
@@ -44,8 +44,11 @@ import org.b3log.solo.repository.UserRepository;
 import org.b3log.solo.repository.impl.PreferenceRepositoryImpl;
 import org.b3log.solo.repository.impl.StatisticRepositoryImpl;
 import org.b3log.solo.repository.impl.UserRepositoryImpl;
+import org.b3log.solo.util.ArchiveDates;
 import org.b3log.solo.util.Skins;
+import org.b3log.solo.util.Tags;
 import org.b3log.solo.util.TimeZones;
+import org.b3log.solo.util.Users;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -58,7 +61,7 @@ import org.b3log.solo.util.Comments;
  * B3log Solo initialization service.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.1.0, Apr 29, 2012
+ * @version 1.0.1.6, May 24, 2012
  * @since 0.4.0
  */
 public final class InitService {
@@ -186,11 +189,17 @@ public final class InitService {
                 }
             }
         }
+
+        Users.getInstance().invalidate();
+        PreferenceQueryService.getInstance().invalidate();
         
         final Transaction transaction = userRepository.beginTransaction();
         try {
             helloWorld();
             transaction.commit();
+
+            ArchiveDates.getInstance().invalidate();
+            Users.getInstance().invalidate();
         } catch (final Exception e) {
             if (transaction.isActive()) {
                 transaction.rollback();
@@ -260,6 +269,8 @@ public final class InitService {
         comment.put(Keys.OBJECT_ID, commentId);
         final String commentSharpURL = Comments.getCommentSharpURLForArticle(article, commentId);
         comment.put(Comment.COMMENT_SHARP_URL, commentSharpURL);
+        Comments.setThread(comment, null);
+        Comments.escape(comment);
         
         commentRepository.add(comment);
         
@@ -332,6 +343,7 @@ public final class InitService {
             archiveDate.put(ArchiveDate.ARCHIVE_TIME, ArchiveDate.DATE_FORMAT.parse(createDateString).getTime());
             archiveDate.put(ArchiveDate.ARCHIVE_DATE_ARTICLE_COUNT, 1);
             archiveDate.put(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_COUNT, 1);
+            ArchiveDates.getInstance().addPublishedArticle(archiveDate, article);
             
             archiveDateRepository.add(archiveDate);
         } catch (final ParseException e) {
@@ -383,6 +395,7 @@ public final class InitService {
             tag.put(Tag.TAG_TITLE, tagTitle);
             tag.put(Tag.TAG_REFERENCE_COUNT, 1);
             tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, 1);
+            Tags.getInstance().addPublishedArticle(tag, article);
             
             final String tagId = tagRepository.add(tag);
             tag.put(Keys.OBJECT_ID, tagId);
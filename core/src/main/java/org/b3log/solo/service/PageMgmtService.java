@@ -32,8 +32,11 @@ import org.b3log.solo.repository.CommentRepository;
 import org.b3log.solo.repository.PageRepository;
 import org.b3log.solo.repository.impl.CommentRepositoryImpl;
 import org.b3log.solo.repository.impl.PageRepositoryImpl;
+import org.b3log.solo.search.SearchIndex;
 import org.b3log.solo.util.Comments;
+import org.b3log.solo.util.Markdowns;
 import org.b3log.solo.util.Permalinks;
+import org.b3log.solo.util.Sitemaps;
 import org.b3log.solo.util.Statistics;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -42,7 +45,7 @@ import org.json.JSONObject;
  * Page management service.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.6, Feb 25, 2012
+ * @version 1.0.0.9, May 24, 2012
  * @since 0.4.0
  */
 public final class PageMgmtService {
@@ -75,6 +78,14 @@ public final class PageMgmtService {
      * Preference query service.
      */
     private PreferenceQueryService preferenceQueryService = PreferenceQueryService.getInstance();
+    /**
+     * Search index.
+     */
+    private SearchIndex searchIndex = SearchIndex.getInstance();
+    /**
+     * Sitemap utilities.
+     */
+    private Sitemaps sitemaps = Sitemaps.getInstance();
 
     /**
      * Updates a page by the specified request json object.
@@ -147,14 +158,18 @@ public final class PageMgmtService {
                 processCommentsForPageUpdate(newPage);
             }
 
-            // Editor type
+            // Editor type and the Markdown rendering
             final JSONObject preference = preferenceQueryService.getPreference();
-            page.put(Page.PAGE_EDITOR_TYPE, preference.optString(Preference.EDITOR_TYPE));
+            newPage.put(Page.PAGE_EDITOR_TYPE, preference.optString(Preference.EDITOR_TYPE));
+            Markdowns.renderPage(newPage);
 
             pageRepository.update(pageId, newPage);
 
             transaction.commit();
 
+            searchIndex.indexPage(newPage);
+            sitemaps.invalidate();
+
             LOGGER.log(Level.FINER, "Updated a page[id={0}]", pageId);
         } catch (final Exception e) {
             LOGGER.log(Level.SEVERE, e.getMessage(), e);
@@ -181,6 +196,8 @@ public final class PageMgmtService {
 
             transaction.commit();
 
+            searchIndex.remove(pageId);
+            sitemaps.invalidate();
         } catch (final Exception e) {
             if (transaction.isActive()) {
                 transaction.rollback();
@@ -250,14 +267,19 @@ public final class PageMgmtService {
             // TODO: SBC case
             page.put(Page.PAGE_PERMALINK, permalink.replaceAll(" ", "-"));
 
-            // Editor type
+            // Editor type and the Markdown rendering
             final JSONObject preference = preferenceQueryService.getPreference();
             page.put(Page.PAGE_EDITOR_TYPE, preference.optString(Preference.EDITOR_TYPE));
+            Markdowns.renderPage(page);
 
             final String ret = pageRepository.add(page);
 
             transaction.commit();
 
+            page.put(Keys.OBJECT_ID, ret);
+            searchIndex.indexPage(page);
+            sitemaps.invalidate();
+
             return ret;
         } catch (final JSONException e) {
             LOGGER.log(Level.SEVERE, e.getMessage(), e);
@@ -272,6 +294,15 @@ public final class PageMgmtService {
                 transaction.rollback();
             }
 
+            throw new ServiceException(e);
+        } catch (final ServiceException e) {
+            throw e;
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, e.getMessage(), e);
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
             throw new ServiceException(e);
         }
     }
@@ -326,6 +357,44 @@ public final class PageMgmtService {
         }
     }
 
+    /**
+     * Re-renders the pages written in Markdown whose HTML is missing (saved before the HTML persisted) or rendered
+     * by a previous {@linkplain Markdowns#RENDERER_VERSION renderer version}.
+     *
+     * @return count of the re-rendered pages
+     * @throws ServiceException service exception
+     */
+    public int rerenderMarkdownPages() throws ServiceException {
+        int ret = 0;
+        final Transaction transaction = pageRepository.beginTransaction();
+        try {
+            final List<JSONObject> pages = pageRepository.getPages();
+
+            for (final JSONObject page : pages) {
+                if (!Markdowns.isMarkdown(page.optString(Page.PAGE_EDITOR_TYPE))
+                    || Markdowns.RENDERER_VERSION.equals(page.optString(Page.PAGE_HTML_VERSION))) {
+                    continue;
+                }
+
+                Markdowns.renderPage(page);
+                pageRepository.update(page.getString(Keys.OBJECT_ID), page);
+                ret++;
+            }
+
+            transaction.commit();
+        } catch (final Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            LOGGER.log(Level.SEVERE, "Re-renders Markdown pages failed", e);
+
+            throw new ServiceException(e);
+        }
+
+        return ret;
+    }
+
     /**
      * Gets the {@link PageMgmtService} singleton.
      *
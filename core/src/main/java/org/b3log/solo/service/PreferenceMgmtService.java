@@ -17,6 +17,7 @@ package org.b3log.solo.service;
 
 import java.io.IOException;
 import org.b3log.latke.service.LangPropsService;
+import org.b3log.solo.util.Feeds;
 import org.b3log.solo.util.TimeZones;
 import org.b3log.solo.util.Skins;
 import org.json.JSONException;
@@ -37,6 +38,7 @@ import org.b3log.latke.util.freemarker.Templates;
 import org.b3log.solo.SoloServletListener;
 import org.b3log.solo.model.Preference;
 import org.b3log.solo.model.Skin;
+import org.b3log.solo.processor.util.TemplateManifests;
 import org.b3log.solo.repository.PreferenceRepository;
 import org.b3log.solo.repository.impl.PreferenceRepositoryImpl;
 import org.json.JSONArray;
@@ -47,7 +49,7 @@ import static org.b3log.solo.model.Preference.*;
  * Preference management service.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.5, May 16, 2012
+ * @version 1.0.1.0, May 24, 2012
  * @since 0.4.0
  */
 public final class PreferenceMgmtService {
@@ -68,6 +70,10 @@ public final class PreferenceMgmtService {
      * Language service.
      */
     private LangPropsService langPropsService = LangPropsService.getInstance();
+    /**
+     * Feed utilities.
+     */
+    private Feeds feeds = Feeds.getInstance();
 
     /**
      * Updates the reply notification template with the specified reply 
@@ -142,6 +148,8 @@ public final class PreferenceMgmtService {
             final String skinPath = webRootPath + Skin.SKINS + "/" + skinDirName;
             LOGGER.log(Level.FINER, "Skin path[{0}]", skinPath);
             Templates.CACHE.clear();
+            TemplateManifests.clear();
+            Skins.loadSkinLangs();
             
             preference.put(Skin.SKINS, skinArray.toString());
 
@@ -174,7 +182,12 @@ public final class PreferenceMgmtService {
 
             transaction.commit();
 
+            preferenceQueryService.swap(preference);
+            feeds.invalidate(); // Blog title, subtitle, host, feed output mode, etc.
+
             Templates.MAIN_CFG.setDirectoryForTemplateLoading(new File(skinPath));
+            Skins.shareSkinLangs(localeString, skinDirName);
+            Skins.loadTemplates(skinDirName);
 
             if (preference.getBoolean(PAGE_CACHE_ENABLED)) {
                 Latkes.enablePageCache();
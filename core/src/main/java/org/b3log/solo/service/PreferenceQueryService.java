@@ -15,20 +15,30 @@
  */
 package org.b3log.solo.service;
 
+import java.io.Serializable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.b3log.latke.cache.Cache;
 import org.b3log.latke.repository.RepositoryException;
 import org.b3log.latke.service.ServiceException;
+import org.b3log.latke.util.Ids;
 import org.b3log.solo.model.Preference;
+import org.b3log.solo.model.PreferenceSnapshot;
 import org.b3log.solo.repository.PreferenceRepository;
 import org.b3log.solo.repository.impl.PreferenceRepositoryImpl;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 /**
  * Preference query service.
  *
+ * <p>
+ * The preference is served from an immutable {@link PreferenceSnapshot snapshot}, which is swapped after the
+ * preference updated. The swap is shared across instances by a generation stamp in the preference repository cache.
+ * </p>
+ *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.1, Oct 31, 2011
+ * @version 1.0.1.0, May 24, 2012
  * @since 0.4.0
  */
 public final class PreferenceQueryService {
@@ -37,10 +47,18 @@ public final class PreferenceQueryService {
      * Logger.
      */
     private static final Logger LOGGER = Logger.getLogger(PreferenceQueryService.class.getName());
+    /**
+     * Cache key of preference snapshot generation.
+     */
+    private static final String GENERATION_CACHE_KEY = "preferenceSnapshotGeneration";
     /**
      * Preference repository.
      */
     private PreferenceRepository preferenceRepository = PreferenceRepositoryImpl.getInstance();
+    /**
+     * Preference snapshot, {@code null} if not loaded.
+     */
+    private volatile PreferenceSnapshot snapshot;
 
     /**
      * Gets the reply notification template.
@@ -64,22 +82,139 @@ public final class PreferenceQueryService {
      *   <b>Note</b>: Invoking the method will not load skin.
      * </p>
      *
-     * @return user preference, returns {@code null} if not found
+     * @return user preference (copy), returns {@code null} if not found
      * @throws ServiceException if repository exception
+     * @see #getPreferenceSnapshot() 
      */
     public JSONObject getPreference() throws ServiceException {
+        final PreferenceSnapshot preferenceSnapshot = getPreferenceSnapshot();
+        if (null == preferenceSnapshot) {
+            return null;
+        }
+
+        return preferenceSnapshot.getPreference();
+    }
+
+    /**
+     * Gets the user preference snapshot, loads it if it has not been loaded or has been swapped by another instance.
+     *
+     * @return user preference snapshot, returns {@code null} if not found
+     * @throws ServiceException if repository exception
+     */
+    public PreferenceSnapshot getPreferenceSnapshot() throws ServiceException {
+        final Object generation = getGeneration();
+
+        final PreferenceSnapshot ret = snapshot;
+        if (null != ret && ret.isGeneration(generation)) {
+            return ret;
+        }
+
+        return load(generation);
+    }
+
+    /**
+     * Swaps in a snapshot of the specified preference, should be invoked after the preference has been committed.
+     *
+     * @param preference the specified preference
+     */
+    public synchronized void swap(final JSONObject preference) {
+        final Object generation = newGeneration();
+
         try {
-            final JSONObject ret = preferenceRepository.get(Preference.PREFERENCE);
-            if (null == ret) {
+            snapshot = new PreferenceSnapshot(preference, generation);
+        } catch (final JSONException e) {
+            LOGGER.log(Level.SEVERE, "Swaps preference snapshot failed, reloads it on the next read", e);
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Invalidates the preference snapshot, should be invoked after the preference has been changed without
+     * {@link #swap(org.json.JSONObject)}.
+     */
+    public synchronized void invalidate() {
+        snapshot = null;
+
+        newGeneration();
+    }
+
+    /**
+     * Loads the preference snapshot of the specified generation.
+     *
+     * @param generation the specified generation, {@code null} if the preference repository cache is disabled
+     * @return preference snapshot, returns {@code null} if not found
+     */
+    private synchronized PreferenceSnapshot load(final Object generation) {
+        if (null != snapshot && snapshot.isGeneration(generation)) { // Loaded by another thread
+            return snapshot;
+        }
+
+        try {
+            final JSONObject preference = preferenceRepository.get(Preference.PREFERENCE);
+            if (null == preference) {
                 LOGGER.log(Level.WARNING, "Can not load preference from datastore");
                 return null;
             }
 
-            return ret;
+            snapshot = new PreferenceSnapshot(preference, generation);
+
+            return snapshot;
         } catch (final RepositoryException e) {
             LOGGER.log(Level.SEVERE, e.getMessage(), e);
             throw new IllegalStateException(e);
+        } catch (final JSONException e) {
+            LOGGER.log(Level.SEVERE, e.getMessage(), e);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets the current generation of the preference snapshot.
+     *
+     * @return generation, returns {@code null} if the preference repository cache is disabled
+     */
+    private Object getGeneration() {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return null;
+        }
+
+        Object ret = cache.get(GENERATION_CACHE_KEY);
+        if (null == ret) {
+            ret = newGeneration();
         }
+
+        return ret;
+    }
+
+    /**
+     * Stamps a new generation of the preference snapshot.
+     *
+     * @return the new generation, returns {@code null} if the preference repository cache is disabled
+     */
+    private Object newGeneration() {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return null;
+        }
+
+        final String ret = Ids.genTimeMillisId();
+        cache.put(GENERATION_CACHE_KEY, ret);
+
+        return ret;
+    }
+
+    /**
+     * Gets the cache for the preference snapshot generation.
+     *
+     * @return cache, returns {@code null} if the preference repository cache is disabled
+     */
+    private Cache<String, Serializable> getCache() {
+        if (!preferenceRepository.isCacheEnabled()) {
+            return null;
+        }
+
+        return preferenceRepository.getCache();
     }
 
     /**
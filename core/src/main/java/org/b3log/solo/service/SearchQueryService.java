@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.service;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.b3log.latke.model.Pagination;
+import org.b3log.latke.service.ServiceException;
+import org.b3log.latke.util.Paginator;
+import org.b3log.latke.util.Stopwatchs;
+import org.b3log.solo.model.Search;
+import org.b3log.solo.search.SearchIndex;
+import org.json.JSONObject;
+
+/**
+ * Search query service.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.1, May 24, 2012
+ * @since 0.4.5
+ */
+public final class SearchQueryService {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SearchQueryService.class.getName());
+    /**
+     * Search index.
+     */
+    private SearchIndex searchIndex = SearchIndex.getInstance();
+
+    /**
+     * Searches published articles and pages by the specified request json object.
+     *
+     * @param requestJSONObject the specified request json object, for example,
+     * <pre>
+     * {
+     *     "keyword": "",
+     *     "paginationCurrentPageNum": 1,
+     *     "paginationPageSize": 20,
+     *     "paginationWindowSize": 10
+     * }, see {@link Pagination} for more details
+     * </pre>
+     * @return for example,
+     * <pre>
+     * {
+     *     "pagination": {
+     *         "paginationPageCount": 100,
+     *         "paginationPageNums": [1, 2, 3, 4, 5]
+     *     },
+     *     "searchIndexReady": boolean, // false if the index is being built, without hits
+     *     "searchHitCount": int,
+     *     "searchHits": [{
+     *         "oId": "",
+     *         "searchHitType": "article", // "page"
+     *         "searchHitTitle": "",
+     *         "searchHitPermalink": "",
+     *         "searchHitExcerpt": "",
+     *         "searchHitScore": double
+     *     }, ....]
+     * }
+     * </pre>, order by relevance descending
+     * @throws ServiceException service exception
+     * @see Pagination
+     */
+    public JSONObject search(final JSONObject requestJSONObject) throws ServiceException {
+        final String keyword = requestJSONObject.optString(Search.KEYWORD);
+
+        Stopwatchs.start("Search[keyword=" + keyword + ']');
+
+        try {
+            final int currentPageNum = requestJSONObject.getInt(Pagination.PAGINATION_CURRENT_PAGE_NUM);
+            final int pageSize = requestJSONObject.getInt(Pagination.PAGINATION_PAGE_SIZE);
+            final int windowSize = requestJSONObject.getInt(Pagination.PAGINATION_WINDOW_SIZE);
+
+            final JSONObject ret = searchIndex.search(keyword, currentPageNum, pageSize);
+
+            final int hitCount = ret.getInt(Search.SEARCH_HIT_COUNT);
+            final int pageCount = (int) Math.ceil((double) hitCount / (double) pageSize);
+            final List<Integer> pageNums = Paginator.paginate(currentPageNum, pageSize, pageCount, windowSize);
+
+            final JSONObject pagination = new JSONObject();
+            pagination.put(Pagination.PAGINATION_PAGE_COUNT, pageCount);
+            pagination.put(Pagination.PAGINATION_PAGE_NUMS, pageNums);
+            ret.put(Pagination.PAGINATION, pagination);
+
+            return ret;
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, "Searches [keyword=" + keyword + "] failed", e);
+            throw new ServiceException(e);
+        } finally {
+            Stopwatchs.end();
+        }
+    }
+
+    /**
+     * Gets the {@link SearchQueryService} singleton.
+     *
+     * @return the singleton
+     */
+    public static SearchQueryService getInstance() {
+        return SingletonHolder.SINGLETON;
+    }
+
+    /**
+     * Private constructor.
+     */
+    private SearchQueryService() {
+    }
+
+    /**
+     * Singleton holder.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class SingletonHolder {
+
+        /**
+         * Singleton.
+         */
+        private static final SearchQueryService SINGLETON = new SearchQueryService();
+
+        /**
+         * Private default constructor.
+         */
+        private SingletonHolder() {
+        }
+    }
+}
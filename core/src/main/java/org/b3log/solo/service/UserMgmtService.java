@@ -27,13 +27,15 @@ import org.b3log.latke.service.ServiceException;
 import org.b3log.solo.model.UserExt;
 import org.b3log.solo.repository.UserRepository;
 import org.b3log.solo.repository.impl.UserRepositoryImpl;
+import org.b3log.solo.util.Feeds;
+import org.b3log.solo.util.Users;
 import org.json.JSONObject;
 
 /**
  * User management service.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.2, Feb 23, 2011
+ * @version 1.0.0.4, May 24, 2012
  * @since 0.4.0
  */
 public final class UserMgmtService {
@@ -47,6 +49,14 @@ public final class UserMgmtService {
      * User repository.
      */
     private UserRepository userRepository = UserRepositoryImpl.getInstance();
+    /**
+     * User utilities.
+     */
+    private Users userUtils = Users.getInstance();
+    /**
+     * Feed utilities.
+     */
+    private Feeds feeds = Feeds.getInstance();
     /**
      * Language service.
      */
@@ -96,6 +106,9 @@ public final class UserMgmtService {
 
             userRepository.update(oldUserId, oldUser);
             transaction.commit();
+
+            userUtils.invalidate();
+            feeds.invalidate(); // Author names in feed entries
         } catch (final RepositoryException e) {
             if (transaction.isActive()) {
                 transaction.rollback();
@@ -152,6 +165,8 @@ public final class UserMgmtService {
 
             transaction.commit();
 
+            userUtils.invalidate();
+
             return user.optString(Keys.OBJECT_ID);
         } catch (final RepositoryException e) {
             if (transaction.isActive()) {
@@ -176,6 +191,8 @@ public final class UserMgmtService {
             userRepository.remove(userId);
 
             transaction.commit();
+
+            userUtils.invalidate();
         } catch (final RepositoryException e) {
             if (transaction.isActive()) {
                 transaction.rollback();
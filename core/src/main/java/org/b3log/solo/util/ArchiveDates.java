@@ -0,0 +1,485 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.b3log.latke.Keys;
+import org.b3log.latke.cache.Cache;
+import org.b3log.latke.repository.RepositoryException;
+import org.b3log.latke.util.CollectionUtils;
+import org.b3log.latke.util.Ids;
+import org.b3log.latke.util.Stopwatchs;
+import org.b3log.solo.model.ArchiveDate;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.repository.ArchiveDateArticleRepository;
+import org.b3log.solo.repository.ArticleRepository;
+import org.b3log.solo.repository.impl.ArchiveDateArticleRepositoryImpl;
+import org.b3log.solo.repository.impl.ArchiveDateRepositoryImpl;
+import org.b3log.solo.repository.impl.ArticleRepositoryImpl;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Archive date utilities.
+ *
+ * <p>
+ * Holds an in-memory index of archive months: the archive dates which have published articles, sorted by archive
+ * time descending, each with a posting list ({@link ArchiveDate#ARCHIVE_DATE_PUBLISHED_ARTICLE_POSTINGS}) of its
+ * published articles sorted by create date descending. The posting lists are persisted on the archive dates and
+ * maintained together with the published article counts, so the whole index is loaded by one query. A posting list
+ * which is missing or out of sync with the count is rebuilt from the archive date-article relations in memory while
+ * loading, the upgrade persists the rebuilt ones.
+ * </p>
+ *
+ * <p>
+ * The index is reloaded after {@link #invalidate()}, the invalidation is shared across instances by a generation
+ * stamp in the archive date repository cache.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.1, May 24, 2012
+ * @since 0.4.5
+ */
+public final class ArchiveDates {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ArchiveDates.class.getName());
+    /**
+     * Cache key of index generation.
+     */
+    private static final String GENERATION_CACHE_KEY = "archiveDateIndexGeneration";
+    /**
+     * Archive date repository.
+     */
+    private ArchiveDateRepositoryImpl archiveDateRepository = ArchiveDateRepositoryImpl.getInstance();
+    /**
+     * Archive date-Article repository.
+     */
+    private ArchiveDateArticleRepository archiveDateArticleRepository = ArchiveDateArticleRepositoryImpl.getInstance();
+    /**
+     * Article repository.
+     */
+    private ArticleRepository articleRepository = ArticleRepositoryImpl.getInstance();
+    /**
+     * Index, {@code null} if not loaded or invalidated.
+     */
+    private volatile Index index;
+
+    /**
+     * Gets archive dates which have published articles.
+     *
+     * @return a list of archive dates (copies, without posting lists), sorted by archive time descending, returns an
+     * empty list if not found
+     * @throws RepositoryException repository exception
+     */
+    public List<JSONObject> getArchiveDates() throws RepositoryException {
+        final List<JSONObject> archiveDates = getIndex().getArchiveDates();
+        final List<JSONObject> ret = new ArrayList<JSONObject>(archiveDates.size());
+
+        for (final JSONObject archiveDate : archiveDates) {
+            ret.add(copy(archiveDate));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets an archive date which has published articles by the specified archive date string.
+     *
+     * @param archiveDateString the specified archive date string (yyyy/MM)
+     * @return archive date (a copy, without posting list), returns {@code null} if not found
+     * @throws RepositoryException repository exception
+     */
+    public JSONObject getByArchiveDateString(final String archiveDateString) throws RepositoryException {
+        final JSONObject archiveDate = getIndex().getByArchiveDateString(archiveDateString);
+        if (null == archiveDate) {
+            return null;
+        }
+
+        return copy(archiveDate);
+    }
+
+    /**
+     * Gets the published article posting list of an archive date specified by the given archive date id.
+     *
+     * @param archiveDateId the given archive date id
+     * @return posting list, returns {@link PostingList#EMPTY} if not found
+     * @throws RepositoryException repository exception
+     */
+    public PostingList getPublishedArticlePostings(final String archiveDateId) throws RepositoryException {
+        final PostingList ret = getIndex().getPostings(archiveDateId);
+        if (null == ret) {
+            return PostingList.EMPTY;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Adds the specified published article into the posting list of the specified archive date.
+     *
+     * <p>
+     * Only modifies the specified archive date object, the caller is responsible for the archive date update and the
+     * {@linkplain #invalidate() invalidation} after the update committed.
+     * </p>
+     *
+     * @param archiveDate the specified archive date
+     * @param article the specified article, MUST contain its create date
+     * @throws JSONException json exception
+     */
+    public void addPublishedArticle(final JSONObject archiveDate, final JSONObject article) throws JSONException {
+        final Date createDate = (Date) article.get(Article.ARTICLE_CREATE_DATE);
+        final PostingList postings = decodeQuietly(archiveDate).add(article.getString(Keys.OBJECT_ID), createDate.getTime());
+
+        archiveDate.put(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_POSTINGS, postings.encode());
+    }
+
+    /**
+     * Removes the specified article from the posting list of the specified archive date.
+     *
+     * <p>
+     * Only modifies the specified archive date object, the caller is responsible for the archive date update and the
+     * {@linkplain #invalidate() invalidation} after the update committed.
+     * </p>
+     *
+     * @param archiveDate the specified archive date
+     * @param articleId the specified article id
+     * @throws JSONException json exception
+     */
+    public void removePublishedArticle(final JSONObject archiveDate, final String articleId) throws JSONException {
+        final PostingList postings = decodeQuietly(archiveDate).remove(articleId);
+
+        archiveDate.put(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_POSTINGS, postings.encode());
+    }
+
+    /**
+     * Invalidates the index of all instances, the index will be reloaded at the next access.
+     */
+    public void invalidate() {
+        index = null;
+
+        final Cache<String, Serializable> cache = getCache();
+        if (null != cache) {
+            cache.put(GENERATION_CACHE_KEY, Ids.genTimeMillisId());
+        }
+    }
+
+    /**
+     * Gets the index, loads it if it is not loaded or invalidated.
+     *
+     * @return index
+     * @throws RepositoryException repository exception
+     */
+    private Index getIndex() throws RepositoryException {
+        final Object generation = getGeneration();
+        final Index ret = index;
+        if (null != ret && ret.isGeneration(generation)) {
+            return ret;
+        }
+
+        return load(generation);
+    }
+
+    /**
+     * Loads the index of the specified generation.
+     *
+     * @param generation the specified generation, {@code null} if the archive date repository cache is disabled
+     * @return index
+     * @throws RepositoryException repository exception
+     */
+    private synchronized Index load(final Object generation) throws RepositoryException {
+        if (null != index && index.isGeneration(generation)) { // Loaded by another thread
+            return index;
+        }
+
+        Stopwatchs.start("Load Archive Date Index");
+
+        try {
+            final List<JSONObject> archiveDates = archiveDateRepository.getArchiveDates();
+            final Map<String, JSONObject> archiveDatesByString = new HashMap<String, JSONObject>();
+            final Map<String, PostingList> postingsById = new HashMap<String, PostingList>();
+
+            for (final JSONObject archiveDate : archiveDates) {
+                final String archiveDateId = archiveDate.getString(Keys.OBJECT_ID);
+                final int publishedArticleCnt = archiveDate.optInt(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_COUNT);
+
+                PostingList postings = null;
+                if (archiveDate.has(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_POSTINGS)) {
+                    postings = decodeQuietly(archiveDate);
+                }
+                if (null == postings || postings.size() != publishedArticleCnt) {
+                    postings = rebuildPublishedArticlePostings(archiveDate);
+                    LOGGER.log(Level.WARNING, "Rebuilt posting list of archive date[id={0}, size={1}] in memory",
+                               new Object[]{archiveDateId, postings.size()});
+                }
+
+                archiveDatesByString.put(ArchiveDate.DATE_FORMAT.format(archiveDate.getLong(ArchiveDate.ARCHIVE_TIME)),
+                                         archiveDate);
+                postingsById.put(archiveDateId, postings);
+            }
+
+            index = new Index(generation, archiveDates, archiveDatesByString, postingsById);
+
+            LOGGER.log(Level.FINER, "Loaded archive date index[size={0}]", archiveDates.size());
+
+            return index;
+        } catch (final JSONException e) {
+            LOGGER.log(Level.SEVERE, "Loads archive date index failed", e);
+            throw new RepositoryException(e);
+        } finally {
+            Stopwatchs.end();
+        }
+    }
+
+    /**
+     * Rebuilds the published article posting list and published article count of the specified archive date from the
+     * archive date-article relations.
+     *
+     * <p>
+     * Only modifies the specified archive date object, the caller is responsible for the archive date update (the
+     * index keeps the rebuilt posting list in memory only).
+     * </p>
+     *
+     * @param archiveDate the specified archive date
+     * @return posting list
+     * @throws JSONException json exception
+     * @throws RepositoryException repository exception
+     */
+    public PostingList rebuildPublishedArticlePostings(final JSONObject archiveDate)
+            throws JSONException, RepositoryException {
+        final String archiveDateId = archiveDate.getString(Keys.OBJECT_ID);
+
+        final JSONObject result = archiveDateArticleRepository.getByArchiveDateId(archiveDateId, 1, Integer.MAX_VALUE);
+        final JSONArray relations = result.getJSONArray(Keys.RESULTS);
+        final List<String> articleIds = new ArrayList<String>();
+        for (int i = 0; i < relations.length(); i++) {
+            articleIds.add(relations.getJSONObject(i).getString(Article.ARTICLE + "_" + Keys.OBJECT_ID));
+        }
+
+        final List<String> ids = new ArrayList<String>();
+        final List<Long> times = new ArrayList<Long>();
+        for (final JSONObject article : articleRepository.getByIds(articleIds)) {
+            if (!article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
+                continue;
+            }
+
+            ids.add(article.getString(Keys.OBJECT_ID));
+            times.add(((Date) article.get(Article.ARTICLE_CREATE_DATE)).getTime());
+        }
+
+        final PostingList ret = PostingList.build(ids, times);
+
+        archiveDate.put(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_POSTINGS, ret.encode());
+        archiveDate.put(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_COUNT, ret.size());
+
+        return ret;
+    }
+
+    /**
+     * Decodes the posting list of the specified archive date, a malformed posting list is treated as empty (will be
+     * rebuilt by the next load because of the size mismatch).
+     *
+     * @param archiveDate the specified archive date
+     * @return posting list
+     */
+    private static PostingList decodeQuietly(final JSONObject archiveDate) {
+        try {
+            return PostingList.decode(archiveDate.optString(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_POSTINGS));
+        } catch (final IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Malformed posting list of archive date[id={0}]", archiveDate.optString(Keys.OBJECT_ID));
+
+            return PostingList.EMPTY;
+        }
+    }
+
+    /**
+     * Copies the specified archive date without its posting list.
+     *
+     * @param archiveDate the specified archive date
+     * @return copy
+     * @throws RepositoryException repository exception
+     */
+    private static JSONObject copy(final JSONObject archiveDate) throws RepositoryException {
+        try {
+            final JSONObject ret = new JSONObject(archiveDate, CollectionUtils.jsonArrayToArray(archiveDate.names(), String[].class));
+            ret.remove(ArchiveDate.ARCHIVE_DATE_PUBLISHED_ARTICLE_POSTINGS);
+
+            return ret;
+        } catch (final JSONException e) {
+            throw new RepositoryException(e);
+        }
+    }
+
+    /**
+     * Gets the current generation of the index.
+     *
+     * @return generation, returns {@code null} if the archive date repository cache is disabled
+     */
+    private Object getGeneration() {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return null;
+        }
+
+        Object ret = cache.get(GENERATION_CACHE_KEY);
+        if (null == ret) {
+            ret = Ids.genTimeMillisId();
+            cache.put(GENERATION_CACHE_KEY, (Serializable) ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the cache for the index generation.
+     *
+     * @return cache, returns {@code null} if the archive date repository cache is disabled
+     */
+    private Cache<String, Serializable> getCache() {
+        if (!archiveDateRepository.isCacheEnabled()) {
+            return null;
+        }
+
+        return archiveDateRepository.getCache();
+    }
+
+    /**
+     * Gets the {@link ArchiveDates} singleton.
+     *
+     * @return the singleton
+     */
+    public static ArchiveDates getInstance() {
+        return SingletonHolder.SINGLETON;
+    }
+
+    /**
+     * Private default constructor.
+     */
+    private ArchiveDates() {
+    }
+
+    /**
+     * Archive date index, immutable.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class Index {
+
+        /**
+         * Generation, {@code null} if the archive date repository cache is disabled.
+         */
+        private final Object generation;
+        /**
+         * Archive dates, sorted by archive time descending.
+         */
+        private final List<JSONObject> archiveDates;
+        /**
+         * Archive dates, &lt;archiveDateString, archiveDate&gt;.
+         */
+        private final Map<String, JSONObject> archiveDatesByString;
+        /**
+         * Posting lists, &lt;archiveDateId, postingList&gt;.
+         */
+        private final Map<String, PostingList> postingsById;
+
+        /**
+         * Constructs an index with the specified generation, archive dates and posting lists.
+         *
+         * @param generation the specified generation
+         * @param archiveDates the specified archive dates
+         * @param archiveDatesByString the specified archive dates by archive date string
+         * @param postingsById the specified posting lists by archive date id
+         */
+        private Index(final Object generation, final List<JSONObject> archiveDates,
+                      final Map<String, JSONObject> archiveDatesByString, final Map<String, PostingList> postingsById) {
+            this.generation = generation;
+            this.archiveDates = Collections.unmodifiableList(archiveDates);
+            this.archiveDatesByString = archiveDatesByString;
+            this.postingsById = postingsById;
+        }
+
+        /**
+         * Determines whether this index is of the specified generation.
+         *
+         * @param generation the specified generation
+         * @return {@code true} if it is, {@code false} otherwise
+         */
+        private boolean isGeneration(final Object generation) {
+            return null == generation ? null == this.generation : generation.equals(this.generation);
+        }
+
+        /**
+         * Gets archive dates.
+         *
+         * @return archive dates
+         */
+        private List<JSONObject> getArchiveDates() {
+            return archiveDates;
+        }
+
+        /**
+         * Gets an archive date by the specified archive date string.
+         *
+         * @param archiveDateString the specified archive date string
+         * @return archive date, returns {@code null} if not found
+         */
+        private JSONObject getByArchiveDateString(final String archiveDateString) {
+            return archiveDatesByString.get(archiveDateString);
+        }
+
+        /**
+         * Gets the posting list of an archive date specified by the given archive date id.
+         *
+         * @param archiveDateId the given archive date id
+         * @return posting list, returns {@code null} if not found
+         */
+        private PostingList getPostings(final String archiveDateId) {
+            return postingsById.get(archiveDateId);
+        }
+    }
+
+    /**
+     * Singleton holder.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class SingletonHolder {
+
+        /**
+         * Singleton.
+         */
+        private static final ArchiveDates SINGLETON = new ArchiveDates();
+
+        /**
+         * Private default constructor.
+         */
+        private SingletonHolder() {
+        }
+    }
+}
@@ -37,11 +37,9 @@ import org.b3log.latke.user.UserServiceFactory;
 import org.b3log.latke.util.CollectionUtils;
 import org.b3log.latke.util.Strings;
 import org.b3log.solo.model.Common;
-import org.b3log.solo.model.Preference;
+import org.b3log.solo.model.PreferenceSnapshot;
 import org.b3log.solo.repository.ArticleRepository;
-import org.b3log.solo.repository.UserRepository;
 import org.b3log.solo.repository.impl.ArticleRepositoryImpl;
-import org.b3log.solo.repository.impl.UserRepositoryImpl;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -50,7 +48,7 @@ import org.json.JSONObject;
  * Article utilities.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.2.8, May 6, 2012
+ * @version 1.0.3.0, May 24, 2012
  * @since 0.3.1
  */
 public final class Articles {
@@ -63,10 +61,6 @@ public final class Articles {
      * Article repository.
      */
     private ArticleRepository articleRepository = ArticleRepositoryImpl.getInstance();
-    /**
-     * User repository.
-     */
-    private UserRepository userRepository = UserRepositoryImpl.getInstance();
     /**
      * User service.
      */
@@ -153,28 +147,21 @@ public final class Articles {
      * @throws ServiceException service exception
      */
     public JSONObject getAuthor(final JSONObject article) throws ServiceException {
-        try {
-            final String email = article.getString(Article.ARTICLE_AUTHOR_EMAIL);
-
-            JSONObject ret = userRepository.getByEmail(email);
-
-            if (null == ret) {
-                LOGGER.log(Level.WARNING,
-                           "Gets author of article failed, assumes the administrator is the author of this article[id={0}]",
-                           article.getString(Keys.OBJECT_ID));
-                // This author may be deleted by admin, use admin as the author
-                // of this article
-                ret = userRepository.getAdmin();
-            }
-
-            return ret;
-        } catch (final RepositoryException e) {
-            LOGGER.log(Level.SEVERE, "Gets author of article[id={0}] failed", article.optString(Keys.OBJECT_ID));
-            throw new ServiceException(e);
-        } catch (final JSONException e) {
-            LOGGER.log(Level.SEVERE, "Gets author of article[id={0}] failed", article.optString(Keys.OBJECT_ID));
-            throw new ServiceException(e);
+        final Users userUtils = Users.getInstance();
+
+        final String email = article.optString(Article.ARTICLE_AUTHOR_EMAIL);
+        JSONObject ret = userUtils.getUserByEmail(email);
+
+        if (null == ret) {
+            LOGGER.log(Level.WARNING,
+                       "Gets author of article failed, assumes the administrator is the author of this article[id={0}]",
+                       article.optString(Keys.OBJECT_ID));
+            // This author may be deleted by admin, use admin as the author
+            // of this article
+            ret = userUtils.getAdmin();
         }
+
+        return ret;
     }
 
     /**
@@ -197,32 +184,15 @@ public final class Articles {
      * Gets the sign of an article specified by the sign id.
      *
      * @param signId the specified article id
-     * @param preference the specified preference
+     * @param preference the specified preference snapshot
      * @return article sign, returns the default sign (which oId is "1") if not found
-     * @throws RepositoryException repository exception
-     * @throws JSONException json exception
      */
-    public JSONObject getSign(final String signId, final JSONObject preference) throws JSONException, RepositoryException {
-        final JSONArray signs = new JSONArray(preference.getString(Preference.SIGNS));
-
-        JSONObject defaultSign = null;
-        for (int i = 0; i < signs.length(); i++) {
-            final JSONObject ret = signs.getJSONObject(i);
-            if (signId.equals(ret.optString(Keys.OBJECT_ID))) {
-                return ret;
-            }
-
-            if ("1".equals(ret.optString(Keys.OBJECT_ID))) {
-                defaultSign = ret;
-            }
-        }
-
-        LOGGER.log(Level.WARNING, "Can not find the sign[id={0}], returns a default sign[id=1]", signId);
-        if (null == defaultSign) {
-            throw new IllegalStateException("Can not find the default sign which id equals to 1");
+    public JSONObject getSign(final String signId, final PreferenceSnapshot preference) {
+        if (!preference.hasSign(signId)) {
+            LOGGER.log(Level.WARNING, "Can not find the sign[id={0}], returns a default sign[id=1]", signId);
         }
 
-        return defaultSign;
+        return preference.getSign(signId);
     }
 
     /**
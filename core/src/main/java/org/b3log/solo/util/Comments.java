@@ -19,6 +19,8 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.mail.MailService;
 import org.b3log.latke.mail.MailService.Message;
@@ -39,7 +41,7 @@ import org.json.JSONObject;
  * Comment utilities.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.9, Mar 28, 2012
+ * @version 1.0.2.1, May 24, 2012
  * @since 0.3.1
  */
 public final class Comments {
@@ -84,6 +86,23 @@ public final class Comments {
      * Maximum length of comment content.
      */
     private static final int MAX_COMMENT_CONTENT_LENGTH = 500;
+    /**
+     * Maximum depth of the reply tree, a deeper reply is placed as a sibling of the comment it replies to.
+     *
+     * <p>
+     * A path of the deepest comment has {@value} ids of 13 digits, 419 characters, which keeps under the
+     * {@link #MAX_COMMENT_PATH_LENGTH limit} of an indexed string.
+     * </p>
+     */
+    public static final int MAX_COMMENT_DEPTH = 30;
+    /**
+     * Maximum length of an indexed string on GAE, the limit of comment path.
+     */
+    public static final int MAX_COMMENT_PATH_LENGTH = 500;
+    /**
+     * Separator of comment path.
+     */
+    public static final char PATH_SEPARATOR = '/';
     /**
      * Comment mail HTML body.
      */
@@ -223,6 +242,65 @@ public final class Comments {
         }
     }
 
+    /**
+     * Escapes the content, name and URL of the specified comment for HTML, puts the results into the comment as
+     * {@link Comment#COMMENT_CONTENT_HTML}, {@link Comment#COMMENT_NAME_HTML} and {@link Comment#COMMENT_URL_HTML}.
+     *
+     * <p>
+     * Invoked once while adding a comment, so showing comments does not escape them again. The content has been
+     * escaped while adding, only its line breaks are converted here.
+     * </p>
+     *
+     * @param comment the specified comment
+     */
+    public static void escape(final JSONObject comment) {
+        comment.put(Comment.COMMENT_CONTENT_HTML,
+                    comment.optString(Comment.COMMENT_CONTENT).replace(SoloServletListener.ENTER_ESC, "<br/>"));
+        comment.put(Comment.COMMENT_NAME_HTML, StringEscapeUtils.escapeHtml(comment.optString(Comment.COMMENT_NAME)));
+        comment.put(Comment.COMMENT_URL_HTML, StringEscapeUtils.escapeHtml(comment.optString(Comment.COMMENT_URL)));
+    }
+
+    /**
+     * Places the specified comment into the reply tree as a reply of the specified parent.
+     *
+     * <p>
+     * The path of a comment is the path of its parent followed by its id, comment ids have the same length, so
+     * sorting comments of a thread by path gives the depth-first order with replies in the order they were added.
+     * </p>
+     *
+     * @param comment the specified comment, its id has been generated
+     * @param parent the specified parent, {@code null} if the specified comment is not a reply
+     */
+    public static void setThread(final JSONObject comment, final JSONObject parent) {
+        final String id = comment.optString(Keys.OBJECT_ID);
+        if (null == parent) {
+            setPath(comment, id);
+            return;
+        }
+
+        // Comments added by previous versions are roots
+        String parentPath = parent.optString(Comment.COMMENT_PATH, parent.optString(Keys.OBJECT_ID));
+        if (parent.optInt(Comment.COMMENT_DEPTH) >= MAX_COMMENT_DEPTH - 1) {
+            parentPath = parentPath.substring(0, parentPath.lastIndexOf(PATH_SEPARATOR));
+        }
+
+        setPath(comment, parentPath + PATH_SEPARATOR + id);
+    }
+
+    /**
+     * Sets the specified path of the specified comment, and the thread id and depth derived from the path.
+     *
+     * @param comment the specified comment
+     * @param path the specified path
+     */
+    public static void setPath(final JSONObject comment, final String path) {
+        final int firstSeparator = path.indexOf(PATH_SEPARATOR);
+
+        comment.put(Comment.COMMENT_PATH, path);
+        comment.put(Comment.COMMENT_THREAD_ID, -1 == firstSeparator ? path : path.substring(0, firstSeparator));
+        comment.put(Comment.COMMENT_DEPTH, StringUtils.countMatches(path, String.valueOf(PATH_SEPARATOR)));
+    }
+
     /**
      * Sends a notification mail to administrator for notifying the specified
      * article or page received the specified comment and original comment.
@@ -242,8 +320,10 @@ public final class Comments {
             throws IOException, JSONException {
         final String commentEmail = comment.getString(Comment.COMMENT_EMAIL);
         final String commentId = comment.getString(Keys.OBJECT_ID);
-        final String commentContent = comment.getString(Comment.COMMENT_CONTENT).
-                replaceAll(SoloServletListener.ENTER_ESC, "<br/>");
+        if (!comment.has(Comment.COMMENT_CONTENT_HTML)) {
+            escape(comment);
+        }
+        final String commentContent = comment.getString(Comment.COMMENT_CONTENT_HTML);
 
         final String adminEmail = preference.getString(Preference.ADMIN_EMAIL);
         if (adminEmail.equalsIgnoreCase(commentEmail)) {
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.b3log.latke.Keys;
+import org.b3log.latke.cache.Cache;
+import org.b3log.latke.util.Ids;
+import org.b3log.latke.util.Strings;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.repository.impl.ArticleRepositoryImpl;
+import org.json.JSONObject;
+
+/**
+ * Keyset (cursor) pagination utilities.
+ *
+ * <p>
+ * A cursor identifies the last article of a page by its sort key, the next page is fetched by a range filter on that
+ * key instead of skipping the leading rows, so a deep page costs the same as the first one. Article listings (index,
+ * author) are sorted by (put top, date, id) descending, the cursor is {@code "putTop_time_oId"}. Tag and archive
+ * listings are slices of posting lists, their cursor is just the id of the last article, see {@link PostingList}.
+ * </p>
+ *
+ * <p>
+ * Page URLs stay the same, the links to the next page of the index and author listings carry the end cursor of the
+ * served page as the "cursor" parameter, so paging forward is always served by keyset, even right after an article
+ * change. A page requested without a cursor (a numbered link further than the next page, a bookmark) starts from the
+ * end of the previous page if it is remembered (in the article repository cache, shared across instances), or is
+ * fetched by offset once and then remembers its own end. All remembered boundaries are dropped by
+ * {@link #invalidatePageBoundaries()} on article changes, the cursors in the links stay valid as they are the sort keys
+ * of articles.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.3, May 24, 2012
+ * @since 0.4.5
+ */
+public final class Cursors {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Cursors.class.getName());
+    /**
+     * Cursor parts separator.
+     */
+    private static final String SEPARATOR = "_";
+    /**
+     * Cache key of page boundaries generation.
+     */
+    private static final String BOUNDARY_GENERATION_CACHE_KEY = "pageBoundaryGeneration";
+    /**
+     * Cache key prefix of page boundaries.
+     */
+    private static final String BOUNDARY_CACHE_KEY_PREFIX = "pageBoundary_";
+
+    /**
+     * Gets the cursor of the specified article in a listing sorted by the specified date property.
+     *
+     * @param article the specified article
+     * @param dateProperty the specified date property, for example, "articleCreateDate"
+     * @return cursor, for example, "0_1337760000000_1337760000123"
+     */
+    public static String toArticleCursor(final JSONObject article, final String dateProperty) {
+        final Date date = (Date) article.opt(dateProperty);
+
+        return (article.optBoolean(Article.ARTICLE_PUT_TOP) ? "1" : "0") + SEPARATOR + date.getTime()
+               + SEPARATOR + article.optString(Keys.OBJECT_ID);
+    }
+
+    /**
+     * Parses the specified article listing cursor.
+     *
+     * @param cursor the specified cursor, see {@link #toArticleCursor(org.json.JSONObject, java.lang.String)}
+     * @param dateProperty the specified date property
+     * @return for example,
+     * <pre>
+     * {
+     *     "articlePutTop": boolean,
+     *     "articleCreateDate": java.util.Date, // the specified date property
+     *     "oId": ""
+     * }
+     * </pre>, returns {@code null} if the specified cursor is empty or malformed
+     */
+    public static JSONObject parseArticleCursor(final String cursor, final String dateProperty) {
+        if (Strings.isEmptyOrNull(cursor)) {
+            return null;
+        }
+
+        final String[] parts = cursor.split(SEPARATOR, 3);
+        if (3 != parts.length || Strings.isEmptyOrNull(parts[2])) {
+            LOGGER.log(Level.WARNING, "Malformed cursor[{0}]", cursor);
+            return null;
+        }
+
+        try {
+            final JSONObject ret = new JSONObject();
+
+            ret.put(Article.ARTICLE_PUT_TOP, "1".equals(parts[0]));
+            ret.put(dateProperty, new Date(Long.parseLong(parts[1])));
+            ret.put(Keys.OBJECT_ID, parts[2]);
+
+            return ret;
+        } catch (final Exception e) {
+            LOGGER.log(Level.WARNING, "Malformed cursor[{0}]", cursor);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the start cursor (the end cursor of the previous page) of the specified page of the specified listing.
+     *
+     * @param listingKey the specified listing key, identifies the listing, its sort and page size
+     * @param pageNum the specified page number
+     * @return start cursor, returns {@code null} if the specified page is the first page or its start is unknown
+     */
+    public static String getPageStartCursor(final String listingKey, final int pageNum) {
+        if (1 >= pageNum) {
+            return null;
+        }
+
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return null;
+        }
+
+        final Object generation = cache.get(BOUNDARY_GENERATION_CACHE_KEY);
+        if (null == generation) {
+            return null;
+        }
+
+        return (String) cache.get(BOUNDARY_CACHE_KEY_PREFIX + generation + SEPARATOR + listingKey + SEPARATOR + (pageNum - 1));
+    }
+
+    /**
+     * Remembers the specified end cursor of the specified page of the specified listing.
+     *
+     * @param listingKey the specified listing key
+     * @param pageNum the specified page number
+     * @param cursor the specified end cursor
+     */
+    public static void putPageEndCursor(final String listingKey, final int pageNum, final String cursor) {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return;
+        }
+
+        Object generation = cache.get(BOUNDARY_GENERATION_CACHE_KEY);
+        if (null == generation) {
+            generation = Ids.genTimeMillisId();
+            cache.put(BOUNDARY_GENERATION_CACHE_KEY, (Serializable) generation);
+        }
+
+        cache.putAsync(BOUNDARY_CACHE_KEY_PREFIX + generation + SEPARATOR + listingKey + SEPARATOR + pageNum, cursor);
+    }
+
+    /**
+     * Invalidates all remembered page boundaries.
+     *
+     * <p>
+     * Invoked after any article change which may move articles across pages (add, update, remove, publish, put top).
+     * </p>
+     */
+    public static void invalidatePageBoundaries() {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return;
+        }
+
+        cache.put(BOUNDARY_GENERATION_CACHE_KEY, Ids.genTimeMillisId());
+    }
+
+    /**
+     * Gets the cache for page boundaries.
+     *
+     * @return cache, returns {@code null} if the article repository cache is disabled
+     */
+    private static Cache<String, Serializable> getCache() {
+        final ArticleRepositoryImpl articleRepository = ArticleRepositoryImpl.getInstance();
+        if (!articleRepository.isCacheEnabled()) {
+            return null;
+        }
+
+        return articleRepository.getCache();
+    }
+
+    /**
+     * Private default constructor.
+     */
+    private Cursors() {
+    }
+}
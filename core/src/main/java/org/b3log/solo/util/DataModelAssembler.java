@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.b3log.latke.Latkes;
+import org.b3log.latke.RuntimeEnv;
+import org.b3log.latke.repository.Repository;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.service.ServiceException;
+import org.b3log.latke.util.Stopwatchs;
+import org.b3log.latke.util.Strings;
+import org.b3log.solo.repository.impl.ArticleRepositoryImpl;
+
+/**
+ * Data model assembler, runs independent data model loaders concurrently.
+ *
+ * <p>
+ * Each {@link Loader loader} fills its own part of the data model, the parts are merged into the data model in the
+ * order the loaders were {@link #add(java.lang.String, org.b3log.solo.util.DataModelAssembler.Loader) added}, so the
+ * result is the same as running the loaders one after another, whatever order they finish in.
+ * </p>
+ *
+ * <p>
+ * The loaders run on a bounded shared pool in the {@link RuntimeEnv#LOCAL local} runtime. On the other runtimes
+ * (GAE), where a request can not start threads, they run one after another in the calling thread. A loader which can
+ * not be queued, or has not finished before {@link #DEADLINE the deadline}, runs in the calling thread as well.
+ * </p>
+ *
+ * <p>
+ * The Latke transaction and cache contexts are per thread, a loader only reads the repositories and MUST NOT begin a
+ * transaction. After each loader finished on the pool, the repository state it may have left on the pool thread (a
+ * transaction begun and its connection) is released, so the next loader on the thread starts clean.
+ * </p>
+ *
+ * <p>
+ * Each loader is timed by a {@link Stopwatchs stopwatch} named by its name. Stopwatches are per thread, a loader running
+ * on the pool is timed on its own stopwatch, which is logged and released after it finished; the calling thread times
+ * the whole assembly.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.1, May 24, 2012
+ * @since 0.4.5
+ */
+public final class DataModelAssembler {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(DataModelAssembler.class.getName());
+    /**
+     * Default deadline of an assembly in milliseconds.
+     */
+    public static final long DEADLINE = 5000;
+    /**
+     * Thread count of the pool.
+     */
+    private static final int POOL_SIZE = 8;
+    /**
+     * Max count of loaders waiting in the pool.
+     */
+    private static final int QUEUE_SIZE = 64;
+    /**
+     * Pool, {@code null} if not created yet or shut down.
+     */
+    private static ExecutorService pool;
+    /**
+     * Executor of this assembler, {@code null} for running the loaders in the calling thread.
+     */
+    private final ExecutorService executor;
+    /**
+     * Deadline of an assembly of this assembler in milliseconds.
+     */
+    private final long deadline;
+    /**
+     * Repository for releasing the repository state left on the pool threads, the transaction context is shared by
+     * all repositories of a thread, {@code null} for not releasing.
+     */
+    private final Repository repository;
+    /**
+     * Names of the added loaders.
+     */
+    private final List<String> names = new ArrayList<String>();
+    /**
+     * Added loaders.
+     */
+    private final List<Loader> loaders = new ArrayList<Loader>();
+
+    /**
+     * Constructs a data model assembler for the current runtime.
+     */
+    public DataModelAssembler() {
+        this(RuntimeEnv.LOCAL == Latkes.getRuntimeEnv() ? getPool() : null, DEADLINE, ArticleRepositoryImpl.getInstance());
+    }
+
+    /**
+     * Constructs a data model assembler with the specified executor and deadline, does not release the repository
+     * state of the executor threads.
+     *
+     * @param executor the specified executor, {@code null} for running the loaders in the calling thread
+     * @param deadline the specified deadline of an assembly in milliseconds
+     */
+    DataModelAssembler(final ExecutorService executor, final long deadline) {
+        this(executor, deadline, null);
+    }
+
+    /**
+     * Constructs a data model assembler with the specified executor, deadline and repository.
+     *
+     * @param executor the specified executor, {@code null} for running the loaders in the calling thread
+     * @param deadline the specified deadline of an assembly in milliseconds
+     * @param repository the specified repository for releasing the repository state of the executor threads,
+     * {@code null} for not releasing
+     */
+    private DataModelAssembler(final ExecutorService executor, final long deadline, final Repository repository) {
+        this.executor = executor;
+        this.deadline = deadline;
+        this.repository = repository;
+    }
+
+    /**
+     * Adds the specified loader with the specified name.
+     *
+     * @param name the specified name, used for timing
+     * @param loader the specified loader
+     * @return this assembler
+     */
+    public DataModelAssembler add(final String name, final Loader loader) {
+        names.add(name);
+        loaders.add(loader);
+
+        return this;
+    }
+
+    /**
+     * Runs the added loaders and merges their parts into the specified data model.
+     *
+     * <p>
+     * The specified data model is not changed if any loader fails.
+     * </p>
+     *
+     * @param dataModel the specified data model
+     * @throws ServiceException if any loader failed
+     */
+    public void assemble(final Map<String, Object> dataModel) throws ServiceException {
+        Stopwatchs.start("Assemble Data Model");
+
+        try {
+            final List<Map<String, Object>> parts = null == executor ? loadAll() : loadAllConcurrently();
+
+            for (final Map<String, Object> part : parts) {
+                dataModel.putAll(part);
+            }
+        } finally {
+            Stopwatchs.end();
+        }
+    }
+
+    /**
+     * Runs the added loaders one after another in the calling thread.
+     *
+     * @return parts filled by the loaders, in the order of the loaders
+     * @throws ServiceException if any loader failed
+     */
+    private List<Map<String, Object>> loadAll() throws ServiceException {
+        final List<Map<String, Object>> ret = new ArrayList<Map<String, Object>>(loaders.size());
+
+        for (int i = 0; i < loaders.size(); i++) {
+            ret.add(load(i));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Runs the added loaders on the executor and waits for them till the deadline, runs the loaders which can not be
+     * queued or have not finished before the deadline in the calling thread.
+     *
+     * @return parts filled by the loaders, in the order of the loaders
+     * @throws ServiceException if any loader failed
+     */
+    private List<Map<String, Object>> loadAllConcurrently() throws ServiceException {
+        final long deadlineTime = System.currentTimeMillis() + deadline;
+        final List<Future<Map<String, Object>>> futures = new ArrayList<Future<Map<String, Object>>>(loaders.size());
+
+        try {
+            for (int i = 0; i < loaders.size(); i++) {
+                final int loaderIndex = i;
+
+                try {
+                    futures.add(executor.submit(new Callable<Map<String, Object>>() {
+
+                        @Override
+                        public Map<String, Object> call() throws Exception {
+                            try {
+                                return load(loaderIndex);
+                            } finally {
+                                release();
+                            }
+                        }
+                    }));
+                } catch (final RejectedExecutionException e) {
+                    LOGGER.log(Level.FINER, "The pool is full, loads [{0}] in the calling thread", names.get(loaderIndex));
+                    futures.add(null);
+                }
+            }
+
+            final List<Map<String, Object>> ret = new ArrayList<Map<String, Object>>(loaders.size());
+
+            for (int i = 0; i < loaders.size(); i++) {
+                final Future<Map<String, Object>> future = futures.get(i);
+
+                if (null != future) {
+                    try {
+                        // Zero timeout after the deadline, takes the finished ones only
+                        ret.add(future.get(Math.max(deadlineTime - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS));
+
+                        continue;
+                    } catch (final TimeoutException e) {
+                        future.cancel(true);
+                        LOGGER.log(Level.WARNING, "Loader[{0}] missed the deadline[{1}ms], loads it in the calling thread",
+                                   new Object[]{names.get(i), deadline});
+                    }
+                }
+
+                ret.add(load(i));
+            }
+
+            return ret;
+        } catch (final InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+
+            throw new ServiceException(e);
+        } catch (final ExecutionException e) {
+            cancel(futures);
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof ServiceException) {
+                throw (ServiceException) cause;
+            }
+
+            throw new ServiceException(cause);
+        } catch (final ServiceException e) {
+            cancel(futures);
+
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the loader specified by the given index, timed by a stopwatch named by the loader's name.
+     *
+     * @param loaderIndex the given index
+     * @return part filled by the loader
+     * @throws ServiceException if the loader failed
+     */
+    private Map<String, Object> load(final int loaderIndex) throws ServiceException {
+        final Map<String, Object> ret = new HashMap<String, Object>();
+
+        Stopwatchs.start(names.get(loaderIndex));
+
+        try {
+            loaders.get(loaderIndex).load(ret);
+        } catch (final ServiceException e) {
+            throw e;
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, "Loads [" + names.get(loaderIndex) + "] failed", e);
+
+            throw new ServiceException(e);
+        } finally {
+            Stopwatchs.end();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Releases the per thread state of the current pool thread after a loader finished: logs and releases the
+     * stopwatch, rolls back a transaction left begun (which releases its connection).
+     */
+    private void release() {
+        LOGGER.log(Level.FINEST, "Stopwatch: {0}{1}", new Object[]{Strings.LINE_SEPARATOR, Stopwatchs.getTimingStat()});
+        Stopwatchs.release();
+
+        if (null == repository) {
+            return;
+        }
+
+        try {
+            if (repository.hasTransactionBegun()) {
+                LOGGER.log(Level.WARNING, "A loader left a transaction begun, rolls it back");
+
+                final Transaction transaction = repository.beginTransaction(); // Joins the begun one
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+            }
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, "Releases the repository state of the pool thread failed", e);
+        }
+    }
+
+    /**
+     * Cancels the specified futures.
+     *
+     * @param futures the specified futures, may contain {@code null}
+     */
+    private static void cancel(final List<Future<Map<String, Object>>> futures) {
+        for (final Future<Map<String, Object>> future : futures) {
+            if (null != future) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Gets the pool, creates it if not created yet.
+     *
+     * @return pool
+     */
+    private static synchronized ExecutorService getPool() {
+        if (null == pool) {
+            final AtomicInteger threadCount = new AtomicInteger();
+
+            pool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 0L, TimeUnit.MILLISECONDS,
+                                          new ArrayBlockingQueue<Runnable>(QUEUE_SIZE), new ThreadFactory() {
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread ret = new Thread(runnable, "DataModelAssembler-" + threadCount.incrementAndGet());
+                    ret.setDaemon(true);
+
+                    return ret;
+                }
+            });
+        }
+
+        return pool;
+    }
+
+    /**
+     * Shuts down the pool, waits the running loaders till the deadline.
+     */
+    public static synchronized void shutdown() {
+        if (null == pool) {
+            return;
+        }
+
+        pool.shutdown();
+
+        try {
+            pool.awaitTermination(DEADLINE, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        pool = null;
+    }
+
+    /**
+     * Data model loader.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     * @since 0.4.5
+     */
+    public interface Loader {
+
+        /**
+         * Fills the specified part of a data model.
+         *
+         * <p>
+         * The specified part is only filled by this loader, a loader should not share any other mutable state with
+         * the other loaders of the same assembly.
+         * </p>
+         *
+         * @param dataModel the specified part of a data model
+         * @throws Exception exception
+         */
+        void load(final Map<String, Object> dataModel) throws Exception;
+    }
+}
@@ -0,0 +1,521 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+import org.b3log.latke.Keys;
+import org.b3log.latke.cache.Cache;
+import org.b3log.latke.model.User;
+import org.b3log.latke.repository.FilterOperator;
+import org.b3log.latke.repository.Query;
+import org.b3log.latke.repository.SortDirection;
+import org.b3log.latke.service.ServiceException;
+import org.b3log.latke.util.CollectionUtils;
+import org.b3log.latke.util.Ids;
+import org.b3log.latke.util.Locales;
+import org.b3log.latke.util.Stopwatchs;
+import org.b3log.solo.SoloServletListener;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.model.Preference;
+import org.b3log.solo.model.Tag;
+import org.b3log.solo.model.feed.atom.Category;
+import org.b3log.solo.model.feed.atom.Entry;
+import org.b3log.solo.model.feed.atom.Feed;
+import org.b3log.solo.model.feed.rss.Channel;
+import org.b3log.solo.model.feed.rss.Item;
+import org.b3log.solo.repository.TagRepository;
+import org.b3log.solo.repository.impl.ArticleRepositoryImpl;
+import org.b3log.solo.repository.impl.TagRepositoryImpl;
+import org.b3log.solo.service.PreferenceQueryService;
+import org.json.JSONObject;
+
+/**
+ * Feed (Atom/RSS) utilities.
+ *
+ * <p>
+ * Feed documents of the blog and of each tag are cached as gzipped bytes in the article repository cache, stamped with
+ * the feed generation they were built in. {@link #invalidate()} (on article publishing, updating and removing, and on
+ * preference and user updating) starts a new generation and marks the blog feeds dirty. A feed of an old generation
+ * is still served, marked dirty, and rebuilt by {@link #refresh()} (a cron job) in the background, so a feed request
+ * only builds the document if it is not cached at all.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.1.0, May 24, 2012
+ * @since 0.4.5
+ */
+public final class Feeds {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Feeds.class.getName());
+    /**
+     * Atom feed type.
+     */
+    public static final String ATOM = "atom";
+    /**
+     * RSS feed type.
+     */
+    public static final String RSS = "rss";
+    /**
+     * Count of output entry.
+     */
+    public static final int ENTRY_OUTPUT_CNT = 10;
+    /**
+     * Cache key prefix of feeds.
+     */
+    private static final String CACHE_KEY_PREFIX = "feed_";
+    /**
+     * Cache key of the feed generation.
+     */
+    private static final String GENERATION_CACHE_KEY = "feedGeneration";
+    /**
+     * Cache key of the names of dirty feeds.
+     */
+    private static final String DIRTY_CACHE_KEY = "feedDirty";
+    /**
+     * Separator of feed type and tag id in a feed name.
+     */
+    private static final char SEPARATOR = '_';
+    /**
+     * Article repository.
+     */
+    private ArticleRepositoryImpl articleRepository = ArticleRepositoryImpl.getInstance();
+    /**
+     * Tag repository.
+     */
+    private TagRepository tagRepository = TagRepositoryImpl.getInstance();
+    /**
+     * Preference query service.
+     */
+    private PreferenceQueryService preferenceQueryService = PreferenceQueryService.getInstance();
+    /**
+     * Article utilities.
+     */
+    private Articles articleUtils = Articles.getInstance();
+    /**
+     * Tag utilities.
+     */
+    private Tags tagUtils = Tags.getInstance();
+
+    /**
+     * Gets the feed of the specified type and tag.
+     *
+     * @param type the specified type, {@value #ATOM} or {@value #RSS}
+     * @param tagId the specified tag id, {@code null} for the blog feed
+     * @return gzipped feed document, returns {@code null} if the specified tag not found or it has no published articles
+     * @throws ServiceException service exception
+     */
+    public byte[] getFeed(final String type, final String tagId) throws ServiceException {
+        final String name = null == tagId ? type : type + SEPARATOR + tagId;
+
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return build(type, tagId);
+        }
+
+        final String generation = getGeneration(cache);
+        final Object cached = cache.get(CACHE_KEY_PREFIX + name);
+        if (cached instanceof FeedContent) {
+            final FeedContent feedContent = (FeedContent) cached;
+            if (!generation.equals(feedContent.generation)) {
+                markDirty(cache, name);
+            }
+
+            return feedContent.content;
+        }
+
+        final byte[] ret = build(type, tagId);
+        if (null != ret) {
+            cache.put(CACHE_KEY_PREFIX + name, new FeedContent(generation, ret));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Starts a new feed generation and marks the blog feeds dirty.
+     */
+    public void invalidate() {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return;
+        }
+
+        cache.put(GENERATION_CACHE_KEY, Ids.genTimeMillisId());
+        markDirty(cache, ATOM);
+        markDirty(cache, RSS);
+    }
+
+    /**
+     * Rebuilds the dirty feeds.
+     */
+    public void refresh() {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return;
+        }
+
+        final Object dirty = cache.get(DIRTY_CACHE_KEY);
+        if (!(dirty instanceof Set)) {
+            return;
+        }
+
+        cache.put(DIRTY_CACHE_KEY, new HashSet<String>());
+
+        final String generation = getGeneration(cache);
+        for (final Object name : (Set<?>) dirty) {
+            final String nameString = name.toString();
+            final int separatorIndex = nameString.indexOf(SEPARATOR);
+            final String type = -1 == separatorIndex ? nameString : nameString.substring(0, separatorIndex);
+            final String tagId = -1 == separatorIndex ? null : nameString.substring(separatorIndex + 1);
+
+            try {
+                // A tag feed without published articles is cached with null content (not found)
+                cache.put(CACHE_KEY_PREFIX + nameString, new FeedContent(generation, build(type, tagId)));
+            } catch (final ServiceException e) {
+                LOGGER.log(Level.SEVERE, "Refreshes feed[name=" + nameString + "] failed", e);
+            }
+        }
+
+        LOGGER.log(Level.FINER, "Refreshed feeds[size={0}]", ((Set<?>) dirty).size());
+    }
+
+    /**
+     * Builds the feed of the specified type and tag.
+     *
+     * @param type the specified type, {@value #ATOM} or {@value #RSS}
+     * @param tagId the specified tag id, {@code null} for the blog feed
+     * @return gzipped feed document, returns {@code null} if the specified tag not found or it has no published articles
+     * @throws ServiceException service exception
+     */
+    private byte[] build(final String type, final String tagId) throws ServiceException {
+        Stopwatchs.start("Build Feed");
+
+        try {
+            final JSONObject preference = preferenceQueryService.getPreference();
+
+            JSONObject tag = null;
+            List<JSONObject> articles;
+            if (null == tagId) {
+                final Query query = new Query().setCurrentPageNum(1).
+                        setPageSize(ENTRY_OUTPUT_CNT).
+                        addFilter(Article.ARTICLE_IS_PUBLISHED, FilterOperator.EQUAL, true).
+                        addSort(Article.ARTICLE_UPDATE_DATE, SortDirection.DESCENDING).
+                        setPageCount(1);
+
+                articles = CollectionUtils.jsonArrayToList(articleRepository.get(query).getJSONArray(Keys.RESULTS));
+            } else {
+                tag = tagRepository.get(tagId);
+                if (null == tag) {
+                    return null;
+                }
+
+                final List<String> articleIds = tagUtils.getPublishedArticlePostings(tag).getIds(0, ENTRY_OUTPUT_CNT);
+                if (articleIds.isEmpty()) {
+                    return null;
+                }
+
+                articles = articleRepository.getByIds(articleIds);
+            }
+
+            // Streams the document into the gzip stream, no document string
+            final ByteArrayOutputStream ret = new ByteArrayOutputStream();
+            final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(ret);
+            final XMLWriter writer = new XMLWriter(gzipOutputStream);
+            if (ATOM.equals(type)) {
+                genAtom(preference, tag, articles).write(writer);
+            } else {
+                genRSS(preference, tag, articles).write(writer);
+            }
+            gzipOutputStream.close();
+
+            return ret.toByteArray();
+        } catch (final ServiceException e) {
+            throw e;
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, "Builds feed[type=" + type + ", tagId=" + tagId + "] failed", e);
+            throw new ServiceException(e);
+        } finally {
+            Stopwatchs.end();
+        }
+    }
+
+    /**
+     * Generates an Atom feed with the specified preference, tag and articles.
+     *
+     * @param preference the specified preference
+     * @param tag the specified tag, {@code null} for the blog feed
+     * @param articles the specified articles
+     * @return Atom feed
+     * @throws Exception exception
+     */
+    private Feed genAtom(final JSONObject preference, final JSONObject tag, final List<JSONObject> articles)
+            throws Exception {
+        final Feed feed = new Feed();
+
+        final String blogTitle = preference.getString(Preference.BLOG_TITLE);
+        String blogSubtitle = preference.getString(Preference.BLOG_SUBTITLE);
+        if (null != tag) {
+            blogSubtitle += ", " + tag.getString(Tag.TAG_TITLE);
+        }
+        final String blogHost = preference.getString(Preference.BLOG_HOST);
+
+        feed.setTitle(blogTitle);
+        feed.setSubtitle(blogSubtitle);
+        feed.setUpdated(TimeZones.getTime(preference.getString(Preference.TIME_ZONE_ID)));
+        feed.setAuthor(blogTitle);
+        feed.setLink("http://" + blogHost + (null == tag ? "/blog-articles-feed.do" : "/tag-articles-feed.do"));
+        feed.setId("http://" + blogHost + "/");
+
+        final boolean hasMultipleUsers = Users.getInstance().hasMultipleUsers();
+        String authorName = "";
+
+        if (!hasMultipleUsers && !articles.isEmpty()) {
+            authorName = articleUtils.getAuthor(articles.get(0)).getString(User.USER_NAME);
+        }
+
+        final boolean isFullContent = "fullContent".equals(preference.getString(Preference.FEED_OUTPUT_MODE));
+
+        for (final JSONObject article : articles) {
+            final Entry entry = new Entry();
+            feed.addEntry(entry);
+            final String title = article.getString(Article.ARTICLE_TITLE);
+            entry.setTitle(title);
+            final String summary = isFullContent ? article.getString(Article.ARTICLE_CONTENT)
+                                   : article.optString(Article.ARTICLE_ABSTRACT);
+            entry.setSummary(summary);
+            final Date updated = (Date) article.get(Article.ARTICLE_UPDATE_DATE);
+            entry.setUpdated(updated);
+
+            final String link = "http://" + blogHost + article.getString(Article.ARTICLE_PERMALINK);
+            entry.setLink(link);
+            entry.setId(link);
+
+            if (hasMultipleUsers) {
+                authorName = articleUtils.getAuthor(article).getString(User.USER_NAME);
+            }
+            entry.setAuthor(authorName);
+
+            final String tagsString = article.getString(Article.ARTICLE_TAGS_REF);
+            final String[] tagStrings = tagsString.split(",");
+            for (int j = 0; j < tagStrings.length; j++) {
+                final Category catetory = new Category();
+                entry.addCatetory(catetory);
+                catetory.setTerm(tagStrings[j]);
+            }
+        }
+
+        return feed;
+    }
+
+    /**
+     * Generates an RSS channel with the specified preference, tag and articles.
+     *
+     * @param preference the specified preference
+     * @param tag the specified tag, {@code null} for the blog feed
+     * @param articles the specified articles
+     * @return RSS channel
+     * @throws Exception exception
+     */
+    private Channel genRSS(final JSONObject preference, final JSONObject tag, final List<JSONObject> articles)
+            throws Exception {
+        final Channel channel = new Channel();
+
+        final String blogTitle = preference.getString(Preference.BLOG_TITLE);
+        String blogSubtitle = preference.getString(Preference.BLOG_SUBTITLE);
+        if (null != tag) {
+            blogSubtitle += ", " + tag.getString(Tag.TAG_TITLE);
+        }
+        final String blogHost = preference.getString(Preference.BLOG_HOST);
+
+        channel.setTitle(blogTitle);
+        channel.setLastBuildDate(TimeZones.getTime(preference.getString(Preference.TIME_ZONE_ID)));
+        channel.setLink("http://" + blogHost);
+        channel.setAtomLink("http://" + blogHost + (null == tag ? "/blog-articles-rss.do" : "/tag-articles-rss.do"));
+        channel.setGenerator("B3log Solo, ver " + SoloServletListener.VERSION);
+        final String localeString = preference.getString(Preference.LOCALE_STRING);
+        final String country = Locales.getCountry(localeString).toLowerCase();
+        final String language = Locales.getLanguage(localeString).toLowerCase();
+        channel.setLanguage(language + '-' + country);
+        channel.setDescription(blogSubtitle);
+
+        final boolean hasMultipleUsers = Users.getInstance().hasMultipleUsers();
+        String authorName = "";
+
+        if (!hasMultipleUsers && !articles.isEmpty()) {
+            authorName = articleUtils.getAuthor(articles.get(0)).getString(User.USER_NAME);
+        }
+
+        final boolean isFullContent = "fullContent".equals(preference.getString(Preference.FEED_OUTPUT_MODE));
+
+        for (final JSONObject article : articles) {
+            final Item item = new Item();
+            channel.addItem(item);
+            final String title = article.getString(Article.ARTICLE_TITLE);
+            item.setTitle(title);
+            final String description = isFullContent ? article.getString(Article.ARTICLE_CONTENT)
+                                       : article.optString(Article.ARTICLE_ABSTRACT);
+            item.setDescription(description);
+            final Date pubDate = (Date) article.get(Article.ARTICLE_UPDATE_DATE);
+            item.setPubDate(pubDate);
+            final String link = "http://" + blogHost + article.getString(Article.ARTICLE_PERMALINK);
+            item.setLink(link);
+            item.setGUID(link);
+
+            final String authorEmail = article.getString(Article.ARTICLE_AUTHOR_EMAIL);
+            if (hasMultipleUsers) {
+                authorName = articleUtils.getAuthor(article).getString(User.USER_NAME);
+            }
+
+            item.setAuthor(authorEmail + "(" + authorName + ")");
+
+            final String tagsString = article.getString(Article.ARTICLE_TAGS_REF);
+            final String[] tagStrings = tagsString.split(",");
+            for (int j = 0; j < tagStrings.length; j++) {
+                final org.b3log.solo.model.feed.rss.Category catetory = new org.b3log.solo.model.feed.rss.Category();
+                item.addCatetory(catetory);
+                catetory.setTerm(tagStrings[j]);
+            }
+        }
+
+        return channel;
+    }
+
+    /**
+     * Marks the feed specified by the given name dirty.
+     *
+     * @param cache the specified cache
+     * @param name the given name
+     */
+    @SuppressWarnings("unchecked")
+    private static void markDirty(final Cache<String, Serializable> cache, final String name) {
+        final Object dirty = cache.get(DIRTY_CACHE_KEY);
+
+        final HashSet<String> names = dirty instanceof HashSet ? (HashSet<String>) dirty : new HashSet<String>();
+        if (names.add(name)) {
+            cache.put(DIRTY_CACHE_KEY, names);
+        }
+    }
+
+    /**
+     * Gets the current feed generation in the specified cache.
+     *
+     * @param cache the specified cache
+     * @return generation
+     */
+    private static String getGeneration(final Cache<String, Serializable> cache) {
+        final Object ret = cache.get(GENERATION_CACHE_KEY);
+        if (null == ret) {
+            final String generation = Ids.genTimeMillisId();
+            cache.put(GENERATION_CACHE_KEY, generation);
+
+            return generation;
+        }
+
+        return ret.toString();
+    }
+
+    /**
+     * Gets the cache for feeds.
+     *
+     * @return cache, returns {@code null} if the article repository cache is disabled
+     */
+    private Cache<String, Serializable> getCache() {
+        if (!articleRepository.isCacheEnabled()) {
+            return null;
+        }
+
+        return articleRepository.getCache();
+    }
+
+    /**
+     * Gets the {@link Feeds} singleton.
+     *
+     * @return the singleton
+     */
+    public static Feeds getInstance() {
+        return SingletonHolder.SINGLETON;
+    }
+
+    /**
+     * Private default constructor.
+     */
+    private Feeds() {
+    }
+
+    /**
+     * Gzipped feed document with the generation it was built in.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class FeedContent implements Serializable {
+
+        /**
+         * Default serial version uid.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Generation.
+         */
+        private final String generation;
+        /**
+         * Gzipped document, {@code null} if not found.
+         */
+        private final byte[] content;
+
+        /**
+         * Constructs a feed content with the specified generation and gzipped document.
+         *
+         * @param generation the specified generation
+         * @param content the specified gzipped document
+         */
+        private FeedContent(final String generation, final byte[] content) {
+            this.generation = generation;
+            this.content = content;
+        }
+    }
+
+    /**
+     * Singleton holder.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class SingletonHolder {
+
+        /**
+         * Singleton.
+         */
+        private static final Feeds SINGLETON = new Feeds();
+
+        /**
+         * Private default constructor.
+         */
+        private SingletonHolder() {
+        }
+    }
+}
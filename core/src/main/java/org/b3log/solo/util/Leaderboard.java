@@ -0,0 +1,577 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.b3log.latke.Keys;
+import org.b3log.latke.cache.Cache;
+import org.b3log.latke.repository.AbstractRepository;
+import org.b3log.latke.repository.RepositoryException;
+import org.b3log.latke.util.CollectionUtils;
+import org.b3log.latke.util.Ids;
+import org.b3log.solo.repository.impl.AbstractSoloRepository;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Incrementally maintained bounded top-K of a repository.
+ *
+ * <p>
+ * A leaderboard holds the top entries (an ordered set with an index by id) of its {@link #load(int) sorted query}.
+ * It is loaded once and then kept up to date by {@link #offer(java.lang.String, org.json.JSONObject)} and
+ * {@link #remove(java.lang.String)} while the repository changes, so a read ({@link #get(int)}) returns the same result
+ * of the query in O(K) without querying.
+ * </p>
+ *
+ * <p>
+ * Offers and removals are made by the repository writes inside a transaction, they are recorded for the current
+ * thread and take effect only after the transaction committed, or are discarded after it rolled back, see
+ * {@link AbstractSoloRepository.TransactionListener}. Changes neither applied nor discarded till the end of the
+ * request (a transaction begun by a repository out of Solo) {@link #releaseChanges() invalidate} the leaderboards they
+ * belong to.
+ * </p>
+ *
+ * <p>
+ * The entries are always the top N entries of all {@link #isRanked(org.json.JSONObject) ranked} objects, a change
+ * which may let an unknown object take a place (for example, the comment count of the last entry decreased) drops the
+ * changed object, and the leaderboard will be reloaded if it has less entries than requested. The leaderboard is also
+ * reloaded if its order has been changed by another instance, which is detected by a generation stamp in the
+ * repository cache. A change which only updates an entry in place (for example, a view count flush which does not
+ * pass the neighbours) is not stamped, other instances show the old values till the next reload.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.2.1, May 24, 2012
+ * @since 0.4.5
+ */
+public abstract class Leaderboard implements Comparator<JSONObject> {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Leaderboard.class.getName());
+    /**
+     * Count of entries held beyond the requested count, avoids reloading after an entry dropped.
+     */
+    private static final int SLACK = 10;
+    /**
+     * Cache key prefix of leaderboard generations.
+     */
+    private static final String GENERATION_CACHE_KEY_PREFIX = "leaderboardGeneration_";
+    /**
+     * Changes made by the current thread and not applied yet, in the order they were made.
+     */
+    private static final ThreadLocal<List<Change>> CHANGES = new ThreadLocal<List<Change>>();
+
+    static {
+        AbstractSoloRepository.addTransactionListener(new AbstractSoloRepository.TransactionListener() {
+
+            @Override
+            public void committed() {
+                applyChanges();
+            }
+
+            @Override
+            public void rolledBack() {
+                discardChanges();
+            }
+        });
+    }
+    /**
+     * Repository.
+     */
+    private final AbstractRepository repository;
+    /**
+     * Name.
+     */
+    private final String name;
+    /**
+     * Entries, ordered by {@link #compare(org.json.JSONObject, org.json.JSONObject)}, {@code null} if not loaded.
+     */
+    private TreeSet<JSONObject> entries;
+    /**
+     * Entries indexed by id.
+     */
+    private Map<String, JSONObject> index;
+    /**
+     * Max count of entries.
+     */
+    private int capacity;
+    /**
+     * Whether the entries are all ranked objects.
+     */
+    private boolean complete;
+    /**
+     * Generation of the entries, {@code null} if the repository cache is disabled.
+     */
+    private Object generation;
+
+    /**
+     * Constructs a leaderboard with the specified repository and name.
+     *
+     * @param repository the specified repository
+     * @param name the specified name, unique in the specified repository
+     */
+    protected Leaderboard(final AbstractRepository repository, final String name) {
+        this.repository = repository;
+        this.name = name;
+    }
+
+    /**
+     * Loads the top objects in order.
+     *
+     * @param num the specified number of objects to load
+     * @return top objects, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     */
+    protected abstract List<JSONObject> load(final int num) throws RepositoryException;
+
+    /**
+     * Determines whether the specified object takes part in this leaderboard.
+     *
+     * @param object the specified object
+     * @return {@code true} if it does, returns {@code false} otherwise
+     * @throws RepositoryException repository exception
+     */
+    protected abstract boolean isRanked(final JSONObject object) throws RepositoryException;
+
+    /**
+     * Compares the specified objects in the order of {@link #load(int)}, a higher ranked object is less than a lower
+     * one.
+     *
+     * <p>
+     * Objects of the same rank should be compared by {@link #compareIds(org.json.JSONObject, org.json.JSONObject)},
+     * and the query of {@link #load(int)} should be sorted by id at last the same way.
+     * </p>
+     *
+     * @param object1 the specified object1
+     * @param object2 the specified object2
+     * @return a negative integer, zero, or a positive integer as object1 ranks higher than, the same as, or lower than
+     * object2
+     */
+    @Override
+    public abstract int compare(final JSONObject object1, final JSONObject object2);
+
+    /**
+     * Gets the properties of an object held by an entry.
+     *
+     * <p>
+     * The properties MUST contain the ones used by {@link #isRanked(org.json.JSONObject)} and
+     * {@link #compare(org.json.JSONObject, org.json.JSONObject)}. Returns {@code null} by default, holds all
+     * properties.
+     * </p>
+     *
+     * @return properties, returns {@code null} for all properties
+     */
+    protected String[] getEntryProperties() {
+        return null;
+    }
+
+    /**
+     * Gets the top entries.
+     *
+     * @param num the specified number of entries, {@link Integer#MAX_VALUE} for all ranked objects
+     * @return top entries (copies), returns an empty list if not found
+     * @throws RepositoryException repository exception
+     */
+    public synchronized List<JSONObject> get(final int num) throws RepositoryException {
+        if (null == entries || !isGeneration(getGeneration()) || (!complete && entries.size() < num)) {
+            reload(num);
+        }
+
+        final List<JSONObject> ret = new ArrayList<JSONObject>(Math.min(num, entries.size()));
+        final Iterator<JSONObject> iterator = entries.iterator();
+        while (ret.size() < num && iterator.hasNext()) {
+            ret.add(copy(iterator.next(), null, null));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Offers the specified added or updated object, takes effect after the current transaction committed.
+     *
+     * @param id the id of the specified object
+     * @param object the specified object
+     */
+    public void offer(final String id, final JSONObject object) {
+        record(new Change(this, id, copy(object, id, getEntryProperties())));
+    }
+
+    /**
+     * Removes the object specified by the given id, takes effect after the current transaction committed.
+     *
+     * @param id the given id
+     */
+    public void remove(final String id) {
+        record(new Change(this, id, null));
+    }
+
+    /**
+     * Invalidates this leaderboard, it will be reloaded on the next read, for example, after a change which ranks
+     * unknown objects (publishes an article with comments).
+     */
+    public synchronized void invalidate() {
+        entries = null;
+        index = null;
+
+        changed();
+    }
+
+    /**
+     * Applies the changes made by the current thread after the transaction of the changes committed.
+     *
+     * <p>
+     * A leaderboard which fails to apply a change is invalidated, the committed transaction is not affected.
+     * </p>
+     */
+    private static void applyChanges() {
+        final List<Change> changes = CHANGES.get();
+        if (null == changes) {
+            return;
+        }
+
+        CHANGES.remove();
+
+        for (final Change change : changes) {
+            final Leaderboard leaderboard = change.getLeaderboard();
+
+            try {
+                leaderboard.apply(change.getId(), change.getEntry());
+            } catch (final RepositoryException e) {
+                LOGGER.log(Level.SEVERE, "Applies a change of leaderboard[" + leaderboard.name + "] failed", e);
+                leaderboard.invalidate();
+            }
+        }
+    }
+
+    /**
+     * Discards the changes made by the current thread after the transaction of the changes rolled back.
+     */
+    private static void discardChanges() {
+        CHANGES.remove();
+    }
+
+    /**
+     * Releases the changes made by the current thread which are neither applied nor discarded, invalidates the
+     * leaderboards they belong to. Invoked at the end of a request.
+     */
+    public static void releaseChanges() {
+        final List<Change> changes = CHANGES.get();
+        if (null == changes) {
+            return;
+        }
+
+        CHANGES.remove();
+
+        final Set<Leaderboard> leaderboards = new HashSet<Leaderboard>();
+        for (final Change change : changes) {
+            leaderboards.add(change.getLeaderboard());
+        }
+
+        for (final Leaderboard leaderboard : leaderboards) {
+            LOGGER.log(Level.WARNING, "Changes of leaderboard[{0}] were neither applied nor discarded", leaderboard.name);
+            leaderboard.invalidate();
+        }
+    }
+
+    /**
+     * Compares the ids of the specified objects, ascending.
+     *
+     * @param object1 the specified object1
+     * @param object2 the specified object2
+     * @return comparison result of the ids
+     */
+    public static int compareIds(final JSONObject object1, final JSONObject object2) {
+        return object1.optString(Keys.OBJECT_ID).compareTo(object2.optString(Keys.OBJECT_ID));
+    }
+
+    /**
+     * Gets the time of the specified date property of the specified object.
+     *
+     * @param object the specified object
+     * @param property the specified date property
+     * @return time, returns {@code 0} if not found
+     */
+    public static long getTime(final JSONObject object, final String property) {
+        final Object value = object.opt(property);
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+
+        return object.optLong(property);
+    }
+
+    /**
+     * Records the specified change for the current thread.
+     *
+     * @param change the specified change
+     */
+    private static void record(final Change change) {
+        List<Change> changes = CHANGES.get();
+        if (null == changes) {
+            changes = new ArrayList<Change>();
+            CHANGES.set(changes);
+        }
+
+        changes.add(change);
+    }
+
+    /**
+     * Applies the specified change, stamps a new generation only if the order of the entries changed.
+     *
+     * @param id the id of the changed object
+     * @param entry the specified entry of the changed object, {@code null} if the object has been removed
+     * @throws RepositoryException repository exception
+     */
+    private synchronized void apply(final String id, final JSONObject entry) throws RepositoryException {
+        if (!isUpToDate()) {
+            reload(0); // Determines whether the change moves the entries of other instances
+        }
+
+        final JSONObject last = entries.isEmpty() ? null : entries.last();
+
+        final JSONObject old = index.remove(id);
+        JSONObject lower = null;
+        JSONObject higher = null;
+        if (null != old) {
+            lower = entries.lower(old);
+            higher = entries.higher(old);
+            entries.remove(old);
+        }
+
+        boolean placed = false;
+        if (null != entry && isRanked(entry)) {
+            // Unknown objects rank lower than the last entry, the entry is placed only if it keeps ahead of them
+            if (complete || (null != last && 0 >= compare(entry, last))) {
+                entries.add(entry);
+                index.put(id, entry);
+                placed = true;
+            }
+        }
+
+        boolean moved = placed != (null != old);
+        if (placed && !moved) {
+            moved = lower != entries.lower(entry) || higher != entries.higher(entry);
+        }
+
+        while (entries.size() > capacity) {
+            index.remove(entries.pollLast().optString(Keys.OBJECT_ID));
+            complete = false;
+            moved = true;
+        }
+
+        if (moved) {
+            changed();
+        }
+    }
+
+    /**
+     * Reloads the entries.
+     *
+     * @param num the specified number of entries requested
+     * @throws RepositoryException repository exception
+     */
+    private void reload(final int num) throws RepositoryException {
+        LOGGER.log(Level.FINER, "Reloading leaderboard[{0}]", name);
+
+        capacity = Math.max(capacity, (int) Math.min((long) num + SLACK, Integer.MAX_VALUE));
+        generation = getGeneration();
+
+        final List<JSONObject> objects = load(capacity);
+
+        entries = new TreeSet<JSONObject>(this);
+        index = new HashMap<String, JSONObject>();
+        for (final JSONObject object : objects) {
+            final JSONObject entry = copy(object, null, getEntryProperties());
+            entries.add(entry);
+            index.put(entry.optString(Keys.OBJECT_ID), entry);
+        }
+
+        complete = objects.size() < capacity;
+    }
+
+    /**
+     * Determines whether the entries are loaded and up to date, drops the entries if they are stale.
+     *
+     * @return {@code true} if they are, returns {@code false} otherwise
+     */
+    private boolean isUpToDate() {
+        if (null == entries) {
+            return false;
+        }
+
+        if (!isGeneration(getGeneration())) {
+            entries = null;
+            index = null;
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Stamps a new generation after the entries changed.
+     */
+    private void changed() {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return;
+        }
+
+        generation = Ids.genTimeMillisId();
+        cache.put(GENERATION_CACHE_KEY_PREFIX + name, (Serializable) generation);
+    }
+
+    /**
+     * Determines whether the entries are of the specified generation.
+     *
+     * @param generation the specified generation
+     * @return {@code true} if they are, returns {@code false} otherwise
+     */
+    private boolean isGeneration(final Object generation) {
+        return null == generation ? null == this.generation : generation.equals(this.generation);
+    }
+
+    /**
+     * Gets the current generation of this leaderboard.
+     *
+     * @return generation, returns {@code null} if the repository cache is disabled
+     */
+    private Object getGeneration() {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return null;
+        }
+
+        Object ret = cache.get(GENERATION_CACHE_KEY_PREFIX + name);
+        if (null == ret) {
+            ret = Ids.genTimeMillisId();
+            cache.put(GENERATION_CACHE_KEY_PREFIX + name, (Serializable) ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the cache for the leaderboard generation.
+     *
+     * @return cache, returns {@code null} if the repository cache is disabled
+     */
+    private Cache<String, Serializable> getCache() {
+        if (!repository.isCacheEnabled()) {
+            return null;
+        }
+
+        return repository.getCache();
+    }
+
+    /**
+     * Makes a shallow copy of the specified properties of the specified object.
+     *
+     * @param object the specified object
+     * @param id the specified id of the copy, {@code null} to keep the id of the specified object
+     * @param properties the specified properties, {@code null} for all properties
+     * @return copy
+     */
+    private static JSONObject copy(final JSONObject object, final String id, final String[] properties) {
+        try {
+            final String[] names = null == properties
+                                   ? CollectionUtils.jsonArrayToArray(object.names(), String[].class) : properties;
+            final JSONObject ret = new JSONObject(object, names);
+            ret.put(Keys.OBJECT_ID, null == id ? object.optString(Keys.OBJECT_ID) : id);
+
+            return ret;
+        } catch (final JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Change of a leaderboard.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class Change {
+
+        /**
+         * Leaderboard.
+         */
+        private final Leaderboard leaderboard;
+        /**
+         * Id of the changed object.
+         */
+        private final String id;
+        /**
+         * Entry of the changed object, {@code null} if the object has been removed.
+         */
+        private final JSONObject entry;
+
+        /**
+         * Constructs a change with the specified leaderboard, id and entry.
+         *
+         * @param leaderboard the specified leaderboard
+         * @param id the specified id
+         * @param entry the specified entry, {@code null} if the object has been removed
+         */
+        private Change(final Leaderboard leaderboard, final String id, final JSONObject entry) {
+            this.leaderboard = leaderboard;
+            this.id = id;
+            this.entry = entry;
+        }
+
+        /**
+         * Gets the leaderboard.
+         *
+         * @return leaderboard
+         */
+        private Leaderboard getLeaderboard() {
+            return leaderboard;
+        }
+
+        /**
+         * Gets the id of the changed object.
+         *
+         * @return id
+         */
+        private String getId() {
+            return id;
+        }
+
+        /**
+         * Gets the entry of the changed object.
+         *
+         * @return entry, returns {@code null} if the object has been removed
+         */
+        private JSONObject getEntry() {
+            return entry;
+        }
+    }
+}
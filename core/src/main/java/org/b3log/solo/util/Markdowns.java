@@ -17,20 +17,76 @@ package org.b3log.solo.util;
 
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.b3log.latke.util.MD5;
 import org.b3log.latke.util.Strings;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.model.Page;
+import org.json.JSONObject;
 import org.tautua.markdownpapers.Markdown;
 
 /**
  * <a href="http://en.wikipedia.org/wiki/Markdown">Markdown</a> utilities.
  * 
  * <p>Uses the <a href="http://markdown.tautua.org/">MarkdownPapers</a> as the converter.</p>
+ * 
+ * <p>
+ * Converted HTML is cached in memory, keyed by the {@linkplain #RENDERER_VERSION renderer version} and the MD5 of the 
+ * markdown text, so the same article content and abstract will not be parsed again on every list or feed rendering. 
+ * The cache is bounded by the total length of the cached HTML, the least recently used ones are evicted first.
+ * </p>
+ * 
+ * <p>
+ * Articles and pages written in Markdown are {@linkplain #renderArticle(org.json.JSONObject) rendered} while saving, 
+ * the HTML is persisted with the renderer version alongside the source, so the read paths do not convert them at all.
+ * </p>
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.0, Apr 28, 2012
+ * @version 1.2.0.0, May 24, 2012
  * @since 0.4.5
  */
 public final class Markdowns {
 
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Markdowns.class.getName());
+    /**
+     * Renderer version, changes it if the converter or its configuration changes to discard the cached HTML.
+     */
+    public static final String RENDERER_VERSION = "markdownpapers-1.2.7";
+    /**
+     * Editor type of Markdown.
+     * 
+     * @see org.b3log.solo.model.Preference#EDITOR_TYPE
+     */
+    public static final String EDITOR_TYPE = "CodeMirror-Markdown";
+    /**
+     * Max total length (characters) of the cached HTML.
+     */
+    private static final int MAX_CACHED_LENGTH = 4 * 1024 * 1024;
+    /**
+     * Cached HTML, &lt;"rendererVersion:md5", html&gt;, in access order.
+     */
+    private static final Map<String, String> CACHE = new LinkedHashMap<String, String>(256, 0.75F, true);
+    /**
+     * Total length of the cached HTML.
+     */
+    private static int cachedLength;
+    /**
+     * Count of cache hits.
+     */
+    private static final AtomicLong HIT_COUNT = new AtomicLong();
+    /**
+     * Count of cache misses.
+     */
+    private static final AtomicLong MISS_COUNT = new AtomicLong();
+
     /**
      * Converts the specified markdown text to HTML.
      * 
@@ -43,12 +99,148 @@ public final class Markdowns {
             return null;
         }
 
+        final String key = RENDERER_VERSION + ':' + MD5.hash(markdownText);
+
+        synchronized (CACHE) {
+            final String ret = CACHE.get(key);
+            if (null != ret) {
+                HIT_COUNT.incrementAndGet();
+
+                return ret;
+            }
+        }
+
+        MISS_COUNT.incrementAndGet();
+
         final StringWriter writer = new StringWriter();
         final Markdown markdown = new Markdown();
 
         markdown.transform(new StringReader(markdownText), writer);
 
-        return writer.toString();
+        final String ret = writer.toString();
+        cache(key, ret);
+
+        return ret;
+    }
+
+    /**
+     * Determines whether the specified editor type is Markdown.
+     * 
+     * @param editorType the specified editor type
+     * @return {@code true} if it is Markdown, returns {@code false} otherwise
+     */
+    public static boolean isMarkdown(final String editorType) {
+        return EDITOR_TYPE.equals(editorType);
+    }
+
+    /**
+     * Renders the content and abstract of the specified article to {@link Article#ARTICLE_CONTENT_HTML} and 
+     * {@link Article#ARTICLE_ABSTRACT_HTML} with the current {@linkplain #RENDERER_VERSION renderer version} if it is 
+     * written in Markdown, removes these properties otherwise.
+     * 
+     * @param article the specified article
+     * @throws Exception exception
+     */
+    public static void renderArticle(final JSONObject article) throws Exception {
+        article.remove(Article.ARTICLE_CONTENT_HTML);
+        article.remove(Article.ARTICLE_ABSTRACT_HTML);
+        article.remove(Article.ARTICLE_HTML_VERSION);
+
+        if (!isMarkdown(article.optString(Article.ARTICLE_EDITOR_TYPE))) {
+            return;
+        }
+
+        final String contentHTML = toHTML(article.optString(Article.ARTICLE_CONTENT));
+        article.put(Article.ARTICLE_CONTENT_HTML, null == contentHTML ? "" : contentHTML);
+
+        final String abstractHTML = toHTML(article.optString(Article.ARTICLE_ABSTRACT));
+        if (null != abstractHTML) {
+            article.put(Article.ARTICLE_ABSTRACT_HTML, abstractHTML);
+        }
+
+        article.put(Article.ARTICLE_HTML_VERSION, RENDERER_VERSION);
+    }
+
+    /**
+     * Renders the content of the specified page to {@link Page#PAGE_CONTENT_HTML} with the current 
+     * {@linkplain #RENDERER_VERSION renderer version} if it is written in Markdown, removes the property otherwise.
+     * 
+     * @param page the specified page
+     * @throws Exception exception
+     */
+    public static void renderPage(final JSONObject page) throws Exception {
+        page.remove(Page.PAGE_CONTENT_HTML);
+        page.remove(Page.PAGE_HTML_VERSION);
+
+        if (!isMarkdown(page.optString(Page.PAGE_EDITOR_TYPE))) {
+            return;
+        }
+
+        final String contentHTML = toHTML(page.optString(Page.PAGE_CONTENT));
+        page.put(Page.PAGE_CONTENT_HTML, null == contentHTML ? "" : contentHTML);
+        page.put(Page.PAGE_HTML_VERSION, RENDERER_VERSION);
+    }
+
+    /**
+     * Gets the count of cache hits.
+     * 
+     * @return hit count
+     */
+    public static long getCacheHitCount() {
+        return HIT_COUNT.get();
+    }
+
+    /**
+     * Gets the count of cache misses (conversions).
+     * 
+     * @return miss count
+     */
+    public static long getCacheMissCount() {
+        return MISS_COUNT.get();
+    }
+
+    /**
+     * Clears the cached HTML.
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            cachedLength = 0;
+        }
+    }
+
+    /**
+     * Caches the specified HTML with the specified key, evicts the least recently used ones if exceeds 
+     * {@value #MAX_CACHED_LENGTH} characters.
+     * 
+     * @param key the specified key
+     * @param html the specified HTML
+     */
+    private static void cache(final String key, final String html) {
+        if (html.length() > MAX_CACHED_LENGTH / 2) {
+            return;
+        }
+
+        synchronized (CACHE) {
+            final String previous = CACHE.put(key, html);
+            if (null != previous) { // Converted concurrently
+                cachedLength -= previous.length();
+            }
+            cachedLength += html.length();
+
+            int evicted = 0;
+            final Iterator<String> iterator = CACHE.values().iterator();
+            while (cachedLength > MAX_CACHED_LENGTH && iterator.hasNext()) {
+                cachedLength -= iterator.next().length();
+                iterator.remove();
+                evicted++;
+            }
+
+            if (0 < evicted) {
+                LOGGER.log(Level.FINER, "Evicted markdown HTML cache[count={0}, hit={1}, miss={2}]",
+                           new Object[]{evicted, HIT_COUNT.get(), MISS_COUNT.get()});
+            }
+        }
     }
 
     /**
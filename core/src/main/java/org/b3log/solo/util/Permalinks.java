@@ -30,7 +30,7 @@ import org.b3log.solo.repository.impl.PageRepositoryImpl;
  * Permalink utilities.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.1.0.7, May 11, 2012
+ * @version 1.1.0.10, May 24, 2012
  * @since 0.3.1
  */
 public final class Permalinks {
@@ -73,8 +73,12 @@ public final class Permalinks {
         "/add-article-comment.do",
         "/add-article-from-symphony-comment.do",
         "/add-page-comment.do",
+        "/comments.do",
         "/get-article-content",
+        "/search",
+        "/search.do",
         "/sitemap.xml",
+        "/sitemap/",
         "/login",
         "/logout",
         "/_ah/", // For local dev server
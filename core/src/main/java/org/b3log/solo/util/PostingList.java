@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.b3log.latke.util.Strings;
+
+/**
+ * Immutable posting list, article ids sorted by publish (create) time and id descending.
+ *
+ * <p>
+ * The compact encoding ({@link #encode()}) is a comma separated list of entries, each entry is the time delta to the
+ * previous entry (the first one is absolute) in radix 36, followed by the article id: {@code ':'} and the difference
+ * between the time and the id in radix 36 if the id is a time millis id (the common case, the difference is small), or
+ * {@code '~'} and the raw id otherwise. For example, "i6s9dq8g:-3,2cl:1".
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public final class PostingList {
+
+    /**
+     * Empty posting list.
+     */
+    public static final PostingList EMPTY = new PostingList(new long[0], new String[0]);
+    /**
+     * Radix of encoding.
+     */
+    private static final int RADIX = 36;
+    /**
+     * Estimated length of an encoded entry.
+     */
+    private static final int ENTRY_LENGTH = 12;
+    /**
+     * Max length of an id which could be encoded as a number.
+     */
+    private static final int MAX_NUMERIC_ID_LENGTH = 18;
+    /**
+     * Times, descending.
+     */
+    private final long[] times;
+    /**
+     * Article ids.
+     */
+    private final String[] ids;
+
+    /**
+     * Decodes the specified encoded posting list.
+     *
+     * @param encoded the specified encoded posting list, see {@link #encode()}
+     * @return posting list, returns {@link #EMPTY} if the specified encoded posting list is {@code null} or ""
+     * @throws IllegalArgumentException if the specified encoded posting list is malformed
+     */
+    public static PostingList decode(final String encoded) {
+        if (Strings.isEmptyOrNull(encoded)) {
+            return EMPTY;
+        }
+
+        final String[] entries = encoded.split(",");
+        final long[] times = new long[entries.length];
+        final String[] ids = new String[entries.length];
+
+        try {
+            long time = 0;
+            for (int i = 0; i < entries.length; i++) {
+                final String entry = entries[i];
+                int idx = 0;
+                while (':' != entry.charAt(idx) && '~' != entry.charAt(idx)) {
+                    idx++;
+                }
+                final boolean numericId = ':' == entry.charAt(idx);
+
+                final long delta = Long.parseLong(entry.substring(0, idx), RADIX);
+                time = 0 == i ? delta : time - delta;
+                times[i] = time;
+
+                final String id = entry.substring(idx + 1);
+                ids[i] = numericId ? String.valueOf(time - Long.parseLong(id, RADIX)) : id;
+            }
+        } catch (final RuntimeException e) {
+            throw new IllegalArgumentException("Malformed posting list", e);
+        }
+
+        return new PostingList(times, ids);
+    }
+
+    /**
+     * Encodes this posting list.
+     *
+     * @return encoded posting list, returns "" if this posting list is empty
+     */
+    public String encode() {
+        final StringBuilder builder = new StringBuilder(ids.length * ENTRY_LENGTH);
+
+        for (int i = 0; i < ids.length; i++) {
+            if (0 < i) {
+                builder.append(',');
+            }
+
+            builder.append(Long.toString(0 == i ? times[i] : times[i - 1] - times[i], RADIX));
+
+            final String id = ids[i];
+            if (isNumericId(id)) {
+                builder.append(':').append(Long.toString(times[i] - Long.parseLong(id), RADIX));
+            } else {
+                builder.append('~').append(id);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Gets the size of this posting list.
+     *
+     * @return size
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Gets the index of the specified article id.
+     *
+     * @param articleId the specified article id
+     * @return index, returns {@code -1} if not found
+     */
+    public int indexOf(final String articleId) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i].equals(articleId)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets article ids in the specified range.
+     *
+     * @param fromIndex the specified from index (inclusive)
+     * @param toIndex the specified to index (exclusive), will be truncated to the size of this posting list
+     * @return article ids, returns an empty list if the specified range is out of this posting list
+     */
+    public List<String> getIds(final int fromIndex, final int toIndex) {
+        final int to = Math.min(toIndex, ids.length);
+        if (0 > fromIndex || fromIndex >= to) {
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(ids).subList(fromIndex, to));
+    }
+
+    /**
+     * Gets article ids of the specified page.
+     *
+     * @param currentPageNum the specified current page number, starts from {@code 1}
+     * @param pageSize the specified page size
+     * @return article ids, returns an empty list if the specified page is out of this posting list
+     */
+    public List<String> getPage(final int currentPageNum, final int pageSize) {
+        final long fromIndex = (long) (currentPageNum - 1) * pageSize;
+        if (fromIndex >= ids.length) {
+            return Collections.emptyList();
+        }
+
+        return getIds((int) fromIndex, (int) Math.min(fromIndex + pageSize, ids.length));
+    }
+
+    /**
+     * Gets a new posting list with the specified article (re)placed by the specified time.
+     *
+     * @param articleId the specified article id
+     * @param time the specified time, for example, the create time of the article
+     * @return new posting list
+     */
+    public PostingList add(final String articleId, final long time) {
+        final PostingList removed = remove(articleId);
+        final int size = removed.ids.length;
+
+        int idx = 0;
+        while (idx < size && (removed.times[idx] > time || (removed.times[idx] == time && removed.ids[idx].compareTo(articleId) > 0))) {
+            idx++;
+        }
+
+        final long[] newTimes = new long[size + 1];
+        final String[] newIds = new String[size + 1];
+        System.arraycopy(removed.times, 0, newTimes, 0, idx);
+        System.arraycopy(removed.ids, 0, newIds, 0, idx);
+        newTimes[idx] = time;
+        newIds[idx] = articleId;
+        System.arraycopy(removed.times, idx, newTimes, idx + 1, size - idx);
+        System.arraycopy(removed.ids, idx, newIds, idx + 1, size - idx);
+
+        return new PostingList(newTimes, newIds);
+    }
+
+    /**
+     * Gets a new posting list without the specified article.
+     *
+     * @param articleId the specified article id
+     * @return new posting list, returns this posting list if it does not contain the specified article
+     */
+    public PostingList remove(final String articleId) {
+        final int idx = indexOf(articleId);
+        if (-1 == idx) {
+            return this;
+        }
+
+        final int size = ids.length;
+        final long[] newTimes = new long[size - 1];
+        final String[] newIds = new String[size - 1];
+        System.arraycopy(times, 0, newTimes, 0, idx);
+        System.arraycopy(ids, 0, newIds, 0, idx);
+        System.arraycopy(times, idx + 1, newTimes, idx, size - idx - 1);
+        System.arraycopy(ids, idx + 1, newIds, idx, size - idx - 1);
+
+        return new PostingList(newTimes, newIds);
+    }
+
+    /**
+     * Builds a posting list with the specified article ids and times.
+     *
+     * @param articleIds the specified article ids
+     * @param articleTimes the specified times, in the same order of the specified article ids
+     * @return posting list
+     */
+    public static PostingList build(final List<String> articleIds, final List<Long> articleTimes) {
+        final List<Integer> indices = new ArrayList<Integer>(articleIds.size());
+        for (int i = 0; i < articleIds.size(); i++) {
+            indices.add(i);
+        }
+
+        Collections.sort(indices, new Comparator<Integer>() {
+
+            @Override
+            public int compare(final Integer i1, final Integer i2) {
+                final int ret = articleTimes.get(i2).compareTo(articleTimes.get(i1));
+                if (0 != ret) {
+                    return ret;
+                }
+
+                return articleIds.get(i2).compareTo(articleIds.get(i1));
+            }
+        });
+
+        final long[] times = new long[indices.size()];
+        final String[] ids = new String[indices.size()];
+        for (int i = 0; i < indices.size(); i++) {
+            times[i] = articleTimes.get(indices.get(i));
+            ids[i] = articleIds.get(indices.get(i));
+        }
+
+        return new PostingList(times, ids);
+    }
+
+    /**
+     * Determines whether the specified id could be encoded as a number.
+     *
+     * @param id the specified id
+     * @return {@code true} if it could, {@code false} otherwise
+     */
+    private static boolean isNumericId(final String id) {
+        if (id.isEmpty() || id.length() > MAX_NUMERIC_ID_LENGTH || '0' == id.charAt(0)) {
+            return false;
+        }
+
+        for (int i = 0; i < id.length(); i++) {
+            final char c = id.charAt(i);
+            if ('0' > c || '9' < c) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Private constructor.
+     *
+     * @param times the specified times
+     * @param ids the specified ids
+     */
+    private PostingList(final long[] times, final String[] ids) {
+        this.times = times;
+        this.ids = ids;
+    }
+}
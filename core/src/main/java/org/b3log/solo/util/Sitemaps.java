@@ -0,0 +1,692 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.lang.time.DateFormatUtils;
+import org.b3log.latke.Keys;
+import org.b3log.latke.cache.Cache;
+import org.b3log.latke.repository.Query;
+import org.b3log.latke.repository.RepositoryException;
+import org.b3log.latke.util.Ids;
+import org.b3log.latke.util.MD5;
+import org.b3log.latke.util.Stopwatchs;
+import org.b3log.solo.model.ArchiveDate;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.model.Page;
+import org.b3log.solo.model.Tag;
+import org.b3log.solo.model.sitemap.SitemapWriter;
+import org.b3log.solo.repository.PageRepository;
+import org.b3log.solo.repository.TagRepository;
+import org.b3log.solo.repository.impl.ArticleRepositoryImpl;
+import org.b3log.solo.repository.impl.PageRepositoryImpl;
+import org.b3log.solo.repository.impl.TagRepositoryImpl;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Sitemap utilities.
+ *
+ * <p>
+ * If the blog has no more than {@value #MAX_URL_COUNT} URLs, {@value #SITEMAP_URI} is a URL set of all of them.
+ * Otherwise it is a sitemap index of {@value #MISC_SITEMAP_URI} (pages, tags and archives) and article sitemaps
+ * ("/sitemap/articles/yyyy/MM.xml"), each of which holds the published articles of consecutive archive months, at most
+ * {@value #MAX_URL_COUNT} articles. The months are read from the in-memory {@linkplain ArchiveDates archive date index},
+ * and the articles are fetched by ids in chunks of {@value #FETCH_SIZE} while writing.
+ * </p>
+ *
+ * <p>
+ * Sitemap files are cached as gzipped bytes in the article repository cache, keyed by the layout of the file and the
+ * generations of the years it covers, so a file is regenerated only if its articles changed. The generations are
+ * stamped by {@link #invalidate(org.json.JSONObject)} and {@link #invalidate()}.
+ * </p>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public final class Sitemaps {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Sitemaps.class.getName());
+    /**
+     * Maximum count of URLs in a sitemap file.
+     */
+    public static final int MAX_URL_COUNT = 50000;
+    /**
+     * URI of the sitemap.
+     */
+    public static final String SITEMAP_URI = "/sitemap.xml";
+    /**
+     * URI prefix of the sitemap files listed in the sitemap index.
+     */
+    public static final String SITEMAP_URI_PREFIX = "/sitemap/";
+    /**
+     * URI of the sitemap of pages, tags and archives.
+     */
+    public static final String MISC_SITEMAP_URI = SITEMAP_URI_PREFIX + "misc.xml";
+    /**
+     * URI prefix of the article sitemaps.
+     */
+    private static final String ARTICLE_SITEMAP_URI_PREFIX = SITEMAP_URI_PREFIX + "articles/";
+    /**
+     * Count of articles fetched at a time.
+     */
+    private static final int FETCH_SIZE = 500;
+    /**
+     * Cache key prefix of sitemap files.
+     */
+    private static final String CACHE_KEY_PREFIX = "sitemap_";
+    /**
+     * Cache key prefix of the URLs of pages, tags and archives.
+     */
+    private static final String MISC_CACHE_KEY_PREFIX = "sitemapMisc_";
+    /**
+     * Cache key prefix of generations.
+     */
+    private static final String GENERATION_CACHE_KEY_PREFIX = "sitemapGeneration_";
+    /**
+     * Generation name of pages, tags and archives.
+     */
+    private static final String MISC_GENERATION = "misc";
+    /**
+     * Article repository.
+     */
+    private ArticleRepositoryImpl articleRepository = ArticleRepositoryImpl.getInstance();
+    /**
+     * Page repository.
+     */
+    private PageRepository pageRepository = PageRepositoryImpl.getInstance();
+    /**
+     * Tag repository.
+     */
+    private TagRepository tagRepository = TagRepositoryImpl.getInstance();
+    /**
+     * Archive date utilities.
+     */
+    private ArchiveDates archiveDateUtils = ArchiveDates.getInstance();
+
+    /**
+     * Gets the sitemap file specified by the given URI.
+     *
+     * @param uri the given URI, {@value #SITEMAP_URI} or a URI listed in the sitemap index
+     * @param host the blog host
+     * @return gzipped content of the sitemap file, returns {@code null} if not found
+     * @throws RepositoryException repository exception
+     * @throws IOException io exception
+     */
+    public byte[] getSitemap(final String uri, final String host) throws RepositoryException, IOException {
+        final String serverURL = "http://" + host;
+        final MiscURLs miscURLs = getMiscURLs(serverURL);
+        final List<Shard> shards = getShards(miscURLs.count);
+
+        if (SITEMAP_URI.equals(uri)) {
+            if (1 == shards.size()) {
+                return getShard(shards.get(0), miscURLs, serverURL);
+            }
+
+            return getSitemapIndex(shards, serverURL);
+        }
+
+        for (final Shard shard : shards) {
+            if (1 < shards.size() && shard.uri.equals(uri)) {
+                return getShard(shard, miscURLs, serverURL);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Invalidates the sitemap files of pages, tags and archives.
+     */
+    public void invalidate() {
+        putGeneration(MISC_GENERATION);
+    }
+
+    /**
+     * Invalidates the sitemap files which contain (or will contain) the specified article, the sitemap files of pages,
+     * tags and archives are also invalidated.
+     *
+     * @param article the specified article
+     */
+    public void invalidate(final JSONObject article) {
+        invalidate();
+
+        final Date createDate = (Date) article.opt(Article.ARTICLE_CREATE_DATE);
+        if (null != createDate) {
+            putGeneration(DateFormatUtils.format(createDate, "yyyy"));
+        }
+    }
+
+    /**
+     * Gets the shards of the sitemap.
+     *
+     * @param miscURLCount the count of the URLs of pages, tags and archives
+     * @return shards, the only one shard contains all URLs if the sitemap is not split, otherwise the first shard
+     * contains pages, tags and archives and each of the others contains articles of consecutive archive months
+     * @throws RepositoryException repository exception
+     */
+    private List<Shard> getShards(final int miscURLCount) throws RepositoryException {
+        final List<JSONObject> archiveDates = archiveDateUtils.getArchiveDates();
+        Collections.reverse(archiveDates); // Oldest first, new articles only touch the last shard
+
+        final List<Segment> segments = new ArrayList<Segment>(archiveDates.size());
+        int articleCount = 0;
+        for (final JSONObject archiveDate : archiveDates) {
+            final PostingList postings = archiveDateUtils.getPublishedArticlePostings(archiveDate.optString(Keys.OBJECT_ID));
+            if (0 == postings.size()) {
+                continue;
+            }
+
+            final String month = ArchiveDate.DATE_FORMAT.format(archiveDate.optLong(ArchiveDate.ARCHIVE_TIME));
+            segments.add(new Segment(month, postings, 0, postings.size()));
+            articleCount += postings.size();
+        }
+
+        final List<Shard> ret = new ArrayList<Shard>();
+
+        if (miscURLCount + articleCount <= MAX_URL_COUNT) {
+            ret.add(new Shard(SITEMAP_URI, true, segments));
+
+            return ret;
+        }
+
+        ret.add(new Shard(MISC_SITEMAP_URI, true, Collections.<Segment>emptyList()));
+
+        List<Segment> shardSegments = new ArrayList<Segment>();
+        int shardArticleCount = 0;
+        for (final Segment segment : segments) {
+            int from = 0;
+            while (from < segment.to) {
+                final int remaining = segment.to - from;
+                if (remaining > MAX_URL_COUNT - shardArticleCount && 0 < shardArticleCount) {
+                    // Starts a new shard rather than splitting the month
+                    ret.add(newArticleShard(shardSegments));
+                    shardSegments = new ArrayList<Segment>();
+                    shardArticleCount = 0;
+                }
+
+                final int to = from + Math.min(remaining, MAX_URL_COUNT - shardArticleCount);
+                shardSegments.add(new Segment(segment.month, segment.postings, from, to));
+                shardArticleCount += to - from;
+                from = to;
+
+                if (MAX_URL_COUNT == shardArticleCount) {
+                    ret.add(newArticleShard(shardSegments));
+                    shardSegments = new ArrayList<Segment>();
+                    shardArticleCount = 0;
+                }
+            }
+        }
+
+        if (!shardSegments.isEmpty()) {
+            ret.add(newArticleShard(shardSegments));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the gzipped content of the specified shard, generates it if not cached.
+     *
+     * @param shard the specified shard
+     * @param miscURLs the URLs of pages, tags and archives
+     * @param serverURL the server URL
+     * @return gzipped content
+     * @throws RepositoryException repository exception
+     * @throws IOException io exception
+     */
+    private byte[] getShard(final Shard shard, final MiscURLs miscURLs, final String serverURL)
+            throws RepositoryException, IOException {
+        final StringBuilder signature = new StringBuilder(shard.uri).append(serverURL);
+        if (shard.misc) {
+            signature.append(getGeneration(MISC_GENERATION));
+        }
+        String year = null;
+        for (final Segment segment : shard.segments) {
+            signature.append(segment.month).append(':').append(segment.from).append('-').append(segment.to).
+                    append(':').append(segment.postings.size());
+
+            final String segmentYear = segment.month.substring(0, segment.month.indexOf('/'));
+            if (!segmentYear.equals(year)) {
+                year = segmentYear;
+                signature.append(getGeneration(year));
+            }
+        }
+
+        final String cacheKey = CACHE_KEY_PREFIX + MD5.hash(signature.toString());
+        final byte[] cached = getCached(cacheKey);
+        if (null != cached) {
+            return cached;
+        }
+
+        Stopwatchs.start("Gen Sitemap");
+
+        try {
+            final ByteArrayOutputStream ret = new ByteArrayOutputStream();
+            final Writer gzipWriter = newGzipWriter(ret);
+            final SitemapWriter writer = new SitemapWriter(gzipWriter);
+
+            writer.startURLSet();
+            if (shard.misc) {
+                writer.writeURLs(miscURLs.urls, miscURLs.count);
+            }
+            writeArticles(writer, shard.segments, serverURL);
+            writer.endURLSet();
+            gzipWriter.close();
+
+            LOGGER.log(Level.INFO, "Generated sitemap[uri={0}, urlCount={1}]", new Object[]{shard.uri, writer.getCount()});
+
+            return putCached(cacheKey, ret);
+        } finally {
+            Stopwatchs.end();
+        }
+    }
+
+    /**
+     * Gets the gzipped content of the sitemap index of the specified shards.
+     *
+     * @param shards the specified shards
+     * @param serverURL the server URL
+     * @return gzipped content
+     * @throws IOException io exception
+     */
+    private byte[] getSitemapIndex(final List<Shard> shards, final String serverURL) throws IOException {
+        final StringBuilder signature = new StringBuilder(SITEMAP_URI).append(serverURL);
+        for (final Shard shard : shards) {
+            signature.append(shard.uri);
+        }
+
+        final String cacheKey = CACHE_KEY_PREFIX + MD5.hash(signature.toString());
+        final byte[] cached = getCached(cacheKey);
+        if (null != cached) {
+            return cached;
+        }
+
+        final ByteArrayOutputStream ret = new ByteArrayOutputStream();
+        final Writer gzipWriter = newGzipWriter(ret);
+        final SitemapWriter writer = new SitemapWriter(gzipWriter);
+
+        writer.startSitemapIndex();
+        for (final Shard shard : shards) {
+            writer.writeSitemap(serverURL + shard.uri);
+        }
+        writer.endSitemapIndex();
+        gzipWriter.close();
+
+        return putCached(cacheKey, ret);
+    }
+
+    /**
+     * Writes the articles of the specified segments with the specified writer.
+     *
+     * @param writer the specified writer
+     * @param segments the specified segments
+     * @param serverURL the server URL
+     * @throws RepositoryException repository exception
+     * @throws IOException io exception
+     */
+    private void writeArticles(final SitemapWriter writer, final List<Segment> segments, final String serverURL)
+            throws RepositoryException, IOException {
+        // Closes cache avoid Java heap space out of memory while caching query results
+        articleRepository.setCacheEnabled(false);
+
+        try {
+            for (final Segment segment : segments) {
+                for (int from = segment.from; from < segment.to; from += FETCH_SIZE) {
+                    final List<String> articleIds = segment.postings.getIds(from, Math.min(from + FETCH_SIZE, segment.to));
+
+                    for (final JSONObject article : articleRepository.getByIds(articleIds)) {
+                        if (!article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
+                            continue;
+                        }
+
+                        final Date updateDate = (Date) article.opt(Article.ARTICLE_UPDATE_DATE);
+                        writer.writeURL(serverURL + article.optString(Article.ARTICLE_PERMALINK),
+                                        null == updateDate ? null
+                                        : DateFormatUtils.ISO_DATETIME_TIME_ZONE_FORMAT.format(updateDate));
+                    }
+                }
+            }
+        } finally {
+            articleRepository.setCacheEnabled(true); // Restores cache
+        }
+    }
+
+    /**
+     * Gets the URLs of pages, tags (tag-articles), tags wall (/tags.html) and archives (archive-articles), generates
+     * them if not cached.
+     *
+     * @param serverURL the server URL
+     * @return URLs
+     * @throws RepositoryException repository exception
+     * @throws IOException io exception
+     */
+    private MiscURLs getMiscURLs(final String serverURL) throws RepositoryException, IOException {
+        final String cacheKey = MISC_CACHE_KEY_PREFIX + MD5.hash(serverURL + getGeneration(MISC_GENERATION));
+
+        final Cache<String, Serializable> cache = getCache();
+        if (null != cache) {
+            final Object cached = cache.get(cacheKey);
+            if (cached instanceof MiscURLs) {
+                return (MiscURLs) cached;
+            }
+        }
+
+        final StringWriter urls = new StringWriter();
+        final SitemapWriter writer = new SitemapWriter(urls);
+
+        final JSONArray pages = pageRepository.get(new Query()).getJSONArray(Keys.RESULTS);
+        for (int i = 0; i < pages.length(); i++) {
+            writer.writeURL(serverURL + pages.getJSONObject(i).getString(Page.PAGE_PERMALINK), null);
+        }
+
+        final JSONArray tags = tagRepository.get(new Query()).getJSONArray(Keys.RESULTS);
+        for (int i = 0; i < tags.length(); i++) {
+            final String link = URLEncoder.encode(tags.getJSONObject(i).getString(Tag.TAG_TITLE), "UTF-8");
+
+            writer.writeURL(serverURL + "/tags/" + link, null);
+        }
+
+        // Tags wall
+        writer.writeURL(serverURL + "/tags.html", null);
+
+        for (final JSONObject archiveDate : archiveDateUtils.getArchiveDates()) {
+            final String dateString = ArchiveDate.DATE_FORMAT.format(archiveDate.getLong(ArchiveDate.ARCHIVE_TIME));
+
+            writer.writeURL(serverURL + "/archives/" + dateString, null);
+        }
+
+        final MiscURLs ret = new MiscURLs(urls.toString(), writer.getCount());
+        if (null != cache) {
+            cache.put(cacheKey, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Creates an article shard with the specified segments.
+     *
+     * @param segments the specified segments
+     * @return article shard, its URI is "/sitemap/articles/yyyy/MM.xml" of the first month, with a part number suffix
+     * if the month is split, for example "/sitemap/articles/yyyy/MM-1.xml"
+     */
+    private static Shard newArticleShard(final List<Segment> segments) {
+        final Segment first = segments.get(0);
+        final int part = first.from / MAX_URL_COUNT;
+
+        return new Shard(ARTICLE_SITEMAP_URI_PREFIX + first.month + (0 == part ? "" : "-" + part) + ".xml", false, segments);
+    }
+
+    /**
+     * Creates a writer which writes gzipped content into the specified output stream, the content is complete after
+     * the writer closed.
+     *
+     * @param outputStream the specified output stream
+     * @return writer
+     * @throws IOException io exception
+     */
+    private static Writer newGzipWriter(final ByteArrayOutputStream outputStream) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(outputStream), "UTF-8"));
+    }
+
+    /**
+     * Gets the cached gzipped content by the specified cache key.
+     *
+     * @param cacheKey the specified cache key
+     * @return gzipped content, returns {@code null} if not cached
+     */
+    private byte[] getCached(final String cacheKey) {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return null;
+        }
+
+        final Object ret = cache.get(cacheKey);
+
+        return ret instanceof byte[] ? (byte[]) ret : null;
+    }
+
+    /**
+     * Caches the gzipped content written into the specified output stream with the specified cache key.
+     *
+     * @param cacheKey the specified cache key
+     * @param outputStream the specified output stream
+     * @return gzipped content
+     */
+    private byte[] putCached(final String cacheKey, final ByteArrayOutputStream outputStream) {
+        final byte[] ret = outputStream.toByteArray();
+
+        final Cache<String, Serializable> cache = getCache();
+        if (null != cache) {
+            cache.put(cacheKey, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the generation of the specified name.
+     *
+     * @param name the specified name, a year (yyyy) or {@value #MISC_GENERATION}
+     * @return generation, returns {@code ""} if the article repository cache is disabled
+     */
+    private String getGeneration(final String name) {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return "";
+        }
+
+        final Object ret = cache.get(GENERATION_CACHE_KEY_PREFIX + name);
+        if (null == ret) {
+            return putGeneration(name);
+        }
+
+        return ret.toString();
+    }
+
+    /**
+     * Stamps a new generation of the specified name.
+     *
+     * @param name the specified name, a year (yyyy) or {@value #MISC_GENERATION}
+     * @return the new generation
+     */
+    private String putGeneration(final String name) {
+        final String ret = Ids.genTimeMillisId();
+
+        final Cache<String, Serializable> cache = getCache();
+        if (null != cache) {
+            cache.put(GENERATION_CACHE_KEY_PREFIX + name, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the cache for sitemap files.
+     *
+     * @return cache, returns {@code null} if the article repository cache is disabled
+     */
+    private Cache<String, Serializable> getCache() {
+        if (!articleRepository.isCacheEnabled()) {
+            return null;
+        }
+
+        return articleRepository.getCache();
+    }
+
+    /**
+     * Gets the {@link Sitemaps} singleton.
+     *
+     * @return the singleton
+     */
+    public static Sitemaps getInstance() {
+        return SingletonHolder.SINGLETON;
+    }
+
+    /**
+     * Private default constructor.
+     */
+    private Sitemaps() {
+    }
+
+    /**
+     * Sitemap shard, a sitemap file listed in the sitemap index, or the sitemap itself if it is not split.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class Shard {
+
+        /**
+         * URI.
+         */
+        private final String uri;
+        /**
+         * Whether contains pages, tags and archives.
+         */
+        private final boolean misc;
+        /**
+         * Article segments.
+         */
+        private final List<Segment> segments;
+
+        /**
+         * Constructs a shard with the specified URI, misc flag and article segments.
+         *
+         * @param uri the specified URI
+         * @param misc the specified misc flag
+         * @param segments the specified article segments
+         */
+        private Shard(final String uri, final boolean misc, final List<Segment> segments) {
+            this.uri = uri;
+            this.misc = misc;
+            this.segments = segments;
+        }
+    }
+
+    /**
+     * Published articles of an archive month in a shard.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class Segment {
+
+        /**
+         * Archive month (yyyy/MM).
+         */
+        private final String month;
+        /**
+         * Published article posting list of the month.
+         */
+        private final PostingList postings;
+        /**
+         * From index in the posting list (inclusive).
+         */
+        private final int from;
+        /**
+         * To index in the posting list (exclusive).
+         */
+        private final int to;
+
+        /**
+         * Constructs a segment with the specified month, posting list and range.
+         *
+         * @param month the specified month
+         * @param postings the specified posting list
+         * @param from the specified from index (inclusive)
+         * @param to the specified to index (exclusive)
+         */
+        private Segment(final String month, final PostingList postings, final int from, final int to) {
+            this.month = month;
+            this.postings = postings;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * URLs of pages, tags and archives.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class MiscURLs implements Serializable {
+
+        /**
+         * Default serial version uid.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * URL elements.
+         */
+        private final String urls;
+        /**
+         * Count of the URLs.
+         */
+        private final int count;
+
+        /**
+         * Constructs misc URLs with the specified URL elements and count.
+         *
+         * @param urls the specified URL elements
+         * @param count the specified count
+         */
+        private MiscURLs(final String urls, final int count) {
+            this.urls = urls;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Singleton holder.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class SingletonHolder {
+
+        /**
+         * Singleton.
+         */
+        private static final Sitemaps SINGLETON = new Sitemaps();
+
+        /**
+         * Private default constructor.
+         */
+        private SingletonHolder() {
+        }
+    }
+}
@@ -15,19 +15,27 @@
  */
 package org.b3log.solo.util;
 
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateModelException;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
+import org.b3log.latke.RuntimeMode;
 import org.b3log.latke.cache.PageCaches;
 import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.util.Locales;
@@ -35,6 +43,7 @@ import org.b3log.latke.util.Stopwatchs;
 import org.b3log.latke.util.freemarker.Templates;
 import org.b3log.solo.SoloServletListener;
 import org.b3log.solo.model.Preference;
+import org.b3log.solo.processor.util.TemplateManifests;
 import org.b3log.solo.service.PreferenceMgmtService;
 import static org.b3log.solo.model.Skin.*;
 import org.json.JSONArray;
@@ -43,8 +52,29 @@ import org.json.JSONObject;
 /**
  * Skin utilities.
  *
+ * <p>
+ * The language configurations of all installed skins are {@linkplain #loadSkinLangs() loaded} together while
+ * loading skins and changing preference, so filling them reads no file.
+ * </p>
+ *
+ * <p>
+ * The language configurations of the current skin and the mobile skin are
+ * {@linkplain #shareSkinLangs(java.lang.String, java.lang.String) shared} by their template configurations while
+ * loading skins, a template resolves a label from the shared layer if the data model does not contain it, so the
+ * labels are not copied into the data model of each rendering. The shared variables of a template configuration are
+ * not thread-safe, they are set only once before serving requests; after the current skin or locale changed, the
+ * labels are {@linkplain #fillSkinLangs(java.lang.String, java.lang.String, java.util.Map) filled} into the data
+ * models, which override the shared layer.
+ * </p>
+ *
+ * <p>
+ * The templates of the current skin and the mobile skin are {@linkplain #loadTemplates(java.lang.String) parsed}
+ * while loading skins, not by the first renderings. In development mode, the changed templates are
+ * {@linkplain #reloadChangedTemplates() parsed again} and the page cache is cleared.
+ * </p>
+ *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.2.5, Jan 7, 2012
+ * @version 1.0.5.2, May 24, 2012
  * @since 0.3.1
  */
 public final class Skins {
@@ -54,10 +84,43 @@ public final class Skins {
      */
     private static final Logger LOGGER = Logger.getLogger(Skins.class.getName());
     /**
-     * Properties map.
+     * Language configurations, &lt;"skinDirName.localeString", language configurations&gt;.
      */
     private static final Map<String, Map<String, String>> LANG_MAP =
-            new HashMap<String, Map<String, String>>();
+            new ConcurrentHashMap<String, Map<String, String>>();
+    /**
+     * Shared language configurations, &lt;template configuration, language configurations&gt;, set only once.
+     */
+    private static final Map<Configuration, Map<String, String>> SHARED_LANGS =
+            new ConcurrentHashMap<Configuration, Map<String, String>>();
+    /**
+     * Template file name suffix.
+     */
+    private static final String TEMPLATE_FILE_NAME_SUFFIX = ".ftl";
+    /**
+     * Interval of checking templates changes in development mode, in milliseconds.
+     */
+    private static final long TEMPLATE_CHECK_INTERVAL = 2000;
+    /**
+     * Last modified times of the loaded templates, &lt;"skinDirName/templateName", last modified time&gt;.
+     */
+    private static final Map<String, Long> TEMPLATE_LAST_MODIFIEDS = new ConcurrentHashMap<String, Long>();
+    /**
+     * Time of the last templates check.
+     */
+    private static volatile long templateCheckTime;
+    /**
+     * Mobile skin directory name.
+     */
+    private static final String MOBILE_SKIN_DIR_NAME = "mobile";
+    /**
+     * Language configuration file name prefix.
+     */
+    private static final String LANG_FILE_NAME_PREFIX = Keys.LANGUAGE + '_';
+    /**
+     * Language configuration file name suffix.
+     */
+    private static final String LANG_FILE_NAME_SUFFIX = ".properties";
     
     /**
      * Private default constructor.
@@ -69,6 +132,10 @@ public final class Skins {
      * Fills the specified data model with the current skink's language 
      * configurations.
      * 
+     * <p>
+     * Nothing is filled if the language configurations are shared by the template configuration of the specified skin.
+     * </p>
+     * 
      * @param localeString the specified locale string
      * @param currentSkinDirName the specified current skin directory name
      * @param dataModel the specified data model
@@ -81,41 +148,9 @@ public final class Skins {
         Stopwatchs.start("Fill Skin Langs");
 
         try {
-            final String langName = currentSkinDirName + "." + localeString;
-            Map<String, String> langs = LANG_MAP.get(langName);
-            if (null == langs) {
-                LANG_MAP.clear(); // Collect unused skin languages
-
-                LOGGER.log(Level.INFO,
-                           "Loading skin[dirName={0}, locale={1}]",
-                           new Object[]{currentSkinDirName, localeString});
-                langs = new HashMap<String, String>();
-
-                final String webRootPath = SoloServletListener.getWebRoot();
-
-                final String language = Locales.getLanguage(localeString);
-                final String country = Locales.getCountry(localeString);
-
-                final Properties props = new Properties();
-                props.load(new FileReader(webRootPath + "skins"
-                                          + File.separator
-                                          + currentSkinDirName
-                                          + File.separator
-                                          + Keys.LANGUAGE + File.separator
-                                          + Keys.LANGUAGE + '_' + language
-                                          + '_'
-                                          + country + ".properties"));
-                final Set<Object> keys = props.keySet();
-                for (final Object key : keys) {
-                    langs.put((String) key, props.getProperty((String) key));
-                }
-
-                LANG_MAP.put(langName, langs);
-                LOGGER.log(Level.INFO,
-                           "Loaded skin[dirName={0}, locale={1}, keyCount={2}]",
-                           new Object[]{currentSkinDirName,
-                                        localeString,
-                                        langs.size()});
+            final Map<String, String> langs = getSkinLangs(localeString, currentSkinDirName);
+            if (langs == SHARED_LANGS.get(getConfiguration(currentSkinDirName))) {
+                return;
             }
 
             dataModel.putAll(langs);
@@ -127,6 +162,299 @@ public final class Skins {
         }
     }
 
+    /**
+     * Parses the templates of the specified current skin and the mobile skin, records their last modified times for
+     * {@link #reloadChangedTemplates()}.
+     *
+     * <p>
+     * Invoked after the directories for template loading {@linkplain #setDirectoryForTemplateLoading(java.lang.String)
+     * set}. A template failed to parse is logged and will be parsed by its rendering.
+     * </p>
+     *
+     * @param currentSkinDirName the specified current skin directory name
+     */
+    public static void loadTemplates(final String currentSkinDirName) {
+        Stopwatchs.start("Load Templates");
+
+        try {
+            TEMPLATE_LAST_MODIFIEDS.clear();
+
+            final String webRootPath = SoloServletListener.getWebRoot();
+
+            for (final String skinDirName : new String[]{currentSkinDirName, MOBILE_SKIN_DIR_NAME}) {
+                final File[] templateFiles = new File(webRootPath + SKINS + File.separator + skinDirName).listFiles(
+                        new FileFilter() {
+
+                            @Override
+                            public boolean accept(final File file) {
+                                return file.isFile() && file.getName().endsWith(TEMPLATE_FILE_NAME_SUFFIX);
+                            }
+                        });
+
+                if (null == templateFiles) {
+                    LOGGER.log(Level.WARNING, "Skin directory[dirName={0}] is null", skinDirName);
+                    continue;
+                }
+
+                for (final File templateFile : templateFiles) {
+                    final String templateName = templateFile.getName();
+
+                    TEMPLATE_LAST_MODIFIEDS.put(skinDirName + "/" + templateName, templateFile.lastModified());
+
+                    if (null == Templates.getTemplate(skinDirName, templateName)) {
+                        LOGGER.log(Level.WARNING, "Parses template[dirName={0}, name={1}] failed",
+                                   new Object[]{skinDirName, templateName});
+                    }
+                }
+            }
+
+            LOGGER.log(Level.INFO, "Loaded templates[count={0}]", TEMPLATE_LAST_MODIFIEDS.size());
+        } finally {
+            Stopwatchs.end();
+        }
+    }
+
+    /**
+     * Parses the changed templates again and clears the page cache, in development mode.
+     *
+     * <p>
+     * Checks the last modified times of the {@linkplain #loadTemplates(java.lang.String) loaded} templates at most
+     * once every {@value #TEMPLATE_CHECK_INTERVAL} milliseconds, invoked by requests. Does nothing in production
+     * mode.
+     * </p>
+     */
+    public static void reloadChangedTemplates() {
+        if (RuntimeMode.DEVELOPMENT != Latkes.getRuntimeMode()) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        if (now - templateCheckTime < TEMPLATE_CHECK_INTERVAL) {
+            return;
+        }
+        templateCheckTime = now;
+
+        final String webRootPath = SoloServletListener.getWebRoot();
+        final List<String> changedTemplates = new ArrayList<String>();
+
+        for (final Map.Entry<String, Long> templateLastModified : TEMPLATE_LAST_MODIFIEDS.entrySet()) {
+            final String templatePath = templateLastModified.getKey();
+            final long lastModified = new File(webRootPath + SKINS + File.separator + templatePath).lastModified();
+
+            if (lastModified != templateLastModified.getValue()) {
+                TEMPLATE_LAST_MODIFIEDS.put(templatePath, lastModified);
+                changedTemplates.add(templatePath);
+            }
+        }
+
+        if (changedTemplates.isEmpty()) {
+            return;
+        }
+
+        Templates.CACHE.clear();
+        TemplateManifests.clear();
+        // FreeMarker 2.3.18 can not remove a single template from its cache
+        Templates.MAIN_CFG.clearTemplateCache();
+        Templates.MOBILE_CFG.clearTemplateCache();
+
+        for (final String templatePath : changedTemplates) {
+            final int slashIndex = templatePath.indexOf('/');
+            final String skinDirName = templatePath.substring(0, slashIndex);
+            final String templateName = templatePath.substring(slashIndex + 1);
+
+            final Template template = Templates.getTemplate(skinDirName, templateName);
+            LOGGER.log(Level.INFO, "Reloaded template[dirName={0}, name={1}, parsed={2}]",
+                       new Object[]{skinDirName, templateName, null != template});
+        }
+
+        PageCaches.removeAll();
+    }
+
+    /**
+     * Shares the language configurations of the specified locale, of the specified current skin with the main template
+     * configuration and of the mobile skin with the mobile template configuration.
+     *
+     * <p>
+     * Invoked after the language configurations {@linkplain #loadSkinLangs() loaded} and the current skin or locale
+     * changed. A template configuration is shared only once, while loading skins before serving requests, the
+     * language configurations of a skin or locale changed later are filled into the data models.
+     * </p>
+     *
+     * @param localeString the specified locale string
+     * @param currentSkinDirName the specified current skin directory name
+     */
+    public static void shareSkinLangs(final String localeString, final String currentSkinDirName) {
+        shareSkinLangs(localeString, currentSkinDirName, Templates.MAIN_CFG);
+        shareSkinLangs(localeString, MOBILE_SKIN_DIR_NAME, Templates.MOBILE_CFG);
+    }
+
+    /**
+     * Shares the language configurations of the specified locale and skin with the specified template configuration.
+     *
+     * @param localeString the specified locale string
+     * @param skinDirName the specified skin directory name
+     * @param cfg the specified template configuration
+     */
+    private static void shareSkinLangs(final String localeString, final String skinDirName, final Configuration cfg) {
+        if (SHARED_LANGS.containsKey(cfg)) { // Being rendered by other threads
+            LOGGER.log(Level.INFO, "Skin langs[dirName={0}, locale={1}] will be filled into data models",
+                       new Object[]{skinDirName, localeString});
+            return;
+        }
+
+        try {
+            final Map<String, String> langs = getSkinLangs(localeString, skinDirName);
+
+            share(cfg, langs);
+            SHARED_LANGS.put(cfg, langs);
+
+            LOGGER.log(Level.INFO, "Shared skin langs[dirName={0}, locale={1}]", new Object[]{skinDirName, localeString});
+        } catch (final Exception e) {
+            LOGGER.log(Level.SEVERE, "Shares skin langs[dirName=" + skinDirName + ", locale=" + localeString + "] failed",
+                       e);
+        }
+    }
+
+    /**
+     * Sets the specified language configurations as the shared variables of the specified template configuration.
+     *
+     * <p>
+     * MUST be invoked before the specified template configuration is used for rendering.
+     * </p>
+     *
+     * @param cfg the specified template configuration
+     * @param langs the specified language configurations
+     * @throws TemplateModelException template model exception
+     */
+    static void share(final Configuration cfg, final Map<String, String> langs) throws TemplateModelException {
+        for (final Map.Entry<String, String> lang : langs.entrySet()) {
+            cfg.setSharedVariable(lang.getKey(), lang.getValue());
+        }
+    }
+
+    /**
+     * Gets the language configurations of the specified locale and skin, loads them if not loaded.
+     *
+     * @param localeString the specified locale string
+     * @param skinDirName the specified skin directory name
+     * @return language configurations (unmodifiable)
+     * @throws IOException io exception
+     */
+    private static Map<String, String> getSkinLangs(final String localeString, final String skinDirName)
+            throws IOException {
+        final String langName = skinDirName + "." + localeString;
+        Map<String, String> ret = LANG_MAP.get(langName);
+        if (null == ret) { // A skin installed or a locale used after loading
+            final String language = Locales.getLanguage(localeString);
+            final String country = Locales.getCountry(localeString);
+
+            ret = loadSkinLangs(skinDirName, LANG_FILE_NAME_PREFIX + language + '_' + country + LANG_FILE_NAME_SUFFIX);
+            LANG_MAP.put(langName, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the template configuration of the specified skin.
+     *
+     * @param skinDirName the specified skin directory name
+     * @return template configuration
+     */
+    private static Configuration getConfiguration(final String skinDirName) {
+        return MOBILE_SKIN_DIR_NAME.equals(skinDirName) ? Templates.MOBILE_CFG : Templates.MAIN_CFG;
+    }
+
+    /**
+     * Loads the language configurations of all installed skins, replaces the loaded ones.
+     *
+     * <p>
+     * Scans the language configuration files (lang_xx_XX.properties) under the lang directory of each skin
+     * directory, a file failed to load is skipped and will be loaded while filling it.
+     * </p>
+     *
+     * @see #getSkinDirNames()
+     */
+    public static void loadSkinLangs() {
+        Stopwatchs.start("Load Skin Langs");
+
+        try {
+            final String webRootPath = SoloServletListener.getWebRoot();
+            final Map<String, Map<String, String>> langMap = new HashMap<String, Map<String, String>>();
+
+            for (final String skinDirName : getSkinDirNames()) {
+                final File langDir = new File(webRootPath + SKINS + File.separator + skinDirName + File.separator
+                                              + Keys.LANGUAGE);
+                final File[] langFiles = langDir.listFiles(new FileFilter() {
+
+                    @Override
+                    public boolean accept(final File file) {
+                        final String name = file.getName();
+
+                        return file.isFile() && name.startsWith(LANG_FILE_NAME_PREFIX)
+                               && name.endsWith(LANG_FILE_NAME_SUFFIX);
+                    }
+                });
+
+                if (null == langFiles) {
+                    continue;
+                }
+
+                for (final File langFile : langFiles) {
+                    final String fileName = langFile.getName();
+                    final String localeString = fileName.substring(LANG_FILE_NAME_PREFIX.length(),
+                                                                   fileName.length() - LANG_FILE_NAME_SUFFIX.length());
+
+                    try {
+                        langMap.put(skinDirName + "." + localeString, loadSkinLangs(skinDirName, fileName));
+                    } catch (final IOException e) {
+                        LOGGER.log(Level.SEVERE, "Loads skin langs[dirName=" + skinDirName + ", file=" + fileName
+                                                 + "] failed", e);
+                    }
+                }
+            }
+
+            LANG_MAP.putAll(langMap);
+            LANG_MAP.keySet().retainAll(langMap.keySet()); // Collect uninstalled skin languages
+
+            LOGGER.log(Level.INFO, "Loaded skin langs[{0}]", langMap.keySet());
+        } finally {
+            Stopwatchs.end();
+        }
+    }
+
+    /**
+     * Loads the language configurations of the specified skin from the specified file.
+     *
+     * @param skinDirName the specified skin directory name
+     * @param langFileName the specified language configuration file name, for example, "lang_en_US.properties"
+     * @return language configurations (unmodifiable)
+     * @throws IOException io exception
+     */
+    private static Map<String, String> loadSkinLangs(final String skinDirName, final String langFileName)
+            throws IOException {
+        final String webRootPath = SoloServletListener.getWebRoot();
+
+        final Properties props = new Properties();
+        final FileReader reader = new FileReader(webRootPath + SKINS + File.separator + skinDirName + File.separator
+                                                 + Keys.LANGUAGE + File.separator + langFileName);
+        try {
+            props.load(reader);
+        } finally {
+            reader.close();
+        }
+
+        final Map<String, String> ret = new HashMap<String, String>();
+        for (final String key : props.stringPropertyNames()) {
+            ret.put(key, props.getProperty(key));
+        }
+
+        LOGGER.log(Level.FINER, "Loaded skin langs[dirName={0}, file={1}, keyCount={2}]",
+                   new Object[]{skinDirName, langFileName, ret.size()});
+
+        return Collections.unmodifiableMap(ret);
+    }
+
     /**
      * Loads skins for the specified preference and initializes templates 
      * loading.
@@ -207,6 +535,9 @@ public final class Skins {
 
         final String localeString = preference.getString(
                 Preference.LOCALE_STRING);
+        loadSkinLangs();
+        shareSkinLangs(localeString, preference.getString(SKIN_DIR_NAME));
+        loadTemplates(preference.getString(SKIN_DIR_NAME));
         if ("zh_CN".equals(localeString)) {
             TimeZones.setTimeZone("Asia/Shanghai");
         }
@@ -231,6 +562,8 @@ public final class Skins {
 
             Templates.MOBILE_CFG.setDirectoryForTemplateLoading(
                     new File(webRootPath + SKINS + File.separator + "mobile"));
+
+            TemplateManifests.clear();
         } catch (final IOException e) {
             LOGGER.log(Level.SEVERE, "Loads skins error!", e);
             throw new IllegalStateException(e);
@@ -15,22 +15,42 @@
  */
 package org.b3log.solo.util;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.b3log.solo.model.Tag;
 import org.b3log.solo.repository.TagRepository;
 import org.b3log.latke.Keys;
 import org.b3log.latke.repository.RepositoryException;
+import org.b3log.latke.util.Strings;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.repository.ArticleRepository;
+import org.b3log.solo.repository.TagArticleRepository;
+import org.b3log.solo.repository.impl.ArticleRepositoryImpl;
+import org.b3log.solo.repository.impl.TagArticleRepositoryImpl;
 import org.b3log.solo.repository.impl.TagRepositoryImpl;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 /**
  * Tag utilities.
  *
+ * <p>
+ * Every tag holds a posting list ({@link Tag#TAG_PUBLISHED_ARTICLE_POSTINGS}) of its published articles sorted by
+ * create date descending, so a page of a tag is a slice of the list. The list is maintained together with
+ * {@link Tag#TAG_PUBLISHED_REFERENCE_COUNT} on the same tag object being updated. A list which is missing or does
+ * not match the count is rebuilt from the tag-article relations in memory while reading, and persisted by
+ * {@link #rebuildPublishedArticlePostings(org.json.JSONObject)} in the upgrade and the repair.
+ * </p>
+ *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.6, Mar 8, 2011
+ * @version 1.0.1.1, May 24, 2012
  */
 public final class Tags {
 
@@ -44,6 +64,27 @@ public final class Tags {
      */
     private TagRepository tagRepository =
             TagRepositoryImpl.getInstance();
+    /**
+     * Tag-Article repository.
+     */
+    private TagArticleRepository tagArticleRepository =
+            TagArticleRepositoryImpl.getInstance();
+    /**
+     * Article repository.
+     */
+    private ArticleRepository articleRepository =
+            ArticleRepositoryImpl.getInstance();
+    /**
+     * Decoded posting lists, &lt;tagId, decoded posting list&gt;.
+     */
+    private static final Map<String, DecodedPostings> DECODED_POSTINGS =
+            new ConcurrentHashMap<String, DecodedPostings>();
+    /**
+     * Rebuilt posting lists of the tags whose persisted posting lists are
+     * missing or out of sync, &lt;tagId, rebuilt posting list&gt;.
+     */
+    private static final Map<String, DecodedPostings> REBUILT_POSTINGS =
+            new ConcurrentHashMap<String, DecodedPostings>();
     /**
      * Article utilities.
      */
@@ -68,10 +109,201 @@ public final class Tags {
             final int publishedRefCnt =
                     tag.getInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT);
             tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt - 1);
+            removePublishedArticle(tag, articleId);
             tagRepository.update(tagId, tag);
         }
     }
 
+    /**
+     * Gets the published article posting list of the specified tag.
+     *
+     * <p>
+     * Rebuilds the posting list in memory if it is missing, malformed or out of sync with the published reference
+     * count of the specified tag, the rebuilt one is reused until the tag changed. Nothing is persisted here.
+     * </p>
+     *
+     * @param tag the specified tag
+     * @return posting list
+     * @throws JSONException json exception
+     * @throws RepositoryException repository exception
+     */
+    public PostingList getPublishedArticlePostings(final JSONObject tag)
+            throws JSONException, RepositoryException {
+        final String tagId = tag.getString(Keys.OBJECT_ID);
+
+        if (tag.has(Tag.TAG_PUBLISHED_ARTICLE_POSTINGS)) {
+            try {
+                final PostingList ret = decode(tag);
+                if (ret.size() == tag.optInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT)) {
+                    return ret;
+                }
+            } catch (final IllegalArgumentException e) {
+                LOGGER.log(Level.WARNING, "Malformed posting list of tag[id={0}]", tagId);
+            }
+        }
+
+        final String stamp = tag.optString(Tag.TAG_PUBLISHED_ARTICLE_POSTINGS)
+                             + '/' + tag.optInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT);
+        final DecodedPostings rebuilt = REBUILT_POSTINGS.get(tagId);
+        if (null != rebuilt && rebuilt.getEncoded().equals(stamp)) {
+            return rebuilt.getPostings();
+        }
+
+        final PostingList ret = buildPublishedArticlePostings(tagId);
+        REBUILT_POSTINGS.put(tagId, new DecodedPostings(stamp, ret));
+        LOGGER.log(Level.WARNING, "Rebuilt posting list of tag[id={0}, size={1}] in memory, "
+                                  + "please repair tag article counter", new Object[]{tagId, ret.size()});
+
+        return ret;
+    }
+
+    /**
+     * Rebuilds the published article posting list and published reference
+     * count of the specified tag from the tag-article relations.
+     *
+     * <p>
+     * Only modifies the specified tag object, the caller is responsible for
+     * the tag update.
+     * </p>
+     *
+     * @param tag the specified tag
+     * @throws JSONException json exception
+     * @throws RepositoryException repository exception
+     */
+    public void rebuildPublishedArticlePostings(final JSONObject tag)
+            throws JSONException, RepositoryException {
+        final PostingList postings =
+                buildPublishedArticlePostings(tag.getString(Keys.OBJECT_ID));
+
+        tag.put(Tag.TAG_PUBLISHED_ARTICLE_POSTINGS, postings.encode());
+        tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, postings.size());
+    }
+
+    /**
+     * Adds the specified published article into the posting list of the
+     * specified tag.
+     *
+     * <p>
+     * Only modifies the specified tag object, the caller is responsible for
+     * the tag update.
+     * </p>
+     *
+     * @param tag the specified tag
+     * @param article the specified article, MUST contain its create date
+     * @throws JSONException json exception
+     */
+    public void addPublishedArticle(final JSONObject tag,
+                                    final JSONObject article)
+            throws JSONException {
+        final Date createDate = (Date) article.get(Article.ARTICLE_CREATE_DATE);
+        final PostingList postings =
+                decodeQuietly(tag).add(article.getString(Keys.OBJECT_ID),
+                                       createDate.getTime());
+
+        tag.put(Tag.TAG_PUBLISHED_ARTICLE_POSTINGS, postings.encode());
+    }
+
+    /**
+     * Removes the specified article from the posting list of the specified
+     * tag.
+     *
+     * <p>
+     * Only modifies the specified tag object, the caller is responsible for
+     * the tag update.
+     * </p>
+     *
+     * @param tag the specified tag
+     * @param articleId the specified article id
+     * @throws JSONException json exception
+     */
+    public void removePublishedArticle(final JSONObject tag,
+                                       final String articleId)
+            throws JSONException {
+        final PostingList postings = decodeQuietly(tag).remove(articleId);
+
+        tag.put(Tag.TAG_PUBLISHED_ARTICLE_POSTINGS, postings.encode());
+    }
+
+    /**
+     * Builds the published article posting list of a tag specified by the
+     * given tag id from the tag-article relations.
+     *
+     * @param tagId the given tag id
+     * @return posting list
+     * @throws JSONException json exception
+     * @throws RepositoryException repository exception
+     */
+    private PostingList buildPublishedArticlePostings(final String tagId)
+            throws JSONException, RepositoryException {
+        final JSONObject result =
+                tagArticleRepository.getByTagId(tagId, 1, Integer.MAX_VALUE);
+        final JSONArray relations = result.getJSONArray(Keys.RESULTS);
+        final List<String> articleIds = new ArrayList<String>();
+        for (int i = 0; i < relations.length(); i++) {
+            articleIds.add(relations.getJSONObject(i).getString(
+                    Article.ARTICLE + "_" + Keys.OBJECT_ID));
+        }
+
+        final List<String> ids = new ArrayList<String>();
+        final List<Long> times = new ArrayList<Long>();
+        for (final JSONObject article : articleRepository.getByIds(articleIds)) {
+            if (!article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
+                continue;
+            }
+
+            ids.add(article.getString(Keys.OBJECT_ID));
+            times.add(((Date) article.get(Article.ARTICLE_CREATE_DATE)).getTime());
+        }
+
+        return PostingList.build(ids, times);
+    }
+
+    /**
+     * Decodes the posting list of the specified tag, a malformed posting list
+     * is treated as empty (will be rebuilt by the next
+     * {@link #getPublishedArticlePostings(org.json.JSONObject)} because of
+     * the size mismatch).
+     *
+     * @param tag the specified tag
+     * @return posting list
+     */
+    private PostingList decodeQuietly(final JSONObject tag) {
+        try {
+            return decode(tag);
+        } catch (final IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Malformed posting list of tag[id={0}]",
+                       tag.optString(Keys.OBJECT_ID));
+
+            return PostingList.EMPTY;
+        }
+    }
+
+    /**
+     * Decodes the posting list of the specified tag, reuses the last decoded
+     * one of the tag if the encoded posting list is not changed.
+     *
+     * @param tag the specified tag
+     * @return posting list
+     * @throws IllegalArgumentException if the posting list is malformed
+     */
+    private PostingList decode(final JSONObject tag) {
+        final String tagId = tag.optString(Keys.OBJECT_ID);
+        final String encoded = tag.optString(Tag.TAG_PUBLISHED_ARTICLE_POSTINGS);
+        if (Strings.isEmptyOrNull(tagId) || Strings.isEmptyOrNull(encoded)) {
+            return PostingList.decode(encoded);
+        }
+
+        final DecodedPostings decoded = DECODED_POSTINGS.get(tagId);
+        if (null != decoded && decoded.getEncoded().equals(encoded)) {
+            return decoded.getPostings();
+        }
+
+        final PostingList ret = PostingList.decode(encoded);
+        DECODED_POSTINGS.put(tagId, new DecodedPostings(encoded, ret));
+
+        return ret;
+    }
+
     /**
      * Removes tags of unpublished articles from the specified tags.
      *
@@ -106,6 +338,55 @@ public final class Tags {
     private Tags() {
     }
 
+    /**
+     * Decoded posting list.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     */
+    private static final class DecodedPostings {
+
+        /**
+         * Encoded posting list.
+         */
+        private final String encoded;
+        /**
+         * Posting list.
+         */
+        private final PostingList postings;
+
+        /**
+         * Constructs a decoded posting list with the specified encoded
+         * posting list and posting list.
+         *
+         * @param encoded the specified encoded posting list
+         * @param postings the specified posting list
+         */
+        private DecodedPostings(final String encoded,
+                                final PostingList postings) {
+            this.encoded = encoded;
+            this.postings = postings;
+        }
+
+        /**
+         * Gets the encoded posting list.
+         *
+         * @return encoded posting list
+         */
+        private String getEncoded() {
+            return encoded;
+        }
+
+        /**
+         * Gets the posting list.
+         *
+         * @return posting list
+         */
+        private PostingList getPostings() {
+            return postings;
+        }
+    }
+
     /**
      * Singleton holder.
      *
@@ -15,11 +15,19 @@
  */
 package org.b3log.solo.util;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.b3log.latke.Keys;
+import org.b3log.latke.cache.Cache;
+import org.b3log.latke.model.Role;
 import org.b3log.latke.model.User;
 import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.RepositoryException;
@@ -27,6 +35,9 @@ import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.user.GeneralUser;
 import org.b3log.latke.user.UserService;
 import org.b3log.latke.user.UserServiceFactory;
+import org.b3log.latke.util.CollectionUtils;
+import org.b3log.latke.util.Ids;
+import org.b3log.latke.util.Stopwatchs;
 import org.b3log.latke.util.Strings;
 import org.b3log.solo.model.Article;
 import org.b3log.solo.processor.LoginProcessor;
@@ -34,15 +45,20 @@ import org.b3log.solo.repository.ArticleRepository;
 import org.b3log.solo.repository.UserRepository;
 import org.b3log.solo.repository.impl.ArticleRepositoryImpl;
 import org.b3log.solo.repository.impl.UserRepositoryImpl;
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 /**
  * User utilities.
  *
+ * <p>
+ * Holds an immutable directory of all users (by email and by id) for the read path (header user list, multiple users
+ * detection and author resolution). The directory is reloaded after {@link #invalidate()}, the invalidation is shared
+ * across instances by a generation stamp in the user repository cache.
+ * </p>
+ *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.1.3, Feb 7, 2012
+ * @version 1.0.2.0, May 24, 2012
  * @since 0.3.1
  */
 public final class Users {
@@ -51,6 +67,10 @@ public final class Users {
      * Logger.
      */
     private static final Logger LOGGER = Logger.getLogger(Users.class.getName());
+    /**
+     * Cache key of user directory generation.
+     */
+    private static final String GENERATION_CACHE_KEY = "userDirectoryGeneration";
     /**
      * User repository.
      */
@@ -63,6 +83,10 @@ public final class Users {
      * Article repository.
      */
     private ArticleRepository articleRepository = ArticleRepositoryImpl.getInstance();
+    /**
+     * User directory, {@code null} if not loaded.
+     */
+    private volatile Directory directory;
 
     /**
      * Determines whether if exists multiple users in current Solo.
@@ -71,24 +95,105 @@ public final class Users {
      * @throws ServiceException service exception
      */
     public boolean hasMultipleUsers() throws ServiceException {
-        final Query query = new Query().setPageCount(1);
+        try {
+            return 1 != getDirectory().users.size();
+        } catch (final RepositoryException e) {
+            LOGGER.log(Level.SEVERE, "Determines multiple users failed", e);
 
+            throw new ServiceException(e);
+        }
+    }
+
+    /**
+     * Gets all users.
+     *
+     * @return users (copies), returns an empty list if not found
+     * @throws ServiceException service exception
+     */
+    public List<JSONObject> getUsers() throws ServiceException {
         try {
-            final JSONArray users = userRepository.get(query).
-                    getJSONArray(Keys.RESULTS);
+            final List<JSONObject> users = getDirectory().users;
+            final List<JSONObject> ret = new ArrayList<JSONObject>(users.size());
+            for (final JSONObject user : users) {
+                ret.add(copy(user));
+            }
 
-            return 1 != users.length();
+            return ret;
         } catch (final RepositoryException e) {
-            LOGGER.log(Level.SEVERE, "Determines multiple users failed", e);
+            LOGGER.log(Level.SEVERE, "Gets users failed", e);
 
             throw new ServiceException(e);
-        } catch (final JSONException e) {
-            LOGGER.log(Level.SEVERE, "Determines multiple users failed", e);
+        }
+    }
+
+    /**
+     * Gets a user by the specified email.
+     *
+     * @param email the specified email, case insensitive
+     * @return user (copy), returns {@code null} if not found
+     * @throws ServiceException service exception
+     */
+    public JSONObject getUserByEmail(final String email) throws ServiceException {
+        try {
+            final JSONObject ret = getDirectory().usersByEmail.get(email.toLowerCase().trim());
+
+            return null == ret ? null : copy(ret);
+        } catch (final RepositoryException e) {
+            LOGGER.log(Level.SEVERE, "Gets user by email[" + email + "] failed", e);
 
             throw new ServiceException(e);
         }
     }
 
+    /**
+     * Gets a user by the specified id.
+     *
+     * @param userId the specified id
+     * @return user (copy), returns {@code null} if not found
+     * @throws ServiceException service exception
+     */
+    public JSONObject getUserById(final String userId) throws ServiceException {
+        try {
+            final JSONObject ret = getDirectory().usersById.get(userId);
+
+            return null == ret ? null : copy(ret);
+        } catch (final RepositoryException e) {
+            LOGGER.log(Level.SEVERE, "Gets user by id[" + userId + "] failed", e);
+
+            throw new ServiceException(e);
+        }
+    }
+
+    /**
+     * Gets the administrator.
+     *
+     * @return administrator (copy), returns {@code null} if not found
+     * @throws ServiceException service exception
+     */
+    public JSONObject getAdmin() throws ServiceException {
+        try {
+            final JSONObject ret = getDirectory().admin;
+
+            return null == ret ? null : copy(ret);
+        } catch (final RepositoryException e) {
+            LOGGER.log(Level.SEVERE, "Gets admin failed", e);
+
+            throw new ServiceException(e);
+        }
+    }
+
+    /**
+     * Invalidates the user directory, should be invoked after a user has been added, updated or removed.
+     */
+    public void invalidate() {
+        directory = null;
+
+        final Cache<String, Serializable> cache = getCache();
+        if (null != cache) {
+            cache.put(GENERATION_CACHE_KEY, Ids.genTimeMillisId());
+        }
+    }
+
     /**
      * Can the current user access an article specified by the given article id?
      *
@@ -185,11 +290,7 @@ public final class Users {
      */
     public boolean isSoloUser(final String email) {
         try {
-            final Query query = new Query().setPageCount(1);
-            final JSONObject result = userRepository.get(query);
-            final JSONArray users = result.getJSONArray(Keys.RESULTS);
-
-            return existEmail(email, users);
+            return null != email && getDirectory().usersByEmail.containsKey(email.toLowerCase().trim());
         } catch (final Exception e) {
             LOGGER.log(Level.SEVERE, e.getMessage(), e);
             return false;
@@ -197,22 +298,107 @@ public final class Users {
     }
 
     /**
-     * Determines whether the specified email exits in the specified users.
+     * Gets the user directory, loads it if it has not been loaded or has been invalidated.
      *
-     * @param email the specified email
-     * @param users the specified user
-     * @return {@code true} if exists, {@code false} otherwise
-     * @throws JSONException json exception
+     * @return user directory
+     * @throws RepositoryException repository exception
      */
-    private boolean existEmail(final String email, final JSONArray users) throws JSONException {
-        for (int i = 0; i < users.length(); i++) {
-            final JSONObject user = users.getJSONObject(i);
-            if (user.getString(User.USER_EMAIL).equalsIgnoreCase(email)) {
-                return true;
+    private Directory getDirectory() throws RepositoryException {
+        final Object generation = getGeneration();
+
+        final Directory ret = directory;
+        if (null != ret && ret.isGeneration(generation)) {
+            return ret;
+        }
+
+        return load(generation);
+    }
+
+    /**
+     * Loads the user directory of the specified generation.
+     *
+     * @param generation the specified generation, {@code null} if the user repository cache is disabled
+     * @return user directory
+     * @throws RepositoryException repository exception
+     */
+    private synchronized Directory load(final Object generation) throws RepositoryException {
+        if (null != directory && directory.isGeneration(generation)) { // Loaded by another thread
+            return directory;
+        }
+
+        Stopwatchs.start("Load User Directory");
+
+        try {
+            final Query query = new Query().setPageCount(1);
+            final JSONObject result = userRepository.get(query);
+            final List<JSONObject> users = CollectionUtils.jsonArrayToList(result.optJSONArray(Keys.RESULTS));
+
+            final Map<String, JSONObject> usersByEmail = new HashMap<String, JSONObject>();
+            final Map<String, JSONObject> usersById = new HashMap<String, JSONObject>();
+            JSONObject admin = null;
+            for (final JSONObject user : users) {
+                usersByEmail.put(user.optString(User.USER_EMAIL).toLowerCase().trim(), user);
+                usersById.put(user.optString(Keys.OBJECT_ID), user);
+
+                if (null == admin && Role.ADMIN_ROLE.equals(user.optString(User.USER_ROLE))) {
+                    admin = user;
+                }
             }
+
+            directory = new Directory(generation, Collections.unmodifiableList(users), usersByEmail, usersById, admin);
+
+            return directory;
+        } finally {
+            Stopwatchs.end();
+        }
+    }
+
+    /**
+     * Gets the current generation of the user directory.
+     *
+     * @return generation, returns {@code null} if the user repository cache is disabled
+     */
+    private Object getGeneration() {
+        final Cache<String, Serializable> cache = getCache();
+        if (null == cache) {
+            return null;
+        }
+
+        Object ret = cache.get(GENERATION_CACHE_KEY);
+        if (null == ret) {
+            ret = Ids.genTimeMillisId();
+            cache.put(GENERATION_CACHE_KEY, (Serializable) ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the cache for the user directory generation.
+     *
+     * @return cache, returns {@code null} if the user repository cache is disabled
+     */
+    private Cache<String, Serializable> getCache() {
+        if (!userRepository.isCacheEnabled()) {
+            return null;
         }
 
-        return false;
+        return userRepository.getCache();
+    }
+
+    /**
+     * Makes a shallow copy of the specified user.
+     *
+     * @param user the specified user
+     * @return copy
+     * @throws RepositoryException repository exception
+     */
+    private static JSONObject copy(final JSONObject user) throws RepositoryException {
+        try {
+            return new JSONObject(user, CollectionUtils.jsonArrayToArray(user.names(), String[].class));
+        } catch (final JSONException e) {
+            throw new RepositoryException(e);
+        }
     }
 
     /**
@@ -230,6 +416,65 @@ public final class Users {
     private Users() {
     }
 
+    /**
+     * Immutable user directory.
+     *
+     * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+     * @version 1.0.0.0, May 24, 2012
+     * @since 0.4.5
+     */
+    private static final class Directory {
+
+        /**
+         * Generation, {@code null} if the user repository cache is disabled.
+         */
+        private final Object generation;
+        /**
+         * Users.
+         */
+        private final List<JSONObject> users;
+        /**
+         * Users by email (lower case).
+         */
+        private final Map<String, JSONObject> usersByEmail;
+        /**
+         * Users by id.
+         */
+        private final Map<String, JSONObject> usersById;
+        /**
+         * Administrator, {@code null} if not found.
+         */
+        private final JSONObject admin;
+
+        /**
+         * Constructs a user directory with the specified generation and users.
+         *
+         * @param generation the specified generation
+         * @param users the specified users
+         * @param usersByEmail the specified users by email
+         * @param usersById the specified users by id
+         * @param admin the specified administrator
+         */
+        private Directory(final Object generation, final List<JSONObject> users, final Map<String, JSONObject> usersByEmail,
+                          final Map<String, JSONObject> usersById, final JSONObject admin) {
+            this.generation = generation;
+            this.users = users;
+            this.usersByEmail = usersByEmail;
+            this.usersById = usersById;
+            this.admin = admin;
+        }
+
+        /**
+         * Determines whether this directory is of the specified generation.
+         *
+         * @param generation the specified generation
+         * @return {@code true} if it is, returns {@code false} otherwise
+         */
+        private boolean isGeneration(final Object generation) {
+            return null == generation ? null == this.generation : generation.equals(this.generation);
+        }
+    }
+
     /**
      * Singleton holder.
      *
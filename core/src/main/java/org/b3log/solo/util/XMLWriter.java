@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming XML writer, escapes and writes elements, attributes and texts to the underlying writer through a
+ * fixed size buffer.
+ *
+ * <p>
+ * No intermediate string is built for a document or an escaped text, so the memory used for writing a document is
+ * bounded by the buffer size, no matter how long the texts are. Texts are written in UTF-8 as is, only the markup
+ * characters ({@code &}, {@code <}, {@code >} and {@code "} in attribute values) are escaped, and the characters not
+ * allowed in XML 1.0 (control characters except tab, line feed and carriage return) are dropped.
+ * </p>
+ *
+ * <pre>
+ * final XMLWriter writer = new XMLWriter(outputStream);
+ * writer.startDocument();
+ * writer.startElement("feed").attribute("xmlns", "http://www.w3.org/2005/Atom");
+ * writer.element("title", title);
+ * writer.endDocument();
+ * </pre>
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.1, May 24, 2012
+ * @since 0.4.5
+ */
+public final class XMLWriter {
+
+    /**
+     * Buffer size.
+     */
+    private static final int BUFFER_SIZE = 4096;
+    /**
+     * Start document.
+     */
+    private static final String START_DOCUMENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    /**
+     * Underlying writer.
+     */
+    private final Writer writer;
+    /**
+     * Buffer.
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+    /**
+     * Count of the buffered characters.
+     */
+    private int position;
+    /**
+     * Names of the open elements.
+     */
+    private final List<String> openElements = new ArrayList<String>();
+    /**
+     * Whether the start tag of the current element is not closed yet (attributes could be written).
+     */
+    private boolean inStartTag;
+
+    /**
+     * Constructs an XML writer with the specified output stream, encodes the document in UTF-8.
+     *
+     * @param outputStream the specified output stream
+     */
+    public XMLWriter(final OutputStream outputStream) {
+        this(new OutputStreamWriter(outputStream, Charset.forName("UTF-8")));
+    }
+
+    /**
+     * Constructs an XML writer with the specified underlying writer.
+     *
+     * @param writer the specified underlying writer
+     */
+    public XMLWriter(final Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Starts the document, writes the XML declaration.
+     *
+     * @return this writer
+     * @throws IOException io exception
+     */
+    public XMLWriter startDocument() throws IOException {
+        write(START_DOCUMENT);
+
+        return this;
+    }
+
+    /**
+     * Starts an element with the specified name.
+     *
+     * @param name the specified name
+     * @return this writer
+     * @throws IOException io exception
+     */
+    public XMLWriter startElement(final String name) throws IOException {
+        closeStartTag();
+
+        write('<');
+        write(name);
+        openElements.add(name);
+        inStartTag = true;
+
+        return this;
+    }
+
+    /**
+     * Writes an attribute with the specified name and value to the current element.
+     *
+     * @param name the specified name
+     * @param value the specified value, {@code null} as empty
+     * @return this writer
+     * @throws IOException io exception
+     * @throws IllegalStateException if the start tag of the current element has been closed
+     */
+    public XMLWriter attribute(final String name, final String value) throws IOException {
+        if (!inStartTag) {
+            throw new IllegalStateException("Attribute[name=" + name + "] must be written right after the start tag");
+        }
+
+        write(' ');
+        write(name);
+        write("=\"");
+        escape(value, true);
+        write('"');
+
+        return this;
+    }
+
+    /**
+     * Writes the specified text to the current element, writes nothing if the specified text is empty, so the element
+     * may still end with an empty-element tag.
+     *
+     * @param text the specified text, {@code null} as empty
+     * @return this writer
+     * @throws IOException io exception
+     */
+    public XMLWriter text(final String text) throws IOException {
+        if (null == text || text.isEmpty()) {
+            return this;
+        }
+
+        closeStartTag();
+        escape(text, false);
+
+        return this;
+    }
+
+    /**
+     * Writes an element with the specified name and text.
+     *
+     * @param name the specified name
+     * @param text the specified text, {@code null} as empty
+     * @return this writer
+     * @throws IOException io exception
+     */
+    public XMLWriter element(final String name, final String text) throws IOException {
+        return startElement(name).text(text).endElement();
+    }
+
+    /**
+     * Ends the current element, writes an empty-element tag if it has no content.
+     *
+     * @return this writer
+     * @throws IOException io exception
+     * @throws IllegalStateException if there is no open element
+     */
+    public XMLWriter endElement() throws IOException {
+        if (openElements.isEmpty()) {
+            throw new IllegalStateException("No open element");
+        }
+
+        final String name = openElements.remove(openElements.size() - 1);
+        if (inStartTag) {
+            write(" />");
+            inStartTag = false;
+        } else {
+            write("</");
+            write(name);
+            write('>');
+        }
+
+        return this;
+    }
+
+    /**
+     * Ends the document, ends all the open elements and flushes this writer.
+     *
+     * @throws IOException io exception
+     */
+    public void endDocument() throws IOException {
+        while (!openElements.isEmpty()) {
+            endElement();
+        }
+
+        flush();
+    }
+
+    /**
+     * Flushes the buffered characters and the underlying writer.
+     *
+     * @throws IOException io exception
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        writer.flush();
+    }
+
+    /**
+     * Closes the start tag of the current element if it is not closed yet.
+     *
+     * @throws IOException io exception
+     */
+    private void closeStartTag() throws IOException {
+        if (inStartTag) {
+            write('>');
+            inStartTag = false;
+        }
+    }
+
+    /**
+     * Escapes and writes the specified value.
+     *
+     * @param value the specified value, {@code null} as empty
+     * @param attribute whether the specified value is an attribute value
+     * @throws IOException io exception
+     */
+    private void escape(final String value, final boolean attribute) throws IOException {
+        if (null == value) {
+            return;
+        }
+
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    write("&amp;");
+                    break;
+                case '<':
+                    write("&lt;");
+                    break;
+                case '>':
+                    write("&gt;");
+                    break;
+                case '"':
+                    if (attribute) {
+                        write("&quot;");
+                    } else {
+                        write(c);
+                    }
+                    break;
+                default:
+                    if (c >= ' ' || '\t' == c || '\n' == c || '\r' == c) {
+                        write(c);
+                    }
+            }
+        }
+    }
+
+    /**
+     * Writes the specified character to the buffer.
+     *
+     * @param c the specified character
+     * @throws IOException io exception
+     */
+    private void write(final char c) throws IOException {
+        if (BUFFER_SIZE == position) {
+            flushBuffer();
+        }
+
+        buffer[position++] = c;
+    }
+
+    /**
+     * Writes the specified string to the buffer as is.
+     *
+     * @param string the specified string
+     * @throws IOException io exception
+     */
+    private void write(final String string) throws IOException {
+        final int length = string.length();
+        int offset = 0;
+        while (offset < length) {
+            if (BUFFER_SIZE == position) {
+                flushBuffer();
+            }
+
+            final int count = Math.min(length - offset, BUFFER_SIZE - position);
+            string.getChars(offset, offset + count, buffer, position);
+            position += count;
+            offset += count;
+        }
+    }
+
+    /**
+     * Writes the buffered characters to the underlying writer.
+     *
+     * @throws IOException io exception
+     */
+    private void flushBuffer() throws IOException {
+        if (0 < position) {
+            writer.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.b3log.latke.repository.Transaction;
 import org.b3log.solo.AbstractTestCase;
 import org.b3log.solo.model.Article;
 import org.b3log.solo.repository.ArticleRepository;
+import org.b3log.solo.util.Cursors;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.testng.Assert;
@@ -32,7 +33,7 @@ import org.testng.annotations.Test;
  * {@link ArticleRepositoryImpl} test case.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.3, May 1, 2012
+ * @version 1.0.0.4, May 23, 2012
  */
 @Test(suiteName = "repository")
 public final class ArticleRepositoryImplTestCase extends AbstractTestCase {
@@ -276,6 +277,30 @@ public final class ArticleRepositoryImplTestCase extends AbstractTestCase {
         Assert.assertEquals(recentArticles.get(2).getString(Article.ARTICLE_TITLE), "article title1");
     }
 
+    /**
+     * Get Published After.
+     * 
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = {"add",
+                              "previousAndNext",
+                              "getMostCommentArticles",
+                              "getMostViewCountArticles"})
+    public void getPublishedAfter() throws Exception {
+        final ArticleRepository articleRepository = getArticleRepository();
+
+        List<JSONObject> articles = articleRepository.getPublishedAfter(Article.ARTICLE_CREATE_DATE, null, 2);
+        Assert.assertEquals(articles.size(), 2);
+        Assert.assertEquals(articles.get(0).getString(Article.ARTICLE_TITLE), "article title3");
+        Assert.assertEquals(articles.get(1).getString(Article.ARTICLE_TITLE), "article title2");
+
+        final String cursor = Cursors.toArticleCursor(articles.get(1), Article.ARTICLE_CREATE_DATE);
+        articles = articleRepository.getPublishedAfter(Article.ARTICLE_CREATE_DATE,
+                                                       Cursors.parseArticleCursor(cursor, Article.ARTICLE_CREATE_DATE), 2);
+        Assert.assertEquals(articles.size(), 1); // The unpublished one excluded
+        Assert.assertEquals(articles.get(0).getString(Article.ARTICLE_TITLE), "article title1");
+    }
+
     /**
      * Is Published.
      * 
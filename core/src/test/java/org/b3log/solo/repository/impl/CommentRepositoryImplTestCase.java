@@ -17,9 +17,12 @@ package org.b3log.solo.repository.impl;
 
 import java.util.Date;
 import java.util.List;
+import org.b3log.latke.Keys;
 import org.b3log.latke.repository.Transaction;
 import org.b3log.solo.AbstractTestCase;
+import org.b3log.solo.model.Article;
 import org.b3log.solo.model.Comment;
+import org.b3log.solo.model.Page;
 import org.b3log.solo.repository.CommentRepository;
 import org.json.JSONObject;
 import org.testng.Assert;
@@ -29,7 +32,7 @@ import org.testng.annotations.Test;
  * {@link ArticleRepositoryImpl} test case.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.1, Jan 7, 2012
+ * @version 1.0.0.2, May 24, 2012
  */
 @Test(suiteName = "repository")
 public class CommentRepositoryImplTestCase extends AbstractTestCase {
@@ -73,4 +76,54 @@ public class CommentRepositoryImplTestCase extends AbstractTestCase {
         
         Assert.assertEquals(commentRepository.getRecentComments(3).size(), 1);
     }
+
+    /**
+     * Get Recent Comments.
+     * 
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "add")
+    public void getRecentComments() throws Exception {
+        final CommentRepository commentRepository = getCommentRepository();
+
+        String lastCommentId = null;
+        for (int i = 0; i < 4; i++) {
+            final boolean onPage = 0 == i % 2;
+            final JSONObject comment = new JSONObject();
+
+            comment.put(Comment.COMMENT_CONTENT, "comment content" + i);
+            comment.put(Comment.COMMENT_DATE, new Date());
+            comment.put(Comment.COMMENT_EMAIL, "test@gmail.com");
+            comment.put(Comment.COMMENT_NAME, "comment name" + i);
+            comment.put(Comment.COMMENT_ON_ID, onPage ? "page id" : "unpublished article id");
+            comment.put(Comment.COMMENT_ON_TYPE, onPage ? Page.PAGE : Article.ARTICLE);
+            comment.put(Comment.COMMENT_ORIGINAL_COMMENT_ID, "");
+            comment.put(Comment.COMMENT_ORIGINAL_COMMENT_NAME, "");
+            comment.put(Comment.COMMENT_SHARP_URL, "comment sharp url" + i);
+            comment.put(Comment.COMMENT_URL, "comment url" + i);
+            comment.put(Comment.COMMENT_THUMBNAIL_URL, "comment thumbnail url" + i);
+
+            final Transaction transaction = commentRepository.beginTransaction();
+            final String commentId = commentRepository.add(comment);
+            transaction.commit();
+
+            if (onPage) {
+                lastCommentId = commentId;
+            }
+        }
+
+        // Comments of the unpublished article are skipped, and the list is still full
+        final List<JSONObject> recentComments = commentRepository.getRecentComments(3);
+        Assert.assertEquals(recentComments.size(), 3);
+        Assert.assertEquals(recentComments.get(0).getString(Keys.OBJECT_ID), lastCommentId);
+        for (final JSONObject recentComment : recentComments) {
+            Assert.assertFalse("unpublished article id".equals(recentComment.getString(Comment.COMMENT_ON_ID)));
+        }
+
+        final Transaction transaction = commentRepository.beginTransaction();
+        commentRepository.remove(lastCommentId);
+        transaction.commit();
+
+        Assert.assertEquals(commentRepository.getRecentComments(3).size(), 2);
+    }
 }
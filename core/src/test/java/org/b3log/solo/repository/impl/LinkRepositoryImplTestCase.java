@@ -15,6 +15,8 @@
  */
 package org.b3log.solo.repository.impl;
 
+import java.util.List;
+import org.b3log.latke.Keys;
 import org.b3log.latke.repository.Transaction;
 import org.b3log.solo.AbstractTestCase;
 import org.b3log.solo.model.Link;
@@ -27,7 +29,7 @@ import org.testng.annotations.Test;
  * {@link LinkRepositoryImpl} test case.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.0, Dec 29, 2011
+ * @version 1.0.0.1, May 24, 2012
  */
 @Test(suiteName = "repository")
 public final class LinkRepositoryImplTestCase extends AbstractTestCase {
@@ -96,5 +98,22 @@ public final class LinkRepositoryImplTestCase extends AbstractTestCase {
         link3 = linkRepository.getUnder(link2Id);
         Assert.assertNotNull(link3);
         Assert.assertEquals(link3.getInt(Link.LINK_ORDER), link3Order);
+
+        List<JSONObject> links = linkRepository.getLinksSnapshot();
+        Assert.assertEquals(links.size(), total);
+        Assert.assertEquals(links.get(0).getInt(Link.LINK_ORDER), link1Order);
+        Assert.assertEquals(links.get(2).getInt(Link.LINK_ORDER), link3Order);
+
+        // Moves link 3 to the top
+        link3.put(Link.LINK_ORDER, 0);
+        transaction = linkRepository.beginTransaction();
+        linkRepository.update(link3.getString(Keys.OBJECT_ID), link3);
+        linkRepository.remove(link2Id);
+        transaction.commit();
+
+        links = linkRepository.getLinksSnapshot();
+        Assert.assertEquals(links.size(), total - 1);
+        Assert.assertEquals(links.get(0).getString(Keys.OBJECT_ID), link3.getString(Keys.OBJECT_ID));
+        Assert.assertEquals(links.get(1).getInt(Link.LINK_ORDER), link1Order);
     }
 }
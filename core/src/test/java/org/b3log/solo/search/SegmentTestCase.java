@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link Segment} and {@link SegmentWriter} test case.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public final class SegmentTestCase {
+
+    /**
+     * Test method for {@linkplain Segment#open(byte[], boolean)}.
+     */
+    @Test
+    public void open() {
+        final byte[] data = newSegmentData();
+
+        for (final boolean direct : new boolean[]{false, true}) {
+            final Segment segment = Segment.open(data, direct);
+
+            Assert.assertEquals(segment.getDocumentCount(), 3);
+            Assert.assertEquals(segment.getTermCount(), 102);
+            Assert.assertEquals(segment.getId(1), "id1");
+            Assert.assertEquals(segment.getLength(2), 3);
+
+            final Document document = segment.getDocument(0);
+            Assert.assertEquals(document.getType(), "article");
+            Assert.assertEquals(document.getTitle(), "Title 0");
+            Assert.assertEquals(document.getPermalink(), "/articles/0");
+        }
+
+        final Segment empty = Segment.open(new SegmentWriter().toByteArray(), false);
+        Assert.assertEquals(empty.getDocumentCount(), 0);
+        Assert.assertNull(empty.getPostings("solo"));
+    }
+
+    /**
+     * Test method for {@linkplain Segment#open(byte[], boolean)} with malformed data.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void openMalformed() {
+        Segment.open(new byte[]{Segment.VERSION, 5}, false);
+    }
+
+    /**
+     * Test method for {@linkplain Segment#getPostings(java.lang.String)}.
+     */
+    @Test
+    public void getPostings() {
+        final Segment segment = Segment.open(newSegmentData(), false);
+
+        for (int i = 0; i < 100; i++) {
+            final Segment.Postings postings = segment.getPostings(term(i));
+            Assert.assertNotNull(postings, term(i));
+            Assert.assertEquals(postings.getDocumentFreq(), 2);
+
+            Assert.assertTrue(postings.next());
+            Assert.assertEquals(postings.getDocumentNum(), i % 2);
+            Assert.assertEquals(postings.getFreq(), 1);
+            Assert.assertTrue(postings.next());
+            Assert.assertEquals(postings.getDocumentNum(), 2);
+            Assert.assertEquals(postings.getFreq(), i + 1);
+            Assert.assertFalse(postings.next());
+        }
+
+        // Terms share a prefix ending in a high surrogate
+        Assert.assertEquals(segment.getPostings("𠀀𠀁").getDocumentFreq(), 1);
+        Assert.assertEquals(segment.getPostings("𠀀𠀂").getDocumentFreq(), 1);
+
+        Assert.assertNull(segment.getPostings(""));
+        Assert.assertNull(segment.getPostings("term0005"));
+        Assert.assertNull(segment.getPostings("zzz"));
+    }
+
+    /**
+     * Test method for {@linkplain Segment#getTerms()}.
+     */
+    @Test
+    public void getTerms() {
+        final Segment.Terms terms = Segment.open(newSegmentData(), false).getTerms();
+
+        final List<String> got = new ArrayList<String>();
+        while (terms.next()) {
+            got.add(terms.getTerm());
+        }
+
+        Assert.assertEquals(got.size(), 102);
+        Assert.assertEquals(got.get(0), term(0));
+        Assert.assertEquals(got.get(99), term(99));
+
+        final List<String> sorted = new ArrayList<String>(got);
+        Collections.sort(sorted);
+        Assert.assertEquals(got, sorted);
+    }
+
+    /**
+     * Test method for {@linkplain SegmentWriter#merge(java.util.List, java.util.List)}.
+     */
+    @Test
+    public void merge() {
+        final Segment segment = Segment.open(newSegmentData(), false);
+
+        final BitSet deleted = new BitSet();
+        deleted.set(0);
+
+        final Segment merged = Segment.open(SegmentWriter.merge(Arrays.asList(segment, segment),
+                                                                Arrays.asList(deleted, new BitSet())), false);
+
+        Assert.assertEquals(merged.getDocumentCount(), 5);
+        Assert.assertEquals(merged.getId(0), "id1");
+        Assert.assertEquals(merged.getId(2), "id0");
+
+        // Document 0 of the first segment is dropped, the others are renumbered
+        final Segment.Postings postings = merged.getPostings(term(0));
+        final List<Integer> documentNums = new ArrayList<Integer>();
+        while (postings.next()) {
+            documentNums.add(postings.getDocumentNum());
+        }
+        Assert.assertEquals(documentNums, Arrays.asList(1, 2, 4));
+
+        Assert.assertEquals(merged.getPostings(term(1)).getDocumentFreq(), 4);
+    }
+
+    /**
+     * Test method for {@linkplain SegmentWriter#addTerm(java.lang.String, int[], int[], int)} with terms out of order.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void addTermOutOfOrder() {
+        final SegmentWriter writer = new SegmentWriter();
+        writer.addDocument(new Document("id0", "article", "Title", "/articles/0", "", 1));
+
+        writer.addTerm("solo", new int[]{0}, new int[]{1}, 1);
+        writer.addTerm("latke", new int[]{0}, new int[]{1}, 1);
+    }
+
+    /**
+     * Creates data of a segment with 3 documents and 102 terms.
+     *
+     * @return segment data
+     */
+    private static byte[] newSegmentData() {
+        final SegmentWriter writer = new SegmentWriter();
+
+        for (int i = 0; i < 3; i++) {
+            writer.addDocument(new Document("id" + i, "article", "Title " + i, "/articles/" + i, "Excerpt " + i, i + 1));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            writer.addTerm(term(i), new int[]{i % 2, 2}, new int[]{1, i + 1}, 2);
+        }
+
+        writer.addTerm("𠀀𠀁", new int[]{0}, new int[]{1}, 1);
+        writer.addTerm("𠀀𠀂", new int[]{1}, new int[]{1}, 1);
+
+        return writer.toByteArray();
+    }
+
+    /**
+     * Gets the term with the specified number.
+     *
+     * @param num the specified number
+     * @return term
+     */
+    private static String term(final int num) {
+        return String.format("term%03d", num);
+    }
+}
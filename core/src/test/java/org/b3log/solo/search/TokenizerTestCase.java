@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.search;
+
+import java.util.Arrays;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link Tokenizer} test case.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.1, May 24, 2012
+ * @since 0.4.5
+ */
+public final class TokenizerTestCase {
+
+    /**
+     * Test method for {@linkplain Tokenizer#tokenize(java.lang.String)}.
+     */
+    @Test
+    public void tokenize() {
+        Assert.assertEquals(Tokenizer.tokenize("B3log Solo, GAE-Java 0.4.5"),
+                            Arrays.asList("b3log", "solo", "gae", "java", "0", "4", "5"));
+        Assert.assertEquals(Tokenizer.tokenize("搜索引擎"), Arrays.asList("搜索", "索引", "引擎"));
+        Assert.assertEquals(Tokenizer.tokenize("Solo 博客的搜索"), Arrays.asList("solo", "博客", "客的", "的搜", "搜索"));
+        Assert.assertEquals(Tokenizer.tokenize("一, 二"), Arrays.asList("一", "二"));
+        Assert.assertEquals(Tokenizer.tokenize("Java开源"), Arrays.asList("java", "开源"));
+        Assert.assertTrue(Tokenizer.tokenize(null).isEmpty());
+        Assert.assertTrue(Tokenizer.tokenize(" ,. ").isEmpty());
+    }
+
+    /**
+     * Test method for {@linkplain Tokenizer#tokenizeForIndex(java.lang.String)}, a single CJK character of a query
+     * matches the documents containing it in a run.
+     */
+    @Test
+    public void tokenizeForIndex() {
+        Assert.assertEquals(Tokenizer.tokenizeForIndex("搜索引擎"),
+                            Arrays.asList("搜", "搜索", "索", "索引", "引", "引擎", "擎"));
+        Assert.assertEquals(Tokenizer.tokenizeForIndex("Java开源, 书"), Arrays.asList("java", "开", "开源", "源", "书"));
+        Assert.assertTrue(Tokenizer.tokenizeForIndex("一本好书").containsAll(Tokenizer.tokenize("书")));
+        Assert.assertTrue(Tokenizer.tokenizeForIndex("一本好书").containsAll(Tokenizer.tokenize("好书")));
+    }
+
+    /**
+     * Test method for {@linkplain Tokenizer#toPlainText(java.lang.String)}.
+     */
+    @Test
+    public void toPlainText() {
+        Assert.assertEquals(Tokenizer.toPlainText("<p>Solo &amp; Latke</p><script>var a = 1;</script>").trim(),
+                            "Solo & Latke");
+        Assert.assertEquals(Tokenizer.toPlainText(null), "");
+    }
+}
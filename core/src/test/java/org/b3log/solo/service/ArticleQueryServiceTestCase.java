@@ -15,12 +15,17 @@
  */
 package org.b3log.solo.service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.b3log.latke.Keys;
 import org.b3log.latke.model.User;
 import org.b3log.solo.AbstractTestCase;
 import org.b3log.solo.model.Article;
+import org.b3log.solo.model.Common;
 import org.b3log.solo.model.Tag;
+import org.b3log.solo.util.Markdowns;
 import org.json.JSONObject;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -29,11 +34,16 @@ import org.testng.annotations.Test;
  * {@link ArticleQueryService} test case.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.0, Jan 9, 2012
+ * @version 1.0.0.2, May 24, 2012
  */
 @Test(suiteName = "service")
 public class ArticleQueryServiceTestCase extends AbstractTestCase {
 
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ArticleQueryServiceTestCase.class.getName());
+
     /**
      * Init.
      * 
@@ -123,6 +133,31 @@ public class ArticleQueryServiceTestCase extends AbstractTestCase {
         Assert.assertNotNull(articleQueryService.getArticleContent(articleId));
     }
 
+    /**
+     * Get Published Articles by cursor.
+     * 
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "init")
+    public void getPublishedArticles() throws Exception {
+        final ArticleQueryService articleQueryService = ArticleQueryService.getInstance();
+
+        JSONObject result = articleQueryService.getPublishedArticles(Article.ARTICLE_CREATE_DATE, 1, 1, null);
+        Assert.assertEquals(result.getJSONArray(Article.ARTICLES).length(), 1);
+
+        // The second page by the cursor of the first page
+        final String nextCursor = result.getString(Common.NEXT_CURSOR);
+        result = articleQueryService.getPublishedArticles(Article.ARTICLE_CREATE_DATE, 2, 1, nextCursor);
+        Assert.assertEquals(result.getJSONArray(Article.ARTICLES).length(), 0);
+        Assert.assertFalse(result.has(Common.NEXT_CURSOR));
+
+        result = articleQueryService.getArticlesByAuthorEmail("test@gmail.com", 1, 1, null);
+        Assert.assertEquals(result.getJSONArray(Article.ARTICLES).length(), 1);
+
+        result = articleQueryService.getArticlesByAuthorEmail("test@gmail.com", 2, 1, result.getString(Common.NEXT_CURSOR));
+        Assert.assertEquals(result.getJSONArray(Article.ARTICLES).length(), 0);
+    }
+
     /**
      * Get Articles By Tag.
      * 
@@ -172,5 +207,104 @@ public class ArticleQueryServiceTestCase extends AbstractTestCase {
         Assert.assertNotNull(articles);
         Assert.assertTrue(articles.isEmpty());
     }
+
+    /**
+     * Markdown.
+     * 
+     * @throws Exception exception
+     */
+    @Test
+    public void markdown() throws Exception {
+        final ArticleQueryService articleQueryService = ArticleQueryService.getInstance();
+
+        final JSONObject article = newMarkdownArticle(1);
+        final String html = Markdowns.toHTML(article.getString(Article.ARTICLE_CONTENT));
+        Markdowns.renderArticle(article);
+
+        articleQueryService.markdown(article);
+        Assert.assertEquals(article.getString(Article.ARTICLE_CONTENT), html);
+        Assert.assertFalse(article.has(Article.ARTICLE_CONTENT_HTML));
+        Assert.assertFalse(article.has(Article.ARTICLE_HTML_VERSION));
+    }
+
+    /**
+     * Benchmarks the Markdown processing of a list page per page size: converting the content and abstract of each 
+     * article on every request (in the query service and then again in the list filler, the previous path) against 
+     * reading the HTML persisted while saving.
+     * 
+     * @throws Exception exception
+     */
+    @Test
+    public void markdownBenchmark() throws Exception {
+        final ArticleQueryService articleQueryService = ArticleQueryService.getInstance();
+        final int rounds = 5;
+
+        for (final int pageSize : new int[]{10, 20, 50}) {
+            final List<JSONObject> sources = new ArrayList<JSONObject>();
+            final List<JSONObject> rendereds = new ArrayList<JSONObject>();
+            for (int i = 0; i < pageSize; i++) {
+                final JSONObject source = newMarkdownArticle(i);
+                sources.add(source);
+
+                final JSONObject rendered = copy(source);
+                Markdowns.renderArticle(rendered);
+                rendereds.add(rendered);
+            }
+
+            long start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                Markdowns.clearCache();
+                for (final JSONObject source : sources) {
+                    final JSONObject article = copy(source);
+                    articleQueryService.markdown(article);
+                    articleQueryService.markdown(article);
+                }
+            }
+            final long convertTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                for (final JSONObject rendered : rendereds) {
+                    articleQueryService.markdown(copy(rendered));
+                }
+            }
+            final long persistedTime = System.nanoTime() - start;
+
+            LOGGER.log(Level.INFO, "List Markdown benchmark[pageSize={0}, convert={1}ms, persisted={2}ms] per page",
+                       new Object[]{pageSize, convertTime / rounds / 1000000, persistedTime / rounds / 1000000});
+        }
+    }
+
+    /**
+     * Creates an article written in Markdown with long content and abstract.
+     * 
+     * @param num the specified number of the article
+     * @return article
+     */
+    private static JSONObject newMarkdownArticle(final int num) {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append("## Section ").append(num).append('.').append(i).append("\n\n");
+            content.append("Some *emphasized* and **strong** text with a [link](http://b3log.org) and `code`.\n\n");
+            content.append("* item one\n* item two\n\n");
+        }
+
+        final JSONObject ret = new JSONObject();
+        ret.put(Article.ARTICLE_CONTENT, content.toString());
+        ret.put(Article.ARTICLE_ABSTRACT, content.substring(0, 1000));
+        ret.put(Article.ARTICLE_EDITOR_TYPE, Markdowns.EDITOR_TYPE);
+
+        return ret;
+    }
+
+    /**
+     * Copies the specified article.
+     * 
+     * @param article the specified article
+     * @return copy
+     */
+    private static JSONObject copy(final JSONObject article) {
+        return new JSONObject(article, JSONObject.getNames(article));
+    }
     // TODO: getByXXX
 }
@@ -26,6 +26,9 @@ import org.b3log.latke.util.Requests;
 import org.b3log.solo.AbstractTestCase;
 import org.b3log.solo.model.Article;
 import org.b3log.solo.model.Comment;
+import org.b3log.solo.model.Common;
+import org.b3log.solo.util.Comments;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -34,7 +37,7 @@ import org.testng.annotations.Test;
  * {@link CommentQueryService} test case.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.0, Feb 2, 2012
+ * @version 1.0.0.3, May 24, 2012
  */
 @Test(suiteName = "service")
 public class CommentQueryServiceTestCase extends AbstractTestCase {
@@ -101,4 +104,175 @@ public class CommentQueryServiceTestCase extends AbstractTestCase {
         Assert.assertNotNull(comments);
         Assert.assertEquals(comments.size(), 1);
     }
+
+    /**
+     * Get Comments on id paged by cursor.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = {"getComments", "getCommentsOnId"})
+    public void getCommentsOnIdPaged() throws Exception {
+        final JSONObject article = getArticleQueryService().getArticles(Requests.buildPaginationRequest("1/10/20")).
+                getJSONArray(Article.ARTICLES).getJSONObject(0);
+        final String articleId = article.getString(Keys.OBJECT_ID);
+
+        final CommentMgmtService commentMgmtService = getCommentMgmtService();
+        for (int i = 0; i < 2; i++) {
+            final JSONObject requestJSONObject = new JSONObject();
+            requestJSONObject.put(Keys.OBJECT_ID, articleId);
+            requestJSONObject.put(Comment.COMMENT_NAME, "<b>name" + i + "</b>");
+            requestJSONObject.put(Comment.COMMENT_EMAIL, "comment" + i + "@gmail.com");
+            requestJSONObject.put(Comment.COMMENT_URL, "http://b3log.org?a=" + i + "&b");
+            requestJSONObject.put(Comment.COMMENT_CONTENT, "line" + i + "\nnext line");
+
+            commentMgmtService.addArticleComment(requestJSONObject);
+        }
+
+        final CommentQueryService commentQueryService = getCommentQueryService();
+        JSONObject result = commentQueryService.getComments(articleId, null, 2);
+        JSONArray comments = result.getJSONArray(Comment.COMMENTS);
+        Assert.assertEquals(comments.length(), 2);
+
+        // The latest comment first, escaped while adding
+        final JSONObject comment = comments.getJSONObject(0);
+        Assert.assertEquals(comment.getString(Comment.COMMENT_NAME), "&lt;b&gt;name1&lt;/b&gt;");
+        Assert.assertEquals(comment.getString(Comment.COMMENT_URL), "http://b3log.org?a=1&amp;b");
+        Assert.assertEquals(comment.getString(Comment.COMMENT_CONTENT), "line1<br/>next line");
+        Assert.assertFalse(comment.getBoolean(Common.IS_REPLY));
+
+        final String cursor = result.getString(Comment.COMMENT_CURSOR);
+        Assert.assertEquals(cursor, comments.getJSONObject(1).getString(Keys.OBJECT_ID));
+
+        result = commentQueryService.getComments(articleId, cursor, 2);
+        comments = result.getJSONArray(Comment.COMMENTS);
+        Assert.assertEquals(comments.length(), 1);
+        Assert.assertEquals(result.getString(Comment.COMMENT_CURSOR), "");
+        // The comment of "Hello World!"
+        Assert.assertEquals(comments.getJSONObject(0).getString(Comment.COMMENT_NAME), "88250");
+    }
+
+    /**
+     * Get Comments on id in thread order.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "getCommentsOnIdPaged")
+    public void getCommentsOnIdThreaded() throws Exception {
+        final JSONObject article = getArticleQueryService().getArticles(Requests.buildPaginationRequest("1/10/20")).
+                getJSONArray(Article.ARTICLES).getJSONObject(0);
+        final String articleId = article.getString(Keys.OBJECT_ID);
+
+        final CommentQueryService commentQueryService = getCommentQueryService();
+        final JSONArray comments = commentQueryService.getComments(articleId, null, 3).getJSONArray(Comment.COMMENTS);
+        final String comment1Id = comments.getJSONObject(0).getString(Keys.OBJECT_ID);
+        final String comment0Id = comments.getJSONObject(1).getString(Keys.OBJECT_ID);
+        final String helloWorldCommentId = comments.getJSONObject(2).getString(Keys.OBJECT_ID);
+
+        final String reply1Id = addReply(articleId, helloWorldCommentId);
+        final String reply2Id = addReply(articleId, comment1Id);
+        final String reply3Id = addReply(articleId, reply1Id);
+
+        JSONObject result = commentQueryService.getComments(articleId, null, 4);
+        JSONArray page = result.getJSONArray(Comment.COMMENTS);
+        Assert.assertEquals(page.length(), 4);
+        assertComment(page.getJSONObject(0), comment1Id, 0);
+        assertComment(page.getJSONObject(1), reply2Id, 1);
+        assertComment(page.getJSONObject(2), comment0Id, 0);
+        assertComment(page.getJSONObject(3), helloWorldCommentId, 0);
+        Assert.assertTrue(page.getJSONObject(1).getBoolean(Common.IS_REPLY));
+
+        // The rest of the thread of "Hello World!" comment
+        result = commentQueryService.getComments(articleId, result.getString(Comment.COMMENT_CURSOR), 4);
+        page = result.getJSONArray(Comment.COMMENTS);
+        Assert.assertEquals(page.length(), 2);
+        assertComment(page.getJSONObject(0), reply1Id, 1);
+        assertComment(page.getJSONObject(1), reply3Id, 2);
+        Assert.assertEquals(result.getString(Comment.COMMENT_CURSOR), "");
+
+        // Replies of a removed comment move up a level
+        getCommentMgmtService().removeArticleComment(reply1Id);
+
+        page = commentQueryService.getComments(articleId, null, 10).getJSONArray(Comment.COMMENTS);
+        Assert.assertEquals(page.length(), 5);
+        assertComment(page.getJSONObject(3), helloWorldCommentId, 0);
+        assertComment(page.getJSONObject(4), reply3Id, 1);
+        Assert.assertEquals(page.getJSONObject(4).getString(Comment.COMMENT_ORIGINAL_COMMENT_ID), reply1Id);
+    }
+
+    /**
+     * Get Comments on id of a reply chain deeper than the max depth.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "getCommentsOnIdThreaded")
+    public void getCommentsOnIdMaxDepth() throws Exception {
+        final JSONObject article = getArticleQueryService().getArticles(Requests.buildPaginationRequest("1/10/20")).
+                getJSONArray(Article.ARTICLES).getJSONObject(0);
+        final String articleId = article.getString(Keys.OBJECT_ID);
+
+        final JSONObject requestJSONObject = new JSONObject();
+        requestJSONObject.put(Keys.OBJECT_ID, articleId);
+        requestJSONObject.put(Comment.COMMENT_NAME, "commenter");
+        requestJSONObject.put(Comment.COMMENT_EMAIL, "commenter@gmail.com");
+        requestJSONObject.put(Comment.COMMENT_URL, "http://b3log.org");
+        requestJSONObject.put(Comment.COMMENT_CONTENT, "root of a reply chain");
+        final String rootId = getCommentMgmtService().addArticleComment(requestJSONObject).getString(Keys.OBJECT_ID);
+
+        // Replies to the previous reply, the last one goes deeper than the max depth
+        String parentId = rootId;
+        String lastParentId = null;
+        for (int i = 0; i < Comments.MAX_COMMENT_DEPTH; i++) {
+            lastParentId = parentId;
+            parentId = addReply(articleId, parentId);
+        }
+
+        final JSONObject deepest = getCommentRepository().get(lastParentId);
+        final JSONObject last = getCommentRepository().get(parentId);
+        Assert.assertEquals(deepest.getInt(Comment.COMMENT_DEPTH), Comments.MAX_COMMENT_DEPTH - 1);
+        Assert.assertEquals(last.getInt(Comment.COMMENT_DEPTH), Comments.MAX_COMMENT_DEPTH - 1);
+        Assert.assertTrue(deepest.getString(Comment.COMMENT_PATH).length() < Comments.MAX_COMMENT_PATH_LENGTH);
+        Assert.assertTrue(last.getString(Comment.COMMENT_PATH).length() < Comments.MAX_COMMENT_PATH_LENGTH);
+
+        // The latest thread in order, the last reply follows the deepest one as its sibling
+        final CommentQueryService commentQueryService = getCommentQueryService();
+        final JSONArray page = commentQueryService.getComments(articleId, null, Comments.MAX_COMMENT_DEPTH + 2).
+                getJSONArray(Comment.COMMENTS);
+        assertComment(page.getJSONObject(0), rootId, 0);
+        for (int i = 1; i < Comments.MAX_COMMENT_DEPTH; i++) {
+            Assert.assertEquals(page.getJSONObject(i).getInt(Comment.COMMENT_DEPTH), i);
+        }
+        assertComment(page.getJSONObject(Comments.MAX_COMMENT_DEPTH), parentId, Comments.MAX_COMMENT_DEPTH - 1);
+    }
+
+    /**
+     * Adds a reply to the specified comment of the specified article.
+     *
+     * @param articleId the specified article id
+     * @param commentId the specified comment id
+     * @return id of the added reply
+     * @throws Exception exception
+     */
+    private String addReply(final String articleId, final String commentId) throws Exception {
+        final JSONObject requestJSONObject = new JSONObject();
+        requestJSONObject.put(Keys.OBJECT_ID, articleId);
+        requestJSONObject.put(Comment.COMMENT_NAME, "replier");
+        requestJSONObject.put(Comment.COMMENT_EMAIL, "replier@gmail.com");
+        requestJSONObject.put(Comment.COMMENT_URL, "http://b3log.org");
+        requestJSONObject.put(Comment.COMMENT_CONTENT, "reply to " + commentId);
+        requestJSONObject.put(Comment.COMMENT_ORIGINAL_COMMENT_ID, commentId);
+
+        return getCommentMgmtService().addArticleComment(requestJSONObject).getString(Keys.OBJECT_ID);
+    }
+
+    /**
+     * Asserts the specified comment has the specified id and depth.
+     *
+     * @param comment the specified comment
+     * @param id the specified id
+     * @param depth the specified depth
+     */
+    private static void assertComment(final JSONObject comment, final String id, final int depth) {
+        Assert.assertEquals(comment.getString(Keys.OBJECT_ID), id);
+        Assert.assertEquals(comment.getInt(Comment.COMMENT_DEPTH), depth);
+    }
 }
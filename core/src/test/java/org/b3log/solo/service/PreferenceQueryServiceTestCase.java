@@ -18,6 +18,8 @@ package org.b3log.solo.service;
 import org.b3log.latke.model.User;
 import org.b3log.solo.AbstractTestCase;
 import org.b3log.solo.model.Preference;
+import org.b3log.solo.model.PreferenceSnapshot;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -26,7 +28,7 @@ import org.testng.annotations.Test;
  * {@link PreferenceQueryService} test case.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.0, Feb 1, 2012
+ * @version 1.0.0.1, May 24, 2012
  */
 @Test(suiteName = "service")
 public class PreferenceQueryServiceTestCase extends AbstractTestCase {
@@ -66,6 +68,49 @@ public class PreferenceQueryServiceTestCase extends AbstractTestCase {
                             Preference.Default.DEFAULT_BLOG_TITLE);
     }
 
+    /**
+     * Get Preference Snapshot.
+     * 
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "init")
+    public void getPreferenceSnapshot() throws Exception {
+        final PreferenceQueryService preferenceQueryService =
+                getPreferenceQueryService();
+        final PreferenceSnapshot snapshot = preferenceQueryService.getPreferenceSnapshot();
+
+        final JSONArray signs = new JSONArray(Preference.Default.DEFAULT_SIGNS);
+        Assert.assertEquals(snapshot.getSigns().length(), signs.length());
+        Assert.assertEquals(snapshot.getSign(PreferenceSnapshot.DEFAULT_SIGN_ID).toString(),
+                            signs.getJSONObject(0).toString());
+        Assert.assertEquals(snapshot.getSign("not found").toString(),
+                            signs.getJSONObject(0).toString());
+        Assert.assertEquals(snapshot.getArticleListStyle().getValue(),
+                            Preference.Default.DEFAULT_ARTICLE_LIST_STYLE);
+        Assert.assertEquals(snapshot.getTimeZone().getID(), Preference.Default.DEFAULT_TIME_ZONE);
+
+        // Copies are not shared
+        final JSONObject preference = preferenceQueryService.getPreference();
+        preference.put(Preference.BLOG_TITLE, "changed");
+        Assert.assertEquals(preferenceQueryService.getPreference().getString(Preference.BLOG_TITLE),
+                            Preference.Default.DEFAULT_BLOG_TITLE);
+        Assert.assertTrue(snapshot == preferenceQueryService.getPreferenceSnapshot());
+
+        // Swaps after updated
+        final PreferenceMgmtService preferenceMgmtService = getPreferenceMgmtService();
+        preference.put(Preference.ARTICLE_LIST_STYLE, "titleOnly");
+        preferenceMgmtService.updatePreference(preference);
+
+        final PreferenceSnapshot swapped = preferenceQueryService.getPreferenceSnapshot();
+        Assert.assertEquals(swapped.getArticleListStyle(), PreferenceSnapshot.ArticleListStyle.TITLE_ONLY);
+        Assert.assertEquals(swapped.getString(Preference.BLOG_TITLE), "changed");
+        Assert.assertEquals(snapshot.getString(Preference.BLOG_TITLE), Preference.Default.DEFAULT_BLOG_TITLE);
+
+        preference.put(Preference.BLOG_TITLE, Preference.Default.DEFAULT_BLOG_TITLE);
+        preference.put(Preference.ARTICLE_LIST_STYLE, Preference.Default.DEFAULT_ARTICLE_LIST_STYLE);
+        preferenceMgmtService.updatePreference(preference);
+    }
+
     /**
      * Get Reply Notification Template.
      * 
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.service;
+
+import org.b3log.latke.Keys;
+import org.b3log.latke.model.Pagination;
+import org.b3log.latke.model.User;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.solo.AbstractTestCase;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.model.Common;
+import org.b3log.solo.model.Search;
+import org.b3log.solo.search.SearchIndex;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link SearchQueryService} test case.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.3, May 24, 2012
+ * @since 0.4.5
+ */
+@Test(suiteName = "service")
+public class SearchQueryServiceTestCase extends AbstractTestCase {
+
+    /**
+     * Id of the English article.
+     */
+    private String englishArticleId;
+    /**
+     * Id of the Chinese article.
+     */
+    private String chineseArticleId;
+
+    /**
+     * Init.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void init() throws Exception {
+        final InitService initService = getInitService();
+
+        final JSONObject requestJSONObject = new JSONObject();
+        requestJSONObject.put(User.USER_EMAIL, "test@gmail.com");
+        requestJSONObject.put(User.USER_NAME, "Admin");
+        requestJSONObject.put(User.USER_PASSWORD, "pass");
+
+        initService.init(requestJSONObject);
+
+        final UserQueryService userQueryService = getUserQueryService();
+        Assert.assertNotNull(userQueryService.getUserByEmail("test@gmail.com"));
+
+        englishArticleId = addArticle("Latke framework", "Indexed by BM25 on the Latke framework.", "/latke-framework");
+        chineseArticleId = addArticle("搜索引擎", "BM25 博客的全文搜索引擎。", "/search-engine");
+
+        // Event listeners are not registered in tests, rebuilds the index from the repository
+        final SearchIndex searchIndex = SearchIndex.getInstance();
+        searchIndex.invalidate();
+
+        final JSONObject result = search("latke");
+        Assert.assertFalse(result.getBoolean(Search.SEARCH_INDEX_READY));
+        Assert.assertEquals(result.getInt(Search.SEARCH_HIT_COUNT), 0);
+
+        searchIndex.merge();
+    }
+
+    /**
+     * Search.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "init")
+    public void search() throws Exception {
+        JSONObject result = search("latke");
+        Assert.assertTrue(result.getBoolean(Search.SEARCH_INDEX_READY));
+        Assert.assertEquals(result.getInt(Search.SEARCH_HIT_COUNT), 1);
+
+        final JSONObject searchHit = result.getJSONArray(Search.SEARCH_HITS).getJSONObject(0);
+        Assert.assertEquals(searchHit.getString(Keys.OBJECT_ID), englishArticleId);
+        Assert.assertEquals(searchHit.getString(Search.SEARCH_HIT_TYPE), Article.ARTICLE);
+        Assert.assertEquals(searchHit.getString(Search.SEARCH_HIT_TITLE), "Latke framework");
+        Assert.assertEquals(searchHit.getString(Search.SEARCH_HIT_PERMALINK), "/latke-framework");
+        Assert.assertTrue(searchHit.getDouble(Search.SEARCH_HIT_SCORE) > 0);
+
+        result = search("搜索");
+        Assert.assertEquals(result.getInt(Search.SEARCH_HIT_COUNT), 1);
+        Assert.assertEquals(result.getJSONArray(Search.SEARCH_HITS).getJSONObject(0).
+                getString(Search.SEARCH_HIT_TITLE), "搜索引擎");
+
+        // A single CJK character inside a run
+        result = search("擎");
+        Assert.assertEquals(result.getInt(Search.SEARCH_HIT_COUNT), 1);
+        Assert.assertEquals(result.getJSONArray(Search.SEARCH_HITS).getJSONObject(0).getString(Keys.OBJECT_ID),
+                            chineseArticleId);
+
+        result = search("bm25");
+        Assert.assertEquals(result.getInt(Search.SEARCH_HIT_COUNT), 2);
+        Assert.assertEquals(result.getJSONObject(Pagination.PAGINATION).getInt(Pagination.PAGINATION_PAGE_COUNT), 1);
+
+        result = search("nonexistent");
+        Assert.assertEquals(result.getInt(Search.SEARCH_HIT_COUNT), 0);
+        Assert.assertEquals(result.getJSONArray(Search.SEARCH_HITS).length(), 0);
+
+        // A page number overflows the start of the page
+        result = SearchIndex.getInstance().search("bm25", Integer.MAX_VALUE, 10);
+        Assert.assertEquals(result.getInt(Search.SEARCH_HIT_COUNT), 2);
+        Assert.assertEquals(result.getJSONArray(Search.SEARCH_HITS).length(), 0);
+    }
+
+    /**
+     * Index and remove.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "search")
+    public void indexAndRemove() throws Exception {
+        final SearchIndex searchIndex = SearchIndex.getInstance();
+
+        final JSONObject article = new JSONObject();
+        article.put(Keys.OBJECT_ID, englishArticleId);
+        article.put(Article.ARTICLE_TITLE, "Latke framework");
+        article.put(Article.ARTICLE_CONTENT, "Renamed content about FreeMarker.");
+        article.put(Article.ARTICLE_PERMALINK, "/latke-framework");
+        article.put(Article.ARTICLE_TAGS_REF, "");
+        article.put(Article.ARTICLE_IS_PUBLISHED, true);
+        article.put(Article.ARTICLE_VIEW_PWD, "");
+        searchIndex.indexArticle(article);
+
+        Assert.assertEquals(search("freemarker").getInt(Search.SEARCH_HIT_COUNT), 1);
+        Assert.assertEquals(search("bm25").getInt(Search.SEARCH_HIT_COUNT), 1);
+
+        article.put(Article.ARTICLE_IS_PUBLISHED, false);
+        searchIndex.indexArticle(article);
+        Assert.assertEquals(search("latke").getInt(Search.SEARCH_HIT_COUNT), 0);
+
+        searchIndex.invalidate();
+        searchIndex.merge();
+        Assert.assertEquals(search("latke").getInt(Search.SEARCH_HIT_COUNT), 1);
+
+        searchIndex.remove(englishArticleId);
+        Assert.assertEquals(search("latke").getInt(Search.SEARCH_HIT_COUNT), 0);
+    }
+
+    /**
+     * Index in a transaction.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "indexAndRemove")
+    public void indexInTransaction() throws Exception {
+        final SearchIndex searchIndex = SearchIndex.getInstance();
+
+        final JSONObject article = new JSONObject();
+        article.put(Keys.OBJECT_ID, englishArticleId);
+        article.put(Article.ARTICLE_TITLE, "Latke framework");
+        article.put(Article.ARTICLE_CONTENT, "Transactional content.");
+        article.put(Article.ARTICLE_PERMALINK, "/latke-framework");
+        article.put(Article.ARTICLE_TAGS_REF, "");
+        article.put(Article.ARTICLE_IS_PUBLISHED, true);
+        article.put(Article.ARTICLE_VIEW_PWD, "");
+
+        Transaction transaction = getArticleRepository().beginTransaction();
+        searchIndex.indexArticle(article);
+        transaction.rollback();
+        Assert.assertEquals(search("latke").getInt(Search.SEARCH_HIT_COUNT), 0);
+
+        transaction = getArticleRepository().beginTransaction();
+        searchIndex.indexArticle(article);
+        Assert.assertEquals(search("latke").getInt(Search.SEARCH_HIT_COUNT), 0);
+        transaction.commit();
+        Assert.assertEquals(search("transactional").getInt(Search.SEARCH_HIT_COUNT), 1);
+
+        searchIndex.remove(englishArticleId);
+    }
+
+    /**
+     * Merge.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "indexInTransaction")
+    public void merge() throws Exception {
+        final SearchIndex searchIndex = SearchIndex.getInstance();
+
+        // Two of the three documents are deleted, the segment will be rewritten
+        searchIndex.remove(chineseArticleId);
+        searchIndex.merge();
+
+        Assert.assertEquals(search("搜索").getInt(Search.SEARCH_HIT_COUNT), 0);
+        Assert.assertEquals(search("bm25").getInt(Search.SEARCH_HIT_COUNT), 0);
+        Assert.assertEquals(search("hello").getInt(Search.SEARCH_HIT_COUNT), 1);
+
+        searchIndex.invalidate();
+        searchIndex.merge();
+        Assert.assertEquals(search("bm25").getInt(Search.SEARCH_HIT_COUNT), 2);
+    }
+
+    /**
+     * Searches with the specified keyword.
+     *
+     * @param keyword the specified keyword
+     * @return search result
+     * @throws Exception exception
+     */
+    private JSONObject search(final String keyword) throws Exception {
+        final JSONObject requestJSONObject = new JSONObject();
+        requestJSONObject.put(Search.KEYWORD, keyword);
+        requestJSONObject.put(Pagination.PAGINATION_CURRENT_PAGE_NUM, 1);
+        requestJSONObject.put(Pagination.PAGINATION_PAGE_SIZE, 10);
+        requestJSONObject.put(Pagination.PAGINATION_WINDOW_SIZE, 20);
+
+        final JSONObject ret = SearchQueryService.getInstance().search(requestJSONObject);
+        final JSONArray searchHits = ret.getJSONArray(Search.SEARCH_HITS);
+        Assert.assertTrue(searchHits.length() <= ret.getInt(Search.SEARCH_HIT_COUNT));
+
+        return ret;
+    }
+
+    /**
+     * Adds a published article with the specified title, content and permalink.
+     *
+     * @param title the specified title
+     * @param content the specified content
+     * @param permalink the specified permalink
+     * @return article id
+     * @throws Exception exception
+     */
+    private String addArticle(final String title, final String content, final String permalink) throws Exception {
+        final JSONObject requestJSONObject = new JSONObject();
+        final JSONObject article = new JSONObject();
+        requestJSONObject.put(Article.ARTICLE, article);
+
+        article.put(Article.ARTICLE_AUTHOR_EMAIL, "test@gmail.com");
+        article.put(Article.ARTICLE_TITLE, title);
+        article.put(Article.ARTICLE_ABSTRACT, content);
+        article.put(Article.ARTICLE_CONTENT, content);
+        article.put(Article.ARTICLE_TAGS_REF, "search");
+        article.put(Article.ARTICLE_PERMALINK, permalink);
+        article.put(Article.ARTICLE_IS_PUBLISHED, true);
+        article.put(Common.POST_TO_COMMUNITY, false);
+        article.put(Article.ARTICLE_SIGN_ID, "1");
+        article.put(Article.ARTICLE_COMMENTABLE, true);
+        article.put(Article.ARTICLE_VIEW_PWD, "");
+
+        return getArticleMgmtService().addArticle(requestJSONObject);
+    }
+}
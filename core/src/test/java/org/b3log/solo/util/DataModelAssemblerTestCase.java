@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.b3log.latke.service.ServiceException;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+/**
+ * {@link org.b3log.solo.util.DataModelAssembler} test case.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.1, May 24, 2012
+ * @since 0.4.5
+ */
+public final class DataModelAssemblerTestCase {
+
+    /**
+     * Loader count.
+     */
+    private static final int LOADER_CNT = 4;
+    /**
+     * Executor.
+     */
+    private final ExecutorService executor = Executors.newFixedThreadPool(LOADER_CNT);
+
+    /**
+     * Shuts down the executor.
+     */
+    @AfterClass
+    public void afterClass() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test method for {@linkplain DataModelAssembler#assemble(java.util.Map)}, the parts are merged in the order of
+     * the loaders, the first loader finishes last.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void assemble() throws Exception {
+        for (final ExecutorService assemblerExecutor : new ExecutorService[]{null, executor}) {
+            final CountDownLatch secondLoaded = new CountDownLatch(1);
+            final DataModelAssembler assembler = new DataModelAssembler(assemblerExecutor, DataModelAssembler.DEADLINE);
+
+            assembler.add("First", new DataModelAssembler.Loader() {
+
+                @Override
+                public void load(final Map<String, Object> dataModel) throws Exception {
+                    if (null != assemblerExecutor) {
+                        secondLoaded.await(DataModelAssembler.DEADLINE, TimeUnit.MILLISECONDS);
+                    }
+
+                    dataModel.put("first", 1);
+                    dataModel.put("shared", "first");
+                }
+            }).add("Second", new DataModelAssembler.Loader() {
+
+                @Override
+                public void load(final Map<String, Object> dataModel) throws Exception {
+                    dataModel.put("second", 2);
+                    dataModel.put("shared", "second");
+                    secondLoaded.countDown();
+                }
+            });
+
+            final Map<String, Object> dataModel = new HashMap<String, Object>();
+            dataModel.put("shared", "init");
+            assembler.assemble(dataModel);
+
+            Assert.assertEquals(dataModel.get("first"), 1);
+            Assert.assertEquals(dataModel.get("second"), 2);
+            Assert.assertEquals(dataModel.get("shared"), "second");
+        }
+    }
+
+    /**
+     * Test method for {@linkplain DataModelAssembler#assemble(java.util.Map)}, the loaders run concurrently.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void assembleConcurrently() throws Exception {
+        final CountDownLatch allStarted = new CountDownLatch(LOADER_CNT);
+        final DataModelAssembler assembler = new DataModelAssembler(executor, DataModelAssembler.DEADLINE);
+
+        for (int i = 0; i < LOADER_CNT; i++) {
+            final String key = "loader" + i;
+
+            assembler.add(key, new DataModelAssembler.Loader() {
+
+                @Override
+                public void load(final Map<String, Object> dataModel) throws Exception {
+                    allStarted.countDown();
+                    // Returns only if all loaders are running at the same time
+                    dataModel.put(key, allStarted.await(DataModelAssembler.DEADLINE, TimeUnit.MILLISECONDS));
+                }
+            });
+        }
+
+        final Map<String, Object> dataModel = new HashMap<String, Object>();
+        assembler.assemble(dataModel);
+
+        for (int i = 0; i < LOADER_CNT; i++) {
+            Assert.assertEquals(dataModel.get("loader" + i), true);
+        }
+    }
+
+    /**
+     * Test method for {@linkplain DataModelAssembler#assemble(java.util.Map)}, a loader fails.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void assembleFailed() throws Exception {
+        final DataModelAssembler failed = new DataModelAssembler(executor, DataModelAssembler.DEADLINE);
+
+        failed.add("Loaded", new DataModelAssembler.Loader() {
+
+            @Override
+            public void load(final Map<String, Object> dataModel) throws Exception {
+                dataModel.put("loaded", true);
+            }
+        }).add("Failed", new DataModelAssembler.Loader() {
+
+            @Override
+            public void load(final Map<String, Object> dataModel) throws Exception {
+                throw new IllegalStateException("Failed");
+            }
+        });
+
+        final Map<String, Object> dataModel = new HashMap<String, Object>();
+
+        try {
+            failed.assemble(dataModel);
+            Assert.fail("Should fail");
+        } catch (final ServiceException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        Assert.assertTrue(dataModel.isEmpty());
+    }
+
+    /**
+     * Test method for {@linkplain DataModelAssembler#assemble(java.util.Map)}, a loader misses the deadline and runs
+     * in the calling thread.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void assembleTimedOut() throws Exception {
+        final CountDownLatch never = new CountDownLatch(1);
+        final Thread callingThread = Thread.currentThread();
+        final DataModelAssembler timedOut = new DataModelAssembler(executor, 100);
+
+        timedOut.add("Timed Out", new DataModelAssembler.Loader() {
+
+            @Override
+            public void load(final Map<String, Object> dataModel) throws Exception {
+                final boolean inCallingThread = Thread.currentThread() == callingThread;
+                if (!inCallingThread) { // On the pool, till cancelled
+                    never.await();
+                }
+
+                dataModel.put("inCallingThread", inCallingThread);
+            }
+        });
+
+        final Map<String, Object> dataModel = new HashMap<String, Object>();
+        timedOut.assemble(dataModel);
+
+        Assert.assertEquals(dataModel.get("inCallingThread"), true);
+    }
+}
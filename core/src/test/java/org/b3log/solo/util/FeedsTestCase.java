@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.IOUtils;
+import org.b3log.latke.model.User;
+import org.b3log.solo.AbstractTestCase;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.model.Common;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link Feeds} test case.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public class FeedsTestCase extends AbstractTestCase {
+
+    /**
+     * Init.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void init() throws Exception {
+        final JSONObject requestJSONObject = new JSONObject();
+        requestJSONObject.put(User.USER_EMAIL, "test@gmail.com");
+        requestJSONObject.put(User.USER_NAME, "Admin");
+        requestJSONObject.put(User.USER_PASSWORD, "pass");
+
+        getInitService().init(requestJSONObject);
+    }
+
+    /**
+     * Test method for {@linkplain Feeds#getFeed(java.lang.String, java.lang.String)} and
+     * {@linkplain Feeds#refresh()}.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "init")
+    public void getFeed() throws Exception {
+        final Feeds feeds = Feeds.getInstance();
+
+        String atom = gunzip(feeds.getFeed(Feeds.ATOM, null));
+        Assert.assertTrue(atom.contains("<feed"));
+        Assert.assertTrue(atom.contains("Hello World!"));
+
+        final String rss = gunzip(feeds.getFeed(Feeds.RSS, null));
+        Assert.assertTrue(rss.contains("<rss"));
+        Assert.assertTrue(rss.contains("Hello World!"));
+
+        // Unknown tag
+        Assert.assertNull(feeds.getFeed(Feeds.ATOM, "not found"));
+
+        final JSONObject requestJSONObject = new JSONObject();
+        final JSONObject article = new JSONObject();
+        requestJSONObject.put(Article.ARTICLE, article);
+
+        article.put(Article.ARTICLE_AUTHOR_EMAIL, "test@gmail.com");
+        article.put(Article.ARTICLE_TITLE, "feed title");
+        article.put(Article.ARTICLE_ABSTRACT, "feed abstract");
+        article.put(Article.ARTICLE_CONTENT, "feed content");
+        article.put(Article.ARTICLE_TAGS_REF, "feed");
+        article.put(Article.ARTICLE_PERMALINK, "");
+        article.put(Article.ARTICLE_IS_PUBLISHED, true);
+        article.put(Common.POST_TO_COMMUNITY, false);
+        article.put(Article.ARTICLE_SIGN_ID, "1");
+        article.put(Article.ARTICLE_COMMENTABLE, true);
+        article.put(Article.ARTICLE_VIEW_PWD, "");
+
+        getArticleMgmtService().addArticle(requestJSONObject);
+
+        // Marked dirty by the feed invalidator, then rebuilt by the refresh job
+        feeds.invalidate();
+        feeds.refresh();
+
+        atom = gunzip(feeds.getFeed(Feeds.ATOM, null));
+        Assert.assertTrue(atom.contains("feed title"));
+    }
+
+    /**
+     * Decompresses the specified gzipped content.
+     *
+     * @param content the specified gzipped content
+     * @return decompressed content
+     * @throws Exception exception
+     */
+    private static String gunzip(final byte[] content) throws Exception {
+        return IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(content)), "UTF-8");
+    }
+}
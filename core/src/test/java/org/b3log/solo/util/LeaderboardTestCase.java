@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.b3log.latke.Keys;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.solo.AbstractTestCase;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.model.Tag;
+import org.b3log.solo.repository.ArticleRepository;
+import org.b3log.solo.repository.TagRepository;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link Leaderboard} test case, checks the leaderboards of article and tag repositories against their queries.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.2, May 24, 2012
+ * @since 0.4.5
+ */
+public class LeaderboardTestCase extends AbstractTestCase {
+
+    /**
+     * Count of articles.
+     */
+    private static final int ARTICLE_CNT = 16;
+    /**
+     * Count of articles of the same rank.
+     */
+    private static final int TIED_ARTICLE_CNT = 6;
+    /**
+     * Count of tags.
+     */
+    private static final int TAG_CNT = 16;
+    /**
+     * Max number of entries to check.
+     */
+    private static final int MAX_NUM = 24;
+    /**
+     * Ids of the added articles.
+     */
+    private final List<String> articleIds = new ArrayList<String>();
+    /**
+     * Ids of the added tags.
+     */
+    private final List<String> tagIds = new ArrayList<String>();
+
+    /**
+     * Adds articles and checks the article leaderboards.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void addArticles() throws Exception {
+        final ArticleRepository articleRepository = getArticleRepository();
+
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < ARTICLE_CNT; i++) {
+            final JSONObject article = new JSONObject();
+
+            article.put(Keys.OBJECT_ID, String.valueOf(now + i));
+            article.put(Article.ARTICLE_TITLE, "article title" + i);
+            article.put(Article.ARTICLE_ABSTRACT, "article abstract");
+            article.put(Article.ARTICLE_TAGS_REF, "tag1");
+            article.put(Article.ARTICLE_AUTHOR_EMAIL, "test@gmail.com");
+            article.put(Article.ARTICLE_COMMENT_COUNT, i % 5);
+            article.put(Article.ARTICLE_VIEW_COUNT, (i * 7) % 11);
+            article.put(Article.ARTICLE_CONTENT, "article content");
+            article.put(Article.ARTICLE_PERMALINK, "article permalink" + i);
+            article.put(Article.ARTICLE_HAD_BEEN_PUBLISHED, true);
+            article.put(Article.ARTICLE_IS_PUBLISHED, 0 != i % 4);
+            article.put(Article.ARTICLE_PUT_TOP, false);
+            article.put(Article.ARTICLE_CREATE_DATE, new Date(now + i));
+            article.put(Article.ARTICLE_UPDATE_DATE, new Date(now + (i % 3) * 1000));
+            article.put(Article.ARTICLE_RANDOM_DOUBLE, Math.random());
+            article.put(Article.ARTICLE_SIGN_ID, "1");
+            article.put(Article.ARTICLE_COMMENTABLE, true);
+            article.put(Article.ARTICLE_VIEW_PWD, "");
+            article.put(Article.ARTICLE_EDITOR_TYPE, "");
+
+            final Transaction transaction = articleRepository.beginTransaction();
+            articleIds.add(articleRepository.add(article));
+            transaction.commit();
+
+            if (i == ARTICLE_CNT / 2) { // Loads the leaderboards in the middle
+                assertArticleLeaderboards();
+            }
+        }
+
+        assertArticleLeaderboards();
+    }
+
+    /**
+     * Updates comment counts, view counts and publish states of articles, and checks the article leaderboards.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "addArticles")
+    public void updateArticles() throws Exception {
+        final ArticleRepository articleRepository = getArticleRepository();
+
+        for (int i = 0; i < articleIds.size(); i++) {
+            final String articleId = articleIds.get(i);
+            final JSONObject article = articleRepository.get(articleId);
+
+            switch (i % 4) {
+                case 0:
+                    article.put(Article.ARTICLE_IS_PUBLISHED, true);
+                    break;
+                case 1:
+                    article.put(Article.ARTICLE_COMMENT_COUNT, article.getInt(Article.ARTICLE_COMMENT_COUNT) + 3);
+                    break;
+                case 2:
+                    article.put(Article.ARTICLE_VIEW_COUNT, 0);
+                    article.put(Article.ARTICLE_COMMENT_COUNT, 0);
+                    break;
+                default:
+                    article.put(Article.ARTICLE_IS_PUBLISHED, false);
+            }
+
+            final Transaction transaction = articleRepository.beginTransaction();
+            articleRepository.update(articleId, article);
+            transaction.commit();
+
+            assertArticleLeaderboards();
+        }
+    }
+
+    /**
+     * Removes articles and checks the article leaderboards.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "updateArticles")
+    public void removeArticles() throws Exception {
+        final ArticleRepository articleRepository = getArticleRepository();
+
+        for (int i = 0; i < articleIds.size(); i += 2) {
+            final Transaction transaction = articleRepository.beginTransaction();
+            articleRepository.remove(articleIds.get(i));
+            transaction.commit();
+
+            assertArticleLeaderboards();
+        }
+    }
+
+    /**
+     * Adds articles of the same comment count, view count and update date, and checks they are ranked by id in the
+     * article leaderboards the same as the queries.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "removeArticles")
+    public void tiedArticles() throws Exception {
+        final ArticleRepository articleRepository = getArticleRepository();
+
+        final long now = System.currentTimeMillis();
+        final List<String> tiedArticleIds = new ArrayList<String>();
+        for (int i = 0; i < TIED_ARTICLE_CNT; i++) {
+            final JSONObject article = new JSONObject();
+
+            // Added in descending id order, after the ids of the articles added before
+            article.put(Keys.OBJECT_ID, String.valueOf(now + ARTICLE_CNT + TIED_ARTICLE_CNT - i));
+            article.put(Article.ARTICLE_TITLE, "tied article title" + i);
+            article.put(Article.ARTICLE_ABSTRACT, "article abstract");
+            article.put(Article.ARTICLE_TAGS_REF, "tag1");
+            article.put(Article.ARTICLE_AUTHOR_EMAIL, "test@gmail.com");
+            article.put(Article.ARTICLE_COMMENT_COUNT, 100);
+            article.put(Article.ARTICLE_VIEW_COUNT, 100);
+            article.put(Article.ARTICLE_CONTENT, "article content");
+            article.put(Article.ARTICLE_PERMALINK, "tied article permalink" + i);
+            article.put(Article.ARTICLE_HAD_BEEN_PUBLISHED, true);
+            article.put(Article.ARTICLE_IS_PUBLISHED, true);
+            article.put(Article.ARTICLE_PUT_TOP, false);
+            article.put(Article.ARTICLE_CREATE_DATE, new Date(now));
+            article.put(Article.ARTICLE_UPDATE_DATE, new Date(now));
+            article.put(Article.ARTICLE_RANDOM_DOUBLE, Math.random());
+            article.put(Article.ARTICLE_SIGN_ID, "1");
+            article.put(Article.ARTICLE_COMMENTABLE, true);
+            article.put(Article.ARTICLE_VIEW_PWD, "");
+            article.put(Article.ARTICLE_EDITOR_TYPE, "");
+
+            final Transaction transaction = articleRepository.beginTransaction();
+            tiedArticleIds.add(articleRepository.add(article));
+            transaction.commit();
+
+            assertArticleLeaderboards();
+        }
+
+        Collections.sort(tiedArticleIds);
+        Assert.assertEquals(getIds(articleRepository.getMostCommentArticlesSnapshot(TIED_ARTICLE_CNT)), tiedArticleIds);
+        Assert.assertEquals(getIds(articleRepository.getMostViewCountArticlesSnapshot(TIED_ARTICLE_CNT)), tiedArticleIds);
+    }
+
+    /**
+     * Rolls back an article update, and checks the article leaderboards are not changed.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "tiedArticles")
+    public void rollback() throws Exception {
+        final ArticleRepository articleRepository = getArticleRepository();
+
+        final List<String> mostCommentArticleIds = getIds(articleRepository.getMostCommentArticlesSnapshot(MAX_NUM));
+        final String lastArticleId = mostCommentArticleIds.get(mostCommentArticleIds.size() - 1);
+        final JSONObject article = articleRepository.get(lastArticleId);
+        article.put(Article.ARTICLE_COMMENT_COUNT, 1000);
+
+        final Transaction transaction = articleRepository.beginTransaction();
+        articleRepository.update(lastArticleId, article);
+        transaction.rollback();
+
+        Assert.assertEquals(getIds(articleRepository.getMostCommentArticlesSnapshot(MAX_NUM)), mostCommentArticleIds);
+        assertArticleLeaderboards();
+    }
+
+    /**
+     * Adds, updates and removes tags, and checks the tag leaderboard.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void tags() throws Exception {
+        final TagRepository tagRepository = getTagRepository();
+
+        for (int i = 0; i < TAG_CNT; i++) {
+            final JSONObject tag = new JSONObject();
+
+            tag.put(Tag.TAG_TITLE, "leaderboard tag" + i);
+            tag.put(Tag.TAG_REFERENCE_COUNT, (i * 5) % 13 + 1);
+            tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, (i * 5) % 13);
+
+            final Transaction transaction = tagRepository.beginTransaction();
+            tagIds.add(tagRepository.add(tag));
+            transaction.commit();
+
+            assertTagLeaderboard();
+        }
+
+        for (int i = 0; i < tagIds.size(); i++) {
+            final String tagId = tagIds.get(i);
+            final JSONObject tag = tagRepository.get(tagId);
+            tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, 0 == i % 2 ? 0 : tag.getInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT) + 20);
+
+            final Transaction transaction = tagRepository.beginTransaction();
+            tagRepository.update(tagId, tag);
+            transaction.commit();
+
+            assertTagLeaderboard();
+        }
+
+        for (int i = 0; i < tagIds.size(); i += 3) {
+            final Transaction transaction = tagRepository.beginTransaction();
+            tagRepository.remove(tagIds.get(i));
+            transaction.commit();
+
+            assertTagLeaderboard();
+        }
+    }
+
+    /**
+     * Asserts the article leaderboards are the same as the queries.
+     *
+     * @throws Exception exception
+     */
+    private void assertArticleLeaderboards() throws Exception {
+        final ArticleRepository articleRepository = getArticleRepository();
+
+        for (int num = 1; num <= MAX_NUM; num++) {
+            Assert.assertEquals(getIds(articleRepository.getMostCommentArticlesSnapshot(num)),
+                                getIds(articleRepository.getMostCommentArticles(num)));
+            Assert.assertEquals(getIds(articleRepository.getMostViewCountArticlesSnapshot(num)),
+                                getIds(articleRepository.getMostViewCountArticles(num)));
+        }
+    }
+
+    /**
+     * Asserts the tag leaderboard is the same as the query.
+     *
+     * @throws Exception exception
+     */
+    private void assertTagLeaderboard() throws Exception {
+        final TagRepository tagRepository = getTagRepository();
+
+        for (int num = 1; num <= MAX_NUM; num++) {
+            Assert.assertEquals(getIds(tagRepository.getMostUsedTagsSnapshot(num)),
+                                getIds(tagRepository.getMostUsedTags(num)));
+        }
+    }
+
+    /**
+     * Gets ids of the specified objects.
+     *
+     * @param objects the specified objects
+     * @return ids
+     */
+    private static List<String> getIds(final List<JSONObject> objects) {
+        final List<String> ret = new ArrayList<String>();
+
+        for (final JSONObject object : objects) {
+            ret.add(object.optString(Keys.OBJECT_ID));
+        }
+
+        return ret;
+    }
+}
@@ -21,6 +21,8 @@ import java.util.List;
 import org.apache.commons.io.IOUtils;
 import org.b3log.latke.util.Stopwatchs;
 import org.b3log.latke.util.Strings;
+import org.b3log.solo.model.Article;
+import org.json.JSONObject;
 import org.testng.annotations.Test;
 import org.testng.Assert;
 
@@ -28,7 +30,7 @@ import org.testng.Assert;
  * {@link org.b3log.solo.util.Markdowns} test case.
  *
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.0.0, Apr 28, 2012
+ * @version 1.0.0.2, May 24, 2012
  * @since 0.4.5
  */
 public final class MarkdownsTestCase {
@@ -74,4 +76,52 @@ public final class MarkdownsTestCase {
         System.out.println("Stopwatch: ");
         System.out.println(Stopwatchs.getTimingStat());
     }
+
+    /**
+     * Test method for {@linkplain Markdowns#toHTML(java.lang.String)} with the HTML cache.
+     * 
+     * @throws Exception exception
+     */
+    @Test
+    public void toHTMLCached() throws Exception {
+        Markdowns.clearCache();
+
+        final String markdownText = "## Cached *Markdown*";
+
+        final long misses = Markdowns.getCacheMissCount();
+        final long hits = Markdowns.getCacheHitCount();
+
+        final String html = Markdowns.toHTML(markdownText);
+        Assert.assertEquals(Markdowns.getCacheMissCount(), misses + 1);
+
+        Assert.assertSame(Markdowns.toHTML(markdownText), html);
+        Assert.assertEquals(Markdowns.getCacheHitCount(), hits + 1);
+        Assert.assertEquals(Markdowns.getCacheMissCount(), misses + 1);
+
+        Markdowns.toHTML(markdownText + " changed");
+        Assert.assertEquals(Markdowns.getCacheMissCount(), misses + 2);
+    }
+
+    /**
+     * Test method for {@linkplain Markdowns#renderArticle(org.json.JSONObject)}.
+     * 
+     * @throws Exception exception
+     */
+    @Test
+    public void renderArticle() throws Exception {
+        final JSONObject article = new JSONObject();
+        article.put(Article.ARTICLE_CONTENT, "# Content");
+        article.put(Article.ARTICLE_ABSTRACT, "");
+        article.put(Article.ARTICLE_EDITOR_TYPE, Markdowns.EDITOR_TYPE);
+
+        Markdowns.renderArticle(article);
+        Assert.assertEquals(article.getString(Article.ARTICLE_CONTENT_HTML), Markdowns.toHTML("# Content"));
+        Assert.assertFalse(article.has(Article.ARTICLE_ABSTRACT_HTML));
+        Assert.assertEquals(article.getString(Article.ARTICLE_HTML_VERSION), Markdowns.RENDERER_VERSION);
+
+        article.put(Article.ARTICLE_EDITOR_TYPE, "tinyMCE");
+        Markdowns.renderArticle(article);
+        Assert.assertFalse(article.has(Article.ARTICLE_CONTENT_HTML));
+        Assert.assertFalse(article.has(Article.ARTICLE_HTML_VERSION));
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.util.Arrays;
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link org.b3log.solo.util.PostingList} test case.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public final class PostingListTestCase {
+
+    /**
+     * Test method for {@linkplain PostingList#build(java.util.List, java.util.List)} and
+     * {@linkplain PostingList#getPage(int, int)}.
+     */
+    @Test
+    public void build() {
+        final List<String> ids = Arrays.asList("1337760000001", "1337760000300", "1337760000200");
+        final List<Long> times = Arrays.asList(1337760000001L, 1337760000300L, 1337760000300L);
+
+        final PostingList postings = PostingList.build(ids, times);
+
+        Assert.assertEquals(postings.size(), 3);
+        Assert.assertEquals(postings.getPage(1, 2), Arrays.asList("1337760000300", "1337760000200"));
+        Assert.assertEquals(postings.getPage(2, 2), Arrays.asList("1337760000001"));
+        Assert.assertTrue(postings.getPage(3, 2).isEmpty());
+        Assert.assertEquals(postings.indexOf("1337760000001"), 2);
+        Assert.assertEquals(postings.indexOf("0"), -1);
+    }
+
+    /**
+     * Test method for {@linkplain PostingList#add(java.lang.String, long)} and
+     * {@linkplain PostingList#remove(java.lang.String)}.
+     */
+    @Test
+    public void addRemove() {
+        PostingList postings = PostingList.EMPTY.add("1337760000100", 1337760000100L);
+        postings = postings.add("1337760000300", 1337760000300L);
+        postings = postings.add("1337760000200", 1337760000200L);
+
+        Assert.assertEquals(postings.getIds(0, 3), Arrays.asList("1337760000300", "1337760000200", "1337760000100"));
+
+        // Re-adds with a new time
+        postings = postings.add("1337760000100", 1337760000400L);
+        Assert.assertEquals(postings.getIds(0, 3), Arrays.asList("1337760000100", "1337760000300", "1337760000200"));
+
+        postings = postings.remove("1337760000300");
+        Assert.assertEquals(postings.getIds(0, 3), Arrays.asList("1337760000100", "1337760000200"));
+        Assert.assertSame(postings.remove("not found"), postings);
+    }
+
+    /**
+     * Test method for {@linkplain PostingList#encode()} and {@linkplain PostingList#decode(java.lang.String)}.
+     */
+    @Test
+    public void encodeDecode() {
+        Assert.assertEquals(PostingList.EMPTY.encode(), "");
+        Assert.assertEquals(PostingList.decode(null).size(), 0);
+
+        final PostingList postings = PostingList.EMPTY.add("1337760000123", 1337760000000L).
+                add("1337760000456", 1337760000456L).
+                add("article~1", 1337760000200L).
+                add("0123", 1337760000100L);
+
+        final String encoded = postings.encode();
+        final PostingList decoded = PostingList.decode(encoded);
+
+        Assert.assertEquals(decoded.size(), postings.size());
+        Assert.assertEquals(decoded.getIds(0, 4), postings.getIds(0, 4));
+        Assert.assertEquals(decoded.encode(), encoded);
+    }
+
+    /**
+     * Test method for {@linkplain PostingList#decode(java.lang.String)} with a malformed posting list.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void decodeMalformed() {
+        PostingList.decode("i6s9dq8g,2cl:1");
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.IOUtils;
+import org.b3log.latke.model.User;
+import org.b3log.solo.AbstractTestCase;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.model.Common;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link Sitemaps} test case.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public class SitemapsTestCase extends AbstractTestCase {
+
+    /**
+     * Blog host.
+     */
+    private static final String HOST = "localhost:8080";
+
+    /**
+     * Init.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void init() throws Exception {
+        final JSONObject requestJSONObject = new JSONObject();
+        requestJSONObject.put(User.USER_EMAIL, "test@gmail.com");
+        requestJSONObject.put(User.USER_NAME, "Admin");
+        requestJSONObject.put(User.USER_PASSWORD, "pass");
+
+        getInitService().init(requestJSONObject);
+    }
+
+    /**
+     * Test method for {@linkplain Sitemaps#getSitemap(java.lang.String, java.lang.String)}.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "init")
+    public void getSitemap() throws Exception {
+        final Sitemaps sitemaps = Sitemaps.getInstance();
+
+        String sitemap = gunzip(sitemaps.getSitemap(Sitemaps.SITEMAP_URI, HOST));
+        Assert.assertTrue(sitemap.startsWith("<?xml version='1.0' encoding='UTF-8'?><urlset"));
+        Assert.assertTrue(sitemap.endsWith("</urlset>"));
+        Assert.assertTrue(sitemap.contains("<loc>http://" + HOST + "/tags.html</loc>"));
+
+        // Not split
+        Assert.assertNull(sitemaps.getSitemap(Sitemaps.MISC_SITEMAP_URI, HOST));
+
+        final JSONObject requestJSONObject = new JSONObject();
+        final JSONObject article = new JSONObject();
+        requestJSONObject.put(Article.ARTICLE, article);
+
+        article.put(Article.ARTICLE_AUTHOR_EMAIL, "test@gmail.com");
+        article.put(Article.ARTICLE_TITLE, "sitemap title");
+        article.put(Article.ARTICLE_ABSTRACT, "sitemap abstract");
+        article.put(Article.ARTICLE_CONTENT, "sitemap content");
+        article.put(Article.ARTICLE_TAGS_REF, "sitemap");
+        article.put(Article.ARTICLE_PERMALINK, "");
+        article.put(Article.ARTICLE_IS_PUBLISHED, true);
+        article.put(Common.POST_TO_COMMUNITY, false);
+        article.put(Article.ARTICLE_SIGN_ID, "1");
+        article.put(Article.ARTICLE_COMMENTABLE, true);
+        article.put(Article.ARTICLE_VIEW_PWD, "");
+
+        final String articleId = getArticleMgmtService().addArticle(requestJSONObject);
+        final String permalink = getArticleRepository().get(articleId).getString(Article.ARTICLE_PERMALINK);
+
+        // Regenerated after the article added
+        sitemap = gunzip(sitemaps.getSitemap(Sitemaps.SITEMAP_URI, HOST));
+        Assert.assertTrue(sitemap.contains("<loc>http://" + HOST + permalink + "</loc>"));
+        Assert.assertTrue(sitemap.contains("<loc>http://" + HOST + "/tags/sitemap</loc>"));
+
+        getArticleMgmtService().removeArticle(articleId);
+
+        sitemap = gunzip(sitemaps.getSitemap(Sitemaps.SITEMAP_URI, HOST));
+        Assert.assertFalse(sitemap.contains(permalink));
+    }
+
+    /**
+     * Decompresses the specified gzipped content.
+     *
+     * @param content the specified gzipped content
+     * @return decompressed content
+     * @throws Exception exception
+     */
+    private static String gunzip(final byte[] content) throws Exception {
+        return IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(content)), "UTF-8");
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import freemarker.cache.StringTemplateLoader;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link Skins} test case.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.1, May 24, 2012
+ * @since 0.4.5
+ */
+public final class SkinsTestCase {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SkinsTestCase.class.getName());
+    /**
+     * Label count, about the count of a skin's language configurations.
+     */
+    private static final int LABEL_CNT = 256;
+
+    /**
+     * Tests sharing language configurations with a template configuration.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void share() throws Exception {
+        final Configuration cfg = newConfiguration("${blogLabel}<#if oldLabel??>${oldLabel}</#if>, ${title}");
+        final Template template = cfg.getTemplate("test.ftl");
+
+        final Map<String, String> sharedLangs = new HashMap<String, String>();
+        sharedLangs.put("blogLabel", "Blog");
+        sharedLangs.put("oldLabel", " Old");
+        Skins.share(cfg, sharedLangs);
+
+        final Map<String, Object> dataModel = new HashMap<String, Object>();
+        dataModel.put("title", "Solo");
+        Assert.assertEquals(process(template, dataModel), "Blog Old, Solo");
+
+        // The labels of a changed locale filled into the data model override the shared layer
+        dataModel.put("blogLabel", "博客");
+        Assert.assertEquals(process(template, dataModel), "博客 Old, Solo");
+    }
+
+    /**
+     * Benchmarks rendering with the language configurations copied into the data model against shared.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void benchmark() throws Exception {
+        final Configuration cfg = newConfiguration("${label0} ${label255}, ${title}");
+        final Template template = cfg.getTemplate("test.ftl");
+
+        final Map<String, String> langs = new HashMap<String, String>();
+        for (int i = 0; i < LABEL_CNT; i++) {
+            langs.put("label" + i, "Label " + i);
+        }
+
+        final int rounds = 10000;
+
+        // Warm up
+        renderCopied(template, langs, rounds);
+        final long[] copied = renderCopied(template, langs, rounds);
+
+        Skins.share(cfg, langs);
+        renderShared(template, rounds);
+        final long[] shared = renderShared(template, rounds);
+
+        LOGGER.log(Level.INFO, "Skin langs benchmark[labels={0}, rounds={1}, copied={2}ms/{3}KB, shared={4}ms/{5}KB]",
+                   new Object[]{LABEL_CNT, rounds, copied[0], copied[1], shared[0], shared[1]});
+    }
+
+    /**
+     * Renders the specified template with the specified language configurations copied into each data model.
+     *
+     * @param template the specified template
+     * @param langs the specified language configurations
+     * @param rounds the specified rounds
+     * @return time in milliseconds and allocated bytes in kilobytes ({@code -1} if not supported)
+     * @throws Exception exception
+     */
+    private static long[] renderCopied(final Template template, final Map<String, String> langs, final int rounds)
+            throws Exception {
+        final long startBytes = getAllocatedBytes();
+        final long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            final Map<String, Object> dataModel = new HashMap<String, Object>();
+            dataModel.put("title", "Solo");
+            dataModel.putAll(langs);
+
+            process(template, dataModel);
+        }
+
+        return measured(start, startBytes);
+    }
+
+    /**
+     * Renders the specified template with the language configurations shared.
+     *
+     * @param template the specified template
+     * @param rounds the specified rounds
+     * @return time in milliseconds and allocated bytes in kilobytes ({@code -1} if not supported)
+     * @throws Exception exception
+     */
+    private static long[] renderShared(final Template template, final int rounds) throws Exception {
+        final long startBytes = getAllocatedBytes();
+        final long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            final Map<String, Object> dataModel = new HashMap<String, Object>();
+            dataModel.put("title", "Solo");
+
+            process(template, dataModel);
+        }
+
+        return measured(start, startBytes);
+    }
+
+    /**
+     * Gets the time and allocated bytes elapsed from the specified start.
+     *
+     * @param start the specified start time in nanoseconds
+     * @param startBytes the specified start allocated bytes
+     * @return time in milliseconds and allocated bytes in kilobytes ({@code -1} if not supported)
+     */
+    private static long[] measured(final long start, final long startBytes) {
+        final long time = (System.nanoTime() - start) / 1000000;
+        final long bytes = getAllocatedBytes();
+
+        return new long[]{time, -1 == bytes ? -1 : (bytes - startBytes) / 1024};
+    }
+
+    /**
+     * Gets the bytes allocated by the current thread.
+     *
+     * @return allocated bytes, returns {@code -1} if not supported by the JVM
+     */
+    private static long getAllocatedBytes() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return -1;
+    }
+
+    /**
+     * Creates a template configuration with a template named "test.ftl" of the specified source.
+     *
+     * @param source the specified source
+     * @return template configuration
+     */
+    private static Configuration newConfiguration(final String source) {
+        final StringTemplateLoader templateLoader = new StringTemplateLoader();
+        templateLoader.putTemplate("test.ftl", source);
+
+        final Configuration ret = new Configuration();
+        ret.setTemplateLoader(templateLoader);
+
+        return ret;
+    }
+
+    /**
+     * Processes the specified template with the specified data model.
+     *
+     * @param template the specified template
+     * @param dataModel the specified data model
+     * @return output
+     * @throws Exception exception
+     */
+    private static String process(final Template template, final Map<String, Object> dataModel) throws Exception {
+        final StringWriter stringWriter = new StringWriter();
+        template.process(dataModel, stringWriter);
+
+        return stringWriter.toString();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2009, 2010, 2011, 2012, B3log Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.b3log.solo.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.lang.StringEscapeUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link XMLWriter} test case.
+ *
+ * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
+ * @version 1.0.0.0, May 24, 2012
+ * @since 0.4.5
+ */
+public final class XMLWriterTestCase {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(XMLWriterTestCase.class.getName());
+    /**
+     * Discarding output stream.
+     */
+    private static final OutputStream DISCARD = new OutputStream() {
+
+        @Override
+        public void write(final int b) {
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+        }
+    };
+
+    /**
+     * Tests elements, attributes and texts writing.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void write() throws Exception {
+        final StringWriter stringWriter = new StringWriter();
+        final XMLWriter writer = new XMLWriter(stringWriter);
+
+        writer.startDocument();
+        writer.startElement("feed").attribute("xmlns", "http://www.w3.org/2005/Atom");
+        writer.startElement("link").attribute("href", "http://b3log.org/?a=1&b=\"2\"").endElement();
+        writer.element("title", "B3log <Solo> & \"Latke\"\u0001");
+        writer.element("summary", null);
+        writer.element("content", "中文");
+        writer.endDocument();
+
+        Assert.assertEquals(stringWriter.toString(),
+                            "<?xml version=\"1.0\" encoding=\"UTF-8\"?><feed xmlns=\"http://www.w3.org/2005/Atom\">"
+                            + "<link href=\"http://b3log.org/?a=1&amp;b=&quot;2&quot;\" />"
+                            + "<title>B3log &lt;Solo&gt; &amp; \"Latke\"</title><summary /><content>中文</content></feed>");
+    }
+
+    /**
+     * Tests writing an attribute after a text.
+     *
+     * @throws Exception exception
+     */
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void attributeAfterText() throws Exception {
+        final XMLWriter writer = new XMLWriter(new StringWriter());
+
+        writer.startElement("title").text("title").attribute("type", "text");
+    }
+
+    /**
+     * Tests writing a text longer than the buffer.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void writeLongText() throws Exception {
+        final String text = newText(10000);
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final XMLWriter writer = new XMLWriter(outputStream);
+        writer.element("content", text);
+        writer.endDocument();
+
+        Assert.assertEquals(outputStream.toString("UTF-8"),
+                            "<content>" + text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                            + "</content>");
+    }
+
+    /**
+     * Benchmarks the streaming writer against building the document as a string with
+     * {@link StringEscapeUtils#escapeXml(java.lang.String)} (the previous feed and MetaWeblog path).
+     *
+     * <p>
+     * Writes 10 entries with 64K characters content each to a discarding output stream. The string path allocates
+     * the escaped copies and the whole document (and its bytes), the streaming path allocates a fixed size buffer
+     * only.
+     * </p>
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void benchmark() throws Exception {
+        final int entryCnt = 10;
+        final int rounds = 20;
+        final String content = newText(65536);
+
+        // Warm up
+        writeString(content, entryCnt);
+        writeStream(content, entryCnt);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            writeString(content, entryCnt);
+        }
+        final long stringTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            writeStream(content, entryCnt);
+        }
+        final long streamTime = System.nanoTime() - start;
+
+        LOGGER.log(Level.INFO, "XML writing benchmark[string={0}ms, stream={1}ms, rounds={2}]",
+                   new Object[]{stringTime / 1000000, streamTime / 1000000, rounds});
+    }
+
+    /**
+     * Builds a document with string builder and escape utilities, then writes it to a discarding output stream.
+     *
+     * @param content the specified entry content
+     * @param entryCnt the specified entry count
+     * @throws IOException io exception
+     */
+    private static void writeString(final String content, final int entryCnt) throws IOException {
+        final StringBuilder stringBuilder = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?><feed>");
+        for (int i = 0; i < entryCnt; i++) {
+            stringBuilder.append("<entry><title>").append(StringEscapeUtils.escapeXml("title " + i)).append("</title>");
+            stringBuilder.append("<summary>").append(StringEscapeUtils.escapeXml(content)).append("</summary></entry>");
+        }
+        stringBuilder.append("</feed>");
+
+        DISCARD.write(stringBuilder.toString().getBytes("UTF-8"));
+    }
+
+    /**
+     * Writes a document with an XML writer to a discarding output stream.
+     *
+     * @param content the specified entry content
+     * @param entryCnt the specified entry count
+     * @throws IOException io exception
+     */
+    private static void writeStream(final String content, final int entryCnt) throws IOException {
+        final XMLWriter writer = new XMLWriter(DISCARD);
+        writer.startDocument().startElement("feed");
+        for (int i = 0; i < entryCnt; i++) {
+            writer.startElement("entry").element("title", "title " + i).element("summary", content).endElement();
+        }
+        writer.endDocument();
+    }
+
+    /**
+     * Generates a text with markup characters of the specified length.
+     *
+     * @param length the specified length
+     * @return text
+     */
+    private static String newText(final int length) {
+        final StringBuilder ret = new StringBuilder(length);
+        final String segment = "<p>B3log Solo & Latke, 中文</p>\n";
+        while (ret.length() < length) {
+            ret.append(segment);
+        }
+        ret.setLength(length);
+
+        return ret.toString();
+    }
+}
@@ -18,7 +18,7 @@
  *
  * @author <a href="mailto:LLY219@gmail.com">Liyuan Li</a>
  * @author <a href="mailto:DL88250@gmail.com">Liang Ding</a>
- * @version 1.0.3.0, May 22, 2012
+ * @version 1.0.3.1, May 24, 2012
  */
 var Page = function (tips) {
     this.currentCommentId = "";
@@ -693,6 +693,47 @@ $.extend(Page.prototype, {
         }
     },
 
+    /*
+     * @description 加载下一页评论，评论游标为空时移除“更多评论”按钮
+     * @param {Function} renderComment 生成一条评论 HTML 的函数
+     * @param {String} listSelector 评论列表选择器
+     */
+    loadMoreComments: function (renderComment, listSelector) {
+        var that = this;
+        $("#moreComments").attr("disabled", "disabled");
+        $.ajax({
+            url: latkeConfig.servePath + "/comments.do",
+            type: "GET",
+            cache: false,
+            data: {
+                "oId": this.tips.oId,
+                "cursor": this.tips.commentCursor
+            },
+            success: function(result, textStatus){
+                if (!result.sc) {
+                    $("#moreComments").removeAttr("disabled");
+                    return;
+                }
+
+                var commentsHTML = "";
+                for (var i = 0; i < result.comments.length; i++) {
+                    commentsHTML += renderComment(result.comments[i]);
+                }
+                $(listSelector).append(commentsHTML);
+
+                that.tips.commentCursor = result.commentCursor;
+                if ("" === result.commentCursor) {
+                    $("#moreComments").remove();
+                } else {
+                    $("#moreComments").removeAttr("disabled");
+                }
+            },
+            error: function () {
+                $("#moreComments").removeAttr("disabled");
+            }
+        });
+    },
+
     /* 
      * @description 回复不刷新，将回复内容异步添加到评论列表中
      * @parma {String} commentHTML 回复内容 HTML
@@ -0,0 +1,78 @@
+<!DOCTYPE html>
+<html>
+    <head>
+        <meta charset="utf-8" />
+        <title><#if keyword != "">${keyword?html} - </#if>${searchLabel} - ${blogTitle}</title>
+        <meta name="author" content="B3log Team" />
+        <meta name="generator" content="B3log" />
+        <meta name="copyright" content="B3log" />
+        <meta name="revised" content="B3log, ${year}" />
+        <meta name="robots" content="noindex, follow" />
+        <meta http-equiv="Window-target" content="_top" />
+        <link type="text/css" rel="stylesheet" href="${staticServePath}/css/default-init${miniPostfix}.css?${staticResourceVersion}" charset="utf-8" />
+        <link rel="icon" type="image/png" href="${staticServePath}/favicon.png" />
+    </head>
+    <body>
+        <div class="wrapper">
+            <div class="wrap">
+                <div class="content">
+                    <div class="logo">
+                        <a href="${servePath}">
+                            <img border="0" width="153" height="56" alt="B3log" title="B3log" src="${staticServePath}/images/logo.jpg"/>
+                        </a>
+                    </div>
+                    <div class="main search">
+                        <form method="GET" action="${servePath}/search">
+                            <input type="text" id="keyword" name="keyword" value="${keyword?html}" />
+                            <button id="search" type="submit">${searchLabel}</button>
+                        </form>
+                        <#if keyword != "">
+                        <h2>${searchResultLabel} (${searchHitCountLabel}: ${searchHitCount})</h2>
+                        <#if !searchIndexReady>
+                        <div>${searchIndexNotReadyLabel}</div>
+                        <#elseif 0 == searchHitCount>
+                        <div>${searchNoResultLabel}</div>
+                        <#else>
+                        <ul>
+                            <#list searchHits as searchHit>
+                            <li>
+                                <a href="${servePath}${searchHit.searchHitPermalink}">${searchHit.searchHitTitle?html}</a>
+                                <div>${searchHit.searchHitExcerpt?html}</div>
+                            </li>
+                            </#list>
+                        </ul>
+                        <div class="pagination">
+                            <#if paginationPreviousPageNum??>
+                            <a href="${servePath}/search?keyword=${keyword?url('UTF-8')}&p=${paginationPreviousPageNum}">&lt;</a>
+                            </#if>
+                            <#list paginationPageNums as paginationPageNum>
+                            <#if paginationPageNum == paginationCurrentPageNum>
+                            <span>${paginationPageNum}</span>
+                            <#else>
+                            <a href="${servePath}/search?keyword=${keyword?url('UTF-8')}&p=${paginationPageNum}">${paginationPageNum}</a>
+                            </#if>
+                            </#list>
+                            <#if paginationNextPageNum??>
+                            <a href="${servePath}/search?keyword=${keyword?url('UTF-8')}&p=${paginationNextPageNum}">&gt;</a>
+                            </#if>
+                        </div>
+                        </#if>
+                        </#if>
+                    </div>
+                    <span class="clear"></span>
+                </div>
+            </div>
+
+            <div class="footerWrapper">
+                <div class="footer">
+                    &copy; ${year} - <a href="http://${blogHost}">${blogTitle}</a><br/>
+                    Powered by
+                    <a href="http://b3log.org" target="_blank">
+                        ${b3logLabel}&nbsp;
+                        <span class="solo">Solo</span></a>,
+                    ver ${version}
+                </div>
+            </div>
+        </div>
+    </body>
+</html>
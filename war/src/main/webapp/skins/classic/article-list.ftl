@@ -73,12 +73,14 @@
         <#list paginationPageNums as paginationPageNum>
         <#if paginationPageNum == paginationCurrentPageNum>
         <a href="${servePath}${path}/${paginationPageNum}" class="selected">${paginationPageNum}</a>
+        <#elseif nextCursor?? && paginationPageNum == paginationCurrentPageNum + 1>
+        <a href="${servePath}${path}/${paginationPageNum}?cursor=${nextCursor?url('UTF-8')}">${paginationPageNum}</a>
         <#else>
         <a href="${servePath}${path}/${paginationPageNum}">${paginationPageNum}</a>
         </#if>
         </#list>
         <#if paginationPageNums?last != paginationPageCount>
-        <a id="nextPage" href="${servePath}${path}/${paginationNextPageNum}">${nextPagePabel}</a>
+        <a id="nextPage" href="${servePath}${path}/${paginationNextPageNum}<#if nextCursor?? && paginationNextPageNum?has_content>?cursor=${nextCursor?url('UTF-8')}</#if>">${nextPagePabel}</a>
         <a href="${servePath}${path}/${paginationPageCount}">${lastPageLabel}</a>
         </#if>
         &nbsp;&nbsp;${sumLabel} ${paginationPageCount} ${pageLabel}
@@ -5,7 +5,9 @@
     ${noCommentLabel}
     </#if>
     <#list commentList as comment>
-    <div id="${comment.oId}">
+    <#assign commentIndent = comment.commentDepth!0>
+    <#if commentIndent gt 4><#assign commentIndent = 4></#if>
+    <div id="${comment.oId}" style="margin-left: ${commentIndent * 24}px;">
         <div class="comment-panel">
             <div class="comment-title">
                 <#if "http://" == comment.commentURL>
@@ -42,6 +44,9 @@
     </div>
     </#list>
 </div>
+<#if "" != commentCursor!"">
+<button id="moreComments" onclick="page.loadMoreComments(renderComment, '#comments');">${moreCommentsLabel}</button>
+</#if>
 <#if article.commentable>
 <div class="comment-title">
     ${postCommentsLabel}
@@ -137,6 +142,7 @@
         "captchaCannotEmptyLabel": "${captchaCannotEmptyLabel}",
         "loadingLabel": "${loadingLabel}",
         "oId": "${oId}",
+        "commentCursor": "${commentCursor!""}",
         "skinDirName": "${skinDirName}",
         "blogHost": "${blogHost}",
         "randomArticles1Label": "${randomArticles1Label}",
@@ -166,6 +172,34 @@
         return commentHTML;
     }
 
+    var renderComment = function (comment) {
+        var commentHTML = '<div id="' + comment.oId + '" style="margin-left: ' + Math.min(comment.commentDepth || 0, 4) * 24
+            + 'px;"><div class="comment-panel"><div class="comment-title">';
+
+        if ("http://" === comment.commentURL) {
+            commentHTML += '<a>' + comment.commentName + '</a>';
+        } else {
+            commentHTML += '<a href="' + comment.commentURL + '" target="_blank">' + comment.commentName + '</a>';
+        }
+
+        if (comment.isReply) {
+            commentHTML += '&nbsp;@&nbsp;<a href="${servePath}' + comment.commentSharpURL.split("#")[0] + '#' + comment.commentOriginalCommentId + '"'
+                + ' onmouseover="page.showComment(this, \'' + comment.commentOriginalCommentId + '\', 23);"'
+                + ' onmouseout="page.hideComment(\'' + comment.commentOriginalCommentId + '\')">' + comment.commentOriginalCommentName + '</a>';
+        }
+
+        commentHTML += '<div class="right">' + comment.commentDate;
+        if ($("#commentForm").length > 0) {
+            commentHTML += '&nbsp;<a class="no-underline" href="javascript:replyTo(\'' + comment.oId + '\');">${replyLabel}</a>';
+        }
+        commentHTML += '</div><div class="clear"></div></div><div class="comment-body">'
+            + '<div class="left comment-picture"><img alt="' + comment.commentName + '" src="' + comment.commentThumbnailURL + '"/>'
+            + '</div><div class="comment-content">' + Util.replaceEmString(comment.commentContent)
+            + '</div><div class="clear"></div>'
+            + '</div></div></div>';
+        return commentHTML;
+    };
+
     var replyTo = function (id) {
         var commentFormHTML = "<table class='form comment-reply' id='replyForm'>";
         page.addReplyForm(id, commentFormHTML);
@@ -4,12 +4,14 @@
 <div class="comment_wrapper" id="comments">
     <#if 0 lt commentList?size>
     <h3 onclick="bnc_showhide_coms_toggle();" id="com-head">
-        ${commentList?size} ${responses}
+        ${(article.articleCommentCount)!(article.pageCommentCount)!commentList?size} ${responses}
     </h3>
     </#if>
     <ol class="commentlist" id="commentlist">
         <#list commentList as comment>
-        <li id="${comment.oId}">
+        <#assign commentIndent = comment.commentDepth!0>
+        <#if commentIndent gt 4><#assign commentIndent = 4></#if>
+        <li id="${comment.oId}" style="margin-left: ${commentIndent * 12}px;">
             <div class="comwrap">
                 <div class="comtop"><!--TODO comment->comment_approved == '0') : comtop preview;-->
                     <img alt='${comment.commentName}' src='${comment.commentThumbnailURL}' class='avatar avatar-64 photo' height='64' width='64' />
@@ -39,6 +41,9 @@
         </li>
         </#list>
     </ol>
+    <#if "" != commentCursor!"">
+    <button id="moreComments" onclick="page.loadMoreComments(renderComment, '#commentlist');">${moreCommentsLabel}</button>
+    </#if>
     <#if article.commentable>
     <div id="textinputwrap">
         <div id="refresher" style="display:none;">
@@ -153,6 +158,32 @@
         }
     };
     
+    var renderComment = function (comment) {
+        var commentHTML = '<li id="' + comment.oId + '" style="margin-left: ' + Math.min(comment.commentDepth || 0, 4) * 12
+            + 'px;"><div class="comwrap"><div class="comtop">'
+            + "<img alt='" + comment.commentName + "' src='" + comment.commentThumbnailURL + "' class='avatar avatar-64 photo' height='64' width='64' />"
+            + '<div class="com-author">';
+
+        if ("http://" === comment.commentURL) {
+            commentHTML += '<a>' + comment.commentName + '</a>';
+        } else {
+            commentHTML += "<a href='" + comment.commentURL + "' rel='external nofollow' target='_blank' class='url'>" + comment.commentName + '</a>';
+        }
+
+        if (comment.isReply) {
+            commentHTML += ' @ <a href="${servePath}' + comment.commentSharpURL.split("#")[0] + '#' + comment.commentOriginalCommentId + '">'
+                + comment.commentOriginalCommentName + '</a>';
+        }
+
+        commentHTML += '</div>';
+        if ($("#commentForm").length > 0) {
+            commentHTML += '<div class="comdater">' + comment.commentDate
+                + ' <a rel="nofollow" href="javascript:replyTo(\'' + comment.oId + '\');">${replyLabel}</a></div>';
+        }
+        commentHTML += '</div><div class="combody"><p>' + Util.replaceEmString(comment.commentContent) + '</p></div></div></li>';
+        return commentHTML;
+    };
+
     var replyTo = function (id) {
         var commentFormHTML = "<div id='replyForm'>";
         page.addReplyForm(id, commentFormHTML, "</div>");
@@ -166,6 +197,7 @@
         "captchaCannotEmptyLabel": "${captchaCannotEmptyLabel}",
         "loadingLabel": "${loadingLabel}",
         "oId": "${oId}",
+        "commentCursor": "${commentCursor!""}",
         "skinDirName": "${skinDirName}",
         "blogHost": "${blogHost}",
         "randomArticles1Label": "${randomArticles1Label}",